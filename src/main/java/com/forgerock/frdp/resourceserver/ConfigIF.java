@@ -15,6 +15,7 @@ public interface ConfigIF {
    public static final String AS_COOKIE = "as.cookie";
    public static final String AS_ADMIN_USER = "as.admin.user";
    public static final String AS_ADMIN_PASSWORD = "as.admin.password";
+   public static final String AS_ADMIN_RENEW_INTERVAL = "as.admin.renew_interval";
    public static final String AS_AUTHENTICATE_HEADERS_USER = "as.authenticate.headers.user";
    public static final String AS_AUTHENTICATE_HEADERS_PASSWORD = "as.authenticate.headers.password";
    public static final String AS_AUTHENTICATE_PARAMS = "as.authenticate.params";
@@ -26,8 +27,13 @@ public interface ConfigIF {
    public static final String AS_OAUTH2_ACCESS_TOKEN_ACCEPT = "as.oauth2.access_token.accept-api-version";
    public static final String AS_OAUTH2_ACCESS_TOKEN_PATH = "as.oauth2.access_token.path";
    public static final String AS_OAUTH2_TOKENINFO_PATH = "as.oauth2.tokeninfo.path";
+   public static final String AS_OAUTH2_INTROSPECT_CACHE_INACTIVE_TTL = "as.oauth2.introspect.cache.inactive_ttl";
+   public static final String AS_OAUTH2_INTROSPECT_CACHE_MAX_ENTRIES = "as.oauth2.introspect.cache.max_entries";
+   public static final String AS_OAUTH2_INTROSPECT_CACHE_MAX_TTL = "as.oauth2.introspect.cache.max_ttl";
    public static final String AS_SESSIONS_ACCEPT = "as.sessions.accept-api-version";
    public static final String AS_SESSIONS_PATH = "as.sessions.path";
+   public static final String AS_SESSIONS_CACHE_MAX_ENTRIES = "as.sessions.cache.max_entries";
+   public static final String AS_SESSIONS_CACHE_MAX_STALENESS = "as.sessions.cache.max_staleness";
    public static final String AS_UMA_PATH = "as.uma.path";
    public static final String AS_UMA_PENDINGREQUESTS_PATH = "as.uma.pendingrequests.path";
    public static final String AS_UMA_PENDINGREQUESTS_ACCEPT = "as.uma.pendingrequests.accept-api-version";
@@ -35,26 +41,40 @@ public interface ConfigIF {
    public static final String AS_UMA_PENDINGREQUESTS_SORTKEYS = "as.uma.pendingrequests.sortkeys";
    public static final String AS_UMA_PERMISSION_REQUEST_PATH = "as.uma.permission_request.path";
    public static final String AS_UMA_POLICIES_ACCEPT = "as.uma.policies.accept-api-version";
+   public static final String AS_UMA_POLICIES_CACHE_MAX_ENTRIES = "as.uma.policies.cache.max_entries";
+   public static final String AS_UMA_POLICIES_CACHE_TTL = "as.uma.policies.cache.ttl";
    public static final String AS_UMA_POLICIES_PATH = "as.uma.policies.path";
+   public static final String AS_UMA_RESOURCE_SET_CACHE_MAX_ENTRIES = "as.uma.resource_set.cache.max_entries";
+   public static final String AS_UMA_RESOURCE_SET_CACHE_TTL = "as.uma.resource_set.cache.ttl";
    public static final String AS_UMA_RESOURCE_SET_PATH = "as.uma.resource_set.path";
    public static final String AS_UMA_SHAREDWITHME_PATH = "as.uma.sharedwithme.path";
    public static final String AS_UMA_SHAREDWITHME_ACCEPT = "as.uma.sharedwithme.accept-api-version";
    public static final String AS_UMA_SHAREDWITHME_QUERYFILTER = "as.uma.sharedwithme.queryfilter";
    public static final String AS_UMA_SHAREDWITHME_SORTKEYS = "as.uma.sharedwithme.sortkeys";
    public static final String AS_UMA_WELL_KNOWN_PATH = "as.uma.well_known.path";
+   public static final String AS_UMA_WELL_KNOWN_REFRESH_INTERVAL = "as.uma.well_known.refresh_interval";
 
    public static final String CS_CONNECT = "cs.connect";
 
+   public static final String RS_FANOUT_MAX_THREADS = "rs.fanout.max_threads";
+   public static final String RS_FANOUT_PARALLELISM = "rs.fanout.parallelism";
+   public static final String RS_FANOUT_TIMEOUT = "rs.fanout.timeout";
    public static final String RS_HEADERS_SSOTOKEN = "rs.headers.ssotoken";
    public static final String RS_HEADERS_RPT = "rs.headers.rpt";
    public static final String RS_ID = "rs.id";
+   public static final String RS_CREDENTIAL_CATEGORIES_PAT_CACHE_MAX_ENTRIES = "rs.credential.categories.pat.cache.max_entries";
    public static final String RS_CREDENTIAL_CATEGORIES_PAT_ID = "rs.credential.categories.pat.id";
    public static final String RS_CREDENTIAL_CATEGORIES_SSO_ID = "rs.credential.categories.sso.id";
    public static final String RS_OAUTH2_CLIENT_ID = "rs.oauth2.client.id";
    public static final String RS_OAUTH2_CLIENT_SECRET = "rs.oauth2.client.secret";
    public static final String RS_OAUTH2_CLIENT_REDIRECT = "rs.oauth2.client.redirect";
+   public static final String RS_PAGING_MAX_SIZE = "rs.paging.max_size";
    public static final String RS_NOSQL = "rs.nosql";
    public static final String RS_NOSQL_COLLECTIONS_CREDENTIALS_NAME = "rs.nosql.collections.credentials.name";
+   public static final String RS_NOSQL_COLLECTIONS_RESOURCES_CACHE_MAX_ENTRIES = "rs.nosql.collections.resources.cache.max_entries";
+   public static final String RS_NOSQL_COLLECTIONS_RESOURCES_CACHE_NEGATIVE_TTL = "rs.nosql.collections.resources.cache.negative_ttl";
+   public static final String RS_NOSQL_COLLECTIONS_RESOURCES_CACHE_TTL = "rs.nosql.collections.resources.cache.ttl";
+   public static final String RS_NOSQL_COLLECTIONS_RESOURCES_INDEX_MAX_ENTRIES = "rs.nosql.collections.resources.index.max_entries";
    public static final String RS_NOSQL_COLLECTIONS_RESOURCES_NAME = "rs.nosql.collections.resources.name";
    public static final String RS_NOSQL_DATABASE = "rs.nosql.database";
 
@@ -0,0 +1,245 @@
+/*
+ * Copyright (c) 2020, ForgeRock, Inc., All rights reserved
+ * Use subject to license terms.
+ */
+package com.forgerock.frdp.resourceserver;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+
+/**
+ * Immutable snapshot of a configuration (JSON). All of the values are indexed
+ * by their "dot" delimited name (see ConfigIF) when the snapshot is created,
+ * a lookup does not walk the JSON. String values that contain the "owner"
+ * variable are compiled into templates, the variable is replaced without a
+ * regular expression. Objects and arrays are copied in and out of the
+ * snapshot. Safe to share between threads without locking.
+ *
+ * <pre>
+ * "path": "json/realms/root/users/__owner__/uma/policies"
+ * </pre>
+ *
+ * @author Scott Fehrman, ForgeRock, Inc.
+ */
+public final class ConfigSnapshot {
+
+   public static final String VAR_OWNER = "__owner__";
+
+   private static final Logger LOGGER = Logger.getLogger(ConfigSnapshot.class.getName());
+
+   private final Map<String, Object> _values; // name -> String, JSONObject, JSONArray
+   private final Map<String, String[]> _templates; // name -> parts around VAR_OWNER
+
+   /**
+    * Constructor
+    *
+    * @param json JSONObject configuration data
+    */
+   public ConfigSnapshot(final JSONObject json) {
+      Map<String, Object> values = new HashMap<>();
+      Map<String, String[]> templates = new HashMap<>();
+
+      if (json != null) {
+         index(null, json, values);
+      }
+
+      for (Map.Entry<String, Object> entry : values.entrySet()) {
+         if (entry.getValue() instanceof String
+            && ((String) entry.getValue()).contains(VAR_OWNER)) {
+            templates.put(entry.getKey(), compile((String) entry.getValue()));
+         }
+      }
+
+      _values = Collections.unmodifiableMap(values);
+      _templates = Collections.unmodifiableMap(templates);
+
+      return;
+   }
+
+   /**
+    * Get a String value, numbers and booleans are returned as a String
+    *
+    * @param name String "dot" delimited name
+    * @return String value, null if not found or not a value
+    */
+   public String getString(final String name) {
+      Object value = null;
+
+      value = _values.get(name);
+
+      return (value instanceof String ? (String) value : null);
+   }
+
+   /**
+    * Get a String value, the "owner" variable is replaced with the owner
+    *
+    * @param name String "dot" delimited name
+    * @param owner String replaces the "owner" variable
+    * @return String value, null if not found or not a value
+    */
+   public String getString(final String name, final String owner) {
+      String value = null;
+      String[] parts = null;
+      StringBuilder buf = null;
+
+      parts = _templates.get(name);
+
+      if (parts != null) {
+         buf = new StringBuilder(parts[0]);
+
+         for (int i = 1; i < parts.length; i++) {
+            buf.append(owner).append(parts[i]);
+         }
+
+         value = buf.toString();
+      } else {
+         value = this.getString(name);
+      }
+
+      return value;
+   }
+
+   /**
+    * Get a number, the default value is returned if the attribute is missing
+    * or is not a valid number
+    *
+    * @param name String "dot" delimited name
+    * @param defValue long default value
+    * @return long value
+    */
+   public long getLong(final String name, final long defValue) {
+      return toLong(name, this.getString(name), defValue);
+   }
+
+   /**
+    * Convert a configuration value to a number, the default value is returned
+    * if the value is empty or is not a valid number. Shared by all the
+    * configuration lookups (handlers, REST resources, bootstrap).
+    *
+    * @param name String configuration attribute name, used for the warning
+    * @param value String configuration value, may be null
+    * @param defValue long default value
+    * @return long value
+    */
+   public static long toLong(final String name, final String value,
+      final long defValue) {
+      long number = defValue;
+
+      if (value != null && !value.trim().isEmpty()) {
+         try {
+            number = Long.parseLong(value.trim());
+         } catch (NumberFormatException ex) {
+            LOGGER.log(Level.WARNING, "''{0}'' is not valid, using default ''{1}''",
+               new Object[]{name, defValue});
+         }
+      }
+
+      return number;
+   }
+
+   /**
+    * Get a copy of a JSON object
+    *
+    * @param name String "dot" delimited name
+    * @return JSONObject copy of the object, null if not found or not an object
+    */
+   public JSONObject getObject(final String name) {
+      Object value = null;
+
+      value = _values.get(name);
+
+      return (value instanceof JSONObject ? (JSONObject) copy(value) : null);
+   }
+
+   /**
+    * Get a copy of a JSON array
+    *
+    * @param name String "dot" delimited name
+    * @return JSONArray copy of the array, null if not found or not an array
+    */
+   public JSONArray getArray(final String name) {
+      Object value = null;
+
+      value = _values.get(name);
+
+      return (value instanceof JSONArray ? (JSONArray) copy(value) : null);
+   }
+
+   /*
+    * =============== PRIVATE METHODS ===============
+    */
+   private static void index(final String prefix, final JSONObject json,
+      final Map<String, Object> values) {
+      String name = null;
+      Object value = null;
+
+      for (Object obj : json.entrySet()) {
+         Map.Entry<?, ?> entry = (Map.Entry<?, ?>) obj;
+
+         name = (prefix == null ? "" : prefix + ".") + entry.getKey();
+         value = entry.getValue();
+
+         if (value instanceof JSONObject) {
+            values.put(name, copy(value));
+            index(name, (JSONObject) value, values);
+         } else if (value instanceof JSONArray) {
+            values.put(name, copy(value));
+         } else if (value != null) {
+            values.put(name, value.toString());
+         }
+      }
+
+      return;
+   }
+
+   private static String[] compile(final String template) {
+      int start = 0;
+      int index = 0;
+      List<String> parts = new ArrayList<>();
+
+      while ((index = template.indexOf(VAR_OWNER, start)) >= 0) {
+         parts.add(template.substring(start, index));
+         start = index + VAR_OWNER.length();
+      }
+
+      parts.add(template.substring(start));
+
+      return parts.toArray(new String[parts.size()]);
+   }
+
+   private static Object copy(final Object value) {
+      Object copy = null;
+      JSONObject jsonCopy = null;
+      JSONArray arrayCopy = null;
+
+      if (value instanceof JSONObject) {
+         jsonCopy = new JSONObject();
+
+         for (Object obj : ((JSONObject) value).entrySet()) {
+            Map.Entry<?, ?> entry = (Map.Entry<?, ?>) obj;
+            jsonCopy.put(entry.getKey(), copy(entry.getValue()));
+         }
+
+         copy = jsonCopy;
+      } else if (value instanceof JSONArray) {
+         arrayCopy = new JSONArray();
+
+         for (Object obj : (JSONArray) value) {
+            arrayCopy.add(copy(obj));
+         }
+
+         copy = arrayCopy;
+      } else {
+         copy = value;
+      }
+
+      return copy;
+   }
+}
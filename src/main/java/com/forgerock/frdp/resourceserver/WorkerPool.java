@@ -0,0 +1,247 @@
+/*
+ * Copyright (c) 2020, ForgeRock, Inc., All rights reserved
+ * Use subject to license terms.
+ */
+package com.forgerock.frdp.resourceserver;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Threads used to run independent calls (Authorization Server, Content
+ * Service, database) concurrently for a single request. The pool is shared
+ * by the handlers and the REST resources. Callers bound their own
+ * parallelism and deadline, idle threads are released by the pool.
+ *
+ * <pre>
+ * The number of threads is limited (see configure) and the queue is bounded.
+ * When both are full, the task runs on the calling thread, a burst of
+ * requests slows down instead of creating threads without limit.
+ * This does NOT prevent a deadlock when a pool thread waits for other pool
+ * tasks: if all the threads are waiting, the queued tasks are not run until
+ * the deadline (the queue is not full). A task running on the pool must not
+ * fan out, invokeAll() called from a pool thread runs the inputs inline.
+ * </pre>
+ *
+ * @author Scott Fehrman, ForgeRock, Inc.
+ */
+public final class WorkerPool {
+
+   private static final String CLASS = WorkerPool.class.getName();
+   private static final Logger LOGGER = Logger.getLogger(CLASS);
+   private static final AtomicInteger COUNT = new AtomicInteger(0);
+   private static final int DEFAULT_MAX_THREADS = 64;
+   private static final int QUEUE_SIZE = 256;
+   private static final long KEEP_ALIVE = 60L; // seconds
+   private static final ThreadPoolExecutor EXECUTOR = newExecutor();
+
+   private WorkerPool() {
+   }
+
+   /**
+    * Get the shared executor
+    *
+    * @return ExecutorService executor
+    */
+   public static ExecutorService getExecutor() {
+      return EXECUTOR;
+   }
+
+   /**
+    * Set the maximum number of threads, called when the application is
+    * started (see "rs.fanout.max_threads"). Threads are created up to the
+    * maximum before tasks are queued.
+    *
+    * @param maxThreads int maximum number of threads, ignored if less than 1
+    */
+   public static synchronized void configure(final int maxThreads) {
+      if (maxThreads > 0) {
+         if (maxThreads > EXECUTOR.getMaximumPoolSize()) {
+            EXECUTOR.setMaximumPoolSize(maxThreads);
+            EXECUTOR.setCorePoolSize(maxThreads);
+         } else {
+            EXECUTOR.setCorePoolSize(maxThreads);
+            EXECUTOR.setMaximumPoolSize(maxThreads);
+         }
+      }
+
+      return;
+   }
+
+   /**
+    * Stop the threads, called when the application is stopped. Tasks that
+    * are running are interrupted.
+    */
+   public static void shutdown() {
+      EXECUTOR.shutdownNow();
+   }
+
+   /**
+    * Apply the function to each of the inputs, concurrently.
+    *
+    * <pre>
+    * At most "parallelism" inputs are processed at the same time.
+    * All of the inputs must be processed within "timeout" milliseconds.
+    * The output has the same size and order as the inputs. An output is null
+    * if the function returned null, failed, or the deadline was reached.
+    * The function must be thread-safe and must not call invokeAll().
+    * If the caller is a pool thread (nested fan-out), the inputs are
+    * processed inline, on the calling thread, to avoid a deadlock.
+    * </pre>
+    *
+    * @param <T> input type
+    * @param <R> output type
+    * @param inputs List of inputs
+    * @param function Function applied to each input
+    * @param parallelism int maximum inputs processed at the same time
+    * @param timeout long milliseconds to process all the inputs
+    * @return List of outputs, same order as the inputs
+    */
+   public static <T, R> List<R> invokeAll(final List<T> inputs,
+      final Function<T, R> function, final int parallelism, final long timeout) {
+      String METHOD = "invokeAll";
+      int workers = 0;
+      long deadline = 0L;
+      AtomicInteger next = null;
+      AtomicReferenceArray<R> results = null;
+      Callable<Object> worker = null;
+      List<R> outputs = null;
+
+      LOGGER.entering(CLASS, METHOD);
+
+      outputs = new ArrayList<>();
+
+      if (inputs != null && !inputs.isEmpty() && function != null) {
+         workers = Math.min(inputs.size(), Math.max(1, parallelism));
+
+         if (workers > 1 && isPoolThread()) {
+            LOGGER.log(Level.WARNING, "{0}: called from a pool thread, {1} inputs processed inline",
+               new Object[]{METHOD, inputs.size()});
+            workers = 1;
+         }
+         deadline = System.currentTimeMillis() + timeout;
+         next = new AtomicInteger(0);
+         results = new AtomicReferenceArray<>(inputs.size());
+
+         worker = getWorker(inputs, function, results, next, deadline);
+
+         try {
+            if (workers == 1) {
+               worker.call(); // no need to leave the calling thread
+            } else {
+               EXECUTOR.invokeAll(Collections.nCopies(workers, worker),
+                  timeout, TimeUnit.MILLISECONDS);
+            }
+         } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+         } catch (Exception ex) {
+            LOGGER.log(Level.WARNING, "{0}: {1}", new Object[]{METHOD, ex.getMessage()});
+         }
+
+         for (int i = 0; i < inputs.size(); i++) {
+            outputs.add(results.get(i));
+         }
+      }
+
+      LOGGER.exiting(CLASS, METHOD);
+
+      return outputs;
+   }
+
+   /*
+    * =============== PRIVATE METHODS ===============
+    */
+   /**
+    * Create the executor. The core size is the maximum size, so threads are
+    * added before tasks are queued, idle core threads time out. If the
+    * threads and the queue are full, the caller runs the task.
+    *
+    * @return ThreadPoolExecutor executor
+    */
+   private static ThreadPoolExecutor newExecutor() {
+      ThreadPoolExecutor executor = null;
+
+      executor = new ThreadPoolExecutor(DEFAULT_MAX_THREADS, DEFAULT_MAX_THREADS,
+         KEEP_ALIVE, TimeUnit.SECONDS, new ArrayBlockingQueue<>(QUEUE_SIZE),
+         runnable -> {
+            Thread thread = new PoolThread(runnable,
+               "WorkerPool-" + COUNT.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+         },
+         new ThreadPoolExecutor.CallerRunsPolicy());
+
+      executor.allowCoreThreadTimeOut(true);
+
+      return executor;
+   }
+
+   /**
+    * Check if the current thread belongs to the pool
+    *
+    * @return boolean true if a pool thread
+    */
+   private static boolean isPoolThread() {
+      return (Thread.currentThread() instanceof PoolThread);
+   }
+
+   /**
+    * Get an invokeAll() worker. Each worker takes the next input, until all
+    * the inputs are taken or the deadline is reached. The output is stored at
+    * the same index as the input.
+    *
+    * @param <T> input type
+    * @param <R> output type
+    * @param inputs List of inputs
+    * @param function Function applied to each input
+    * @param results AtomicReferenceArray outputs
+    * @param next AtomicInteger index of the next input
+    * @param deadline long time (milliseconds) to stop taking inputs
+    * @return Callable worker
+    */
+   private static <T, R> Callable<Object> getWorker(final List<T> inputs,
+      final Function<T, R> function, final AtomicReferenceArray<R> results,
+      final AtomicInteger next, final long deadline) {
+
+      return () -> {
+         int index = 0;
+
+         while ((index = next.getAndIncrement()) < inputs.size()
+            && System.currentTimeMillis() < deadline
+            && !Thread.currentThread().isInterrupted()) {
+            try {
+               results.set(index, function.apply(inputs.get(index)));
+            } catch (Exception ex) {
+               LOGGER.log(Level.WARNING, "{0}: input {1}: {2}",
+                  new Object[]{CLASS, index, ex.getMessage()});
+            }
+         }
+
+         return null;
+      };
+   }
+
+   /*
+    * =============== PRIVATE CLASSES ===============
+    */
+   /**
+    * Marks the threads created by the pool, see isPoolThread
+    */
+   private static class PoolThread extends Thread {
+
+      private PoolThread(final Runnable runnable, final String name) {
+         super(runnable, name);
+      }
+   }
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2020, ForgeRock, Inc., All rights reserved
+ * Use subject to license terms.
+ */
+package com.forgerock.frdp.resourceserver.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Bounded, in-memory, cache where every entry has its own expiration time.
+ * When the cache is full, the least recently used entry is removed. Expired
+ * entries are removed when they are accessed. All methods are thread-safe.
+ *
+ * @author Scott Fehrman, ForgeRock, Inc.
+ * @param <K> key type
+ * @param <V> value type
+ */
+public class ExpiringCache<K, V> {
+
+   private final String CLASS = this.getClass().getName();
+   private final Logger _logger = Logger.getLogger(this.getClass().getName());
+   private final Map<K, Entry<V>> _entries;
+
+   /**
+    * Constructor
+    *
+    * @param maxEntries int maximum number of entries
+    */
+   public ExpiringCache(final int maxEntries) {
+      String METHOD = "ExpiringCache(maxEntries)";
+
+      _logger.entering(CLASS, METHOD);
+
+      if (maxEntries < 1) {
+         throw new IllegalArgumentException(METHOD + ": maxEntries must be greater than zero");
+      }
+
+      _entries = new LinkedHashMap<K, Entry<V>>(16, 0.75f, true) {
+         @Override
+         protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+            return this.size() > maxEntries;
+         }
+      };
+
+      _logger.exiting(CLASS, METHOD);
+
+      return;
+   }
+
+   /**
+    * Get the value for the key. Returns null if the key does not exist or if
+    * the entry has expired.
+    *
+    * @param key K key
+    * @return V value, null if missing or expired
+    */
+   public V get(final K key) {
+      V value = null;
+      Entry<V> entry = null;
+
+      if (key != null) {
+         synchronized (_entries) {
+            entry = _entries.get(key);
+
+            if (entry != null) {
+               if (entry.isExpired()) {
+                  _entries.remove(key);
+               } else {
+                  value = entry.value;
+               }
+            }
+         }
+      }
+
+      return value;
+   }
+
+   /**
+    * Put the value for the key, replacing any existing entry. The entry
+    * expires after the time-to-live. A time-to-live that is not positive, or
+    * a null value, removes the key.
+    *
+    * @param key K key
+    * @param value V value
+    * @param ttlMillis long time-to-live, milliseconds
+    */
+   public void put(final K key, final V value, final long ttlMillis) {
+      if (key != null) {
+         if (value == null || ttlMillis <= 0L) {
+            this.remove(key);
+         } else {
+            synchronized (_entries) {
+               _entries.put(key, new Entry<>(value, System.currentTimeMillis() + ttlMillis));
+            }
+
+            if (_logger.isLoggable(Level.FINEST)) {
+               _logger.log(Level.FINEST, "key=''{0}'', ttl={1}", new Object[]{key, ttlMillis});
+            }
+         }
+      }
+
+      return;
+   }
+
+   /**
+    * Remove the key
+    *
+    * @param key K key
+    */
+   public void remove(final K key) {
+      if (key != null) {
+         synchronized (_entries) {
+            _entries.remove(key);
+         }
+      }
+
+      return;
+   }
+
+   /**
+    * Remove all the entries
+    */
+   public void clear() {
+      synchronized (_entries) {
+         _entries.clear();
+      }
+
+      return;
+   }
+
+   /**
+    * Get the number of entries, may include expired entries
+    *
+    * @return int number of entries
+    */
+   public int size() {
+      synchronized (_entries) {
+         return _entries.size();
+      }
+   }
+
+   /**
+    * Get a SHA-256 digest (hex string) of the value. Used to build a cache key
+    * from a secret (SSO token, access token) so the secret is not held as a
+    * key.
+    *
+    * @param value String value
+    * @return String hex encoded digest, null if the value is null
+    */
+   public static String digest(final String value) {
+      byte[] bytes = null;
+      StringBuilder buf = null;
+
+      if (value == null) {
+         return null;
+      }
+
+      try {
+         bytes = MessageDigest.getInstance("SHA-256")
+            .digest(value.getBytes(StandardCharsets.UTF_8));
+      } catch (NoSuchAlgorithmException ex) {
+         throw new IllegalStateException("SHA-256 is not available", ex);
+      }
+
+      buf = new StringBuilder(bytes.length * 2);
+
+      for (byte b : bytes) {
+         buf.append(String.format("%02x", b));
+      }
+
+      return buf.toString();
+   }
+
+   /*
+    * =============== PRIVATE CLASSES ===============
+    */
+   private static class Entry<V> {
+
+      private final V value;
+      private final long expires;
+
+      private Entry(final V value, final long expires) {
+         this.value = value;
+         this.expires = expires;
+      }
+
+      private boolean isExpired() {
+         return System.currentTimeMillis() >= expires;
+      }
+   }
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) 2020, ForgeRock, Inc., All rights reserved
+ * Use subject to license terms.
+ */
+package com.forgerock.frdp.resourceserver.cache;
+
+import com.forgerock.frdp.utils.STR;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+import org.json.simple.JSONObject;
+
+/**
+ * Bounded, in-memory, bi-directional index between the resource uid (MongoDB)
+ * and the UMA registration id (AM register GUID). A resource has at most one
+ * registration and the pair does not change while the resource is
+ * registered. When the index is full, the least recently used pair is
+ * removed, in both directions. All methods are thread-safe.
+ *
+ * @author Scott Fehrman, ForgeRock, Inc.
+ */
+public class RegisterIndex {
+
+   private final String CLASS = this.getClass().getName();
+   private final Logger _logger = Logger.getLogger(this.getClass().getName());
+   private final Map<String, String> _registerIds; // resource uid -> register id
+   private final Map<String, String> _resourceIds; // register id -> resource uid
+   private final AtomicLong _hits = new AtomicLong(0L);
+   private final AtomicLong _misses = new AtomicLong(0L);
+
+   /**
+    * Constructor
+    *
+    * @param maxEntries int maximum number of pairs
+    */
+   public RegisterIndex(final int maxEntries) {
+      String METHOD = "RegisterIndex(maxEntries)";
+
+      _logger.entering(CLASS, METHOD);
+
+      if (maxEntries < 1) {
+         throw new IllegalArgumentException(METHOD + ": maxEntries must be greater than zero");
+      }
+
+      _resourceIds = new HashMap<>();
+
+      _registerIds = new LinkedHashMap<String, String>(16, 0.75f, true) {
+         @Override
+         protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            boolean remove = this.size() > maxEntries;
+
+            if (remove) {
+               _resourceIds.remove(eldest.getValue());
+            }
+
+            return remove;
+         }
+      };
+
+      _logger.exiting(CLASS, METHOD);
+
+      return;
+   }
+
+   /**
+    * Get the registration id for the resource uid
+    *
+    * @param resourceUid String resource uid
+    * @return String registration id, null if not in the index
+    */
+   public String getRegisterId(final String resourceUid) {
+      String registerId = null;
+
+      if (!STR.isEmpty(resourceUid)) {
+         synchronized (this) {
+            registerId = _registerIds.get(resourceUid);
+         }
+      }
+
+      this.count(registerId);
+
+      return registerId;
+   }
+
+   /**
+    * Get the resource uid for the registration id
+    *
+    * @param registerId String registration id
+    * @return String resource uid, null if not in the index
+    */
+   public String getResourceId(final String registerId) {
+      String resourceUid = null;
+
+      if (!STR.isEmpty(registerId)) {
+         synchronized (this) {
+            resourceUid = _resourceIds.get(registerId);
+
+            if (resourceUid != null) {
+               _registerIds.get(resourceUid); // most recently used
+            }
+         }
+      }
+
+      this.count(resourceUid);
+
+      return resourceUid;
+   }
+
+   /**
+    * Add the pair. Replaces any pair that has the resource uid or the
+    * registration id.
+    *
+    * @param resourceUid String resource uid
+    * @param registerId String registration id
+    */
+   public synchronized void put(final String resourceUid, final String registerId) {
+      String previous = null;
+
+      if (!STR.isEmpty(resourceUid) && !STR.isEmpty(registerId)) {
+         previous = _registerIds.remove(resourceUid);
+
+         if (previous != null) {
+            _resourceIds.remove(previous);
+         }
+
+         previous = _resourceIds.remove(registerId);
+
+         if (previous != null) {
+            _registerIds.remove(previous);
+         }
+
+         _resourceIds.put(registerId, resourceUid);
+         _registerIds.put(resourceUid, registerId);
+      }
+
+      return;
+   }
+
+   /**
+    * Remove the pair for the resource uid, both directions
+    *
+    * @param resourceUid String resource uid
+    */
+   public synchronized void removeResource(final String resourceUid) {
+      String registerId = null;
+
+      if (!STR.isEmpty(resourceUid)) {
+         registerId = _registerIds.remove(resourceUid);
+
+         if (registerId != null) {
+            _resourceIds.remove(registerId);
+         }
+      }
+
+      return;
+   }
+
+   /**
+    * Remove the pair for the registration id, both directions
+    *
+    * @param registerId String registration id
+    */
+   public synchronized void removeRegister(final String registerId) {
+      String resourceUid = null;
+
+      if (!STR.isEmpty(registerId)) {
+         resourceUid = _resourceIds.remove(registerId);
+
+         if (resourceUid != null) {
+            _registerIds.remove(resourceUid);
+         }
+      }
+
+      return;
+   }
+
+   /**
+    * Get the index statistics
+    *
+    * <pre>
+    * JSON output ...
+    * {
+    *   "entries": 42,
+    *   "hits": 1024,
+    *   "misses": 64
+    * }
+    * </pre>
+    *
+    * @return JSONObject statistics
+    */
+   public JSONObject getStats() {
+      JSONObject jsonStats = null;
+
+      jsonStats = new JSONObject();
+
+      synchronized (this) {
+         jsonStats.put("entries", _registerIds.size());
+      }
+
+      jsonStats.put("hits", _hits.get());
+      jsonStats.put("misses", _misses.get());
+
+      return jsonStats;
+   }
+
+   /*
+    * =============== PRIVATE METHODS ===============
+    */
+   private void count(final String value) {
+      if (value != null) {
+         _hits.incrementAndGet();
+      } else {
+         _misses.incrementAndGet();
+      }
+   }
+}
@@ -0,0 +1,300 @@
+/*
+ * Copyright (c) 2020, ForgeRock, Inc., All rights reserved
+ * Use subject to license terms.
+ */
+package com.forgerock.frdp.resourceserver.cache;
+
+import com.forgerock.frdp.utils.STR;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+
+/**
+ * Versioned, in-memory, cache of resource documents (MongoDB), keyed by the
+ * resource uid. Every change to a resource increments the version. A document
+ * is only added if the version has not changed since the read was started,
+ * a read that overlaps a change is not cached. The cache is disabled when the
+ * "ttl" or "max entries" is zero, the version is always maintained. Documents
+ * are copied in and out of the cache. All methods are thread-safe.
+ *
+ * Negative results are kept for a shorter time (negative ttl): resource uids
+ * that do not exist and resources that are not registered. They are removed,
+ * with the document, when the resource is created, changed or deleted.
+ *
+ * @author Scott Fehrman, ForgeRock, Inc.
+ */
+public class ResourceCache {
+
+   private static final String NOTEXIST = "notexist";
+   private static final String UNREGISTERED = "unregistered";
+
+   private final ExpiringCache<String, JSONObject> _cache;
+   private final ExpiringCache<String, String> _negative;
+   private final long _ttl; // milliseconds
+   private final long _negativeTtl; // milliseconds
+   private final AtomicLong _version = new AtomicLong(0L);
+   private final AtomicLong _hits = new AtomicLong(0L);
+   private final AtomicLong _misses = new AtomicLong(0L);
+   private final AtomicLong _negativeHits = new AtomicLong(0L);
+
+   /**
+    * Constructor
+    *
+    * @param maxEntries int maximum number of documents (and negative results),
+    * 0 disables the cache
+    * @param ttlMillis long milliseconds a document is re-used, 0 disables the
+    * documents
+    * @param negativeTtlMillis long milliseconds a negative result is re-used, 0
+    * disables the negative results
+    */
+   public ResourceCache(final int maxEntries, final long ttlMillis,
+      final long negativeTtlMillis) {
+      if (maxEntries > 0 && ttlMillis > 0L) {
+         _cache = new ExpiringCache<>(maxEntries);
+         _ttl = ttlMillis;
+      } else {
+         _cache = null;
+         _ttl = 0L;
+      }
+
+      if (maxEntries > 0 && negativeTtlMillis > 0L) {
+         _negative = new ExpiringCache<>(maxEntries);
+         _negativeTtl = negativeTtlMillis;
+      } else {
+         _negative = null;
+         _negativeTtl = 0L;
+      }
+
+      return;
+   }
+
+   /**
+    * Get the current version. Capture the version before reading a document
+    * from the database, use it when adding the document.
+    *
+    * @return long version
+    */
+   public long getVersion() {
+      return _version.get();
+   }
+
+   /**
+    * Get a copy of the document for the resource uid
+    *
+    * @param resourceUid String resource uid
+    * @return JSONObject document, null if not in the cache
+    */
+   public JSONObject get(final String resourceUid) {
+      JSONObject jsonResource = null;
+
+      if (_cache != null && !STR.isEmpty(resourceUid)) {
+         jsonResource = _cache.get(resourceUid);
+
+         if (jsonResource != null) {
+            _hits.incrementAndGet();
+            jsonResource = copy(jsonResource);
+         } else {
+            _misses.incrementAndGet();
+         }
+      }
+
+      return jsonResource;
+   }
+
+   /**
+    * Add a copy of the document, if the version has not changed
+    *
+    * @param resourceUid String resource uid
+    * @param version long version, captured before the document was read
+    * @param jsonResource JSONObject document
+    */
+   public synchronized void put(final String resourceUid, final long version,
+      final JSONObject jsonResource) {
+      if (_cache != null && !STR.isEmpty(resourceUid) && jsonResource != null
+         && version == _version.get()) {
+         _cache.put(resourceUid, copy(jsonResource), _ttl);
+      }
+
+      return;
+   }
+
+   /**
+    * Check if the resource uid is known to not exist
+    *
+    * @param resourceUid String resource uid
+    * @return boolean true if the resource does not exist
+    */
+   public boolean isNotExist(final String resourceUid) {
+      return this.isNegative(resourceUid, NOTEXIST);
+   }
+
+   /**
+    * Record that the resource uid does not exist, if the version has not
+    * changed
+    *
+    * @param resourceUid String resource uid
+    * @param version long version, captured before the resource was read
+    */
+   public void putNotExist(final String resourceUid, final long version) {
+      this.putNegative(resourceUid, version, NOTEXIST);
+
+      return;
+   }
+
+   /**
+    * Check if the resource is known to not be registered
+    *
+    * @param resourceUid String resource uid
+    * @return boolean true if the resource is not registered
+    */
+   public boolean isUnregistered(final String resourceUid) {
+      return this.isNegative(resourceUid, UNREGISTERED);
+   }
+
+   /**
+    * Record that the resource is not registered, if the version has not
+    * changed
+    *
+    * @param resourceUid String resource uid
+    * @param version long version, captured before the resource was read
+    */
+   public void putUnregistered(final String resourceUid, final long version) {
+      this.putNegative(resourceUid, version, UNREGISTERED);
+
+      return;
+   }
+
+   /**
+    * Increment the version and remove the document, and negative result, for
+    * the resource uid. Use after the resource has been created, changed or
+    * deleted.
+    *
+    * @param resourceUid String resource uid
+    */
+   public synchronized void invalidate(final String resourceUid) {
+      _version.incrementAndGet();
+
+      if (!STR.isEmpty(resourceUid)) {
+         if (_cache != null) {
+            _cache.remove(resourceUid);
+         }
+
+         if (_negative != null) {
+            _negative.remove(resourceUid);
+         }
+      }
+
+      return;
+   }
+
+   /**
+    * Get the cache statistics
+    *
+    * <pre>
+    * JSON output ...
+    * {
+    *   "enabled": true,
+    *   "entries": 42,
+    *   "version": 7,
+    *   "hits": 1024,
+    *   "misses": 64,
+    *   "negative": {
+    *     "enabled": true,
+    *     "entries": 12,
+    *     "hits": 256
+    *   }
+    * }
+    * </pre>
+    *
+    * @return JSONObject statistics
+    */
+   public JSONObject getStats() {
+      JSONObject jsonStats = null;
+      JSONObject jsonNegative = null;
+
+      jsonNegative = new JSONObject();
+      jsonNegative.put("enabled", _negative != null);
+      jsonNegative.put("entries", _negative != null ? _negative.size() : 0);
+      jsonNegative.put("hits", _negativeHits.get());
+
+      jsonStats = new JSONObject();
+      jsonStats.put("enabled", _cache != null);
+      jsonStats.put("entries", _cache != null ? _cache.size() : 0);
+      jsonStats.put("version", _version.get());
+      jsonStats.put("hits", _hits.get());
+      jsonStats.put("misses", _misses.get());
+      jsonStats.put("negative", jsonNegative);
+
+      return jsonStats;
+   }
+
+   /**
+    * Deep copy of a JSON object, nested objects and arrays are copied
+    *
+    * @param json JSONObject source, may be null
+    * @return JSONObject copy, null if the source is null
+    */
+   public static JSONObject copy(final JSONObject json) {
+      JSONObject jsonCopy = null;
+
+      if (json != null) {
+         jsonCopy = new JSONObject();
+
+         for (Object obj : json.entrySet()) {
+            Map.Entry<?, ?> entry = (Map.Entry<?, ?>) obj;
+            jsonCopy.put(entry.getKey(), copyValue(entry.getValue()));
+         }
+      }
+
+      return jsonCopy;
+   }
+
+   /*
+    * =============== PRIVATE METHODS ===============
+    */
+   private boolean isNegative(final String resourceUid, final String result) {
+      boolean negative = false;
+
+      if (_negative != null && !STR.isEmpty(resourceUid)) {
+         negative = result.equals(_negative.get(resourceUid));
+
+         if (negative) {
+            _negativeHits.incrementAndGet();
+         }
+      }
+
+      return negative;
+   }
+
+   private synchronized void putNegative(final String resourceUid,
+      final long version, final String result) {
+      if (_negative != null && !STR.isEmpty(resourceUid)
+         && version == _version.get()) {
+         _negative.put(resourceUid, result, _negativeTtl);
+      }
+
+      return;
+   }
+
+   private static Object copyValue(final Object value) {
+      Object copy = null;
+      JSONArray array = null;
+
+      if (value instanceof JSONObject) {
+         copy = copy((JSONObject) value);
+      } else if (value instanceof JSONArray) {
+         array = new JSONArray();
+
+         for (Object obj : (JSONArray) value) {
+            array.add(copyValue(obj));
+         }
+
+         copy = array;
+      } else {
+         copy = value;
+      }
+
+      return copy;
+   }
+}
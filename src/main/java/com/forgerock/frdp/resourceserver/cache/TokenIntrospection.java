@@ -0,0 +1,225 @@
+/*
+ * Copyright (c) 2020, ForgeRock, Inc., All rights reserved
+ * Use subject to license terms.
+ */
+package com.forgerock.frdp.resourceserver.cache;
+
+import com.forgerock.frdp.common.ConstantsIF;
+import com.forgerock.frdp.utils.JSON;
+import com.forgerock.frdp.utils.STR;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+
+/**
+ * Immutable result of an OAuth 2.0 token introspection (UMA Requesting Party
+ * Token). The "permissions" are indexed by "resource_id" so the requested
+ * scopes can be matched without processing the introspection JSON again. A
+ * permission has its own "exp", an expired permission (or token) is treated
+ * as missing.
+ *
+ * <pre>
+ * JSON input ...
+ * {
+ *   "active": true,
+ *   "permissions": [
+ *     {
+ *       "resource_id": "ef4d750e-3831-483b-b395-c6f059b5e15d0",
+ *       "resource_scopes": ["download"],
+ *       "exp": 1522334692
+ *     }
+ *   ],
+ *   "token_type": "access_token",
+ *   "exp": 1522334692,
+ *   "iss": "https://openam.example.com:8443/openam/oauth2"
+ * }
+ * </pre>
+ *
+ * @author Scott Fehrman, ForgeRock, Inc.
+ */
+public class TokenIntrospection {
+
+   private static final String EXP = "exp";
+
+   private final boolean _active;
+   private final long _expires; // milliseconds, 0 if not provided
+   private final Map<String, JSONArray> _resourceScopes;
+   private final Map<String, Set<String>> _matchScopes;
+   private final Map<String, Long> _permissionExpires; // milliseconds
+   private final long _earliestExpires; // milliseconds, 0 if not provided
+
+   /**
+    * Constructor
+    *
+    * @param json JSONObject introspection response
+    */
+   public TokenIntrospection(final JSONObject json) {
+      long expires = 0L;
+      long earliest = 0L;
+      Object obj = null;
+      String resourceId = null;
+      JSONObject jsonPermission = null;
+      JSONArray arrayScopes = null;
+      Set<String> setScopes = null;
+      Map<String, JSONArray> resourceScopes = new HashMap<>();
+      Map<String, Set<String>> matchScopes = new HashMap<>();
+      Map<String, Long> permissionExpires = new HashMap<>();
+
+      _active = JSON.getBoolean(json, ConstantsIF.ACTIVE);
+
+      obj = (json == null ? null : json.get(EXP));
+      _expires = getMillis(obj);
+      earliest = _expires;
+
+      if (_active) {
+         obj = json.get(ConstantsIF.PERMISSIONS);
+
+         if (obj instanceof JSONArray) {
+            for (Object perm : (JSONArray) obj) {
+               if (perm != null && perm instanceof JSONObject) {
+                  jsonPermission = (JSONObject) perm;
+                  resourceId = JSON.getString(jsonPermission, ConstantsIF.RESOURCE_ID);
+                  arrayScopes = JSON.getArray(jsonPermission, ConstantsIF.RESOURCE_SCOPES);
+
+                  if (!STR.isEmpty(resourceId) && !resourceScopes.containsKey(resourceId)) {
+                     setScopes = new HashSet<>();
+
+                     if (arrayScopes != null) {
+                        for (Object scope : arrayScopes) {
+                           if (scope != null && scope instanceof String && !STR.isEmpty((String) scope)) {
+                              setScopes.add(((String) scope).toLowerCase());
+                           }
+                        }
+                     }
+
+                     resourceScopes.put(resourceId, arrayScopes);
+                     matchScopes.put(resourceId, Collections.unmodifiableSet(setScopes));
+
+                     expires = getMillis(jsonPermission.get(EXP));
+
+                     if (expires > 0L) {
+                        permissionExpires.put(resourceId, expires);
+                        earliest = (earliest > 0L ? Math.min(earliest, expires) : expires);
+                     }
+                  }
+               }
+            }
+         }
+      }
+
+      _resourceScopes = Collections.unmodifiableMap(resourceScopes);
+      _matchScopes = Collections.unmodifiableMap(matchScopes);
+      _permissionExpires = Collections.unmodifiableMap(permissionExpires);
+      _earliestExpires = earliest;
+
+      return;
+   }
+
+   /**
+    * Is the token active
+    *
+    * @return boolean true if active
+    */
+   public boolean isActive() {
+      return _active;
+   }
+
+   /**
+    * Get the token expiration time, "exp" in milliseconds
+    *
+    * @return long expiration, 0 if not provided
+    */
+   public long getExpires() {
+      return _expires;
+   }
+
+   /**
+    * Get the earliest expiration time, of the token and all its permissions,
+    * in milliseconds. A cached result must not be used after this time.
+    *
+    * @return long earliest expiration, 0 if not provided
+    */
+   public long getEarliestExpires() {
+      return _earliestExpires;
+   }
+
+   /**
+    * Get the "resource_scopes", as returned from the introspection, for the
+    * "resource_id". Do not modify the array.
+    *
+    * @param resourceId String resource (registration) identifier
+    * @return JSONArray scopes, null if the resource is not in the permissions
+    * or the permission has expired
+    */
+   public JSONArray getResourceScopes(final String resourceId) {
+      return (this.isValid(resourceId, System.currentTimeMillis())
+         ? _resourceScopes.get(resourceId) : null);
+   }
+
+   /**
+    * Check if all the requested scopes are granted, for the "resource_id".
+    * Scopes are compared ignoring case. An empty requested scope is not
+    * granted.
+    *
+    * @param resourceId String resource (registration) identifier
+    * @param scopes String[] requested scopes
+    * @return boolean true if all the scopes are granted
+    */
+   public boolean hasScopes(final String resourceId, final String[] scopes) {
+      return this.hasScopes(resourceId, scopes, System.currentTimeMillis());
+   }
+
+   /**
+    * Check if all the requested scopes are granted, for the "resource_id", at
+    * the specified time. An expired permission (or token) grants nothing.
+    *
+    * @param resourceId String resource (registration) identifier
+    * @param scopes String[] requested scopes
+    * @param now long current time, milliseconds
+    * @return boolean true if all the scopes are granted
+    */
+   public boolean hasScopes(final String resourceId, final String[] scopes,
+      final long now) {
+      boolean granted = false;
+      Set<String> setScopes = null;
+
+      setScopes = (this.isValid(resourceId, now) ? _matchScopes.get(resourceId) : null);
+
+      if (setScopes != null && scopes != null && scopes.length > 0) {
+         granted = true;
+
+         for (String scope : scopes) {
+            if (STR.isEmpty(scope) || !setScopes.contains(scope.toLowerCase())) {
+               granted = false;
+               break;
+            }
+         }
+      }
+
+      return granted;
+   }
+
+   /*
+    * =============== PRIVATE METHODS ===============
+    */
+   private boolean isValid(final String resourceId, final long now) {
+      Long expires = null;
+      boolean valid = false;
+
+      if (_active && resourceId != null && _matchScopes.containsKey(resourceId)
+         && (_expires <= 0L || now < _expires)) {
+         expires = _permissionExpires.get(resourceId);
+         valid = (expires == null || now < expires);
+      }
+
+      return valid;
+   }
+
+   private static long getMillis(final Object exp) {
+      return (exp instanceof Number ? ((Number) exp).longValue() * 1000L : 0L);
+   }
+}
@@ -55,7 +55,7 @@ public abstract class ContentService extends Data implements ContentServiceIF {
 
    @Override
    public void setOperation(OperationIF oper) {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "setOperation";
 
       _logger.entering(CLASS, METHOD);
 
@@ -69,7 +69,7 @@ public abstract class ContentService extends Data implements ContentServiceIF {
    @Override
    public boolean hasOperation(OperationIF.TYPE type) {
       boolean found = false;
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "hasOperation";
 
       _logger.entering(CLASS, METHOD);
 
@@ -82,7 +82,7 @@ public abstract class ContentService extends Data implements ContentServiceIF {
 
    @Override
    public OperationIF getOperation(OperationIF.TYPE type) {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "getOperation";
       OperationIF oper = null;
 
       _logger.entering(CLASS, METHOD);
@@ -98,7 +98,7 @@ public abstract class ContentService extends Data implements ContentServiceIF {
 
    @Override
    public String getId() {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "getId";
 
       _logger.entering(CLASS, METHOD);
       _logger.exiting(CLASS, METHOD);
@@ -112,7 +112,7 @@ public abstract class ContentService extends Data implements ContentServiceIF {
     * ===============
     */
    private void init(JSONObject configuration) {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "init";
       String msg = null;
       String attrName = null;
       String attrValue = null;
@@ -0,0 +1,252 @@
+/*
+ * Copyright (c) 2020, ForgeRock, Inc., All rights reserved
+ * Use subject to license terms.
+ */
+package com.forgerock.frdp.resourceserver.dao;
+
+import com.forgerock.frdp.utils.STR;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.json.simple.JSONObject;
+
+/**
+ * Request limits and statistics for the Authorization Server (AM) Data Access
+ * Objects, for each route (protocol, host, port), shared by all the
+ * AMRestDataAccess instances. This is not a connection pool: the HTTP
+ * connections are owned by the REST Data Access Object (frdp-dao-rest), this
+ * class does not change the client or the JVM wide (System property)
+ * connection settings. By default the requests are not limited, only
+ * measured.
+ *
+ * <pre>
+ * JSON "as.connect" ...
+ * {
+ *   "protocol": "https",
+ *   "host": "as.example.com",
+ *   "port": "443",
+ *   "path": "am",
+ *   "max_requests": "0", // per route, concurrent requests, 0 is unlimited
+ *   "acquire_timeout": "10" // seconds, the wait when at "max_requests"
+ * }
+ * </pre>
+ *
+ * @author Scott Fehrman, ForgeRock, Inc.
+ */
+public final class AMRequestLimiter {
+
+   public static final String MAX_REQUESTS = "max_requests";
+   public static final String ACQUIRE_TIMEOUT = "acquire_timeout";
+
+   private static final String CLASS = AMRequestLimiter.class.getName();
+   private static final Logger LOGGER = Logger.getLogger(CLASS);
+   private static final String PROTOCOL = "protocol";
+   private static final String HOST = "host";
+   private static final String PORT = "port";
+   private static final long DEFAULT_MAX_REQUESTS = 0L; // unlimited
+   private static final long DEFAULT_ACQUIRE_TIMEOUT = 10L; // seconds
+   private static final AtomicBoolean CONFIGURED = new AtomicBoolean(false);
+   private static final Map<String, Route> ROUTES = new ConcurrentHashMap<>();
+
+   private static volatile int _maxRequests = (int) DEFAULT_MAX_REQUESTS;
+   private static volatile long _acquireTimeout = DEFAULT_ACQUIRE_TIMEOUT * 1000L;
+
+   private AMRequestLimiter() {
+   }
+
+   /**
+    * Apply the request limits. Only the first call changes the limits, a
+    * route's limit is set when it is first used.
+    *
+    * @param params Map of "as.connect" parameters
+    */
+   public static void configure(final Map<String, String> params) {
+      String METHOD = "configure";
+
+      LOGGER.entering(CLASS, METHOD);
+
+      if (params != null && CONFIGURED.compareAndSet(false, true)) {
+         _maxRequests = (int) Math.min(Math.max(
+            getLong(params, MAX_REQUESTS, DEFAULT_MAX_REQUESTS), 0L), 10000L);
+
+         _acquireTimeout = Math.max(
+            getLong(params, ACQUIRE_TIMEOUT, DEFAULT_ACQUIRE_TIMEOUT), 1L) * 1000L;
+
+         LOGGER.log(Level.INFO, "{0}: max_requests={1}, acquire_timeout={2}ms",
+            new Object[]{METHOD, _maxRequests == 0 ? "unlimited" : _maxRequests,
+               _acquireTimeout});
+      }
+
+      LOGGER.exiting(CLASS, METHOD);
+
+      return;
+   }
+
+   /**
+    * Get the route (protocol, host, port) for the parameters
+    *
+    * @param params Map of "as.connect" parameters
+    * @return String route
+    */
+   public static String getRoute(final Map<String, String> params) {
+      return (params == null ? "" : params.get(PROTOCOL) + "://"
+         + params.get(HOST) + ":" + params.get(PORT));
+   }
+
+   /**
+    * Acquire a request for the route. If the route is limited, waits up to
+    * the "acquire_timeout" when the route has "max_requests" requests in
+    * progress. A successful acquire must be followed by a release.
+    *
+    * @param route String route
+    * @return boolean true if acquired
+    */
+   public static boolean acquire(final String route) {
+      boolean acquired = false;
+      Route r = null;
+
+      r = ROUTES.computeIfAbsent(route, key -> new Route(_maxRequests));
+
+      if (r.permits == null) {
+         acquired = true;
+      } else {
+         try {
+            acquired = r.permits.tryAcquire(_acquireTimeout, TimeUnit.MILLISECONDS);
+         } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+         }
+      }
+
+      if (acquired) {
+         r.active.incrementAndGet();
+         r.requests.incrementAndGet();
+      } else {
+         r.rejected.incrementAndGet();
+      }
+
+      return acquired;
+   }
+
+   /**
+    * Release a request for the route, see acquire.
+    *
+    * @param route String route
+    * @param millis long elapsed time of the request
+    * @param failed boolean true if the request failed
+    */
+   public static void release(final String route, final long millis,
+      final boolean failed) {
+      Route r = null;
+
+      r = ROUTES.get(route);
+
+      if (r != null) {
+         r.millis.addAndGet(millis);
+
+         if (failed) {
+            r.failures.incrementAndGet();
+         }
+
+         r.active.decrementAndGet();
+
+         if (r.permits != null) {
+            r.permits.release();
+         }
+      }
+
+      return;
+   }
+
+   /**
+    * Get the request statistics, for each route
+    *
+    * <pre>
+    * JSON output ...
+    * {
+    *   "max_requests": 0, // 0 is unlimited
+    *   "routes": {
+    *     "https://as.example.com:443": {
+    *       "active": 2,
+    *       "requests": 1024,
+    *       "failures": 3,
+    *       "rejected": 0,
+    *       "average_millis": 42
+    *     }
+    *   }
+    * }
+    * </pre>
+    *
+    * @return JSONObject statistics
+    */
+   public static JSONObject getStats() {
+      long requests = 0L;
+      JSONObject jsonStats = null;
+      JSONObject jsonRoutes = null;
+      JSONObject jsonRoute = null;
+
+      jsonRoutes = new JSONObject();
+
+      for (Map.Entry<String, Route> entry : ROUTES.entrySet()) {
+         requests = entry.getValue().requests.get();
+
+         jsonRoute = new JSONObject();
+         jsonRoute.put("active", entry.getValue().active.get());
+         jsonRoute.put("requests", requests);
+         jsonRoute.put("failures", entry.getValue().failures.get());
+         jsonRoute.put("rejected", entry.getValue().rejected.get());
+         jsonRoute.put("average_millis", requests > 0L ? entry.getValue().millis.get() / requests : 0L);
+
+         jsonRoutes.put(entry.getKey(), jsonRoute);
+      }
+
+      jsonStats = new JSONObject();
+      jsonStats.put(MAX_REQUESTS, _maxRequests);
+      jsonStats.put("routes", jsonRoutes);
+
+      return jsonStats;
+   }
+
+   /*
+    * =============== PRIVATE METHODS ===============
+    */
+   private static long getLong(final Map<String, String> params,
+      final String name, final long defValue) {
+      long value = defValue;
+      String str = null;
+
+      str = params.get(name);
+
+      if (!STR.isEmpty(str)) {
+         try {
+            value = Long.parseLong(str.trim());
+         } catch (NumberFormatException ex) {
+            LOGGER.log(Level.WARNING, "''{0}'' is not valid, using default ''{1}''",
+               new Object[]{name, defValue});
+         }
+      }
+
+      return value;
+   }
+
+   /*
+    * =============== PRIVATE CLASSES ===============
+    */
+   private static class Route {
+
+      private final Semaphore permits; // null if unlimited
+      private final AtomicLong active = new AtomicLong(0L);
+      private final AtomicLong requests = new AtomicLong(0L);
+      private final AtomicLong failures = new AtomicLong(0L);
+      private final AtomicLong rejected = new AtomicLong(0L);
+      private final AtomicLong millis = new AtomicLong(0L);
+
+      private Route(final int max) {
+         this.permits = (max > 0 ? new Semaphore(max, true) : null);
+      }
+   }
+}
@@ -5,10 +5,12 @@
 package com.forgerock.frdp.resourceserver.dao;
 
 import com.forgerock.frdp.common.ConstantsIF;
+import com.forgerock.frdp.dao.Operation;
 import com.forgerock.frdp.dao.OperationIF;
 import com.forgerock.frdp.dao.rest.RestDataAccess;
 import com.forgerock.frdp.utils.JSON;
 import java.util.Map;
+import java.util.logging.Level;
 import org.json.simple.JSONObject;
 
 /**
@@ -18,11 +20,15 @@ import org.json.simple.JSONObject;
  * there is not "uid". This "validate" method removes the check for "uid" when
  * it's a GET
  *
+ * Requests are measured, and optionally limited, per route, see
+ * AMRequestLimiter.
+ *
  * @author Scott Fehrman, ForgeRock, Inc.
  */
 public class AMRestDataAccess extends RestDataAccess {
 
    private final String CLASS = this.getClass().getName();
+   private final String _route;
 
    public AMRestDataAccess(Map<String, String> params) throws Exception {
       super(params);
@@ -30,11 +36,57 @@ public class AMRestDataAccess extends RestDataAccess {
       String METHOD = "AMRestDataAccess()";
 
       _logger.entering(CLASS, METHOD);
+
+      AMRequestLimiter.configure(params);
+
+      _route = AMRequestLimiter.getRoute(params);
+
       _logger.exiting(CLASS, METHOD);
 
       return;
    }
 
+   /**
+    * Execute the operation. If the route is limited, waits for a request
+    * permit, fails the operation if one is not available within the acquire
+    * timeout.
+    *
+    * @param operInput OperationIF input
+    * @return OperationIF output
+    */
+   @Override
+   public OperationIF execute(final OperationIF operInput) {
+      String METHOD = "execute";
+      long start = 0L;
+      OperationIF operOutput = null;
+
+      _logger.entering(CLASS, METHOD);
+
+      if (AMRequestLimiter.acquire(_route)) {
+         start = System.currentTimeMillis();
+
+         try {
+            operOutput = super.execute(operInput);
+         } finally {
+            AMRequestLimiter.release(_route, System.currentTimeMillis() - start,
+               operOutput == null || operOutput.isError());
+         }
+      } else {
+         operOutput = new Operation(operInput == null
+            ? OperationIF.TYPE.NULL : operInput.getType());
+         operOutput.setError(true);
+         operOutput.setState(STATE.ERROR);
+         operOutput.setStatus(METHOD + ": Request limit reached for '"
+            + _route + "'");
+
+         _logger.log(Level.WARNING, operOutput.getStatus());
+      }
+
+      _logger.exiting(CLASS, METHOD);
+
+      return operOutput;
+   }
+
    /*
     * ================= PROTECTED METHODS =================
     */
@@ -46,7 +98,7 @@ public class AMRestDataAccess extends RestDataAccess {
     */
    @Override
    protected void validate(final OperationIF oper) throws Exception {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "validate";
       JSONObject jsonInput = null;
       JSONObject jsonData = null;
       JSONObject jsonForm = null;
@@ -0,0 +1,211 @@
+/*
+ * Copyright (c) 2020, ForgeRock, Inc., All rights reserved
+ * Use subject to license terms.
+ */
+package com.forgerock.frdp.resourceserver.dao;
+
+import com.forgerock.frdp.common.ConstantsIF;
+import com.forgerock.frdp.config.ConfigurationIF;
+import com.forgerock.frdp.config.ConfigurationManagerIF;
+import com.forgerock.frdp.dao.DataAccessIF;
+import com.forgerock.frdp.dao.mongo.MongoFactory;
+import com.forgerock.frdp.dao.rest.RestDataAccess;
+import com.forgerock.frdp.resourceserver.ConfigIF;
+import com.forgerock.frdp.utils.JSON;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.json.simple.JSONObject;
+
+/**
+ * Registry of the Data Access Objects that are shared by all the handlers.
+ * Each Data Access Object is created once, when it is first requested, from
+ * the Resource Server configuration:
+ *
+ * <pre>
+ * - Authorization Server (AM), "as.connect"
+ * - MongoDB, "rs.nosql"
+ * - REST (Content Services), no parameters
+ * </pre>
+ *
+ * The registry is created at startup and passed to the handler constructors.
+ * The close() method is called when the application is stopped. NOTE: the
+ * frdp Data Access Objects (frdp-dao-mongo, frdp-dao-rest) do not expose
+ * their MongoDB client or JAX-RS Client and have no close method, so close()
+ * does NOT close any connection today: it only stops the registry from
+ * handing out the objects and closes those that implement AutoCloseable.
+ *
+ * @author Scott Fehrman, ForgeRock, Inc.
+ */
+public class DataAccessRegistry {
+
+   private final String CLASS = this.getClass().getName();
+   private final Logger _logger = Logger.getLogger(this.getClass().getName());
+   private final ConfigurationManagerIF _configMgr;
+   private DataAccessIF _AuthzServerDAO = null;
+   private DataAccessIF _MongoDAO = null;
+   private DataAccessIF _RestDAO = null;
+   private boolean _closed = false;
+
+   /**
+    * Constructor
+    *
+    * @param configMgr ConfigurationManagerIF management of configurations
+    */
+   public DataAccessRegistry(final ConfigurationManagerIF configMgr) {
+      String METHOD = "DataAccessRegistry(configMgr)";
+
+      _logger.entering(CLASS, METHOD);
+
+      _configMgr = configMgr;
+
+      _logger.exiting(CLASS, METHOD);
+
+      return;
+   }
+
+   /**
+    * Get the Authorization Server (AM) Data Access Object
+    *
+    * @return DataAccessIF AM REST Data Access Object
+    * @throws Exception could not create the Data Access Object
+    */
+   public synchronized DataAccessIF getAuthzServerDAO() throws Exception {
+      String METHOD = "getAuthzServerDAO";
+
+      _logger.entering(CLASS, METHOD);
+
+      this.checkClosed(METHOD);
+
+      if (_AuthzServerDAO == null) {
+         _AuthzServerDAO = new AMRestDataAccess(JSON.convertToParams(
+            JSON.getObject(this.getConfiguration(), ConfigIF.AS_CONNECT)));
+      }
+
+      _logger.exiting(CLASS, METHOD);
+
+      return _AuthzServerDAO;
+   }
+
+   /**
+    * Get the MongoDB Data Access Object
+    *
+    * @return DataAccessIF MongoDB Data Access Object
+    * @throws Exception could not create the Data Access Object
+    */
+   public synchronized DataAccessIF getMongoDAO() throws Exception {
+      String METHOD = "getMongoDAO";
+
+      _logger.entering(CLASS, METHOD);
+
+      this.checkClosed(METHOD);
+
+      if (_MongoDAO == null) {
+         _MongoDAO = MongoFactory.getInstance(JSON.convertToParams(
+            JSON.getObject(this.getConfiguration(), ConfigIF.RS_NOSQL)));
+      }
+
+      _logger.exiting(CLASS, METHOD);
+
+      return _MongoDAO;
+   }
+
+   /**
+    * Get the REST Data Access Object, no parameters, used for the Content
+    * Services
+    *
+    * @return DataAccessIF REST Data Access Object
+    * @throws Exception could not create the Data Access Object
+    */
+   public synchronized DataAccessIF getRestDAO() throws Exception {
+      String METHOD = "getRestDAO";
+
+      _logger.entering(CLASS, METHOD);
+
+      this.checkClosed(METHOD);
+
+      if (_RestDAO == null) {
+         _RestDAO = new RestDataAccess();
+      }
+
+      _logger.exiting(CLASS, METHOD);
+
+      return _RestDAO;
+   }
+
+   /**
+    * Close the Data Access Objects that implement AutoCloseable and drop the
+    * references. The registry can not be used after it is closed. With the
+    * current frdp Data Access Objects this is a no-op for the connections,
+    * the MongoDB and HTTP clients are not closed (see the class comment).
+    */
+   public synchronized void close() {
+      String METHOD = "close";
+      int closed = 0;
+      List<DataAccessIF> daos = null;
+
+      _logger.entering(CLASS, METHOD);
+
+      if (!_closed) {
+         _closed = true;
+
+         daos = new ArrayList<>();
+         daos.add(_AuthzServerDAO);
+         daos.add(_MongoDAO);
+         daos.add(_RestDAO);
+
+         for (DataAccessIF dao : daos) {
+            if (dao != null && dao instanceof AutoCloseable) {
+               try {
+                  ((AutoCloseable) dao).close();
+                  closed++;
+               } catch (Exception ex) {
+                  _logger.log(Level.WARNING, "{0}: {1}: {2}",
+                     new Object[]{METHOD, dao.getClass().getName(), ex.getMessage()});
+               }
+            }
+         }
+
+         _AuthzServerDAO = null;
+         _MongoDAO = null;
+         _RestDAO = null;
+
+         _logger.log(Level.INFO, "{0}: registry closed, {1} Data Access Objects closed, "
+            + "connections of the other Data Access Objects are not closed",
+            new Object[]{METHOD, closed});
+      }
+
+      _logger.exiting(CLASS, METHOD);
+
+      return;
+   }
+
+   /*
+    * =============== PRIVATE METHODS ===============
+    */
+   private void checkClosed(final String method) throws Exception {
+      if (_closed) {
+         throw new Exception(CLASS + ":" + method + ": Registry is closed");
+      }
+   }
+
+   private JSONObject getConfiguration() throws Exception {
+      ConfigurationIF config = null;
+      JSONObject json = null;
+
+      config = (_configMgr == null ? null
+         : _configMgr.getConfiguration(ConstantsIF.RESOURCE));
+
+      if (config != null) {
+         json = config.getJSON();
+      }
+
+      if (json == null) {
+         throw new Exception(CLASS + ": Configuration for '"
+            + ConstantsIF.RESOURCE + "' is null");
+      }
+
+      return json;
+   }
+}
@@ -10,11 +10,10 @@ import com.forgerock.frdp.config.ConfigurationManagerIF;
 import com.forgerock.frdp.dao.OperationIF;
 import com.forgerock.frdp.handler.HandlerManagerIF;
 import com.forgerock.frdp.resourceserver.ConfigIF;
-import com.forgerock.frdp.resourceserver.dao.AMRestDataAccess;
+import com.forgerock.frdp.resourceserver.dao.DataAccessRegistry;
 import com.forgerock.frdp.utils.JSON;
 import com.forgerock.frdp.utils.STR;
 
-import java.util.Map;
 import java.util.logging.Level;
 import org.json.simple.JSONObject;
 
@@ -32,11 +31,13 @@ public class AMOAuth2Handler extends JaxrsHandler {
     *
     * @param configMgr ConfigurationManagerIF management of configurations
     * @param handlerMgr HandlerManagerIF handler manager
+    * @param daoRegistry DataAccessRegistry shared Data Access Objects
     */
-   public AMOAuth2Handler(final ConfigurationManagerIF configMgr, final HandlerManagerIF handlerMgr) {
-      super(configMgr, handlerMgr);
+   public AMOAuth2Handler(final ConfigurationManagerIF configMgr, 
+      final HandlerManagerIF handlerMgr, final DataAccessRegistry daoRegistry) {
+      super(configMgr, handlerMgr, daoRegistry);
 
-      String METHOD = "AMOAuth2Handler(configMgr, handlerMgr)";
+      String METHOD = "AMOAuth2Handler(configMgr, handlerMgr, daoRegistry)";
 
       _logger.entering(CLASS, METHOD);
 
@@ -58,7 +59,7 @@ public class AMOAuth2Handler extends JaxrsHandler {
     */
    @Override
    protected void validate(final OperationIF oper) throws Exception {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "validate";
       String path = null;
       JSONObject jsonInput = null;
 
@@ -97,7 +98,7 @@ public class AMOAuth2Handler extends JaxrsHandler {
    @Override
    protected OperationIF read(final OperationIF operInput) // GET
    {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "read";
       OperationIF operOutput = null;
 
       _logger.entering(CLASS, METHOD);
@@ -134,7 +135,7 @@ public class AMOAuth2Handler extends JaxrsHandler {
     * @return OperationIF output
     */
    private OperationIF readImpl(final OperationIF operInput) {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "readImpl";
       OperationIF operOutput = null;
       JSONObject jsonWrapData = null;
 
@@ -156,12 +157,11 @@ public class AMOAuth2Handler extends JaxrsHandler {
     * Initialize the object
     */
    private void init() {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "init";
       String msg = null;
       String type = ConstantsIF.RESOURCE;
       ConfigurationIF config = null;
       JSONObject json = null;
-      Map<String, String> map = null;
 
       _logger.entering(CLASS, METHOD);
 
@@ -184,9 +184,8 @@ public class AMOAuth2Handler extends JaxrsHandler {
       }
 
       if (!this.isError() && _AuthzServerDAO == null) {
-         map = JSON.convertToParams(JSON.getObject(json, ConfigIF.AS_CONNECT));
          try {
-            _AuthzServerDAO = new AMRestDataAccess(map);
+            _AuthzServerDAO = _daoRegistry.getAuthzServerDAO();
          } catch (Exception ex) {
             msg = CLASS + ": " + METHOD + ": REST DAO: " + ex.getMessage();
             this.setError(true);
@@ -10,8 +10,16 @@ import com.forgerock.frdp.dao.Operation;
 import com.forgerock.frdp.dao.OperationIF;
 import com.forgerock.frdp.handler.HandlerManagerIF;
 import com.forgerock.frdp.resourceserver.ConfigIF;
+import com.forgerock.frdp.resourceserver.cache.ResourceCache;
+import com.forgerock.frdp.resourceserver.dao.DataAccessRegistry;
 import com.forgerock.frdp.utils.JSON;
 import com.forgerock.frdp.utils.STR;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.logging.Level;
 import org.json.simple.JSONObject;
 
@@ -19,6 +27,18 @@ import org.json.simple.JSONObject;
  * This Handler provides a SSO Session token for a proxy admin (amadmin)
  *
  * <pre>
+ * The credential is kept in memory, a "read" returns it without any
+ * database or AM calls. It is renewed by a background task, every
+ * "as.admin.renew_interval" seconds (before the AM idle timeout), 
+ * or by the first "read" if it is missing or stale.
+ * Only one renewal runs at a time, concurrent callers wait for it.
+ * A caller that gets a 401 from AM, using the token, sets "invalidate"
+ * to the token in the "read" input. The credential is dropped, if it
+ * still has that token, and renewed.
+ * A failed renewal keeps the current credential, it is used until it is
+ * stale or invalidated.
+ * 
+ * Renewal:
  * Check the MongoDB for an existing token
  * If exists, validate it,
  * If valid return, else get a new token
@@ -33,21 +53,54 @@ public class AMProxyAdminHandler extends CredentialHandler {
 
    private final String CLASS = this.getClass().getName();
 
+   public static final String INVALIDATE = "invalidate";
+
+   private static final long DEFAULT_RENEW_INTERVAL = 180L; // seconds
+
+   private final AtomicReference<CompletableFuture<JSONObject>> _renewal = new AtomicReference<>();
+   private final AtomicReference<AdminCredential> _adminCredential = new AtomicReference<>();
+   private ScheduledExecutorService _scheduler = null;
+   private long _renewInterval = 0L; // milliseconds
+
    /**
     * Constructor
     *
     * @param configMgr ConfigurationManagerIF management of configurations
     * @param handlerMgr HandlerManagerIF handler manager
+    * @param daoRegistry DataAccessRegistry shared Data Access Objects
     */
-   public AMProxyAdminHandler(final ConfigurationManagerIF configMgr, final HandlerManagerIF handlerMgr) {
-      super(configMgr, handlerMgr);
+   public AMProxyAdminHandler(final ConfigurationManagerIF configMgr, 
+      final HandlerManagerIF handlerMgr, final DataAccessRegistry daoRegistry) {
+      super(configMgr, handlerMgr, daoRegistry);
 
-      String METHOD = "AMProxyAdminHandler(configMgr, handlerMgr)";
+      String METHOD = "AMProxyAdminHandler(configMgr, handlerMgr, daoRegistry)";
 
       _logger.entering(CLASS, METHOD);
 
       this.init();
 
+      if (this.getState() == STATE.READY) {
+         this.startRenewal();
+      }
+
+      _logger.exiting(CLASS, METHOD);
+
+      return;
+   }
+
+   /**
+    * Stop the background renewal of the admin credential
+    */
+   @Override
+   public void close() {
+      String METHOD = "close";
+
+      _logger.entering(CLASS, METHOD);
+
+      if (_scheduler != null) {
+         _scheduler.shutdownNow();
+      }
+
       _logger.exiting(CLASS, METHOD);
 
       return;
@@ -64,7 +117,7 @@ public class AMProxyAdminHandler extends CredentialHandler {
     */
    @Override
    protected void validate(final OperationIF oper) throws Exception {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "validate";
 
       _logger.entering(CLASS, METHOD);
 
@@ -81,7 +134,10 @@ public class AMProxyAdminHandler extends CredentialHandler {
     * Support the "read" operation
     *
     * <pre>
-    * No inputs
+    * JSON input ... optional, the token was rejected by AM (401)
+    * {
+    *   "invalidate": "...*...*"
+    * }
     * Output is JSON for the session ...
     *
     * {
@@ -99,36 +155,43 @@ public class AMProxyAdminHandler extends CredentialHandler {
    @Override
    protected OperationIF read(final OperationIF operInput) {
       boolean error = false;
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "read";
       String msg = null;
+      String staleToken = null;
       OperationIF operOutput = null;
-      OperationIF operReadOutput = null;
       JSONObject jsonOutput = null;
+      JSONObject jsonCredOutput = null;
       JSONObject jsonCredential = null;
 
       _logger.entering(CLASS, METHOD);
 
       operOutput = new Operation(OperationIF.TYPE.READ);
 
-      if (!error) {
-         operReadOutput = this.readImpl();
+      staleToken = JSON.getString(operInput.getJSON(), INVALIDATE);
 
-         if (!operReadOutput.isError()) {
-            jsonCredential = JSON.getObject(operReadOutput.getJSON(), ConstantsIF.DATA + "." + ConstantsIF.CREDENTIAL);
+      if (!STR.isEmpty(staleToken)) {
+         this.invalidate(staleToken);
+      }
 
-            jsonOutput = new JSONObject();
-            jsonOutput.put(ConstantsIF.DATA, jsonCredential);
+      try {
+         jsonCredOutput = this.getCredential();
+      } catch (Exception ex) {
+         error = true;
+         msg = ex.getMessage();
 
-            operOutput.setJSON(jsonOutput);
-            operOutput.setState(STATE.SUCCESS);
-            operOutput.setStatus("valid session for : "
-               + JSON.getObject(operReadOutput.getJSON(), ConstantsIF.DATA + "." + ConstantsIF.OWNER));
-         } else {
-            error = true;
-            msg = operReadOutput.getStatus();
+         _logger.log(Level.WARNING, "{0}: {1}: {2}", new Object[]{CLASS, METHOD, msg});
+      }
 
-            _logger.log(Level.WARNING, "{0}: {1}: {2}", new Object[]{CLASS, METHOD, operReadOutput.getStatus()});
-         }
+      if (!error) {
+         jsonCredential = JSON.getObject(jsonCredOutput, ConstantsIF.DATA + "." + ConstantsIF.CREDENTIAL);
+
+         jsonOutput = new JSONObject();
+         jsonOutput.put(ConstantsIF.DATA, jsonCredential);
+
+         operOutput.setJSON(jsonOutput);
+         operOutput.setState(STATE.SUCCESS);
+         operOutput.setStatus("valid session for : "
+            + JSON.getString(jsonCredOutput, ConstantsIF.DATA + "." + ConstantsIF.OWNER));
       }
 
       if (error) {
@@ -146,6 +209,152 @@ public class AMProxyAdminHandler extends CredentialHandler {
     * =============== PRIVATE METHODS ===============
     */
 
+   /**
+    * Get the admin credential. The hot path is a read of the in-memory
+    * credential. If it is missing or stale, it is renewed. The output is a
+    * copy, callers may change it.
+    *
+    * @return JSONObject credential record
+    * @throws Exception could not renew the credential
+    */
+   private JSONObject getCredential() throws Exception {
+      AdminCredential adminCredential = _adminCredential.get();
+
+      if (adminCredential != null && !adminCredential.isStale()) {
+         return ResourceCache.copy(adminCredential.json);
+      }
+
+      return ResourceCache.copy(this.renew(false));
+   }
+
+   /**
+    * Drop the admin credential if it has the token that AM rejected. The next
+    * "read" renews it, concurrent callers share the one renewal. If the
+    * credential was already renewed, with a new token, it is kept.
+    *
+    * @param staleToken String token rejected by AM
+    */
+   private void invalidate(final String staleToken) {
+      String METHOD = "invalidate";
+      AdminCredential adminCredential = null;
+
+      _logger.entering(CLASS, METHOD);
+
+      adminCredential = _adminCredential.get();
+
+      if (adminCredential != null && staleToken.equals(adminCredential.getTokenId())) {
+         if (_adminCredential.compareAndSet(adminCredential, null)) {
+            _logger.log(Level.INFO, "{0}: Admin token rejected by AM, renewing",
+               new Object[]{METHOD});
+         }
+      }
+
+      _logger.exiting(CLASS, METHOD);
+
+      return;
+   }
+
+   /**
+    * Renew the admin credential (see readImpl). Only one renewal runs at a
+    * time. A thread that finds a renewal in-flight waits for its result
+    * instead of starting another one. If the renewal fails, the current
+    * credential is kept: a transient AM or database error does not drop a
+    * credential that is still valid.
+    *
+    * @param force boolean if false, a fresh credential is not renewed
+    * @return JSONObject credential record
+    * @throws Exception could not renew the credential
+    */
+   private JSONObject renew(final boolean force) throws Exception {
+      String METHOD = "renew";
+      JSONObject jsonOutput = null;
+      OperationIF operReadOutput = null;
+      CompletableFuture<JSONObject> future = null;
+      CompletableFuture<JSONObject> inflight = null;
+      AdminCredential adminCredential = null;
+
+      _logger.entering(CLASS, METHOD);
+
+      future = new CompletableFuture<>();
+      inflight = _renewal.compareAndExchange(null, future);
+
+      if (inflight == null) { // this thread does the renewal
+         try {
+            adminCredential = _adminCredential.get();
+
+            if (!force && adminCredential != null && !adminCredential.isStale()) {
+               jsonOutput = adminCredential.json; // renewed by another thread
+            } else {
+               operReadOutput = this.readImpl();
+
+               if (operReadOutput.isError()) {
+                  throw new Exception(operReadOutput.getStatus());
+               }
+
+               jsonOutput = operReadOutput.getJSON();
+
+               _adminCredential.set(new AdminCredential(jsonOutput,
+                  System.currentTimeMillis() + (2 * _renewInterval)));
+            }
+
+            future.complete(jsonOutput);
+         } catch (Exception ex) {
+            future.completeExceptionally(ex);
+            throw ex;
+         } finally {
+            _renewal.set(null);
+         }
+      } else { // wait for the in-flight renewal
+         try {
+            jsonOutput = inflight.get();
+         } catch (ExecutionException ex) {
+            throw new Exception(METHOD + ": " 
+               + (ex.getCause() != null ? ex.getCause().getMessage() : ex.getMessage()));
+         }
+      }
+
+      _logger.exiting(CLASS, METHOD);
+
+      return jsonOutput;
+   }
+
+   /**
+    * Start the background renewal of the admin credential. Runs every
+    * "as.admin.renew_interval" seconds. An entry is stale after two
+    * intervals, if the background task fails, the next "read" renews it.
+    */
+   private void startRenewal() {
+      String METHOD = "startRenewal";
+
+      _logger.entering(CLASS, METHOD);
+
+      _renewInterval = this.getConfigLong(ConstantsIF.RESOURCE,
+         ConfigIF.AS_ADMIN_RENEW_INTERVAL, DEFAULT_RENEW_INTERVAL) * 1000L;
+
+      if (_renewInterval <= 0L) {
+         _renewInterval = DEFAULT_RENEW_INTERVAL * 1000L;
+      }
+
+      _scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+         Thread thread = new Thread(runnable, CLASS + "-renewal");
+         thread.setDaemon(true);
+         return thread;
+      });
+
+      _scheduler.scheduleWithFixedDelay(() -> {
+         try {
+            this.renew(true);
+         } catch (Exception ex) {
+            _logger.log(Level.WARNING, "{0}: Background renewal failed: {1}",
+               new Object[]{CLASS, ex.getMessage()});
+         }
+      }, _renewInterval, _renewInterval, TimeUnit.MILLISECONDS);
+
+      _logger.exiting(CLASS, METHOD);
+
+      return;
+   }
+
    /**
     * Read implementation
     *
@@ -172,10 +381,10 @@ public class AMProxyAdminHandler extends CredentialHandler {
     * @param operInput
     * @return
     */
-   private synchronized OperationIF readImpl() {
+   private OperationIF readImpl() {
       boolean error = false;
       boolean valid = false;
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "readImpl";
       String owner = null;
       String category = null;
       String credUid = null;
@@ -305,7 +514,7 @@ public class AMProxyAdminHandler extends CredentialHandler {
     * @throws Exception
     */
    private JSONObject validateToken(final JSONObject jsonInput) throws Exception {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "validateToken";
       String sso_token = null;
       StringBuilder buf = new StringBuilder(METHOD + ": ");
       JSONObject jsonValidateInput = null;
@@ -328,6 +537,7 @@ public class AMProxyAdminHandler extends CredentialHandler {
 
       jsonValidateInput = new JSONObject();
       jsonValidateInput.put(ConstantsIF.UID, sso_token);
+      jsonValidateInput.put(AMSessionHandler.REVALIDATE, true); // renewal must check AM
 
       jsonValidateOutput = this.validateSession(jsonValidateInput);
 
@@ -387,7 +597,7 @@ public class AMProxyAdminHandler extends CredentialHandler {
     * @throws Exception
     */
    private JSONObject getToken(final String credUid, final JSONObject jsonInput) throws Exception {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "getToken";
       String configType = ConstantsIF.RESOURCE;
       JSONObject jsonGetInput = null;
       JSONObject jsonGetOutput = null;
@@ -457,4 +667,26 @@ public class AMProxyAdminHandler extends CredentialHandler {
       return jsonOutput;
    }
 
+   /*
+    * =============== PRIVATE CLASSES ===============
+    */
+   private static class AdminCredential {
+
+      private final JSONObject json;
+      private final long stale; // milliseconds
+
+      private AdminCredential(final JSONObject json, final long stale) {
+         this.json = json;
+         this.stale = stale;
+      }
+
+      private boolean isStale() {
+         return System.currentTimeMillis() >= stale;
+      }
+
+      private String getTokenId() {
+         return JSON.getString(json, ConstantsIF.DATA + "." + ConstantsIF.CREDENTIAL
+            + "." + ConstantsIF.TOKENID);
+      }
+   }
 }
@@ -11,11 +11,11 @@ import com.forgerock.frdp.dao.Operation;
 import com.forgerock.frdp.dao.OperationIF;
 import com.forgerock.frdp.handler.HandlerManagerIF;
 import com.forgerock.frdp.resourceserver.ConfigIF;
-import com.forgerock.frdp.resourceserver.dao.AMRestDataAccess;
+import com.forgerock.frdp.resourceserver.cache.ExpiringCache;
+import com.forgerock.frdp.resourceserver.dao.DataAccessRegistry;
 import com.forgerock.frdp.utils.JSON;
 import com.forgerock.frdp.utils.STR;
 
-import java.util.Map;
 import java.util.logging.Level;
 import org.json.simple.JSONObject;
 
@@ -28,17 +28,34 @@ public class AMSessionHandler extends JaxrsHandler {
 
    private final String CLASS = this.getClass().getName();
 
+   /**
+    * Read input attribute, if true the session cache is not used, the SSO
+    * session is always validated with AM
+    */
+   public static final String REVALIDATE = "revalidate";
+
+   private static final long DEFAULT_CACHE_MAX_ENTRIES = 1000L;
+   private static final long DEFAULT_CACHE_MAX_STALENESS = 30L; // seconds
+
+   /*
+    * Valid SSO sessions, key is a digest of the SSO token. 
+    * Null if the cache is disabled (max_staleness = 0)
+    */
+   private ExpiringCache<String, JSONObject> _sessionCache = null;
+   private long _cacheTTL = 0L; // milliseconds
+
    /**
     * Constructor
     *
     * @param configMgr ConfigurationManagerIF management of configurations
     * @param handlerMgr HandlerManagerIF handler manager
+    * @param daoRegistry DataAccessRegistry shared Data Access Objects
     */
    public AMSessionHandler(final ConfigurationManagerIF configMgr, 
-      final HandlerManagerIF handlerMgr) {
-      super(configMgr, handlerMgr);
+      final HandlerManagerIF handlerMgr, final DataAccessRegistry daoRegistry) {
+      super(configMgr, handlerMgr, daoRegistry);
 
-      String METHOD = "AMSessionHandler(configMgr, handlerMgr)";
+      String METHOD = "AMSessionHandler(configMgr, handlerMgr, daoRegistry)";
 
       _logger.entering(CLASS, METHOD);
 
@@ -57,7 +74,7 @@ public class AMSessionHandler extends JaxrsHandler {
     */
    @Override
    protected void validate(final OperationIF oper) throws Exception {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "validate";
       JSONObject jsonInput = null;
 
       _logger.entering(CLASS, METHOD);
@@ -111,7 +128,7 @@ public class AMSessionHandler extends JaxrsHandler {
     */
    @Override
    protected OperationIF create(final OperationIF operInput) {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "create";
       OperationIF operOutput = null;
 
       _logger.entering(CLASS, METHOD);
@@ -144,7 +161,8 @@ public class AMSessionHandler extends JaxrsHandler {
     * <pre>
     * JSON input ...
     * {
-    *   "uid" : "..." // sso token
+    *   "uid" : "...", // sso token
+    *   "revalidate": true // OPTIONAL, do not use the session cache
     * }
     *
     * JSON output ...
@@ -165,7 +183,7 @@ public class AMSessionHandler extends JaxrsHandler {
     */
    @Override
    protected OperationIF read(final OperationIF operInput) {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "read";
       OperationIF operOutput = null;
       JSONObject jsonWrapData = null;
 
@@ -200,12 +218,13 @@ public class AMSessionHandler extends JaxrsHandler {
     * Initialize the object
     */
    private void init() {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      long maxEntries = 0L;
+      long maxStaleness = 0L;
+      String METHOD = "init";
       String msg = null;
       String configType = ConstantsIF.RESOURCE;
       ConfigurationIF config = null;
       JSONObject json = null;
-      Map<String, String> map = null;
 
       _logger.entering(CLASS, METHOD);
 
@@ -228,16 +247,29 @@ public class AMSessionHandler extends JaxrsHandler {
        * setup the REST Data Access Object, AM Authorization Server
        */
       if (!this.isError() && _AuthzServerDAO == null) {
-         map = JSON.convertToParams(JSON.getObject(json, ConfigIF.AS_CONNECT));
-
          try {
-            _AuthzServerDAO = new AMRestDataAccess(map);
+            _AuthzServerDAO = _daoRegistry.getAuthzServerDAO();
          } catch (Exception ex) {
             msg = CLASS + ": " + METHOD + ": REST DAO: " + ex.getMessage();
             this.setError(true);
          }
       }
 
+      /*
+       * setup the cache for validated SSO sessions
+       */
+      if (!this.isError()) {
+         maxEntries = this.getConfigLong(configType, 
+            ConfigIF.AS_SESSIONS_CACHE_MAX_ENTRIES, DEFAULT_CACHE_MAX_ENTRIES);
+         maxStaleness = this.getConfigLong(configType, 
+            ConfigIF.AS_SESSIONS_CACHE_MAX_STALENESS, DEFAULT_CACHE_MAX_STALENESS);
+
+         if (maxEntries > 0L && maxStaleness > 0L) {
+            _cacheTTL = maxStaleness * 1000L;
+            _sessionCache = new ExpiringCache<>((int) maxEntries);
+         }
+      }
+
       if (!this.isError()) {
          this.setState(STATE.READY);
       } else {
@@ -259,7 +291,7 @@ public class AMSessionHandler extends JaxrsHandler {
     * @throws Exception
     */
    private OperationIF createImpl(final OperationIF operInput) throws Exception {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "createImpl";
       String user = null;
       String password = null;
       String configType = ConstantsIF.RESOURCE;
@@ -368,6 +400,9 @@ public class AMSessionHandler extends JaxrsHandler {
     * }
     * -or-
     * { "valid":false }
+    * 
+    * A valid session is cached for "max_staleness" seconds.
+    * The "revalidate" input attribute forces a call to AM.
     * </pre>
     *
     * @param operInput
@@ -377,12 +412,15 @@ public class AMSessionHandler extends JaxrsHandler {
    private OperationIF readImpl(final OperationIF operInput) throws Exception {
       boolean error = false;
       Boolean isValid = false;
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      Boolean revalidate = false;
+      String METHOD = "readImpl";
       String msg = null;
       String uid = null;
+      String cacheKey = null;
       String configType = ConstantsIF.RESOURCE;
       OperationIF operASInput = null;
       OperationIF operASOutput = null;
+      JSONObject jsonCached = null;
       JSONObject jsonData = null;
       JSONObject jsonInput = null;
       JSONObject jsonHeaders = null;
@@ -401,7 +439,26 @@ public class AMSessionHandler extends JaxrsHandler {
             new Object[]{uid != null ? uid : NULL});
       }
 
-      if (!STR.isEmpty(uid)) {
+      if (!STR.isEmpty(uid) && _sessionCache != null) {
+         cacheKey = ExpiringCache.digest(uid);
+         revalidate = JSON.getBoolean(operInput.getJSON(), REVALIDATE);
+
+         if (revalidate != null && revalidate) {
+            _sessionCache.remove(cacheKey);
+         } else {
+            jsonCached = _sessionCache.get(cacheKey);
+         }
+      }
+
+      if (jsonCached != null) {
+         jsonData = new JSONObject();
+         jsonData.putAll(jsonCached);
+
+         operASOutput = new Operation(OperationIF.TYPE.CREATE);
+         operASOutput.setJSON(jsonData);
+         operASOutput.setState(STATE.SUCCESS);
+         operASOutput.setStatus("SSO session is valid (cached)");
+      } else if (!STR.isEmpty(uid)) {
 
          // Build JSON structure to validate SSO session
          // {
@@ -447,9 +504,20 @@ public class AMSessionHandler extends JaxrsHandler {
             if (isValid) {
                operASOutput.setState(STATE.SUCCESS);
                operASOutput.setStatus("SSO session is valid");
+
+               if (_sessionCache != null && operASOutput.getJSON() != null) {
+                  jsonCached = new JSONObject();
+                  jsonCached.putAll(operASOutput.getJSON());
+
+                  _sessionCache.put(cacheKey, jsonCached, _cacheTTL);
+               }
             } else {
                operASOutput.setState(STATE.NOTAUTHORIZED);
                operASOutput.setStatus("SSO session is NOT valid");
+
+               if (_sessionCache != null) {
+                  _sessionCache.remove(cacheKey);
+               }
             }
          } else {
             error = true;
@@ -10,10 +10,10 @@ import com.forgerock.frdp.config.ConfigurationManagerIF;
 import com.forgerock.frdp.dao.DataAccessIF;
 import com.forgerock.frdp.dao.Operation;
 import com.forgerock.frdp.dao.OperationIF;
-import com.forgerock.frdp.dao.rest.RestDataAccess;
 import com.forgerock.frdp.handler.HandlerManagerIF;
 import com.forgerock.frdp.resourceserver.content.BasicContentService;
 import com.forgerock.frdp.resourceserver.content.ContentServiceIF;
+import com.forgerock.frdp.resourceserver.dao.DataAccessRegistry;
 import com.forgerock.frdp.utils.JSON;
 import com.forgerock.frdp.utils.STR;
 import java.util.HashMap;
@@ -31,18 +31,20 @@ public class ContentHandler extends JaxrsHandler {
 
    private final String CLASS = this.getClass().getName();
    private final Map<String, ContentServiceIF> _services = new HashMap<>();
-   private DataAccessIF _RestDAO = null;
+   private volatile DataAccessIF _RestDAO = null;
 
    /**
     * Constructor
     *
     * @param configMgr ConfigurationManagerIF management of configurations
     * @param handlerMgr HandlerManagerIF handler manager
+    * @param daoRegistry DataAccessRegistry shared Data Access Objects
     */
-   public ContentHandler(final ConfigurationManagerIF configMgr, final HandlerManagerIF handlerMgr) {
-      super(configMgr, handlerMgr);
+   public ContentHandler(final ConfigurationManagerIF configMgr, 
+      final HandlerManagerIF handlerMgr, final DataAccessRegistry daoRegistry) {
+      super(configMgr, handlerMgr, daoRegistry);
 
-      String METHOD = "ContentHandler(configMgr, handlerMgr)";
+      String METHOD = "ContentHandler(configMgr, handlerMgr, daoRegistry)";
 
       _logger.entering(CLASS, METHOD);
 
@@ -66,7 +68,7 @@ public class ContentHandler extends JaxrsHandler {
     */
    @Override
    protected void validate(final OperationIF oper) throws Exception {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "validate";
       JSONObject jsonInput = null;
 
       _logger.entering(CLASS, METHOD);
@@ -142,7 +144,7 @@ public class ContentHandler extends JaxrsHandler {
     */
    @Override
    protected OperationIF create(OperationIF operInput) {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "create";
       String msg = null;
       OperationIF operOutput = null;
 
@@ -210,7 +212,7 @@ public class ContentHandler extends JaxrsHandler {
     */
    @Override
    protected OperationIF read(OperationIF operInput) {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "read";
       String msg = null;
       OperationIF operOutput = null;
 
@@ -270,7 +272,7 @@ public class ContentHandler extends JaxrsHandler {
     */
    @Override
    protected OperationIF replace(OperationIF operInput) {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "replace";
       String msg = null;
       OperationIF operOutput = null;
       JSONObject jsonInput = null;
@@ -330,7 +332,7 @@ public class ContentHandler extends JaxrsHandler {
     */
    @Override
    protected OperationIF delete(OperationIF operInput) {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "delete";
       String msg = null;
       OperationIF operOutput = null;
 
@@ -378,7 +380,7 @@ public class ContentHandler extends JaxrsHandler {
     * Initialize the object
     */
    private void init() {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "init";
       String msg = null;
       ConfigurationIF configResource = null;
       ConfigurationIF configContent = null;
@@ -387,7 +389,6 @@ public class ContentHandler extends JaxrsHandler {
       JSONObject jsonContent = null;
       JSONObject jsonService = null;
       JSONArray jsonServices = null;
-      Map<String, String> map = null;
 
       _logger.entering(CLASS, METHOD);
 
@@ -415,7 +416,7 @@ public class ContentHandler extends JaxrsHandler {
       if (!this.isError() && _RestDAO == null) {
 
          try {
-            _RestDAO = new RestDataAccess();
+            _RestDAO = _daoRegistry.getRestDAO();
          } catch (Exception ex) {
             msg = CLASS + ": " + METHOD + ": REST DAO: " + ex.getMessage();
             this.setError(true);
@@ -498,7 +499,7 @@ public class ContentHandler extends JaxrsHandler {
     * @throws Exception Problem processing the Content
     */
    private OperationIF operationImpl(final OperationIF operInput) throws Exception {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "operationImpl";
       String csId = null; // Content Service Identifier
       String csURI = null;
       String inputURI = null;
@@ -9,12 +9,10 @@ import com.forgerock.frdp.config.ConfigurationIF;
 import com.forgerock.frdp.config.ConfigurationManagerIF;
 import com.forgerock.frdp.dao.Operation;
 import com.forgerock.frdp.dao.OperationIF;
-import com.forgerock.frdp.dao.mongo.MongoFactory;
 import com.forgerock.frdp.handler.HandlerManagerIF;
 import com.forgerock.frdp.resourceserver.ConfigIF;
-import com.forgerock.frdp.resourceserver.dao.AMRestDataAccess;
+import com.forgerock.frdp.resourceserver.dao.DataAccessRegistry;
 import com.forgerock.frdp.utils.JSON;
-import java.util.Map;
 import java.util.logging.Level;
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
@@ -33,10 +31,12 @@ public abstract class CredentialHandler extends JaxrsHandler {
     *
     * @param configMgr ConfigurationManagerIF management of configurations
     * @param handlerMgr HandlerManagerIF provides management of Handlers
+    * @param daoRegistry DataAccessRegistry shared Data Access Objects
     */
-   public CredentialHandler(final ConfigurationManagerIF configMgr, final HandlerManagerIF handlerMgr) {
-      super(configMgr, handlerMgr);
-      String METHOD = "CredentialHandler(configMgr, handlerMgr)";
+   public CredentialHandler(final ConfigurationManagerIF configMgr, 
+      final HandlerManagerIF handlerMgr, final DataAccessRegistry daoRegistry) {
+      super(configMgr, handlerMgr, daoRegistry);
+      String METHOD = "CredentialHandler(configMgr, handlerMgr, daoRegistry)";
 
       _logger.entering(CLASS, METHOD);
       _logger.exiting(CLASS, METHOD);
@@ -81,8 +81,8 @@ public abstract class CredentialHandler extends JaxrsHandler {
     * @return String credential value
     * @throws Exception could not get the uid
     */
-   protected synchronized String getCredentialUid(final String owner, final String category) throws Exception {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+   protected String getCredentialUid(final String owner, final String category) throws Exception {
+      String METHOD = "getCredentialUid";
       String credUid = null;
       Number quantity = 0;
       JSONObject jsonQuery = null;
@@ -171,12 +171,11 @@ public abstract class CredentialHandler extends JaxrsHandler {
     * Initialize the object
     */
    protected void init() {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "init";
       String msg = null;
       String type = ConstantsIF.RESOURCE;
       ConfigurationIF config = null;
       JSONObject json = null;
-      Map<String, String> map = null;
 
       _logger.entering(CLASS, METHOD);
 
@@ -200,9 +199,8 @@ public abstract class CredentialHandler extends JaxrsHandler {
        * setup the Mongo Data Access Object
        */
       if (!this.isError() && _MongoDAO == null) {
-         map = JSON.convertToParams(JSON.getObject(json, ConfigIF.RS_NOSQL));
          try {
-            _MongoDAO = MongoFactory.getInstance(map);
+            _MongoDAO = _daoRegistry.getMongoDAO();
          } catch (Exception ex) {
             msg = CLASS + ": " + METHOD + ": Mongo DAO:" + ex.getMessage();
             this.setError(true);
@@ -213,9 +211,8 @@ public abstract class CredentialHandler extends JaxrsHandler {
        * setup the REST Data Access Object
        */
       if (!this.isError() && _AuthzServerDAO == null) {
-         map = JSON.convertToParams(JSON.getObject(json, ConfigIF.AS_CONNECT));
          try {
-            _AuthzServerDAO = new AMRestDataAccess(map);
+            _AuthzServerDAO = _daoRegistry.getAuthzServerDAO();
          } catch (Exception ex) {
             msg = CLASS + ": " + METHOD + ": REST DAO: " + ex.getMessage();
             this.setError(true);
@@ -260,7 +257,7 @@ public abstract class CredentialHandler extends JaxrsHandler {
     * @throws Exception
     */
    private void removeDuplicates(final JSONArray jsonResults) throws Exception {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "removeDuplicates";
       JSONObject jsonInput = null;
       OperationIF operInput = null;
       OperationIF operOutput = null;
@@ -12,8 +12,21 @@ import com.forgerock.frdp.dao.Operation;
 import com.forgerock.frdp.dao.OperationIF;
 import com.forgerock.frdp.handler.Handler;
 import com.forgerock.frdp.handler.HandlerManagerIF;
+import com.forgerock.frdp.resourceserver.ConfigIF;
+import com.forgerock.frdp.resourceserver.ConfigSnapshot;
+import com.forgerock.frdp.resourceserver.WorkerPool;
+import com.forgerock.frdp.resourceserver.cache.ResourceCache;
+import com.forgerock.frdp.resourceserver.dao.DataAccessRegistry;
 import com.forgerock.frdp.utils.JSON;
 import com.forgerock.frdp.utils.STR;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 import java.util.logging.Level;
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
@@ -27,33 +40,53 @@ public abstract class JaxrsHandler extends Handler implements JaxrsHandlerIF {
 
    private final String CLASS = this.getClass().getName();
 
-   protected static final String PROP_VAR_OWNER = "__owner__";
+   protected static final String PROP_VAR_OWNER = ConfigSnapshot.VAR_OWNER;
    protected static final String PROP_SORTKEYS = "_sortKeys";
    protected static final String PROP_QUERYFILTER = "_queryFilter";
+   protected static final String PROP_PAGESIZE = "_pageSize";
+   protected static final String PROP_PAGEDRESULTSCOOKIE = "_pagedResultsCookie";
+   protected static final String PROP_PAGEDRESULTSOFFSET = "_pagedResultsOffset";
    protected static final String AM_ATTR_RESOURCE_OWNER_ID = "resourceOwnerId";
    protected static final String AM_ATTR_RESOURCE_SERVER = "resourceServer";
+   protected static final String AM_ATTR_PAGEDRESULTSCOOKIE = "pagedResultsCookie";
+   protected static final String AM_ATTR_RESULTCOUNT = "resultCount";
+   protected static final String AM_ATTR_REMAININGPAGEDRESULTS = "remainingPagedResults";
+   private static final String CURSOR_OFFSET = "offset:";
+   private static final long DEFAULT_FANOUT_PARALLELISM = 8L;
+   private static final long DEFAULT_FANOUT_TIMEOUT = 10L; // seconds
 
-   protected DataAccessIF _MongoDAO = null;
-   protected DataAccessIF _AuthzServerDAO = null;
+   /*
+    * A single instance of each handler is shared by all request threads (see
+    * the HandlerManager). The Data Access Objects are set by init(), from the
+    * shared DataAccessRegistry, and are not changed after that, they must be
+    * thread-safe.
+    */
+   protected volatile DataAccessIF _MongoDAO = null;
+   protected volatile DataAccessIF _AuthzServerDAO = null;
 
    protected ConfigurationManagerIF _configMgr = null;
+   protected DataAccessRegistry _daoRegistry = null;
    private HandlerManagerIF _handlerMgr = null;
+   private final Map<String, ConfigSnapshot> _configSnapshots = new ConcurrentHashMap<>(); // configType -> snapshot
 
    /**
     * Constructor
     *
     * @param configMgr ConfigurationManagerIF management of configurations
     * @param handlerMgr HandlerManagerIF handler manager
+    * @param daoRegistry DataAccessRegistry shared Data Access Objects
     */
-   public JaxrsHandler(final ConfigurationManagerIF configMgr, final HandlerManagerIF handlerMgr) {
+   public JaxrsHandler(final ConfigurationManagerIF configMgr, 
+      final HandlerManagerIF handlerMgr, final DataAccessRegistry daoRegistry) {
       super();
 
-      String METHOD = "JaxrsHandler(configMgr, handlerMgr)";
+      String METHOD = "JaxrsHandler(configMgr, handlerMgr, daoRegistry)";
 
       _logger.entering(CLASS, METHOD);
 
       _configMgr = configMgr;
       _handlerMgr = handlerMgr;
+      _daoRegistry = daoRegistry;
 
       _logger.exiting(CLASS, METHOD);
 
@@ -63,12 +96,20 @@ public abstract class JaxrsHandler extends Handler implements JaxrsHandlerIF {
    /**
     * Process the operation input object, returns an output operation object.
     *
+    * <pre>
+    * This method is NOT synchronized, requests are processed concurrently.
+    * Implementations of create, read, replace, delete and search must keep
+    * all request state in local variables or the Operation objects. The
+    * handler's own error / state / status is only set by init(), a failed
+    * request must be reported in the output Operation.
+    * </pre>
+    *
     * @param operInput OperationIF input
     * @return OperationIF output
     */
    @Override
-   public final synchronized OperationIF process(final OperationIF operInput) {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+   public final OperationIF process(final OperationIF operInput) {
+      String METHOD = "process";
       StringBuilder msg = new StringBuilder(CLASS + ":" + METHOD + ": ");
       OperationIF operOutput = null;
 
@@ -142,6 +183,26 @@ public abstract class JaxrsHandler extends Handler implements JaxrsHandlerIF {
       return operOutput;
    }
 
+   /**
+    * Release resources held by the handler (threads), called when the
+    * application is stopped. The Data Access Objects are closed by the
+    * DataAccessRegistry.
+    */
+   @Override
+   public void close() {
+      return;
+   }
+
+   /**
+    * Get runtime statistics (caches), null if the handler has none
+    *
+    * @return JSONObject statistics
+    */
+   @Override
+   public JSONObject getStats() {
+      return null;
+   }
+
    /**
     * Disable copying of the instance
     */
@@ -175,6 +236,56 @@ public abstract class JaxrsHandler extends Handler implements JaxrsHandlerIF {
       throw new UnsupportedOperationException("Not supported yet.");
    }
 
+   /**
+    * Get the cache of resource documents, from the Resources Handler. Handlers
+    * that change resource documents, without the Resources Handler, must
+    * invalidate the resource.
+    *
+    * @return ResourceCache cache, null if not available
+    */
+   protected ResourceCache getResourceCache() {
+      String METHOD = "getResourceCache";
+      JaxrsHandlerIF handler = null;
+      ResourceCache resourceCache = null;
+
+      try {
+         handler = this.getHandler(JaxrsHandlerIF.HANDLER_RESOURCES);
+
+         if (handler instanceof ResourcesHandler) {
+            resourceCache = ((ResourcesHandler) handler).getResourceCache();
+         }
+      } catch (Exception ex) {
+         _logger.log(Level.WARNING, "{0}: {1}",
+            new Object[]{METHOD, ex.getMessage()});
+      }
+
+      return resourceCache;
+   }
+
+   /**
+    * Get the resource documents for the registration ids, from the Resources
+    * Handler (see ResourcesHandler). Uses the index and cache, the misses are
+    * read from the database in batches.
+    *
+    * @param registerIds Set of registration identifiers
+    * @return Map of registration identifier to resource document, a
+    * registration without a resource is not in the map
+    * @throws Exception the resources could not be read
+    */
+   protected Map<String, JSONObject> getResourcesByRegisterIds(
+      final Set<String> registerIds) throws Exception {
+      String METHOD = "getResourcesByRegisterIds";
+      JaxrsHandlerIF handler = null;
+
+      handler = this.getHandler(JaxrsHandlerIF.HANDLER_RESOURCES);
+
+      if (!(handler instanceof ResourcesHandler)) {
+         throw new Exception(METHOD + ": Resources Handler is not available");
+      }
+
+      return ((ResourcesHandler) handler).getResourcesByRegisterIds(registerIds);
+   }
+
    /**
     * Get the Handler for the specified identifier
     *
@@ -183,7 +294,7 @@ public abstract class JaxrsHandler extends Handler implements JaxrsHandlerIF {
     * @throws Exception could not get the handler instance
     */
    protected JaxrsHandlerIF getHandler(String handlerId) throws Exception {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "getHandler";
       JaxrsHandlerIF handler = null;
 
       _logger.entering(CLASS, METHOD);
@@ -220,7 +331,7 @@ public abstract class JaxrsHandler extends Handler implements JaxrsHandlerIF {
     * @throws Exception had to abort internal processing
     */
    protected void abort(final String method, final String msg) throws Exception {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "abort";
 
       _logger.entering(CLASS, METHOD);
 
@@ -234,8 +345,8 @@ public abstract class JaxrsHandler extends Handler implements JaxrsHandlerIF {
 
    /**
     * Get a value from the configuration data (JSON). Use the "configType" to
-    * get the Configuration object from the ConfigurationManager Get the JSON
-    * data from the Configuration object
+    * get the snapshot of the configuration (ConfigSnapshot), the value is
+    * indexed by its name
     *
     * @param configType String what type of configuration (RESOURCE, CONTENT)
     * @param name String configuration attribute name
@@ -245,9 +356,8 @@ public abstract class JaxrsHandler extends Handler implements JaxrsHandlerIF {
    protected String getConfigValue(
       final String configType, final String name) throws Exception {
       
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "getConfigValue";
       String value = null;
-      JSONObject json = null;
 
       _logger.entering(CLASS, METHOD);
       
@@ -255,9 +365,45 @@ public abstract class JaxrsHandler extends Handler implements JaxrsHandlerIF {
          throw new Exception("Attribute 'name' is null");
       }
 
-      json = this.getConfiguration(configType);
+      value = this.getConfigSnapshot(configType).getString(name);
+
+      if (STR.isEmpty(value)) {
+         throw new Exception("Attribute '" + name + "' is empty");
+      }
+
+      _logger.exiting(CLASS, METHOD);
+
+      return value;
+   }
+
+   /**
+    * Get a value from the configuration data (JSON), the "owner" variable
+    * (PROP_VAR_OWNER) is replaced with the owner. The value is a pre-compiled
+    * template, a regular expression is not used.
+    *
+    * <pre>
+    * "json/realms/root/users/__owner__/uma/policies"
+    * </pre>
+    *
+    * @param configType String what type of configuration (RESOURCE, CONTENT)
+    * @param name String configuration attribute name
+    * @param owner String replaces the "owner" variable
+    * @return String configuration attribute value
+    * @throws Exception could not get configuration value
+    */
+   protected String getConfigValue(final String configType, final String name,
+      final String owner) throws Exception {
 
-      value = JSON.getString(json, name);
+      String METHOD = "getConfigValue";
+      String value = null;
+
+      _logger.entering(CLASS, METHOD);
+
+      if (STR.isEmpty(name)) {
+         throw new Exception("Attribute 'name' is null");
+      }
+
+      value = this.getConfigSnapshot(configType).getString(name, owner);
 
       if (STR.isEmpty(value)) {
          throw new Exception("Attribute '" + name + "' is empty");
@@ -281,8 +427,7 @@ public abstract class JaxrsHandler extends Handler implements JaxrsHandlerIF {
    protected JSONObject getConfigObject(
       final String configType, final String name) throws Exception {
       
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
-      JSONObject json = null;
+      String METHOD = "getConfigObject";
       JSONObject object = null;
       
       _logger.entering(CLASS, METHOD);
@@ -291,9 +436,7 @@ public abstract class JaxrsHandler extends Handler implements JaxrsHandlerIF {
          throw new Exception("Attribute 'name' is null");
       }
 
-      json = this.getConfiguration(configType);
-      
-      object = JSON.getObject(json, name);
+      object = this.getConfigSnapshot(configType).getObject(name);
       
       _logger.exiting(CLASS, METHOD);
       
@@ -313,8 +456,7 @@ public abstract class JaxrsHandler extends Handler implements JaxrsHandlerIF {
    protected JSONArray getConfigArray(
       final String configType, final String name) throws Exception {
       
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
-      JSONObject json = null;
+      String METHOD = "getConfigArray";
       JSONArray array = null;
       
       _logger.entering(CLASS, METHOD);
@@ -323,15 +465,362 @@ public abstract class JaxrsHandler extends Handler implements JaxrsHandlerIF {
          throw new Exception("Attribute 'name' is null");
       }
 
-      json = this.getConfiguration(configType);
-      
-      array = JSON.getArray(json, name);
+      array = this.getConfigSnapshot(configType).getArray(name);
       
       _logger.exiting(CLASS, METHOD);
       
       return array;
    }
 
+   /**
+    * Get a number from the configuration data (JSON). The value is a String.
+    * The default value is returned if the attribute is missing or is not a
+    * valid number.
+    *
+    * @param configType String what type of configuration (RESOURCE, CONTENT)
+    * @param name String configuration attribute name
+    * @param defValue long default value
+    * @return long configuration attribute value
+    */
+   protected long getConfigLong(
+      final String configType, final String name, final long defValue) {
+      
+      String METHOD = "getConfigLong";
+      long value = defValue;
+
+      _logger.entering(CLASS, METHOD);
+
+      try {
+         value = this.getConfigSnapshot(configType).getLong(name, defValue);
+      } catch (Exception ex) {
+         _logger.log(Level.WARNING, "{0}: ''{1}'' is not valid, using default ''{2}'': {3}",
+            new Object[]{METHOD, name, defValue, ex.getMessage()});
+         value = defValue;
+      }
+
+      _logger.exiting(CLASS, METHOD);
+
+      return value;
+   }
+
+   /**
+    * Apply the function to each of the inputs, concurrently. Used to replace a
+    * loop of (independent) calls to the Authorization Server.
+    *
+    * <pre>
+    * The inputs are processed by the WorkerPool (see invokeAll).
+    * At most "rs.fanout.parallelism" inputs are processed at the same time.
+    * All of the inputs must be processed within "rs.fanout.timeout" seconds.
+    * The output has the same size and order as the inputs. An output is null
+    * if the function returned null, failed, or the deadline was reached.
+    * The function must be thread-safe and must not call fanOut().
+    * </pre>
+    *
+    * @param <T> input type
+    * @param <R> output type
+    * @param inputs List of inputs
+    * @param function Function applied to each input
+    * @return List of outputs, same order as the inputs
+    */
+   protected <T, R> List<R> fanOut(final List<T> inputs,
+      final Function<T, R> function) {
+
+      String METHOD = "fanOut";
+      long parallelism = 0L;
+      long timeout = 0L;
+      long start = 0L;
+      List<R> outputs = null;
+
+      _logger.entering(CLASS, METHOD);
+
+      parallelism = this.getConfigLong(ConstantsIF.RESOURCE,
+         ConfigIF.RS_FANOUT_PARALLELISM, DEFAULT_FANOUT_PARALLELISM);
+
+      timeout = this.getConfigLong(ConstantsIF.RESOURCE,
+         ConfigIF.RS_FANOUT_TIMEOUT, DEFAULT_FANOUT_TIMEOUT) * 1000L;
+
+      if (timeout <= 0L) {
+         timeout = DEFAULT_FANOUT_TIMEOUT * 1000L;
+      }
+
+      start = System.currentTimeMillis();
+
+      outputs = WorkerPool.invokeAll(inputs, function,
+         (int) Math.min(Math.max(parallelism, 1L), Integer.MAX_VALUE), timeout);
+
+      if (_logger.isLoggable(DEBUG_LEVEL)) {
+         _logger.log(DEBUG_LEVEL, "inputs={0}, parallelism={1}, incomplete={2}, elapsed={3}ms",
+            new Object[]{outputs.size(), parallelism, 
+               outputs.stream().filter(o -> o == null).count(),
+               System.currentTimeMillis() - start});
+      }
+
+      _logger.exiting(CLASS, METHOD);
+
+      return outputs;
+   }
+
+   /**
+    * Get the page size from the input. The REST resource sets it from the
+    * "pageSize" query parameter.
+    *
+    * @param jsonInput JSONObject input
+    * @return long page size, 0 if the results are not paged
+    */
+   protected long getPageSize(final JSONObject jsonInput) {
+      long pageSize = 0L;
+      String str = null;
+
+      str = JSON.getString(jsonInput, PAGE_SIZE);
+
+      if (!STR.isEmpty(str)) {
+         try {
+            pageSize = Long.parseLong(str.trim());
+         } catch (NumberFormatException ex) {
+            pageSize = 0L;
+         }
+      }
+
+      return (pageSize > 0L ? pageSize : 0L);
+   }
+
+   /**
+    * Get a page of database search results. The results are ordered by
+    * "uid", the cursor is the "uid" of the last result on the previous page.
+    * The output only has a "cursor" if there are more results.
+    *
+    * <pre>
+    * The database query does not support a range condition or a limit, the
+    * search returns all the matching documents, paging is applied here.
+    * Only the "pageSize" lowest uids after the cursor are kept (bounded
+    * heap), the results are not copied or fully sorted.
+    *
+    * JSON input ...
+    * {
+    *   "quantity": 42,
+    *   "results": [ { "uid": "...", "data": { ... } }, ... ]
+    * }
+    * JSON output ... pageSize = 10
+    * {
+    *   "quantity": 10,
+    *   "results": [ { "uid": "...", "data": { ... } }, ... ],
+    *   "cursor": "..." // uid of the last result
+    * }
+    * </pre>
+    *
+    * @param jsonData JSONObject search results
+    * @param pageSize long maximum number of results, 0 for all the results
+    * @param cursor String optional cursor, from the previous page
+    * @return JSONObject page of search results
+    */
+   protected JSONObject getPage(final JSONObject jsonData, final long pageSize,
+      final String cursor) {
+      String METHOD = "getPage";
+      int matched = 0;
+      int size = 0;
+      String uid = null;
+      JSONObject jsonOutput = null;
+      JSONObject jsonLast = null;
+      JSONArray arrayInput = null;
+      JSONArray arrayOutput = null;
+      PriorityQueue<JSONObject> heap = null;
+      List<JSONObject> results = null;
+      Comparator<JSONObject> byUid = null;
+
+      _logger.entering(CLASS, METHOD);
+
+      if (jsonData == null || pageSize <= 0L) {
+         jsonOutput = jsonData;
+      } else {
+         size = (int) Math.min(pageSize, (long) Integer.MAX_VALUE);
+         byUid = Comparator.comparing(
+            (JSONObject json) -> JSON.getString(json, ConstantsIF.UID));
+         heap = new PriorityQueue<>(Math.min(size, 1024) + 1, byUid.reversed()); // top is the highest uid
+         arrayInput = JSON.getArray(jsonData, ConstantsIF.RESULTS);
+
+         if (arrayInput != null) {
+            for (Object obj : arrayInput) {
+               if (obj != null && obj instanceof JSONObject) {
+                  uid = JSON.getString((JSONObject) obj, ConstantsIF.UID);
+
+                  if (!STR.isEmpty(uid)
+                     && (STR.isEmpty(cursor) || uid.compareTo(cursor) > 0)) {
+                     matched++;
+
+                     if (heap.size() < size) {
+                        heap.add((JSONObject) obj);
+                     } else if (uid.compareTo(JSON.getString(heap.peek(), ConstantsIF.UID)) < 0) {
+                        heap.poll();
+                        heap.add((JSONObject) obj);
+                     }
+                  }
+               }
+            }
+         }
+
+         results = new ArrayList<>(heap);
+         results.sort(byUid);
+
+         arrayOutput = new JSONArray();
+         arrayOutput.addAll(results);
+
+         jsonOutput = new JSONObject();
+         jsonOutput.put(ConstantsIF.QUANTITY, arrayOutput.size());
+         jsonOutput.put(ConstantsIF.RESULTS, arrayOutput);
+
+         if (matched > arrayOutput.size()) {
+            jsonLast = (JSONObject) arrayOutput.get(arrayOutput.size() - 1);
+            jsonOutput.put(PAGE_CURSOR, JSON.getString(jsonLast, ConstantsIF.UID));
+         }
+
+         if (_logger.isLoggable(DEBUG_LEVEL)) {
+            _logger.log(DEBUG_LEVEL, "pageSize={0}, cursor=''{1}'', matched={2}, returned={3}",
+               new Object[]{pageSize, cursor == null ? NULL : cursor,
+                  matched, arrayOutput.size()});
+         }
+      }
+
+      _logger.exiting(CLASS, METHOD);
+
+      return jsonOutput;
+   }
+
+   /**
+    * Set the Authorization Server paging parameters from the "pageSize" and
+    * "cursor" in the input. The cursor, from the previous page, is either
+    * the "_pagedResultsCookie" or the next "_pagedResultsOffset" (when the
+    * Authorization Server did not return a cookie).
+    *
+    * <pre>
+    * JSON input ...
+    * {
+    *   "pageSize": "10",
+    *   "cursor": "offset:10"
+    * }
+    * JSON params ...
+    * {
+    *   "_pageSize": "10",
+    *   "_pagedResultsOffset": "10"
+    * }
+    * </pre>
+    *
+    * @param jsonParams JSONObject query parameters for the AS request
+    * @param jsonInput JSONObject input, optional "pageSize" and "cursor"
+    * @param defPageSize long page size if not in the input, 0 for no paging
+    * @throws Exception the cursor is not valid
+    */
+   protected void setPagedResultsParams(final JSONObject jsonParams,
+      final JSONObject jsonInput, final long defPageSize) throws Exception {
+      String METHOD = "setPagedResultsParams";
+      long pageSize = 0L;
+      long offset = 0L;
+      String cursor = null;
+
+      _logger.entering(CLASS, METHOD);
+
+      pageSize = this.getPageSize(jsonInput);
+
+      if (pageSize == 0L) {
+         pageSize = defPageSize;
+      }
+
+      if (pageSize > 0L) {
+         jsonParams.put(PROP_PAGESIZE, Long.toString(pageSize));
+
+         cursor = JSON.getString(jsonInput, PAGE_CURSOR);
+
+         if (STR.isEmpty(cursor)) {
+            offset = 0L;
+         } else if (cursor.startsWith(CURSOR_OFFSET)) {
+            try {
+               offset = Long.parseLong(cursor.substring(CURSOR_OFFSET.length()));
+            } catch (NumberFormatException ex) {
+               offset = -1L;
+            }
+
+            if (offset < 0L) {
+               throw new Exception(METHOD + ": cursor is not valid: '" + cursor + "'");
+            }
+         } else {
+            jsonParams.put(PROP_PAGEDRESULTSCOOKIE, cursor);
+         }
+
+         if (!jsonParams.containsKey(PROP_PAGEDRESULTSCOOKIE)) {
+            jsonParams.put(PROP_PAGEDRESULTSOFFSET, Long.toString(offset));
+         }
+      }
+
+      _logger.exiting(CLASS, METHOD);
+
+      return;
+   }
+
+   /**
+    * Get the cursor for the next page of Authorization Server results. Uses
+    * the "pagedResultsCookie" if there is one, else the next offset when
+    * there are remaining results.
+    *
+    * <pre>
+    * JSON response ...
+    * {
+    *   "result": [ ... ],
+    *   "resultCount": 10,
+    *   "pagedResultsCookie": null,
+    *   "remainingPagedResults": 32
+    * }
+    * </pre>
+    *
+    * @param jsonResponse JSONObject AS search response
+    * @param jsonParams JSONObject query parameters (see setPagedResultsParams)
+    * @return String cursor, null if there are no more results
+    */
+   protected String getNextCursor(final JSONObject jsonResponse,
+      final JSONObject jsonParams) {
+      String METHOD = "getNextCursor";
+      long pageSize = 0L;
+      long offset = 0L;
+      long count = 0L;
+      long remaining = 0L;
+      String cursor = null;
+
+      _logger.entering(CLASS, METHOD);
+
+      pageSize = this.getLong(jsonParams, PROP_PAGESIZE, 0L);
+
+      if (jsonResponse != null && pageSize > 0L) {
+         cursor = JSON.getString(jsonResponse, AM_ATTR_PAGEDRESULTSCOOKIE);
+
+         if (STR.isEmpty(cursor)) {
+            cursor = null;
+            offset = this.getLong(jsonParams, PROP_PAGEDRESULTSOFFSET, 0L);
+            count = this.getLong(jsonResponse, AM_ATTR_RESULTCOUNT, 0L);
+            remaining = this.getLong(jsonResponse, AM_ATTR_REMAININGPAGEDRESULTS, -1L);
+
+            if (count > 0L && (remaining > 0L || (remaining < 0L && count >= pageSize))) {
+               cursor = CURSOR_OFFSET + (offset + count);
+            }
+         }
+      }
+
+      _logger.exiting(CLASS, METHOD);
+
+      return cursor;
+   }
+
+   /**
+    * Set the "cursor" for the next page, if there is one.
+    *
+    * @param jsonData JSONObject output data
+    * @param cursor String cursor, may be null
+    */
+   protected void setCursor(final JSONObject jsonData, final String cursor) {
+      if (jsonData != null && !STR.isEmpty(cursor)) {
+         jsonData.put(PAGE_CURSOR, cursor);
+      }
+
+      return;
+   }
+
    /**
     * Check for the specified attribute in the JSON data.
     *
@@ -340,7 +829,7 @@ public abstract class JaxrsHandler extends Handler implements JaxrsHandlerIF {
     * @throws Exception could not verify the attribute name in the JSON object
     */
    protected void checkAttr(final JSONObject json, final String attrName) throws Exception {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "checkAttr";
 
       _logger.entering(CLASS, METHOD);
       
@@ -368,7 +857,7 @@ public abstract class JaxrsHandler extends Handler implements JaxrsHandlerIF {
     * @throws Exception could not verify the user password
     */
    protected void checkUserPassword(JSONObject json) throws Exception {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "checkUserPassword";
 
       _logger.entering(CLASS, METHOD);
 
@@ -393,7 +882,7 @@ public abstract class JaxrsHandler extends Handler implements JaxrsHandlerIF {
     */
    protected void setDatabaseAndCollection(final OperationIF oper, final String database, final String collection)
       throws Exception {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "setDatabaseAndCollection";
 
       _logger.entering(CLASS, METHOD);
 
@@ -427,7 +916,7 @@ public abstract class JaxrsHandler extends Handler implements JaxrsHandlerIF {
     * @throws Exception could not get the session
     */
    protected JSONObject getSession(final JSONObject jsonInput) throws Exception {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "getSession";
       JSONObject jsonOutput = null;
       OperationIF operInput = null;
       OperationIF operOutput = null;
@@ -482,7 +971,7 @@ public abstract class JaxrsHandler extends Handler implements JaxrsHandlerIF {
     * @throws Exception could not validate the session
     */
    protected JSONObject validateSession(final JSONObject jsonInput) throws Exception {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "validateSession";
       JSONObject jsonOutput = null;
       OperationIF operInput = null;
       OperationIF operOutput = null;
@@ -531,7 +1020,7 @@ public abstract class JaxrsHandler extends Handler implements JaxrsHandlerIF {
     * @return String user id
     */
    protected String getUserIdFromSSO(final String ssotoken) {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "getUserIdFromSSO";
       String uid = null;
       JSONObject jsonInput = null;
       JSONObject jsonOutput = null;
@@ -556,11 +1045,36 @@ public abstract class JaxrsHandler extends Handler implements JaxrsHandlerIF {
       return uid;
    }
 
-   
-   private synchronized JSONObject getConfiguration(
+
+   /**
+    * Get the snapshot of the configuration. The snapshot is created by the
+    * first lookup, the configuration is loaded at startup and does not change.
+    *
+    * @param configType String what type of configuration (RESOURCE, CONTENT)
+    * @return ConfigSnapshot configuration snapshot
+    * @throws Exception could not get configuration
+    */
+   private ConfigSnapshot getConfigSnapshot(final String configType) throws Exception {
+      ConfigSnapshot snapshot = null;
+
+      if (STR.isEmpty(configType)) {
+         throw new Exception("Attribute 'configType' is null");
+      }
+
+      snapshot = _configSnapshots.get(configType);
+
+      if (snapshot == null) {
+         snapshot = new ConfigSnapshot(this.getConfiguration(configType));
+         _configSnapshots.putIfAbsent(configType, snapshot);
+      }
+
+      return snapshot;
+   }
+
+   private JSONObject getConfiguration(
       final String configType) throws Exception {
 
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "getConfiguration";
       ConfigurationIF configuration = null;
       JSONObject json = null;
       
@@ -606,7 +1120,7 @@ public abstract class JaxrsHandler extends Handler implements JaxrsHandlerIF {
     */
    private OperationIF getSession(final OperationIF operInput) throws Exception {
       boolean error = false;
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "getSession";
       String msg = null;
       String user = null;
       String password = null;
@@ -669,7 +1183,7 @@ public abstract class JaxrsHandler extends Handler implements JaxrsHandlerIF {
     */
    private OperationIF validateSession(final OperationIF operInput) throws Exception {
       boolean error = false;
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "validateSession";
       String msg = null;
       String tokenId = null;
       OperationIF operOutput = null;
@@ -704,4 +1218,35 @@ public abstract class JaxrsHandler extends Handler implements JaxrsHandlerIF {
 
       return operOutput;
    }
+
+   /*
+    * =============== PRIVATE METHODS ===============
+    */
+   /**
+    * Get a number from the JSON object, the value can be a Number or a String.
+    *
+    * @param json JSONObject JSON data
+    * @param name String attribute name
+    * @param defValue long default value, if missing or not a number
+    * @return long value
+    */
+   private long getLong(final JSONObject json, final String name,
+      final long defValue) {
+      long value = defValue;
+      Object obj = null;
+
+      obj = (json == null ? null : json.get(name));
+
+      if (obj instanceof Number) {
+         value = ((Number) obj).longValue();
+      } else if (obj instanceof String && !STR.isEmpty((String) obj)) {
+         try {
+            value = Long.parseLong(((String) obj).trim());
+         } catch (NumberFormatException ex) {
+            value = defValue;
+         }
+      }
+
+      return value;
+   }
 }
@@ -7,6 +7,7 @@ package com.forgerock.frdp.resourceserver.handler;
 
 import com.forgerock.frdp.dao.OperationIF;
 import com.forgerock.frdp.handler.HandlerIF;
+import org.json.simple.JSONObject;
 
 /**
  * JaxrsHandler interface
@@ -31,5 +32,12 @@ public interface JaxrsHandlerIF extends HandlerIF {
    public static final String HANDLER_UMA_SUBJECTS = "UMASubjectsHandler";
    public static final String HANDLER_UMA_WELLKNOWN = "UMAWellKnownHandler";
 
+   public static final String PAGE_SIZE = "pageSize";
+   public static final String PAGE_CURSOR = "cursor";
+
    public OperationIF process(final OperationIF operInput);
+
+   public void close();
+
+   public JSONObject getStats();
 }
@@ -9,18 +9,23 @@ import com.forgerock.frdp.config.ConfigurationIF;
 import com.forgerock.frdp.config.ConfigurationManagerIF;
 import com.forgerock.frdp.dao.Operation;
 import com.forgerock.frdp.dao.OperationIF;
-import com.forgerock.frdp.dao.mongo.MongoFactory;
 import com.forgerock.frdp.handler.HandlerManagerIF;
 import com.forgerock.frdp.resourceserver.ConfigIF;
+import com.forgerock.frdp.resourceserver.cache.ResourceCache;
+import com.forgerock.frdp.resourceserver.dao.DataAccessRegistry;
 import com.forgerock.frdp.utils.JSON;
 import com.forgerock.frdp.utils.STR;
-import java.util.Map;
 import java.util.logging.Level;
 import org.json.simple.JSONObject;
 
 /**
  * Meta Data Handler ... data about the JSON data
  *
+ * <pre>
+ * The "read" operation uses the Resources Handler, which caches the resource
+ * documents. The "replace" and "delete" operations invalidate the resource.
+ * </pre>
+ *
  * @author Scott Fehrman, ForgeRock, Inc.
  */
 public class MetaHandler extends JaxrsHandler {
@@ -35,11 +40,13 @@ public class MetaHandler extends JaxrsHandler {
     *
     * @param configMgr ConfigurationManagerIF management of configurations
     * @param handlerMgr HandlerManagerIF provides management of Handlers
+    * @param daoRegistry DataAccessRegistry shared Data Access Objects
     */
-   public MetaHandler(final ConfigurationManagerIF configMgr, final HandlerManagerIF handlerMgr) {
-      super(configMgr, handlerMgr);
+   public MetaHandler(final ConfigurationManagerIF configMgr, 
+      final HandlerManagerIF handlerMgr, final DataAccessRegistry daoRegistry) {
+      super(configMgr, handlerMgr, daoRegistry);
 
-      String METHOD = "MetaHandler(config, handlerMgr)";
+      String METHOD = "MetaHandler(config, handlerMgr, daoRegistry)";
 
       _logger.entering(CLASS, METHOD);
 
@@ -61,7 +68,7 @@ public class MetaHandler extends JaxrsHandler {
     */
    @Override
    protected void validate(final OperationIF oper) throws Exception {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "validate";
       JSONObject jsonInput = null;
 
       _logger.entering(CLASS, METHOD);
@@ -120,11 +127,10 @@ public class MetaHandler extends JaxrsHandler {
    @Override
    protected OperationIF read(OperationIF operInput) {
       boolean error = false;
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "read";
+      OperationIF readInput = null;
       OperationIF operOutput = null;
-      JSONObject jsonOutput = null;
-      JSONObject jsonMeta = null;
-      JSONObject jsonWrapData = null;
+      JSONObject jsonInput = null;
 
       _logger.entering(CLASS, METHOD);
 
@@ -136,9 +142,14 @@ public class MetaHandler extends JaxrsHandler {
 
       operOutput = new Operation(OperationIF.TYPE.READ);
 
+      jsonInput = new JSONObject();
+      jsonInput.put(ConstantsIF.UID, JSON.getString(operInput.getJSON(), ConstantsIF.UID));
+
+      readInput = new Operation(OperationIF.TYPE.READ);
+      readInput.setJSON(jsonInput);
+
       try {
-         this.setDatabaseAndCollection(operInput, ConfigIF.RS_NOSQL_DATABASE,
-            ConfigIF.RS_NOSQL_COLLECTIONS_RESOURCES_NAME);
+         operOutput = this.getHandler(JaxrsHandlerIF.HANDLER_RESOURCES).process(readInput);
       } catch (Exception ex) {
          error = true;
          operOutput = new Operation(OperationIF.TYPE.READ);
@@ -148,24 +159,11 @@ public class MetaHandler extends JaxrsHandler {
       }
 
       if (!error) {
-         operOutput = _MongoDAO.execute(operInput);
-
          /*
           * Extract the "meta" object JSON ... {"data": {"meta": {...}}}
           */
          if (operOutput != null && !operOutput.isError()) {
-            jsonOutput = operOutput.getJSON();
-
-            jsonMeta = JSON.getObject(jsonOutput, ConstantsIF.DATA + "." + ConstantsIF.META);
-
-            if (jsonMeta == null) {
-               jsonMeta = new JSONObject();
-            }
-
-            jsonWrapData = new JSONObject();
-            jsonWrapData.put(ConstantsIF.DATA, jsonMeta);
-
-            operOutput.setJSON(jsonWrapData);
+            operOutput.setJSON(getMetaOutput(operOutput.getJSON()));
          }
       }
 
@@ -198,7 +196,7 @@ public class MetaHandler extends JaxrsHandler {
    @Override
    protected OperationIF replace(OperationIF operInput) {
       boolean error = false;
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "replace";
       String resourceUid = null;
       OperationIF operOutput = null;
       JSONObject jsonInput = null;
@@ -252,7 +250,7 @@ public class MetaHandler extends JaxrsHandler {
    @Override
    protected OperationIF delete(OperationIF operInput) {
       OperationIF operOutput = null;
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "delete";
       String resourceUid = null;
       JSONObject jsonInput = null;
 
@@ -292,6 +290,37 @@ public class MetaHandler extends JaxrsHandler {
       return operOutput;
    }
 
+   /**
+    * Get the "read" output for a resource document: the "meta" object, empty
+    * if missing, wrapped in "data". Used by the "read" operation and by
+    * callers that already have the resource document (RSResource.getMeta).
+    *
+    * <pre>
+    * JSON output ...
+    * {
+    *   "data": { "name": "...", "type": "...", ... }
+    * }
+    * </pre>
+    *
+    * @param jsonResource JSONObject resource document
+    * @return JSONObject "read" output
+    */
+   public static JSONObject getMetaOutput(final JSONObject jsonResource) {
+      JSONObject jsonMeta = null;
+      JSONObject jsonWrapData = null;
+
+      jsonMeta = JSON.getObject(jsonResource, ConstantsIF.DATA + "." + ConstantsIF.META);
+
+      if (jsonMeta == null) {
+         jsonMeta = new JSONObject();
+      }
+
+      jsonWrapData = new JSONObject();
+      jsonWrapData.put(ConstantsIF.DATA, jsonMeta);
+
+      return jsonWrapData;
+   }
+
    /*
     * =============== PRIVATE METHODS ===============
     */
@@ -299,12 +328,11 @@ public class MetaHandler extends JaxrsHandler {
     * Initialize object instance
     */
    private void init() {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "init";
       String msg = null;
       String type = ConstantsIF.RESOURCE;
       ConfigurationIF config = null;
       JSONObject json = null;
-      Map<String, String> map = null;
 
       _logger.entering(CLASS, METHOD);
 
@@ -328,10 +356,8 @@ public class MetaHandler extends JaxrsHandler {
        * setup the Mongo Data Access Object
        */
       if (_MongoDAO == null) {
-         map = JSON.convertToParams(JSON.getObject(json, ConfigIF.RS_NOSQL));
-
          try {
-            _MongoDAO = MongoFactory.getInstance(map);
+            _MongoDAO = _daoRegistry.getMongoDAO();
          } catch (Exception ex) {
             msg = CLASS + ": " + METHOD + ": Mongo DAO:" + ex.getMessage();
             this.setError(true);
@@ -367,7 +393,7 @@ public class MetaHandler extends JaxrsHandler {
     * @throws Exception
     */
    private void checkMeta(JSONObject jsonInput) throws Exception {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "checkMeta";
       JSONObject jsonData = null;
 
       _logger.entering(CLASS, METHOD);
@@ -404,7 +430,7 @@ public class MetaHandler extends JaxrsHandler {
     * @throws Exception
     */
    private void replaceImpl(final String resourceUid, final JSONObject jsonMeta) throws Exception {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "replaceImpl";
       OperationIF readInput = null;
       OperationIF readOutput = null;
       OperationIF replaceInput = null;
@@ -456,6 +482,8 @@ public class MetaHandler extends JaxrsHandler {
 
             replaceOutput = _MongoDAO.execute(replaceInput);
 
+            this.invalidate(resourceUid);
+
             if (replaceOutput.isError()) {
                throw new Exception(
                   METHOD + ": " + replaceOutput.getState().toString() + ": " 
@@ -481,7 +509,7 @@ public class MetaHandler extends JaxrsHandler {
     * @throws Exception
     */
    private void deleteImpl(final String resourceUid) throws Exception {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "deleteImpl";
       String registerId = null;
       OperationIF readInput = null;
       OperationIF readOutput = null;
@@ -529,6 +557,8 @@ public class MetaHandler extends JaxrsHandler {
 
                deleteOutput = _MongoDAO.execute(deleteInput);
 
+               this.invalidate(resourceUid);
+
                if (deleteOutput.isError()) {
                   throw new Exception(
                      METHOD + ": " + deleteOutput.getState().toString() + ": " + deleteOutput.getStatus());
@@ -546,4 +576,21 @@ public class MetaHandler extends JaxrsHandler {
 
       return;
    }
+
+   /**
+    * Invalidate the cached resource document, it was changed
+    *
+    * @param resourceUid String unique identifier for a resource
+    */
+   private void invalidate(final String resourceUid) {
+      ResourceCache resourceCache = null;
+
+      resourceCache = this.getResourceCache();
+
+      if (resourceCache != null) {
+         resourceCache.invalidate(resourceUid);
+      }
+
+      return;
+   }
 }
@@ -9,32 +9,65 @@ import com.forgerock.frdp.config.ConfigurationIF;
 import com.forgerock.frdp.config.ConfigurationManagerIF;
 import com.forgerock.frdp.dao.Operation;
 import com.forgerock.frdp.dao.OperationIF;
-import com.forgerock.frdp.dao.mongo.MongoFactory;
 import com.forgerock.frdp.handler.HandlerManagerIF;
 import com.forgerock.frdp.resourceserver.ConfigIF;
+import com.forgerock.frdp.resourceserver.cache.RegisterIndex;
+import com.forgerock.frdp.resourceserver.cache.ResourceCache;
+import com.forgerock.frdp.resourceserver.dao.DataAccessRegistry;
 import com.forgerock.frdp.utils.JSON;
+import com.forgerock.frdp.utils.STR;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
 
 /**
  * Resource Handler
  *
+ * <pre>
+ * Maintains an index of the resource uid / register id pairs (RegisterIndex).
+ * Pairs are added by "create", "read", "replace" and "search" and removed
+ * by "replace" (not registered) and "delete".
+ *
+ * Caches the resource documents (ResourceCache) that are returned by "read".
+ * Also caches, for a shorter time, the resource uids that do not exist and
+ * the resources that are not registered. The version is incremented by
+ * "create", "replace" and "delete".
+ *
+ * Gets the resources for a set of register ids (getResourcesByRegisterIds),
+ * used by the handlers that start from the Authorization Server data.
+ * </pre>
+ *
  * @author Scott Fehrman, ForgeRock, Inc.
  */
 public class ResourcesHandler extends JaxrsHandler {
 
    private final String CLASS = this.getClass().getName();
 
+   private static final long DEFAULT_INDEX_MAX_ENTRIES = 10000L;
+   private static final long DEFAULT_CACHE_MAX_ENTRIES = 1000L;
+   private static final long DEFAULT_CACHE_TTL = 30L; // seconds
+   private static final long DEFAULT_CACHE_NEGATIVE_TTL = 10L; // seconds
+   private static final int REGISTER_BATCH_SIZE = 100;
+
+   private RegisterIndex _registerIndex = null;
+   private ResourceCache _resourceCache = null;
+
    /**
     * Constructor
     *
     * @param configMgr ConfigurationManagerIF management of configurations
     * @param handlerMgr HandlerManagerIF provides management of Handlers
+    * @param daoRegistry DataAccessRegistry shared Data Access Objects
     */
-   public ResourcesHandler(final ConfigurationManagerIF configMgr, final HandlerManagerIF handlerMgr) {
-      super(configMgr, handlerMgr);
+   public ResourcesHandler(final ConfigurationManagerIF configMgr, 
+      final HandlerManagerIF handlerMgr, final DataAccessRegistry daoRegistry) {
+      super(configMgr, handlerMgr, daoRegistry);
 
-      String METHOD = "ResourcesHandler(configMgr, handlerMgr)";
+      String METHOD = "ResourcesHandler(configMgr, handlerMgr, daoRegistry)";
 
       _logger.entering(CLASS, METHOD);
 
@@ -45,6 +78,203 @@ public class ResourcesHandler extends JaxrsHandler {
       return;
    }
 
+   /**
+    * Get the index of resource uid / register id pairs. A miss is not read
+    * from the database, use "read" (resource uid) or "search" (register id)
+    * which add the pairs.
+    *
+    * @return RegisterIndex index
+    */
+   public RegisterIndex getRegisterIndex() {
+      return _registerIndex;
+   }
+
+   /**
+    * Get the cache of resource documents
+    *
+    * @return ResourceCache cache
+    */
+   @Override
+   public ResourceCache getResourceCache() {
+      return _resourceCache;
+   }
+
+   /**
+    * Get the resource documents for the registration ids. A register id in
+    * the index, with a cached document, is not read from the database. The
+    * misses are sent as "or" queries, in batches, the results are added to
+    * the index and cache.
+    *
+    * <pre>
+    * JSON input ... for each batch
+    * {
+    *   "query": {
+    *     "operator": "or",
+    *     "queries": [
+    *       { "operator": "equal", "attribute": "data.register", "value": "..." },
+    *       ...
+    *     ]
+    *   }
+    * }
+    * JSON output ... from MongoDB
+    * {
+    *   "quantity": X,
+    *   "results" : [
+    *     {
+    *       "uid": "...",
+    *       "data: {
+    *         "register": "...",
+    *         ...
+    *       }
+    *     },
+    *     ...
+    *   ]
+    * }
+    * </pre>
+    *
+    * @param registerIds Set of registration identifiers
+    * @return Map of registration identifier to resource document, a
+    * registration without a resource is not in the map
+    * @throws Exception a batch could not be read, the map would be incomplete
+    */
+   @Override
+   public Map<String, JSONObject> getResourcesByRegisterIds(
+      final Set<String> registerIds) throws Exception {
+      String METHOD = "getResourcesByRegisterIds";
+      long version = 0L;
+      String registerId = null;
+      String resourceUid = null;
+      JSONObject jsonResource = null;
+      JSONObject jsonInput = null;
+      JSONObject jsonQuery = null;
+      JSONArray jsonQueries = null;
+      JSONArray arrayResults = null;
+      OperationIF operInput = null;
+      OperationIF operOutput = null;
+      List<String> listIds = null;
+      Map<String, JSONObject> mapResources = null;
+
+      _logger.entering(CLASS, METHOD);
+
+      mapResources = new HashMap<>();
+
+      if (registerIds != null && !registerIds.isEmpty()) {
+         listIds = new ArrayList<>();
+
+         /*
+          * Use the index and cache, only query the database for the misses
+          */
+         for (String id : registerIds) {
+            if (!STR.isEmpty(id)) {
+               resourceUid = _registerIndex.getResourceId(id);
+               jsonResource = (resourceUid != null ? _resourceCache.get(resourceUid) : null);
+
+               if (jsonResource != null && id.equals(JSON.getString(jsonResource,
+                  ConstantsIF.DATA + "." + ConstantsIF.REGISTER))) {
+                  mapResources.put(id, jsonResource);
+               } else {
+                  listIds.add(id);
+               }
+            }
+         }
+
+         for (int start = 0; start < listIds.size(); start += REGISTER_BATCH_SIZE) {
+            jsonQueries = new JSONArray();
+
+            for (String id : listIds.subList(start,
+               Math.min(start + REGISTER_BATCH_SIZE, listIds.size()))) {
+               jsonQuery = new JSONObject();
+               jsonQuery.put(ConstantsIF.OPERATOR, ConstantsIF.EQUAL);
+               jsonQuery.put(ConstantsIF.ATTRIBUTE, ConstantsIF.DATA + "."
+                  + ConstantsIF.REGISTER);
+               jsonQuery.put(ConstantsIF.VALUE, id);
+
+               jsonQueries.add(jsonQuery);
+            }
+
+            jsonQuery = new JSONObject();
+            jsonQuery.put(ConstantsIF.OPERATOR, ConstantsIF.OR);
+            jsonQuery.put(ConstantsIF.QUERIES, jsonQueries);
+
+            jsonInput = new JSONObject();
+            jsonInput.put(ConstantsIF.QUERY, jsonQuery);
+
+            operInput = new Operation(OperationIF.TYPE.SEARCH);
+            operInput.setJSON(jsonInput);
+
+            this.setDatabaseAndCollection(operInput, ConfigIF.RS_NOSQL_DATABASE,
+               ConfigIF.RS_NOSQL_COLLECTIONS_RESOURCES_NAME);
+
+            version = _resourceCache.getVersion();
+
+            operOutput = _MongoDAO.execute(operInput);
+
+            if (operOutput.isError() && operOutput.getState() != STATE.NOTEXIST) {
+               throw new Exception(METHOD + ": " + operOutput.getStatus());
+            }
+
+            if (operOutput.getState() == STATE.SUCCESS) {
+               arrayResults = JSON.getArray(operOutput.getJSON(), ConstantsIF.RESULTS);
+
+               this.index(arrayResults);
+
+               if (arrayResults != null) {
+                  for (Object obj : arrayResults) {
+                     if (obj != null && obj instanceof JSONObject) {
+                        jsonResource = (JSONObject) obj;
+                        registerId = JSON.getString(jsonResource,
+                           ConstantsIF.DATA + "." + ConstantsIF.REGISTER);
+                        resourceUid = JSON.getString(jsonResource, ConstantsIF.UID);
+
+                        if (!STR.isEmpty(registerId) && !STR.isEmpty(resourceUid)
+                           && !mapResources.containsKey(registerId)) {
+                           mapResources.put(registerId, jsonResource);
+                           _resourceCache.put(resourceUid, version, jsonResource);
+                        }
+                     }
+                  }
+               }
+            }
+         }
+      }
+
+      if (_logger.isLoggable(DEBUG_LEVEL)) {
+         _logger.log(DEBUG_LEVEL, "registerIds={0}, queried={1}, resolved={2}",
+            new Object[]{
+               registerIds != null ? registerIds.size() : 0,
+               listIds != null ? listIds.size() : 0, mapResources.size()
+            });
+      }
+
+      _logger.exiting(CLASS, METHOD);
+
+      return mapResources;
+   }
+
+   /**
+    * Get the index and cache statistics
+    *
+    * <pre>
+    * JSON output ...
+    * {
+    *   "index": { ... },
+    *   "cache": { ... }
+    * }
+    * </pre>
+    *
+    * @return JSONObject statistics
+    */
+   @Override
+   public JSONObject getStats() {
+      JSONObject jsonStats = null;
+
+      jsonStats = new JSONObject();
+      jsonStats.put("index", _registerIndex.getStats());
+      jsonStats.put("cache", _resourceCache.getStats());
+
+      return jsonStats;
+   }
+
    /*
     * ================= PROTECTED METHODS =================
     */
@@ -56,7 +286,7 @@ public class ResourcesHandler extends JaxrsHandler {
     */
    @Override
    protected void validate(final OperationIF oper) throws Exception {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "validate";
       JSONObject jsonInput = null;
 
       _logger.entering(CLASS, METHOD);
@@ -107,7 +337,7 @@ public class ResourcesHandler extends JaxrsHandler {
    @Override
    protected OperationIF create(final OperationIF operInput) {
       boolean error = false;
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "create";
       OperationIF operOutput = null;
 
       _logger.entering(CLASS, METHOD);
@@ -132,6 +362,13 @@ public class ResourcesHandler extends JaxrsHandler {
 
       if (!error) {
          operOutput = _MongoDAO.execute(operInput);
+
+         if (operOutput.getState() == STATE.SUCCESS && operOutput.getJSON() != null) {
+            _resourceCache.invalidate(JSON.getString(operOutput.getJSON(),
+               ConstantsIF.UID));
+            this.index(JSON.getString(operOutput.getJSON(), ConstantsIF.UID),
+               operInput.getJSON());
+         }
       }
 
       if (_logger.isLoggable(DEBUG_LEVEL)) {
@@ -162,6 +399,12 @@ public class ResourcesHandler extends JaxrsHandler {
     *     "value": "bjensen"
     *   }
     * }
+    * -or- ... paged, see getPage
+    * {
+    *   "query": { ... },
+    *   "pageSize": "10",
+    *   "cursor": "..." // OPTIONAL, from the previous page
+    * }
     * JSON output ...
     * {
     *   "data": {
@@ -169,7 +412,8 @@ public class ResourcesHandler extends JaxrsHandler {
     *     "results": [
     *       { ... },
     *       ...
-    *     ]
+    *     ],
+    *     "cursor": "..." // paged, only if there are more results
     *   }
     * }
     * </pre>
@@ -180,7 +424,9 @@ public class ResourcesHandler extends JaxrsHandler {
    @Override
    protected OperationIF search(final OperationIF operInput) {
       boolean error = false;
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "search";
+      long pageSize = 0L;
+      String cursor = null;
       OperationIF operOutput = null;
       JSONObject jsonData = null;
 
@@ -205,10 +451,22 @@ public class ResourcesHandler extends JaxrsHandler {
       }
 
       if (!error) {
+         if (operInput.getJSON() != null) { // paging is not part of the query
+            pageSize = this.getPageSize(operInput.getJSON());
+            cursor = JSON.getString(operInput.getJSON(), PAGE_CURSOR);
+            operInput.getJSON().remove(PAGE_SIZE);
+            operInput.getJSON().remove(PAGE_CURSOR);
+         }
+
          operOutput = _MongoDAO.execute(operInput);
 
+         if (operOutput.getState() == STATE.SUCCESS) {
+            this.index(JSON.getArray(operOutput.getJSON(), ConstantsIF.RESULTS));
+         }
+
          jsonData = new JSONObject();
-         jsonData.put(ConstantsIF.DATA, operOutput.getJSON());
+         jsonData.put(ConstantsIF.DATA,
+            this.getPage(operOutput.getJSON(), pageSize, cursor));
 
          operOutput.setJSON(jsonData);
       }
@@ -255,8 +513,11 @@ public class ResourcesHandler extends JaxrsHandler {
    @Override
    protected OperationIF read(final OperationIF operInput) {
       boolean error = false;
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      long version = 0L;
+      String METHOD = "read";
+      String resourceUid = null;
       OperationIF operOutput = null;
+      JSONObject jsonCached = null;
 
       _logger.entering(CLASS, METHOD);
 
@@ -268,18 +529,46 @@ public class ResourcesHandler extends JaxrsHandler {
 
       operOutput = new Operation(OperationIF.TYPE.READ);
 
-      try {
-         this.setDatabaseAndCollection(operInput, ConfigIF.RS_NOSQL_DATABASE,
-            ConfigIF.RS_NOSQL_COLLECTIONS_RESOURCES_NAME);
-      } catch (Exception ex) {
-         error = true;
+      resourceUid = JSON.getString(operInput.getJSON(), ConstantsIF.UID);
+
+      jsonCached = _resourceCache.get(resourceUid);
+
+      if (jsonCached != null) {
+         operOutput.setState(STATE.SUCCESS);
+         operOutput.setStatus("Found (cached)");
+         operOutput.setJSON(jsonCached);
+      } else if (_resourceCache.isNotExist(resourceUid)) {
          operOutput.setError(true);
-         operOutput.setState(STATE.ERROR);
-         operOutput.setStatus(ex.getMessage());
-      }
+         operOutput.setState(STATE.NOTEXIST);
+         operOutput.setStatus("Not found (cached)");
+      } else {
+         try {
+            this.setDatabaseAndCollection(operInput, ConfigIF.RS_NOSQL_DATABASE,
+               ConfigIF.RS_NOSQL_COLLECTIONS_RESOURCES_NAME);
+         } catch (Exception ex) {
+            error = true;
+            operOutput.setError(true);
+            operOutput.setState(STATE.ERROR);
+            operOutput.setStatus(ex.getMessage());
+         }
 
-      if (!error) {
-         operOutput = _MongoDAO.execute(operInput);
+         if (!error) {
+            version = _resourceCache.getVersion();
+
+            operOutput = _MongoDAO.execute(operInput);
+
+            if (operOutput.getState() == STATE.SUCCESS) {
+               this.index(resourceUid, operOutput.getJSON());
+               _resourceCache.put(resourceUid, version, operOutput.getJSON());
+
+               if (STR.isEmpty(JSON.getString(operOutput.getJSON(),
+                  ConstantsIF.DATA + "." + ConstantsIF.REGISTER))) {
+                  _resourceCache.putUnregistered(resourceUid, version);
+               }
+            } else if (operOutput.getState() == STATE.NOTEXIST) {
+               _resourceCache.putNotExist(resourceUid, version);
+            }
+         }
       }
 
       if (_logger.isLoggable(DEBUG_LEVEL)) {
@@ -312,7 +601,7 @@ public class ResourcesHandler extends JaxrsHandler {
    @Override
    protected OperationIF replace(OperationIF operInput) {
       boolean error = false;
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "replace";
       OperationIF operOutput = null;
 
       _logger.entering(CLASS, METHOD);
@@ -337,6 +626,14 @@ public class ResourcesHandler extends JaxrsHandler {
 
       if (!error) {
          operOutput = _MongoDAO.execute(operInput);
+
+         _resourceCache.invalidate(JSON.getString(operInput.getJSON(),
+            ConstantsIF.UID));
+
+         if (operOutput.getState() == STATE.SUCCESS) {
+            this.index(JSON.getString(operInput.getJSON(), ConstantsIF.UID),
+               operInput.getJSON());
+         }
       }
 
       if (_logger.isLoggable(DEBUG_LEVEL)) {
@@ -366,7 +663,7 @@ public class ResourcesHandler extends JaxrsHandler {
    @Override
    protected OperationIF delete(final OperationIF operInput) {
       boolean error = false;
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "delete";
       OperationIF operOutput = null;
 
       _logger.entering(CLASS, METHOD);
@@ -391,6 +688,11 @@ public class ResourcesHandler extends JaxrsHandler {
 
       if (!error) {
          operOutput = _MongoDAO.execute(operInput);
+
+         _resourceCache.invalidate(JSON.getString(operInput.getJSON(),
+            ConstantsIF.UID));
+         _registerIndex.removeResource(JSON.getString(operInput.getJSON(),
+            ConstantsIF.UID));
       }
 
       if (_logger.isLoggable(DEBUG_LEVEL)) {
@@ -411,12 +713,14 @@ public class ResourcesHandler extends JaxrsHandler {
     * Initialize object instance
     */
    private void init() {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      long maxEntries = 0L;
+      long ttl = 0L;
+      long negativeTtl = 0L;
+      String METHOD = "init";
       String msg = null;
       String type = ConstantsIF.RESOURCE;
       ConfigurationIF config = null;
       JSONObject json = null;
-      Map<String, String> map = null;
 
       _logger.entering(CLASS, METHOD);
 
@@ -440,16 +744,30 @@ public class ResourcesHandler extends JaxrsHandler {
        * setup the Mongo Data Access Object
        */
       if (_MongoDAO == null) {
-         map = JSON.convertToParams(JSON.getObject(json, ConfigIF.RS_NOSQL));
-
          try {
-            _MongoDAO = MongoFactory.getInstance(map);
+            _MongoDAO = _daoRegistry.getMongoDAO();
          } catch (Exception ex) {
             msg = CLASS + ": " + METHOD + ": Mongo DAO:" + ex.getMessage();
             this.setError(true);
          }
       }
 
+      maxEntries = this.getConfigLong(type,
+         ConfigIF.RS_NOSQL_COLLECTIONS_RESOURCES_INDEX_MAX_ENTRIES, DEFAULT_INDEX_MAX_ENTRIES);
+
+      _registerIndex = new RegisterIndex((int) Math.max(maxEntries, 1L));
+
+      maxEntries = this.getConfigLong(type,
+         ConfigIF.RS_NOSQL_COLLECTIONS_RESOURCES_CACHE_MAX_ENTRIES, DEFAULT_CACHE_MAX_ENTRIES);
+      ttl = this.getConfigLong(type,
+         ConfigIF.RS_NOSQL_COLLECTIONS_RESOURCES_CACHE_TTL, DEFAULT_CACHE_TTL);
+
+      negativeTtl = this.getConfigLong(type,
+         ConfigIF.RS_NOSQL_COLLECTIONS_RESOURCES_CACHE_NEGATIVE_TTL, DEFAULT_CACHE_NEGATIVE_TTL);
+
+      _resourceCache = new ResourceCache((int) Math.max(maxEntries, 0L),
+         Math.max(ttl, 0L) * 1000L, Math.max(negativeTtl, 0L) * 1000L);
+
       if (!this.isError()) {
          this.setState(STATE.READY);
       } else {
@@ -462,4 +780,55 @@ public class ResourcesHandler extends JaxrsHandler {
 
       return;
    }
+
+   /**
+    * Add the resource uid / register id pair to the index. If the resource
+    * is not registered, remove the resource uid from the index.
+    *
+    * @param resourceUid String resource uid
+    * @param jsonResource JSONObject resource, with "data.register"
+    */
+   private void index(final String resourceUid, final JSONObject jsonResource) {
+      String registerId = null;
+
+      if (!STR.isEmpty(resourceUid)) {
+         registerId = JSON.getString(jsonResource,
+            ConstantsIF.DATA + "." + ConstantsIF.REGISTER);
+
+         if (!STR.isEmpty(registerId)) {
+            _registerIndex.put(resourceUid, registerId);
+         } else {
+            _registerIndex.removeResource(resourceUid);
+         }
+      }
+
+      return;
+   }
+
+   /**
+    * Add the registered resources, from search results, to the index
+    *
+    * @param arrayResults JSONArray search results, may be null
+    */
+   private void index(final JSONArray arrayResults) {
+      String registerId = null;
+      JSONObject jsonResource = null;
+
+      if (arrayResults != null) {
+         for (Object obj : arrayResults) {
+            if (obj != null && obj instanceof JSONObject) {
+               jsonResource = (JSONObject) obj;
+               registerId = JSON.getString(jsonResource,
+                  ConstantsIF.DATA + "." + ConstantsIF.REGISTER);
+
+               if (!STR.isEmpty(registerId)) {
+                  _registerIndex.put(JSON.getString(jsonResource, ConstantsIF.UID),
+                     registerId);
+               }
+            }
+         }
+      }
+
+      return;
+   }
 }
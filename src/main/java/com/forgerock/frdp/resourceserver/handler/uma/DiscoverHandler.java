@@ -9,14 +9,15 @@ import com.forgerock.frdp.config.ConfigurationIF;
 import com.forgerock.frdp.config.ConfigurationManagerIF;
 import com.forgerock.frdp.dao.Operation;
 import com.forgerock.frdp.dao.OperationIF;
-import com.forgerock.frdp.dao.mongo.MongoFactory;
 import com.forgerock.frdp.handler.HandlerManagerIF;
 import com.forgerock.frdp.resourceserver.ConfigIF;
-import com.forgerock.frdp.resourceserver.dao.AMRestDataAccess;
+import com.forgerock.frdp.resourceserver.dao.DataAccessRegistry;
 import com.forgerock.frdp.resourceserver.handler.JaxrsHandler;
+import com.forgerock.frdp.resourceserver.handler.JaxrsHandlerIF;
 import com.forgerock.frdp.utils.JSON;
 import com.forgerock.frdp.utils.STR;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.logging.Level;
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
@@ -32,19 +33,19 @@ import org.json.simple.JSONObject;
 public class DiscoverHandler extends JaxrsHandler {
 
    private final String CLASS = this.getClass().getName();
-   private String _uma_resourceset_path = null;
 
    /**
     * Constructor
     *
     * @param configMgr ConfigurationManagerIF management of configurations
     * @param handlerMgr HandlerManagerIF provides management of Handlers
+    * @param daoRegistry DataAccessRegistry shared Data Access Objects
     */
    public DiscoverHandler(final ConfigurationManagerIF configMgr, 
-      final HandlerManagerIF handlerMgr) {
-      super(configMgr, handlerMgr);
+      final HandlerManagerIF handlerMgr, final DataAccessRegistry daoRegistry) {
+      super(configMgr, handlerMgr, daoRegistry);
 
-      String METHOD = "DiscoverHandler(configMgr, handlerMgr)";
+      String METHOD = "DiscoverHandler(configMgr, handlerMgr, daoRegistry)";
 
       _logger.entering(CLASS, METHOD);
 
@@ -66,7 +67,7 @@ public class DiscoverHandler extends JaxrsHandler {
     */
    @Override
    protected void validate(final OperationIF oper) throws Exception {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "validate";
       JSONObject jsonInput = null;
 
       _logger.entering(CLASS, METHOD);
@@ -127,7 +128,7 @@ public class DiscoverHandler extends JaxrsHandler {
     */
    @Override
    protected OperationIF search(OperationIF operInput) {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "search";
       OperationIF operOutput = null;
 
       _logger.entering(CLASS, METHOD);
@@ -158,13 +159,11 @@ public class DiscoverHandler extends JaxrsHandler {
     * Initialize object instance
     */
    private void init() {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
-      String configType = ConstantsIF.RESOURCE;
+      String METHOD = "init";
       String msg = null;
       String type = ConstantsIF.RESOURCE;
       ConfigurationIF config = null;
       JSONObject json = null;
-      Map<String, String> map = null;
 
       _logger.entering(CLASS, METHOD);
 
@@ -185,36 +184,14 @@ public class DiscoverHandler extends JaxrsHandler {
        * setup the Mongo Data Access Object
        */
       if (!this.isError() && _MongoDAO == null) {
-         map = JSON.convertToParams(JSON.getObject(json, ConfigIF.RS_NOSQL));
          try {
-            _MongoDAO = MongoFactory.getInstance(map);
+            _MongoDAO = _daoRegistry.getMongoDAO();
          } catch (Exception ex) {
             msg = CLASS + ": " + METHOD + ": Mongo DAO:" + ex.getMessage();
             this.setError(true);
          }
       }
 
-      if (!this.isError() && _AuthzServerDAO == null) {
-         try {
-            _AuthzServerDAO = new AMRestDataAccess(
-               JSON.convertToParams(
-                  JSON.getObject(json, ConfigIF.AS_CONNECT)));
-         } catch (Exception ex) {
-            msg = CLASS + ": " + METHOD + ": REST DAO: " + ex.getMessage();
-            this.setError(true);
-         }
-      }
-
-      if (!this.isError()) {
-         try {
-            _uma_resourceset_path = this.getConfigValue(configType, 
-               ConfigIF.AS_UMA_RESOURCE_SET_PATH);
-         } catch (Exception ex) {
-            msg = CLASS + ": " + METHOD + ": _path : " + ex.getMessage();
-            this.setError(true);
-         }
-      }
-
       if (!this.isError()) {
          this.setState(STATE.READY);
       } else {
@@ -233,6 +210,12 @@ public class DiscoverHandler extends JaxrsHandler {
     *
     * <pre>
     * Get the "discoverable" resources for the given Resource Owner
+    * The owner and "discoverable == true" are part of the database search.
+    * The "query" filter is case-insensitive, it is applied to the database
+    * results before the page is selected (see filterResources), only the
+    * matching resources on the page are read from the Authorization Server.
+    * A filter on an Authorization Server attribute ("icon_uri") can only be
+    * applied after the registrations are read, that page may be short.
     *
     * JSON input ... search for pending requests
     * {
@@ -242,7 +225,9 @@ public class DiscoverHandler extends JaxrsHandler {
     *     "operator": "equal",
     *     "attribute": "type",
     *     "value": "healthcare"
-    *   }
+    *   },
+    *   "pageSize": "10", // OPTIONAL
+    *   "cursor": "..." // OPTIONAL, from the previous page
     * }
     *
     * JSON output ...
@@ -257,7 +242,8 @@ public class DiscoverHandler extends JaxrsHandler {
     *         "desc": "Lab Report from Jan 2001"
     *       }
     *     ],
-    *     "quantity":1
+    *     "quantity":1,
+    *     "cursor": "..." // paged, only if there are more results
     *   }
     * }
     * </pre>
@@ -267,11 +253,13 @@ public class DiscoverHandler extends JaxrsHandler {
     * @throws Exception
     */
    private OperationIF searchImpl(final OperationIF operInput) throws Exception {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "searchImpl";
       String owner = null;
       String access_token = null;
       JSONObject jsonInput = null;
+      JSONObject jsonFilter = null;
       JSONObject jsonData = null;
+      JSONObject jsonDiscover = null;
       JSONObject jsonQuery = null;
       JSONObject jsonSearch = null;
       JSONObject jsonOutput = null;
@@ -287,12 +275,10 @@ public class DiscoverHandler extends JaxrsHandler {
 
       owner = JSON.getString(jsonInput, ConstantsIF.OWNER);
       access_token = JSON.getString(jsonInput, ConstantsIF.ACCESS_TOKEN);
+      jsonFilter = JSON.getObject(jsonInput, ConstantsIF.QUERY);
 
       if (!STR.isEmpty(owner)) {
-         jsonQuery = new JSONObject(); // data.owner == owner
-         jsonQuery.put(ConstantsIF.OPERATOR, ConstantsIF.EQUAL);
-         jsonQuery.put(ConstantsIF.ATTRIBUTE, "data.owner");
-         jsonQuery.put(ConstantsIF.VALUE, owner);
+         jsonQuery = this.getSearchQuery(owner);
 
          jsonSearch = new JSONObject();
          jsonSearch.put(ConstantsIF.QUERY, jsonQuery);
@@ -304,7 +290,6 @@ public class DiscoverHandler extends JaxrsHandler {
             this.setDatabaseAndCollection(operMongoInput, ConfigIF.RS_NOSQL_DATABASE,
                ConfigIF.RS_NOSQL_COLLECTIONS_RESOURCES_NAME);
          } catch (Exception ex) {
-            this.setError(true);
             operOutput = new Operation(OperationIF.TYPE.SEARCH);
             operOutput.setError(true);
             operOutput.setState(STATE.ERROR);
@@ -316,7 +301,7 @@ public class DiscoverHandler extends JaxrsHandler {
                });
          }
 
-         if (!this.isError()) {
+         if (!operOutput.isError()) {
             operMongoOutput = _MongoDAO.execute(operMongoInput);
 
             if (operMongoOutput.getState() == STATE.NOTEXIST) // 404 NOT FOUND
@@ -324,7 +309,10 @@ public class DiscoverHandler extends JaxrsHandler {
                jsonData = new JSONObject();
                jsonData.put(ConstantsIF.RESULTS, new JSONArray());
             } else {
-               jsonData = operMongoOutput.getJSON();
+               jsonData = this.getPage(
+                  this.filterResources(operMongoOutput.getJSON(), jsonFilter),
+                  this.getPageSize(jsonInput),
+                  JSON.getString(jsonInput, PAGE_CURSOR));
             }
 
             operOutput.setState(operMongoOutput.getState());
@@ -335,10 +323,17 @@ public class DiscoverHandler extends JaxrsHandler {
             jsonData.put(ConstantsIF.QUANTITY, 0);
          }
 
+         jsonDiscover = this.getDiscoverable(jsonData, access_token);
+
+         if (jsonFilter != null && this.getDocumentAttribute(
+            JSON.getString(jsonFilter, ConstantsIF.ATTRIBUTE)) == null) {
+            jsonDiscover = this.filter(jsonDiscover, jsonFilter); // AM attribute
+         }
+
+         this.setCursor(jsonDiscover, JSON.getString(jsonData, PAGE_CURSOR));
+
          jsonOutput = new JSONObject();
-         jsonOutput.put(ConstantsIF.DATA,
-            this.filter(this.getDiscoverable(jsonData, access_token), 
-               JSON.getObject(jsonInput, ConstantsIF.QUERY)));
+         jsonOutput.put(ConstantsIF.DATA, jsonDiscover);
 
          operOutput.setJSON(jsonOutput);
       } else {
@@ -350,11 +345,182 @@ public class DiscoverHandler extends JaxrsHandler {
       return operOutput;
    }
 
+   /**
+    * Get the database query for the owner's discoverable resources. The
+    * optional filter (result attribute and value) is not part of the database
+    * query, the Data Access Object only supports exact matches. It is
+    * case-insensitive and is applied to the database results (see
+    * filterResources).
+    *
+    * <pre>
+    * JSON output ...
+    * {
+    *   "operator": "and",
+    *   "queries": [
+    *     { "operator": "equal", "attribute": "data.owner", "value": "bjensen" },
+    *     { "operator": "equal", "attribute": "data.meta.discoverable", "value": true }
+    *   ]
+    * }
+    * </pre>
+    *
+    * @param owner String resource owner
+    * @return JSONObject query
+    */
+   private JSONObject getSearchQuery(final String owner) {
+      String METHOD = "getSearchQuery";
+      JSONObject jsonQuery = null;
+      JSONArray jsonQueries = null;
+
+      _logger.entering(CLASS, METHOD);
+
+      jsonQueries = new JSONArray();
+
+      jsonQuery = new JSONObject(); // data.owner == owner
+      jsonQuery.put(ConstantsIF.OPERATOR, ConstantsIF.EQUAL);
+      jsonQuery.put(ConstantsIF.ATTRIBUTE, ConstantsIF.DATA + "." + ConstantsIF.OWNER);
+      jsonQuery.put(ConstantsIF.VALUE, owner);
+
+      jsonQueries.add(jsonQuery);
+
+      jsonQuery = new JSONObject(); // data.meta.discoverable == true
+      jsonQuery.put(ConstantsIF.OPERATOR, ConstantsIF.EQUAL);
+      jsonQuery.put(ConstantsIF.ATTRIBUTE, ConstantsIF.DATA + "." 
+         + ConstantsIF.META + "." + ConstantsIF.DISCOVERABLE);
+      jsonQuery.put(ConstantsIF.VALUE, true);
+
+      jsonQueries.add(jsonQuery);
+
+      jsonQuery = new JSONObject();
+      jsonQuery.put(ConstantsIF.OPERATOR, ConstantsIF.AND);
+      jsonQuery.put(ConstantsIF.QUERIES, jsonQueries);
+
+      if (_logger.isLoggable(DEBUG_LEVEL)) {
+         _logger.log(DEBUG_LEVEL, "jsonQuery=''{0}''", jsonQuery.toString());
+      }
+
+      _logger.exiting(CLASS, METHOD);
+
+      return jsonQuery;
+   }
+
+   /**
+    * Filter the database results before the page is selected and the
+    * registrations are read. Only resources with a registration ("register")
+    * are kept, see getDiscoverable. If there is a filter, its attribute (name
+    * of the output attribute) is mapped to the document attribute and the
+    * value is compared, ignoring case. A filter on an attribute that is not
+    * in the document is applied later (see filter).
+    *
+    * <pre>
+    * JSON filter ...
+    * {
+    *   "attribute": "type", // id, owner, name, description, label, type
+    *   "value": "finance/savings"
+    * }
+    * </pre>
+    *
+    * @param jsonInput JSONObject database search results
+    * @param jsonFilter JSONObject optional filter, attribute and value
+    * @return JSONObject filtered search results
+    */
+   private JSONObject filterResources(final JSONObject jsonInput,
+      final JSONObject jsonFilter) {
+      String METHOD = "filterResources";
+      String filterPath = null;
+      String filterVal = null;
+      String attrVal = null;
+      JSONObject jsonOutput = null;
+      JSONObject jsonResult = null;
+      JSONArray arrayResultsInput = null;
+      JSONArray arrayResultsOutput = null;
+
+      _logger.entering(CLASS, METHOD);
+
+      if (jsonFilter != null) {
+         filterPath = this.getDocumentAttribute(
+            JSON.getString(jsonFilter, ConstantsIF.ATTRIBUTE));
+         filterVal = JSON.getString(jsonFilter, ConstantsIF.VALUE);
+      }
+
+      jsonOutput = new JSONObject();
+      arrayResultsOutput = new JSONArray();
+
+      arrayResultsInput = JSON.getArray(jsonInput, ConstantsIF.RESULTS);
+
+      if (arrayResultsInput != null) {
+         for (Object obj : arrayResultsInput) {
+            if (obj != null && obj instanceof JSONObject) {
+               jsonResult = (JSONObject) obj;
+
+               if (!STR.isEmpty(JSON.getString(jsonResult,
+                  ConstantsIF.DATA + "." + ConstantsIF.REGISTER))) {
+                  if (filterPath != null) {
+                     attrVal = JSON.getString(jsonResult, filterPath);
+
+                     if (!STR.isEmpty(filterVal) && !STR.isEmpty(attrVal)
+                        && attrVal.equalsIgnoreCase(filterVal)) {
+                        arrayResultsOutput.add(jsonResult);
+                     }
+                  } else {
+                     arrayResultsOutput.add(jsonResult);
+                  }
+               }
+            }
+         }
+      }
+
+      jsonOutput.put(ConstantsIF.RESULTS, arrayResultsOutput);
+      jsonOutput.put(ConstantsIF.QUANTITY, arrayResultsOutput.size());
+
+      if (_logger.isLoggable(DEBUG_LEVEL)) {
+         _logger.log(DEBUG_LEVEL, "filter=''{0}'', input={1}, output={2}",
+            new Object[]{filterPath == null ? NULL : filterPath,
+               arrayResultsInput == null ? 0 : arrayResultsInput.size(),
+               arrayResultsOutput.size()});
+      }
+
+      _logger.exiting(CLASS, METHOD);
+
+      return jsonOutput;
+   }
+
+   /**
+    * Get the document attribute for an output attribute (see getDiscoverable)
+    *
+    * @param attribute String output attribute name
+    * @return String document attribute, null if not in the document
+    */
+   private String getDocumentAttribute(final String attribute) {
+      String path = null;
+
+      if (!STR.isEmpty(attribute)) {
+         switch (attribute) {
+            case ConstantsIF.ID:
+               path = ConstantsIF.UID;
+               break;
+            case ConstantsIF.OWNER:
+               path = ConstantsIF.DATA + "." + ConstantsIF.OWNER;
+               break;
+            case ConstantsIF.NAME:
+            case ConstantsIF.DESCRIPTION:
+            case ConstantsIF.LABEL:
+            case ConstantsIF.TYPE:
+               path = ConstantsIF.DATA + "." + ConstantsIF.META + "." + attribute;
+               break;
+            default:
+               break;
+         }
+      }
+
+      return path;
+   }
+
    /**
     * Post processes the default search results. The JSON Array (results)
     * contains a simpler object with attributes and removes internal reference
     * keys. The resource must be: discoverable attribute == true and register
-    * attribute != NULL
+    * attribute != NULL. The registrations are read from the Authorization
+    * Server concurrently (see fanOut), the order of the results is kept.
     *
     * <pre>
     * JSON input ...
@@ -403,7 +569,7 @@ public class DiscoverHandler extends JaxrsHandler {
     */
    private JSONObject getDiscoverable(final JSONObject jsonInput, 
       final String access_token) {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "getDiscoverable";
       String registerId = null;
       JSONObject jsonOutput = null;
       JSONObject jsonRegistration = null;
@@ -411,11 +577,14 @@ public class DiscoverHandler extends JaxrsHandler {
       JSONObject jsonResultOutput = null;
       JSONArray arrayResultsInput = null;
       JSONArray arrayResultsOutput = null;
+      List<String> registerIds = null;
+      List<JSONObject> registrations = null;
 
       _logger.entering(CLASS, METHOD);
 
       jsonOutput = new JSONObject();
       arrayResultsOutput = new JSONArray();
+      registerIds = new ArrayList<>();
 
       if (jsonInput != null && !jsonInput.isEmpty()) {
          arrayResultsInput = JSON.getArray(jsonInput, ConstantsIF.RESULTS);
@@ -460,21 +629,9 @@ public class DiscoverHandler extends JaxrsHandler {
                            JSON.getString(jsonResultInput,
                            ConstantsIF.DATA + "." + ConstantsIF.META 
                               + "." + ConstantsIF.TYPE));
-                        /*
-                         * Get the UMA registration data
-                         */
-                        jsonRegistration = this.getRegistration(registerId, 
-                           access_token);
-
-                        jsonResultOutput.put(ConstantsIF.SCOPES,
-                           JSON.getArray(jsonRegistration, 
-                              ConstantsIF.RESOURCE_SCOPES));
-                        
-                        jsonResultOutput.put(ConstantsIF.ICON_URI,
-                           JSON.getString(jsonRegistration, 
-                              ConstantsIF.ICON_URI));
 
                         arrayResultsOutput.add(jsonResultOutput);
+                        registerIds.add(registerId);
                      }
                   }
                }
@@ -482,6 +639,29 @@ public class DiscoverHandler extends JaxrsHandler {
          }
       }
 
+      /*
+       * Get the UMA registration data, same order as the results
+       */
+      registrations = this.fanOut(registerIds,
+         id -> this.getRegistration(id, access_token));
+
+      for (int i = 0; i < arrayResultsOutput.size(); i++) {
+         jsonResultOutput = (JSONObject) arrayResultsOutput.get(i);
+         jsonRegistration = registrations.get(i);
+
+         if (jsonRegistration == null) { // failed or not read in time
+            jsonRegistration = new JSONObject();
+         }
+
+         jsonResultOutput.put(ConstantsIF.SCOPES,
+            JSON.getArray(jsonRegistration, 
+               ConstantsIF.RESOURCE_SCOPES));
+
+         jsonResultOutput.put(ConstantsIF.ICON_URI,
+            JSON.getString(jsonRegistration, 
+               ConstantsIF.ICON_URI));
+      }
+
       _logger.exiting(CLASS, METHOD);
 
       jsonOutput.put(ConstantsIF.RESULTS, arrayResultsOutput);
@@ -493,7 +673,7 @@ public class DiscoverHandler extends JaxrsHandler {
    /**
     * Get "register" data from the Auhorization Server. The registered UMA
     * resource has some attributes that are sourced from the Authorization
-    * Server (AS).
+    * Server (AS). Uses the Register Handler, which caches the registrations.
     *
     * <pre>
     * JSON input ...
@@ -531,37 +711,40 @@ public class DiscoverHandler extends JaxrsHandler {
     */
    private JSONObject getRegistration(final String registerId, 
       final String access_token) {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "getRegistration";
       JSONObject jsonOutput = null;
-      JSONObject jsonHeaders = null;
       JSONObject jsonData = null;
       OperationIF operInput = null;
       OperationIF operOutput = null;
+      JaxrsHandlerIF registerHandler = null;
 
       _logger.entering(CLASS, METHOD);
 
       jsonOutput = new JSONObject();
 
       if (!STR.isEmpty(registerId) && !STR.isEmpty(access_token)) {
-         jsonHeaders = new JSONObject();
-         jsonHeaders.put(ConstantsIF.HDR_AUTHORIZATION, "Bearer " + access_token);
-
          jsonData = new JSONObject();
-         jsonData.put(ConstantsIF.HEADERS, jsonHeaders);
          jsonData.put(ConstantsIF.UID, registerId);
-         jsonData.put(ConstantsIF.PATH, _uma_resourceset_path);
+         jsonData.put(ConstantsIF.ACCESS_TOKEN, access_token);
 
-         operInput = new Operation(OperationIF.TYPE.READ); // GET
+         operInput = new Operation(OperationIF.TYPE.READ);
          operInput.setJSON(jsonData);
 
-         operOutput = _AuthzServerDAO.execute(operInput);
+         try {
+            registerHandler = this.getHandler(JaxrsHandlerIF.HANDLER_UMA_REGISTER);
 
-         if (operOutput.getState() == STATE.SUCCESS) {
-            jsonOutput = operOutput.getJSON();
+            operOutput = registerHandler.process(operInput);
 
-            if (jsonOutput == null || jsonOutput.isEmpty()) {
-               jsonOutput = new JSONObject();
+            if (operOutput.getState() == STATE.SUCCESS) {
+               jsonOutput = JSON.getObject(operOutput.getJSON(), ConstantsIF.DATA);
+
+               if (jsonOutput == null || jsonOutput.isEmpty()) {
+                  jsonOutput = new JSONObject();
+               }
             }
+         } catch (Exception ex) {
+            _logger.log(Level.WARNING, "{0}: {1}",
+               new Object[]{METHOD, ex.getMessage()});
          }
       }
 
@@ -605,7 +788,7 @@ public class DiscoverHandler extends JaxrsHandler {
     */
    private JSONObject filter(final JSONObject jsonInput, 
       final JSONObject jsonFilter) {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "filter";
       String filterAttr = null;
       String filterVal = null;
       String attrVal = null;
@@ -11,11 +11,10 @@ import com.forgerock.frdp.dao.Operation;
 import com.forgerock.frdp.dao.OperationIF;
 import com.forgerock.frdp.handler.HandlerManagerIF;
 import com.forgerock.frdp.resourceserver.ConfigIF;
-import com.forgerock.frdp.resourceserver.dao.AMRestDataAccess;
+import com.forgerock.frdp.resourceserver.dao.DataAccessRegistry;
 import com.forgerock.frdp.resourceserver.handler.JaxrsHandler;
 import com.forgerock.frdp.utils.JSON;
 import com.forgerock.frdp.utils.STR;
-import java.util.Map;
 import java.util.logging.Level;
 import org.json.simple.JSONObject;
 
@@ -35,11 +34,13 @@ public class PermissionRequestHandler extends JaxrsHandler {
     *
     * @param configMgr ConfigurationManagerIF management of configurations
     * @param handlerMgr HandlerManagerIF provides management of Handlers
+    * @param daoRegistry DataAccessRegistry shared Data Access Objects
     */
-   public PermissionRequestHandler(final ConfigurationManagerIF configMgr, final HandlerManagerIF handlerMgr) {
-      super(configMgr, handlerMgr);
+   public PermissionRequestHandler(final ConfigurationManagerIF configMgr, 
+      final HandlerManagerIF handlerMgr, final DataAccessRegistry daoRegistry) {
+      super(configMgr, handlerMgr, daoRegistry);
 
-      String METHOD = "PermissionRequestHandler(configMgr, handlerMgr)";
+      String METHOD = "PermissionRequestHandler(configMgr, handlerMgr, daoRegistry)";
 
       _logger.entering(CLASS, METHOD);
 
@@ -61,7 +62,7 @@ public class PermissionRequestHandler extends JaxrsHandler {
     */
    @Override
    protected void validate(final OperationIF oper) throws Exception {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "validate";
       String path = null;
       String configType = ConstantsIF.RESOURCE;
       JSONObject jsonInput = null;
@@ -102,7 +103,7 @@ public class PermissionRequestHandler extends JaxrsHandler {
    @Override
    protected OperationIF create(final OperationIF operInput) // POST
    {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "create";
       OperationIF operOutput = null;
 
       _logger.entering(CLASS, METHOD);
@@ -127,12 +128,11 @@ public class PermissionRequestHandler extends JaxrsHandler {
     * Initialize object instance
     */
    private void init() {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "init";
       String msg = null;
       String type = ConstantsIF.RESOURCE;
       ConfigurationIF config = null;
       JSONObject json = null;
-      Map<String, String> map = null;
 
       _logger.entering(CLASS, METHOD);
 
@@ -153,9 +153,8 @@ public class PermissionRequestHandler extends JaxrsHandler {
        * setup the REST Data Access Object, AM Authorization Server
        */
       if (_AuthzServerDAO == null) {
-         map = JSON.convertToParams(JSON.getObject(json, ConfigIF.AS_CONNECT));
          try {
-            _AuthzServerDAO = new AMRestDataAccess(map);
+            _AuthzServerDAO = _daoRegistry.getAuthzServerDAO();
          } catch (Exception ex) {
             msg = CLASS + ": " + METHOD + ": REST AMDAO: " + ex.getMessage();
             this.setError(true);
@@ -193,7 +192,7 @@ public class PermissionRequestHandler extends JaxrsHandler {
     */
    private OperationIF createImpl(final OperationIF operInput) {
       boolean error = false;
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "createImpl";
       String msg = null;
       String host = null;
       String configType = ConstantsIF.RESOURCE;
@@ -241,9 +240,6 @@ public class PermissionRequestHandler extends JaxrsHandler {
          operOutput = new Operation(OperationIF.TYPE.READ);
          operOutput.setState(STATE.ERROR);
          operOutput.setStatus(msg);
-
-         this.setState(STATE.ERROR);
-         this.setStatus(msg);
       }
 
       _logger.exiting(CLASS, METHOD);
@@ -11,11 +11,13 @@ import com.forgerock.frdp.dao.Operation;
 import com.forgerock.frdp.dao.OperationIF;
 import com.forgerock.frdp.handler.HandlerManagerIF;
 import com.forgerock.frdp.resourceserver.ConfigIF;
-import com.forgerock.frdp.resourceserver.dao.AMRestDataAccess;
+import com.forgerock.frdp.resourceserver.cache.ExpiringCache;
+import com.forgerock.frdp.resourceserver.cache.ResourceCache;
+import com.forgerock.frdp.resourceserver.dao.DataAccessRegistry;
 import com.forgerock.frdp.resourceserver.handler.JaxrsHandler;
 import com.forgerock.frdp.utils.JSON;
 import com.forgerock.frdp.utils.STR;
-import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import org.json.simple.JSONObject;
 
@@ -23,23 +25,41 @@ import org.json.simple.JSONObject;
  * Policy Handler. Provides create, read, replace, and delete operations for a
  * policy which is associated to a registered UMA resource.
  *
+ * The "read" output is cached, key is the owner and registration id, for
+ * "as.uma.policies.cache.ttl" seconds. The "create", "replace" and "delete"
+ * operations remove the entry. Approving an access request (RequestsHandler)
+ * clears the cache.
+ *
  * @author Scott Fehrman, ForgeRock, Inc.
  */
 public class PolicyHandler extends JaxrsHandler {
 
    private final String CLASS = this.getClass().getName();
 
+   private static final long DEFAULT_CACHE_MAX_ENTRIES = 1000L;
+   private static final long DEFAULT_CACHE_TTL = 30L; // seconds
+
+   /*
+    * Resource policies, key is the owner and registration id.
+    * Null if the cache is disabled (ttl = 0)
+    */
+   private ExpiringCache<String, JSONObject> _policyCache = null;
+   private long _cacheTTL = 0L; // milliseconds
+   private final AtomicLong _cacheHits = new AtomicLong(0L);
+   private final AtomicLong _cacheMisses = new AtomicLong(0L);
+
    /**
     * Constructor
     *
     * @param configMgr ConfigurationManagerIF management of configurations
     * @param handlerMgr HandlerManagerIF provides management of Handlers
+    * @param daoRegistry DataAccessRegistry shared Data Access Objects
     */
    public PolicyHandler(final ConfigurationManagerIF configMgr, 
-      final HandlerManagerIF handlerMgr) {
-      super(configMgr, handlerMgr);
+      final HandlerManagerIF handlerMgr, final DataAccessRegistry daoRegistry) {
+      super(configMgr, handlerMgr, daoRegistry);
 
-      String METHOD = "PolicyHandler(configMgr, handlerMgr)";
+      String METHOD = "PolicyHandler(configMgr, handlerMgr, daoRegistry)";
 
       _logger.entering(CLASS, METHOD);
 
@@ -50,6 +70,54 @@ public class PolicyHandler extends JaxrsHandler {
       return;
    }
 
+   /**
+    * Get the policy cache statistics
+    *
+    * <pre>
+    * JSON output ...
+    * {
+    *   "enabled": true,
+    *   "entries": 42,
+    *   "hits": 1024,
+    *   "misses": 64,
+    *   "hit_ratio": 0.94
+    * }
+    * </pre>
+    *
+    * @return JSONObject statistics
+    */
+   @Override
+   public JSONObject getStats() {
+      long hits = 0L;
+      long misses = 0L;
+      JSONObject jsonStats = null;
+
+      hits = _cacheHits.get();
+      misses = _cacheMisses.get();
+
+      jsonStats = new JSONObject();
+      jsonStats.put("enabled", _policyCache != null);
+      jsonStats.put("entries", _policyCache != null ? _policyCache.size() : 0);
+      jsonStats.put("hits", hits);
+      jsonStats.put("misses", misses);
+      jsonStats.put("hit_ratio", (hits + misses) > 0L
+         ? (double) hits / (double) (hits + misses) : 0.0);
+
+      return jsonStats;
+   }
+
+   /**
+    * Remove all the policies from the cache. Used when a policy is changed
+    * and the registration id is not known (approved access request).
+    */
+   public void clearCache() {
+      if (_policyCache != null) {
+         _policyCache.clear();
+      }
+
+      return;
+   }
+
    /**
     * Override the "validate" interface, used to check the operation input
     *
@@ -58,7 +126,7 @@ public class PolicyHandler extends JaxrsHandler {
     */
    @Override
    protected void validate(final OperationIF oper) throws Exception {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "validate";
       JSONObject jsonInput = null;
 
       _logger.entering(CLASS, METHOD);
@@ -116,7 +184,7 @@ public class PolicyHandler extends JaxrsHandler {
    @Override
    protected OperationIF create(final OperationIF operInput) {
       boolean error = false;
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "create";
       String msg = null;
       OperationIF operOutput = null;
       JSONObject jsonInput = null;
@@ -142,6 +210,8 @@ public class PolicyHandler extends JaxrsHandler {
          msg = ex.getMessage();
       }
 
+      this.removeCached(jsonInput);
+
       if (error) {
          operOutput.setError(true);
          operOutput.setState(STATE.ERROR);
@@ -177,7 +247,7 @@ public class PolicyHandler extends JaxrsHandler {
    @Override
    protected OperationIF read(OperationIF operInput) {
       boolean error = false;
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "read";
       String msg = null;
       OperationIF operOutput = null;
       JSONObject jsonInput = null;
@@ -199,7 +269,7 @@ public class PolicyHandler extends JaxrsHandler {
       jsonInput = operInput.getJSON();
 
       try {
-         jsonOutput = this.readImpl(jsonInput);
+         jsonOutput = this.readCached(jsonInput);
       } catch (Exception ex) {
          error = true;
          msg = ex.getMessage();
@@ -256,7 +326,7 @@ public class PolicyHandler extends JaxrsHandler {
    @Override
    protected OperationIF replace(final OperationIF operInput) {
       boolean error = false;
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "replace";
       String msg = null;
       OperationIF operOutput = null;
       JSONObject jsonInput = null;
@@ -282,6 +352,8 @@ public class PolicyHandler extends JaxrsHandler {
          msg = ex.getMessage();
       }
 
+      this.removeCached(jsonInput); // even if failed, AM may have changed
+
       if (error) {
          operOutput.setError(true);
          operOutput.setState(STATE.ERROR);
@@ -311,7 +383,7 @@ public class PolicyHandler extends JaxrsHandler {
    @Override
    protected OperationIF delete(final OperationIF operInput) {
       boolean error = false;
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "delete";
       String msg = null;
       OperationIF operOutput = null;
       JSONObject jsonInput = null;
@@ -337,6 +409,8 @@ public class PolicyHandler extends JaxrsHandler {
          msg = ex.getMessage();
       }
 
+      this.removeCached(jsonInput); // even if failed, AM may have changed
+
       if (!error) {
          operOutput.setJSON(new JSONObject());
          operOutput.setState(STATE.SUCCESS);
@@ -356,12 +430,13 @@ public class PolicyHandler extends JaxrsHandler {
     * Initialize object instance
     */
    private void init() {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      long maxEntries = 0L;
+      long ttl = 0L;
+      String METHOD = "init";
       String msg = null;
       String type = ConstantsIF.RESOURCE;
       ConfigurationIF config = null;
       JSONObject json = null;
-      Map<String, String> map = null;
 
       _logger.entering(CLASS, METHOD);
 
@@ -382,15 +457,29 @@ public class PolicyHandler extends JaxrsHandler {
        * setup the REST Data Access Object for the Authorization Server (AS)
        */
       if (!this.isError() && _AuthzServerDAO == null) {
-         map = JSON.convertToParams(JSON.getObject(json, ConfigIF.AS_CONNECT));
          try {
-            _AuthzServerDAO = new AMRestDataAccess(map);
+            _AuthzServerDAO = _daoRegistry.getAuthzServerDAO();
          } catch (Exception ex) {
             msg = CLASS + ": " + METHOD + ": REST DAO: " + ex.getMessage();
             this.setError(true);
          }
       }
 
+      /*
+       * setup the cache for resource policies
+       */
+      if (!this.isError()) {
+         maxEntries = this.getConfigLong(type,
+            ConfigIF.AS_UMA_POLICIES_CACHE_MAX_ENTRIES, DEFAULT_CACHE_MAX_ENTRIES);
+         ttl = this.getConfigLong(type,
+            ConfigIF.AS_UMA_POLICIES_CACHE_TTL, DEFAULT_CACHE_TTL);
+
+         if (maxEntries > 0L && ttl > 0L) {
+            _cacheTTL = ttl * 1000L;
+            _policyCache = new ExpiringCache<>((int) maxEntries);
+         }
+      }
+
       if (!this.isError()) {
          this.setState(STATE.READY);
       } else {
@@ -404,6 +493,86 @@ public class PolicyHandler extends JaxrsHandler {
       return;
    }
 
+   /**
+    * Read the policy, use the cache if the entry exists. The cache entries,
+    * and the output, are deep copies: callers may change the output. A missing
+    * policy is not cached.
+    *
+    * @param jsonInput JSONObject input, see readImpl
+    * @return JSONObject output, null if the policy does not exist
+    * @throws Exception
+    */
+   private JSONObject readCached(final JSONObject jsonInput) throws Exception {
+      String METHOD = "readCached";
+      String cacheKey = null;
+      JSONObject jsonCached = null;
+      JSONObject jsonOutput = null;
+
+      _logger.entering(CLASS, METHOD);
+
+      cacheKey = this.getCacheKey(jsonInput);
+
+      if (_policyCache != null && cacheKey != null) {
+         jsonCached = _policyCache.get(cacheKey);
+
+         if (jsonCached != null) {
+            _cacheHits.incrementAndGet();
+
+            jsonOutput = ResourceCache.copy(jsonCached);
+         } else {
+            _cacheMisses.incrementAndGet();
+         }
+      }
+
+      if (jsonOutput == null) {
+         jsonOutput = this.readImpl(jsonInput);
+
+         if (_policyCache != null && cacheKey != null && jsonOutput != null) {
+            _policyCache.put(cacheKey, ResourceCache.copy(jsonOutput), _cacheTTL);
+         }
+      }
+
+      _logger.exiting(CLASS, METHOD);
+
+      return jsonOutput;
+   }
+
+   /**
+    * Remove the policy from the cache
+    *
+    * @param jsonInput JSONObject input, with "owner" and "uid"
+    */
+   private void removeCached(final JSONObject jsonInput) {
+      String cacheKey = null;
+
+      if (_policyCache != null) {
+         cacheKey = this.getCacheKey(jsonInput);
+
+         if (cacheKey != null) {
+            _policyCache.remove(cacheKey);
+         }
+      }
+
+      return;
+   }
+
+   /**
+    * Get the cache key: "owner/registerId"
+    *
+    * @param jsonInput JSONObject input, with "owner" and "uid"
+    * @return String cache key, null if "owner" or "uid" is empty
+    */
+   private String getCacheKey(final JSONObject jsonInput) {
+      String owner = null;
+      String registerId = null;
+
+      owner = JSON.getString(jsonInput, ConstantsIF.OWNER);
+      registerId = JSON.getString(jsonInput, ConstantsIF.UID);
+
+      return (STR.isEmpty(owner) || STR.isEmpty(registerId)
+         ? null : owner + "/" + registerId);
+   }
+
    /**
     * Implementation of the "read" operation. Get the policy data from the
     * Authorization Server
@@ -443,7 +612,7 @@ public class PolicyHandler extends JaxrsHandler {
     * @throws Exception
     */
    private JSONObject readImpl(final JSONObject jsonInput) throws Exception {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "readImpl";
       String sso_token = null;
       String registerId = null;
       String owner = null;
@@ -479,8 +648,7 @@ public class PolicyHandler extends JaxrsHandler {
                
                jsonData.put(ConstantsIF.PATH,
                   this.getConfigValue(configType, 
-                     ConfigIF.AS_UMA_POLICIES_PATH).replaceAll(PROP_VAR_OWNER, 
-                        owner));
+                     ConfigIF.AS_UMA_POLICIES_PATH, owner));
 
                operInput = new Operation(OperationIF.TYPE.READ); // GET
                
@@ -564,7 +732,7 @@ public class PolicyHandler extends JaxrsHandler {
     * @throws Exception
     */
    private OperationIF createImpl(final JSONObject jsonInput) throws Exception {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "createImpl";
       String owner = null;
       String sso_token = null;
       String registerId = null;
@@ -613,8 +781,7 @@ public class PolicyHandler extends JaxrsHandler {
                jsonCreateInput.put(ConstantsIF.UID, registerId);
                
                jsonCreateInput.put(ConstantsIF.PATH,
-                  this.getConfigValue(configType, ConfigIF.AS_UMA_POLICIES_PATH)
-                     .replaceAll(PROP_VAR_OWNER, owner));
+                  this.getConfigValue(configType, ConfigIF.AS_UMA_POLICIES_PATH, owner));
 
                operInput = new Operation(OperationIF.TYPE.REPLACE); // PUT
                
@@ -682,7 +849,7 @@ public class PolicyHandler extends JaxrsHandler {
     * @throws Exception
     */
    private OperationIF replaceImpl(final JSONObject jsonInput) throws Exception {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "replaceImpl";
       String owner = null;
       String sso_token = null;
       String registerId = null;
@@ -731,8 +898,7 @@ public class PolicyHandler extends JaxrsHandler {
                jsonCreateInput.put(ConstantsIF.UID, registerId);
                
                jsonCreateInput.put(ConstantsIF.PATH,
-                  this.getConfigValue(configType, ConfigIF.AS_UMA_POLICIES_PATH)
-                     .replaceAll(PROP_VAR_OWNER, owner));
+                  this.getConfigValue(configType, ConfigIF.AS_UMA_POLICIES_PATH, owner));
 
                operInput = new Operation(OperationIF.TYPE.REPLACE); // PUT
                
@@ -777,7 +943,7 @@ public class PolicyHandler extends JaxrsHandler {
     * @throws Exception
     */
    private void deleteImpl(final JSONObject jsonInput) throws Exception {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "deleteImpl";
       String sso_token = null;
       String registerId = null;
       String owner = null;
@@ -814,8 +980,7 @@ public class PolicyHandler extends JaxrsHandler {
                jsonData.put(ConstantsIF.UID, registerId);
                
                jsonData.put(ConstantsIF.PATH,
-                  this.getConfigValue(configType, ConfigIF.AS_UMA_POLICIES_PATH)
-                     .replaceAll(PROP_VAR_OWNER, owner));
+                  this.getConfigValue(configType, ConfigIF.AS_UMA_POLICIES_PATH, owner));
 
                operInput = new Operation(OperationIF.TYPE.DELETE); // DELETE
                
@@ -10,6 +10,9 @@ import com.forgerock.frdp.dao.Operation;
 import com.forgerock.frdp.dao.OperationIF;
 import com.forgerock.frdp.handler.HandlerManagerIF;
 import com.forgerock.frdp.resourceserver.ConfigIF;
+import com.forgerock.frdp.resourceserver.cache.ExpiringCache;
+import com.forgerock.frdp.resourceserver.cache.ResourceCache;
+import com.forgerock.frdp.resourceserver.dao.DataAccessRegistry;
 import com.forgerock.frdp.resourceserver.handler.CredentialHandler;
 import com.forgerock.frdp.utils.JSON;
 import com.forgerock.frdp.utils.STR;
@@ -33,22 +36,42 @@ public class ProtectionApiTokenHandler extends CredentialHandler {
 
    private final String CLASS = this.getClass().getName();
 
+   private static final String EXPIRES_IN = "expires_in";
+   private static final long DEFAULT_CACHE_MAX_ENTRIES = 1000L;
+   private static final long CACHE_EXPIRE_MARGIN = 30000L; // milliseconds
+
+   /*
+    * Validated credentials, key is the owner. An entry expires before the
+    * access token does (see "expires_in"), a hit has no database or AM calls.
+    * Entries are copied in and out of the cache. Null if disabled.
+    */
+   private ExpiringCache<String, JSONObject> _credentialCache = null;
+
    /**
     * Constructor
     *
     * @param configMgr ConfigurationManagerIF management of configurations
     * @param handlerMgr HandlerManagerIF provides management of Handlers
+    * @param daoRegistry DataAccessRegistry shared Data Access Objects
     */
    public ProtectionApiTokenHandler(final ConfigurationManagerIF configMgr, 
-      final HandlerManagerIF handlerMgr) {
-      super(configMgr, handlerMgr);
+      final HandlerManagerIF handlerMgr, final DataAccessRegistry daoRegistry) {
+      super(configMgr, handlerMgr, daoRegistry);
 
-      String METHOD = "ProtectionApiTokenHandler(configMgr, handlerMgr)";
+      String METHOD = "ProtectionApiTokenHandler(configMgr, handlerMgr, daoRegistry)";
+      long maxEntries = 0L;
 
       _logger.entering(CLASS, METHOD);
 
       this.init();
 
+      maxEntries = this.getConfigLong(ConstantsIF.RESOURCE,
+         ConfigIF.RS_CREDENTIAL_CATEGORIES_PAT_CACHE_MAX_ENTRIES, DEFAULT_CACHE_MAX_ENTRIES);
+
+      if (maxEntries > 0L) {
+         _credentialCache = new ExpiringCache<>((int) maxEntries);
+      }
+
       _logger.exiting(CLASS, METHOD);
 
       return;
@@ -62,7 +85,7 @@ public class ProtectionApiTokenHandler extends CredentialHandler {
     */
    @Override
    protected void validate(final OperationIF oper) throws Exception {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "validate";
       JSONObject jsonInput = null;
 
       _logger.entering(CLASS, METHOD);
@@ -118,7 +141,7 @@ public class ProtectionApiTokenHandler extends CredentialHandler {
    @Override
    protected OperationIF read(final OperationIF operInput) {
       boolean error = false;
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "read";
       String msg = null;
       String ssotoken = null;
       String owner = null;
@@ -133,6 +156,7 @@ public class ProtectionApiTokenHandler extends CredentialHandler {
       JSONObject jsonInput = null;
       JSONObject jsonOutput = null;
       JSONObject jsonCredential = null;
+      JSONObject jsonCached = null;
       JSONObject jsonData = null;
 
       _logger.entering(CLASS, METHOD);
@@ -165,7 +189,21 @@ public class ProtectionApiTokenHandler extends CredentialHandler {
          owner = JSON.getString(jsonInput, ConstantsIF.OWNER);
       }
 
-      if (!STR.isEmpty(owner)) {
+      if (!error && !STR.isEmpty(owner) && _credentialCache != null) {
+         jsonCached = ResourceCache.copy(_credentialCache.get(owner));
+
+         if (jsonCached != null) {
+            jsonCredential = JSON.getObject(jsonCached,
+               ConstantsIF.DATA + "." + ConstantsIF.CREDENTIAL);
+
+            operOutput = new Operation(OperationIF.TYPE.READ);
+            operOutput.setState(STATE.SUCCESS);
+            operOutput.setStatus("Cached credential");
+            operOutput.setJSON(jsonCached);
+         }
+      }
+
+      if (jsonCredential == null && !STR.isEmpty(owner)) {
          try {
             category = this.getConfigValue(configType, ConfigIF.RS_CREDENTIAL_CATEGORIES_PAT_ID);
             credUid = this.getCredentialUid(owner, category);
@@ -290,7 +328,8 @@ public class ProtectionApiTokenHandler extends CredentialHandler {
    private OperationIF readImpl(final OperationIF operInput) {
       boolean error = false;
       boolean delete = false;
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "readImpl";
+      String owner = null;
       StringBuilder buf = new StringBuilder(METHOD);
       OperationIF operReadOutput = null;
       OperationIF operValidateOutput = null;
@@ -328,12 +367,18 @@ public class ProtectionApiTokenHandler extends CredentialHandler {
           * validate the token
           */
          if (!operReadOutput.isError()) {
+            owner = JSON.getString(operReadOutput.getJSON(),
+               ConstantsIF.DATA + "." + ConstantsIF.OWNER);
+
             try {
                operValidateOutput = this.validateToken(operReadOutput);
                switch (operValidateOutput.getState()) {
                   case SUCCESS: // 200 valid
                   {
                      operOutput = operReadOutput;
+
+                     this.putCached(owner, operReadOutput.getJSON(),
+                        this.getCacheTimeToLive(operValidateOutput.getJSON()));
                      break;
                   }
                   case NOTAUTHORIZED: // 401 invalid
@@ -368,6 +413,9 @@ public class ProtectionApiTokenHandler extends CredentialHandler {
                               operOutput.setState(operReplaceOutput.getState());
                               operOutput.setStatus(operReplaceOutput.getStatus());
                               operOutput.setJSON(jsonInput);
+
+                              this.putCached(owner, jsonInput,
+                                 this.getCacheTimeToLive(jsonRefreshCred));
                            } else {
                               /*
                                * failed to replace the credential, delete it
@@ -419,6 +467,10 @@ public class ProtectionApiTokenHandler extends CredentialHandler {
          }
       }
 
+      if ((delete || error) && _credentialCache != null && owner != null) {
+         _credentialCache.remove(owner);
+      }
+
       if (delete) {
          operInput.setType(OperationIF.TYPE.DELETE);
 
@@ -496,7 +548,7 @@ public class ProtectionApiTokenHandler extends CredentialHandler {
     */
    private OperationIF createImpl(final OperationIF operInput) {
       boolean error = false;
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "createImpl";
       String msg = null;
       String owner = null; // 'uid' from SSO session validation
       String category = null;
@@ -665,7 +717,7 @@ public class ProtectionApiTokenHandler extends CredentialHandler {
     */
    private OperationIF getAuthorizationCode(final OperationIF operInput) 
       throws Exception {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "getAuthorizationCode";
       String ssoToken = null;
       String location = null;
       String code = null;
@@ -880,7 +932,7 @@ public class ProtectionApiTokenHandler extends CredentialHandler {
     */
    private OperationIF getAccessToken(final OperationIF operInput) 
       throws Exception {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "getAccessToken";
       String code = null;
       String configType = ConstantsIF.RESOURCE;
       StringBuilder buf = new StringBuilder(METHOD + ": ");
@@ -1041,7 +1093,7 @@ public class ProtectionApiTokenHandler extends CredentialHandler {
     */
    private OperationIF validateToken(final OperationIF operInput) 
       throws Exception {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "validateToken";
       StringBuilder buf = new StringBuilder(METHOD + ": ");
       String access_token = null;
       String configType = ConstantsIF.RESOURCE;
@@ -1167,7 +1219,7 @@ public class ProtectionApiTokenHandler extends CredentialHandler {
     */
    private OperationIF refreshToken(final OperationIF operInput) 
       throws Exception {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "refreshToken";
       String refreshToken = null;
       String configType = ConstantsIF.RESOURCE;
       StringBuilder buf = new StringBuilder(METHOD + ": ");
@@ -1258,6 +1310,60 @@ public class ProtectionApiTokenHandler extends CredentialHandler {
       return operOutput;
    }
 
+   /**
+    * Add a copy of the credential to the cache
+    *
+    * @param owner String owner of the credential
+    * @param jsonCredential JSONObject credential record
+    * @param ttl long milliseconds, 0 does not add the credential
+    */
+   private void putCached(final String owner, final JSONObject jsonCredential,
+      final long ttl) {
+      if (_credentialCache != null && !STR.isEmpty(owner) && jsonCredential != null) {
+         _credentialCache.put(owner, ResourceCache.copy(jsonCredential), ttl);
+      }
+
+      return;
+   }
+
+   /**
+    * Get the cache time-to-live, milliseconds, from the "expires_in"
+    * attribute (seconds). The time-to-live is reduced by a margin so the
+    * cached access token is not used when it is about to expire. Returns
+    * zero (do not cache) if the attribute is missing or invalid.
+    *
+    * @param json JSONObject token information, from the AS
+    * @return long time-to-live, milliseconds
+    */
+   private long getCacheTimeToLive(final JSONObject json) {
+      long ttl = 0L;
+      String METHOD = "getCacheTimeToLive";
+      Object expiresIn = null;
+
+      _logger.entering(CLASS, METHOD);
+
+      if (json != null) {
+         expiresIn = json.get(EXPIRES_IN);
+
+         try {
+            if (expiresIn instanceof Number) {
+               ttl = ((Number) expiresIn).longValue() * 1000L;
+            } else if (expiresIn instanceof String) {
+               ttl = Long.parseLong((String) expiresIn) * 1000L;
+            }
+         } catch (NumberFormatException ex) {
+            _logger.log(Level.WARNING, "{0}: Invalid ''{1}'' value: {2}",
+               new Object[]{METHOD, EXPIRES_IN, ex.getMessage()});
+         }
+      }
+
+      ttl = (ttl > CACHE_EXPIRE_MARGIN ? ttl - CACHE_EXPIRE_MARGIN : 0L);
+
+      _logger.exiting(CLASS, METHOD);
+
+      return ttl;
+   }
+
    /**
     * Get query parameters from a URL
     *
@@ -1268,7 +1374,7 @@ public class ProtectionApiTokenHandler extends CredentialHandler {
    private Map<String, String> getQueryParams(URL url) 
       throws UnsupportedEncodingException {
       int index = 0;
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "getQueryParams";
       String query = url.getQuery();
       String[] pairs = query.split("&");
       Map<String, String> query_pairs = new LinkedHashMap<>();
@@ -11,11 +11,13 @@ import com.forgerock.frdp.dao.Operation;
 import com.forgerock.frdp.dao.OperationIF;
 import com.forgerock.frdp.handler.HandlerManagerIF;
 import com.forgerock.frdp.resourceserver.ConfigIF;
-import com.forgerock.frdp.resourceserver.dao.AMRestDataAccess;
+import com.forgerock.frdp.resourceserver.cache.ExpiringCache;
+import com.forgerock.frdp.resourceserver.cache.ResourceCache;
+import com.forgerock.frdp.resourceserver.dao.DataAccessRegistry;
 import com.forgerock.frdp.resourceserver.handler.JaxrsHandler;
 import com.forgerock.frdp.utils.JSON;
 import com.forgerock.frdp.utils.STR;
-import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
@@ -30,6 +32,11 @@ import org.json.simple.JSONObject;
  * - read: read UMA resource registration data (meta data)
  * - replace: update the UMA resource registration data (meta data)
  * - delete: de-register the UMA resource
+ *
+ * The "read" output is cached, key is the registration id, for
+ * "as.uma.resource_set.cache.ttl" seconds. An entry is only used for the
+ * access_token (PAT) that read it, other tokens read from the Authorization
+ * Server. The "replace" and "delete" operations remove the entry.
  * </pre>
  *
  * @author Scott Fehrman, ForgeRock, Inc.
@@ -39,17 +46,30 @@ public class RegisterHandler extends JaxrsHandler {
    private final String CLASS = this.getClass().getName();
    private String _path = null;
 
+   private static final long DEFAULT_CACHE_MAX_ENTRIES = 1000L;
+   private static final long DEFAULT_CACHE_TTL = 60L; // seconds
+
+   /*
+    * Registered resources, key is the registration id.
+    * Null if the cache is disabled (ttl = 0)
+    */
+   private ExpiringCache<String, CachedRegistration> _registerCache = null;
+   private long _cacheTTL = 0L; // milliseconds
+   private final AtomicLong _cacheHits = new AtomicLong(0L);
+   private final AtomicLong _cacheMisses = new AtomicLong(0L);
+
    /**
     * Constructor
     *
     * @param configMgr ConfigurationManagerIF management of configurations
     * @param handlerMgr HandlerManagerIF provides management of Handlers
+    * @param daoRegistry DataAccessRegistry shared Data Access Objects
     */
    public RegisterHandler(final ConfigurationManagerIF configMgr, 
-      final HandlerManagerIF handlerMgr) {
-      super(configMgr, handlerMgr);
+      final HandlerManagerIF handlerMgr, final DataAccessRegistry daoRegistry) {
+      super(configMgr, handlerMgr, daoRegistry);
 
-      String METHOD = "ContentHandler(configMgr, handlerMgr)";
+      String METHOD = "RegisterHandler(configMgr, handlerMgr, daoRegistry)";
 
       _logger.entering(CLASS, METHOD);
 
@@ -60,6 +80,34 @@ public class RegisterHandler extends JaxrsHandler {
       return;
    }
 
+   /**
+    * Get the registration cache statistics
+    *
+    * <pre>
+    * JSON output ...
+    * {
+    *   "enabled": true,
+    *   "entries": 42,
+    *   "hits": 1024,
+    *   "misses": 64
+    * }
+    * </pre>
+    *
+    * @return JSONObject statistics
+    */
+   @Override
+   public JSONObject getStats() {
+      JSONObject jsonStats = null;
+
+      jsonStats = new JSONObject();
+      jsonStats.put("enabled", _registerCache != null);
+      jsonStats.put("entries", _registerCache != null ? _registerCache.size() : 0);
+      jsonStats.put("hits", _cacheHits.get());
+      jsonStats.put("misses", _cacheMisses.get());
+
+      return jsonStats;
+   }
+
    /**
     * Override the "validate" interface, used to check the operation input
     *
@@ -68,7 +116,7 @@ public class RegisterHandler extends JaxrsHandler {
     */
    @Override
    protected void validate(final OperationIF oper) throws Exception {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "validate";
       JSONObject jsonInput = null;
 
       _logger.entering(CLASS, METHOD);
@@ -122,7 +170,7 @@ public class RegisterHandler extends JaxrsHandler {
    @Override
    protected OperationIF create(final OperationIF operInput) {
       boolean error = false;
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "create";
       String msg = null;
       String registerId = null;
       OperationIF operOutput = null;
@@ -182,7 +230,7 @@ public class RegisterHandler extends JaxrsHandler {
     */
    @Override
    protected OperationIF search(OperationIF operInput) {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "search";
       OperationIF operOutput = null;
 
       _logger.entering(CLASS, METHOD);
@@ -228,7 +276,7 @@ public class RegisterHandler extends JaxrsHandler {
    @Override
    protected OperationIF read(OperationIF operInput) {
       boolean error = false;
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "read";
       String msg = null;
       OperationIF operOutput = null;
       JSONObject jsonInput = null;
@@ -250,7 +298,7 @@ public class RegisterHandler extends JaxrsHandler {
       jsonInput = operInput.getJSON();
 
       try {
-         jsonOutput = this.readImpl(jsonInput);
+         jsonOutput = this.readCached(jsonInput);
       } catch (Exception ex) {
          error = true;
          msg = ex.getMessage();
@@ -301,7 +349,7 @@ public class RegisterHandler extends JaxrsHandler {
    @Override
    protected OperationIF replace(OperationIF operInput) {
       boolean error = false;
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "replace";
       String msg = null;
       OperationIF operOutput = null;
       JSONObject jsonInput = null;
@@ -327,6 +375,8 @@ public class RegisterHandler extends JaxrsHandler {
          msg = ex.getMessage();
       }
 
+      this.removeCached(jsonInput); // even if failed, AM may have changed
+
       if (!error) {
          operOutput.setJSON(new JSONObject());
          operOutput.setState(STATE.SUCCESS);
@@ -359,7 +409,7 @@ public class RegisterHandler extends JaxrsHandler {
    @Override
    protected OperationIF delete(OperationIF operInput) {
       boolean error = false;
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "delete";
       String msg = null;
       JSONObject jsonInput = null;
       OperationIF operOutput = null;
@@ -385,6 +435,8 @@ public class RegisterHandler extends JaxrsHandler {
          msg = ex.getMessage();
       }
 
+      this.removeCached(jsonInput); // even if failed, AM may have changed
+
       if (!error) {
          operOutput.setJSON(new JSONObject());
          operOutput.setState(STATE.SUCCESS);
@@ -404,13 +456,14 @@ public class RegisterHandler extends JaxrsHandler {
     * Initialize object instance
     */
    private void init() {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "init";
+      long maxEntries = 0L;
+      long ttl = 0L;
       String configType = ConstantsIF.RESOURCE;
       String msg = null;
       String type = ConstantsIF.RESOURCE;
       ConfigurationIF config = null;
       JSONObject json = null;
-      Map<String, String> map = null;
 
       _logger.entering(CLASS, METHOD);
 
@@ -431,9 +484,8 @@ public class RegisterHandler extends JaxrsHandler {
        * setup the REST Data Access Object for the Authorization Server (AS)
        */
       if (!this.isError() && _AuthzServerDAO == null) {
-         map = JSON.convertToParams(JSON.getObject(json, ConfigIF.AS_CONNECT));
          try {
-            _AuthzServerDAO = new AMRestDataAccess(map);
+            _AuthzServerDAO = _daoRegistry.getAuthzServerDAO();
          } catch (Exception ex) {
             msg = CLASS + ": " + METHOD + ": REST DAO: " + ex.getMessage();
             this.setError(true);
@@ -450,6 +502,21 @@ public class RegisterHandler extends JaxrsHandler {
          }
       }
 
+      /*
+       * setup the cache for registered resources
+       */
+      if (!this.isError()) {
+         maxEntries = this.getConfigLong(configType,
+            ConfigIF.AS_UMA_RESOURCE_SET_CACHE_MAX_ENTRIES, DEFAULT_CACHE_MAX_ENTRIES);
+         ttl = this.getConfigLong(configType,
+            ConfigIF.AS_UMA_RESOURCE_SET_CACHE_TTL, DEFAULT_CACHE_TTL);
+
+         if (maxEntries > 0L && ttl > 0L) {
+            _cacheTTL = ttl * 1000L;
+            _registerCache = new ExpiringCache<>((int) maxEntries);
+         }
+      }
+
       if (!this.isError()) {
          this.setState(STATE.READY);
       } else {
@@ -500,7 +567,7 @@ public class RegisterHandler extends JaxrsHandler {
     * @throws Exception
     */
    private String createImpl(final JSONObject jsonInput) throws Exception {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "createImpl";
       String uri = null;
       String uid = null;
       String access_token = null;
@@ -591,7 +658,7 @@ public class RegisterHandler extends JaxrsHandler {
     * @throws Exception
     */
    private OperationIF searchImpl(final OperationIF operInput) throws Exception {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "searchImpl";
       String access_token = null;
       JSONObject jsonOutput = null;
       JSONObject jsonHeaders = null;
@@ -679,7 +746,7 @@ public class RegisterHandler extends JaxrsHandler {
     * @throws Exception
     */
    private JSONObject readImpl(final JSONObject jsonInput) throws Exception {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "readImpl";
       String access_token = null;
       String registerId = null;
       OperationIF operInput = null;
@@ -738,6 +805,77 @@ public class RegisterHandler extends JaxrsHandler {
       return jsonOutput;
    }
 
+   /**
+    * Read the registered resource, use the cache if the entry exists and it
+    * was read with the same access_token (PAT). The cache entries, and the
+    * output, are deep copies: callers may change the output. A missing
+    * resource is not cached.
+    *
+    * @param jsonInput JSONObject input, see readImpl
+    * @return JSONObject output, null if the resource does not exist
+    * @throws Exception
+    */
+   private JSONObject readCached(final JSONObject jsonInput) throws Exception {
+      String METHOD = "readCached";
+      String registerId = null;
+      String tokenDigest = null;
+      CachedRegistration cached = null;
+      JSONObject jsonOutput = null;
+
+      _logger.entering(CLASS, METHOD);
+
+      registerId = JSON.getString(jsonInput, ConstantsIF.UID);
+
+      if (_registerCache != null && !STR.isEmpty(registerId)) {
+         tokenDigest = ExpiringCache.digest(
+            JSON.getString(jsonInput, ConstantsIF.ACCESS_TOKEN));
+
+         cached = _registerCache.get(registerId);
+
+         if (cached != null && tokenDigest != null
+            && tokenDigest.equals(cached.tokenDigest)) {
+            _cacheHits.incrementAndGet();
+
+            jsonOutput = ResourceCache.copy(cached.data);
+         } else {
+            _cacheMisses.incrementAndGet();
+         }
+      }
+
+      if (jsonOutput == null) {
+         jsonOutput = this.readImpl(jsonInput);
+
+         if (_registerCache != null && tokenDigest != null && jsonOutput != null) {
+            _registerCache.put(registerId, 
+               new CachedRegistration(tokenDigest, ResourceCache.copy(jsonOutput)),
+               _cacheTTL);
+         }
+      }
+
+      _logger.exiting(CLASS, METHOD);
+
+      return jsonOutput;
+   }
+
+   /**
+    * Remove the registered resource from the cache
+    *
+    * @param jsonInput JSONObject input, with "uid"
+    */
+   private void removeCached(final JSONObject jsonInput) {
+      String registerId = null;
+
+      if (_registerCache != null) {
+         registerId = JSON.getString(jsonInput, ConstantsIF.UID);
+
+         if (!STR.isEmpty(registerId)) {
+            _registerCache.remove(registerId);
+         }
+      }
+
+      return;
+   }
+
    /**
     * Implementation of the "replace" operation. Read the existing registered
     * resource, using the "uid" Merge the input attributes into the retrieved
@@ -778,7 +916,7 @@ public class RegisterHandler extends JaxrsHandler {
     * @throws Exception
     */
    private void replaceImpl(final JSONObject jsonInput) throws Exception {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "replaceImpl";
       String access_token = null;
       OperationIF operReplaceInput = null;
       OperationIF operReplaceOutput = null;
@@ -860,7 +998,7 @@ public class RegisterHandler extends JaxrsHandler {
     * @throws Exception
     */
    private void deleteImpl(final JSONObject jsonInput) throws Exception {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "deleteImpl";
       String access_token = null;
       String registerId = null;
       OperationIF operDeleteInput = null;
@@ -910,4 +1048,18 @@ public class RegisterHandler extends JaxrsHandler {
 
       return;
    }
+
+   /*
+    * =============== PRIVATE CLASSES ===============
+    */
+   private static class CachedRegistration {
+
+      private final String tokenDigest; // access_token that read the data
+      private final JSONObject data;
+
+      private CachedRegistration(final String tokenDigest, final JSONObject data) {
+         this.tokenDigest = tokenDigest;
+         this.data = data;
+      }
+   }
 }
@@ -11,11 +11,11 @@ import com.forgerock.frdp.dao.Operation;
 import com.forgerock.frdp.dao.OperationIF;
 import com.forgerock.frdp.handler.HandlerManagerIF;
 import com.forgerock.frdp.resourceserver.ConfigIF;
-import com.forgerock.frdp.resourceserver.dao.AMRestDataAccess;
+import com.forgerock.frdp.resourceserver.dao.DataAccessRegistry;
 import com.forgerock.frdp.resourceserver.handler.JaxrsHandler;
+import com.forgerock.frdp.resourceserver.handler.JaxrsHandlerIF;
 import com.forgerock.frdp.utils.JSON;
 import com.forgerock.frdp.utils.STR;
-import java.util.Map;
 import java.util.logging.Level;
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
@@ -43,12 +43,13 @@ public class RequestsHandler extends JaxrsHandler {
     *
     * @param configMgr ConfigurationManagerIF management of configurations
     * @param handlerMgr HandlerManagerIF provides management of Handlers
+    * @param daoRegistry DataAccessRegistry shared Data Access Objects
     */
    public RequestsHandler(final ConfigurationManagerIF configMgr, 
-      final HandlerManagerIF handlerMgr) {
-      super(configMgr, handlerMgr);
+      final HandlerManagerIF handlerMgr, final DataAccessRegistry daoRegistry) {
+      super(configMgr, handlerMgr, daoRegistry);
 
-      String METHOD = "RequestsHandler(configMgr, handlerMgr)";
+      String METHOD = "RequestsHandler(configMgr, handlerMgr, daoRegistry)";
 
       _logger.entering(CLASS, METHOD);
 
@@ -67,7 +68,7 @@ public class RequestsHandler extends JaxrsHandler {
     */
    @Override
    protected void validate(final OperationIF oper) throws Exception {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "validate";
       JSONObject jsonInput = null;
 
       _logger.entering(CLASS, METHOD);
@@ -136,7 +137,7 @@ public class RequestsHandler extends JaxrsHandler {
     */
    @Override
    protected OperationIF search(OperationIF operInput) {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "search";
       OperationIF operOutput = null;
 
       _logger.entering(CLASS, METHOD);
@@ -190,7 +191,7 @@ public class RequestsHandler extends JaxrsHandler {
     */
    @Override
    protected OperationIF read(OperationIF operInput) {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "read";
       OperationIF operOutput = null;
 
       _logger.entering(CLASS, METHOD);
@@ -240,7 +241,7 @@ public class RequestsHandler extends JaxrsHandler {
     */
    @Override
    protected OperationIF replace(OperationIF operInput) {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "replace";
       OperationIF operOutput = null;
 
       _logger.entering(CLASS, METHOD);
@@ -269,12 +270,11 @@ public class RequestsHandler extends JaxrsHandler {
     * Initialize object instance
     */
    private void init() {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "init";
       String msg = null;
       String type = ConstantsIF.RESOURCE;
       ConfigurationIF config = null;
       JSONObject json = null;
-      Map<String, String> map = null;
 
       _logger.entering(CLASS, METHOD);
 
@@ -295,9 +295,8 @@ public class RequestsHandler extends JaxrsHandler {
        * setup the REST Data Access Object for the Authorization Server (AS)
        */
       if (_AuthzServerDAO == null) {
-         map = JSON.convertToParams(JSON.getObject(json, ConfigIF.AS_CONNECT));
          try {
-            _AuthzServerDAO = new AMRestDataAccess(map);
+            _AuthzServerDAO = _daoRegistry.getAuthzServerDAO();
          } catch (Exception ex) {
             msg = CLASS + ": " + METHOD + ": REST AMDAO: " + ex.getMessage();
             this.setError(true);
@@ -325,7 +324,9 @@ public class RequestsHandler extends JaxrsHandler {
     * JSON input ...
     * {
     *   "sso_token": "...", // header: iPlanetDirectoryPro
-    *   "owner": "..." // used to build the URL
+    *   "owner": "...", // used to build the URL
+    *   "pageSize": "10", // OPTIONAL, AS "_pageSize"
+    *   "cursor": "..." // OPTIONAL, from the previous page
     * }
     * JSON output ...
     * {
@@ -343,7 +344,8 @@ public class RequestsHandler extends JaxrsHandler {
     *     "pagedResultsCookie":null,
     *     "totalPagedResultsPolicy":"NONE",
     *     "totalPagedResults":-1,
-    *     "remainingPagedResults":0
+    *     "remainingPagedResults":0,
+    *     "cursor": "..." // paged, only if there are more results
     *   }
     * }
     *
@@ -360,7 +362,7 @@ public class RequestsHandler extends JaxrsHandler {
     * @throws Exception
     */
    private OperationIF searchImpl(final OperationIF operInput) throws Exception {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "searchImpl";
       String sso_token = null;
       String owner = null;
       String configType = ConstantsIF.RESOURCE;
@@ -401,13 +403,14 @@ public class RequestsHandler extends JaxrsHandler {
          jsonParams.put(PROP_QUERYFILTER, this.getConfigValue(configType, 
             ConfigIF.AS_UMA_PENDINGREQUESTS_QUERYFILTER));
 
+         this.setPagedResultsParams(jsonParams, operInput.getJSON(), 0L);
+
          jsonSearch = new JSONObject();
          jsonSearch.put(ConstantsIF.QUERY, jsonQuery);
          jsonSearch.put(ConstantsIF.HEADERS, jsonHeaders);
          jsonSearch.put(ConstantsIF.QUERY_PARAMS, jsonParams);
          jsonSearch.put(ConstantsIF.PATH,
-            this.getConfigValue(configType, ConfigIF.AS_UMA_PENDINGREQUESTS_PATH)
-               .replaceAll(PROP_VAR_OWNER, owner));
+            this.getConfigValue(configType, ConfigIF.AS_UMA_PENDINGREQUESTS_PATH, owner));
 
          operASInput = new Operation(OperationIF.TYPE.SEARCH); // GET
          operASInput.setJSON(jsonSearch);
@@ -420,6 +423,7 @@ public class RequestsHandler extends JaxrsHandler {
             jsonData.put(ConstantsIF.RESULTS, new JSONArray());
          } else {
             jsonData = operASOutput.getJSON();
+            this.setCursor(jsonData, this.getNextCursor(jsonData, jsonParams));
          }
 
          jsonOutput = new JSONObject();
@@ -472,7 +476,7 @@ public class RequestsHandler extends JaxrsHandler {
     * @throws Exception
     */
    private OperationIF readImpl(final OperationIF operInput) throws Exception {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "readImpl";
       String sso_token = null;
       String owner = null;
       String requestId = null;
@@ -507,8 +511,7 @@ public class RequestsHandler extends JaxrsHandler {
             jsonRead = new JSONObject();
             jsonRead.put(ConstantsIF.HEADERS, jsonHeaders);
             jsonRead.put(ConstantsIF.PATH,
-               this.getConfigValue(configType, ConfigIF.AS_UMA_PENDINGREQUESTS_PATH)
-                  .replaceAll(PROP_VAR_OWNER, owner));
+               this.getConfigValue(configType, ConfigIF.AS_UMA_PENDINGREQUESTS_PATH, owner));
             jsonRead.put(ConstantsIF.UID, requestId);
 
             operASInput = new Operation(OperationIF.TYPE.READ); // GET
@@ -566,7 +569,7 @@ public class RequestsHandler extends JaxrsHandler {
     * @throws Exception
     */
    private OperationIF replaceImpl(final OperationIF operInput) throws Exception {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "replaceImpl";
       String sso_token = null;
       String owner = null;
       String requestId = null;
@@ -666,8 +669,7 @@ public class RequestsHandler extends JaxrsHandler {
                   jsonReplace.put(ConstantsIF.QUERY_PARAMS, jsonQueryParams);
                   jsonReplace.put(ConstantsIF.PATH,
                      this.getConfigValue(configType,
-                        ConfigIF.AS_UMA_PENDINGREQUESTS_PATH)
-                        .replaceAll(PROP_VAR_OWNER, owner));
+                        ConfigIF.AS_UMA_PENDINGREQUESTS_PATH, owner));
                   jsonReplace.put(ConstantsIF.UID, requestId);
                   jsonReplace.put(ConstantsIF.DATA, jsonPayload);
 
@@ -676,6 +678,10 @@ public class RequestsHandler extends JaxrsHandler {
 
                   operASOutput = _AuthzServerDAO.execute(operASInput);
 
+                  if (action.equalsIgnoreCase(ConstantsIF.APPROVE)) {
+                     this.clearPolicyCache();
+                  }
+
                   jsonOutput = new JSONObject();
                   jsonOutput.put(ConstantsIF.DATA, operASOutput.getJSON());
 
@@ -703,4 +709,26 @@ public class RequestsHandler extends JaxrsHandler {
 
       return operOutput;
    }
+
+   /**
+    * Approving a request changes the policy of the resource. The pending
+    * request does not have the registration id, clear the policy cache.
+    */
+   private void clearPolicyCache() {
+      String METHOD = "clearPolicyCache";
+      JaxrsHandlerIF handler = null;
+
+      try {
+         handler = this.getHandler(JaxrsHandlerIF.HANDLER_UMA_POLICY);
+
+         if (handler instanceof PolicyHandler) {
+            ((PolicyHandler) handler).clearCache();
+         }
+      } catch (Exception ex) {
+         _logger.log(Level.WARNING, "{0}: {1}",
+            new Object[]{METHOD, ex.getMessage()});
+      }
+
+      return;
+   }
 }
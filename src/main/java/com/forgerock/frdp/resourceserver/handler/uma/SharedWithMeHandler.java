@@ -9,15 +9,19 @@ import com.forgerock.frdp.config.ConfigurationIF;
 import com.forgerock.frdp.config.ConfigurationManagerIF;
 import com.forgerock.frdp.dao.Operation;
 import com.forgerock.frdp.dao.OperationIF;
-import com.forgerock.frdp.dao.mongo.MongoFactory;
 import com.forgerock.frdp.handler.HandlerManagerIF;
 import com.forgerock.frdp.resourceserver.ConfigIF;
-import com.forgerock.frdp.resourceserver.dao.AMRestDataAccess;
+import com.forgerock.frdp.resourceserver.dao.DataAccessRegistry;
+import com.forgerock.frdp.resourceserver.handler.AMProxyAdminHandler;
 import com.forgerock.frdp.resourceserver.handler.JaxrsHandler;
 import com.forgerock.frdp.resourceserver.handler.JaxrsHandlerIF;
 import com.forgerock.frdp.utils.JSON;
 import com.forgerock.frdp.utils.STR;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.logging.Level;
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
@@ -44,12 +48,13 @@ public class SharedWithMeHandler extends JaxrsHandler {
     *
     * @param configMgr ConfigurationManagerIF management of configurations
     * @param handlerMgr HandlerManagerIF provides management of Handlers
+    * @param daoRegistry DataAccessRegistry shared Data Access Objects
     */
    public SharedWithMeHandler(final ConfigurationManagerIF configMgr, 
-      final HandlerManagerIF handlerMgr) {
-      super(configMgr, handlerMgr);
+      final HandlerManagerIF handlerMgr, final DataAccessRegistry daoRegistry) {
+      super(configMgr, handlerMgr, daoRegistry);
 
-      String METHOD = "SharedWithMeHandler(configMgr, handlerMgr)";
+      String METHOD = "SharedWithMeHandler(configMgr, handlerMgr, daoRegistry)";
 
       _logger.entering(CLASS, METHOD);
 
@@ -68,7 +73,7 @@ public class SharedWithMeHandler extends JaxrsHandler {
     */
    @Override
    protected void validate(final OperationIF oper) throws Exception {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "validate";
       JSONObject jsonInput = null;
 
       _logger.entering(CLASS, METHOD);
@@ -138,7 +143,7 @@ public class SharedWithMeHandler extends JaxrsHandler {
     */
    @Override
    protected OperationIF search(OperationIF operInput) {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "search";
       OperationIF operOutput = null;
 
       _logger.entering(CLASS, METHOD);
@@ -167,12 +172,11 @@ public class SharedWithMeHandler extends JaxrsHandler {
     * Initialize object instance
     */
    private void init() {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "init";
       String msg = null;
       String type = ConstantsIF.RESOURCE;
       ConfigurationIF config = null;
       JSONObject json = null;
-      Map<String, String> map = null;
 
       _logger.entering(CLASS, METHOD);
 
@@ -196,9 +200,8 @@ public class SharedWithMeHandler extends JaxrsHandler {
        * setup the Mongo Data Access Object
        */
       if (!this.isError() && _MongoDAO == null) {
-         map = JSON.convertToParams(JSON.getObject(json, ConfigIF.RS_NOSQL));
          try {
-            _MongoDAO = MongoFactory.getInstance(map);
+            _MongoDAO = _daoRegistry.getMongoDAO();
          } catch (Exception ex) {
             msg = CLASS + ": " + METHOD + ": Mongo DAO:" + ex.getMessage();
             this.setError(true);
@@ -209,9 +212,8 @@ public class SharedWithMeHandler extends JaxrsHandler {
        * setup the Authorization Server Data Access Object
        */
       if (!this.isError() && _AuthzServerDAO == null) {
-         map = JSON.convertToParams(JSON.getObject(json, ConfigIF.AS_CONNECT));
          try {
-            _AuthzServerDAO = new AMRestDataAccess(map);
+            _AuthzServerDAO = _daoRegistry.getAuthzServerDAO();
          } catch (Exception ex) {
             msg = CLASS + ": " + METHOD + ": REST DAO: " + ex.getMessage();
             this.setError(true);
@@ -255,7 +257,9 @@ public class SharedWithMeHandler extends JaxrsHandler {
     *     "operator": "equal",
     *     "attribute": "type",
     *     "value": "healthcare"
-    *   }
+    *   },
+    *   "pageSize": "10", // OPTIONAL, AS "_pageSize"
+    *   "cursor": "..." // OPTIONAL, from the previous page
     * }
     *
     * AM API output ...
@@ -295,7 +299,8 @@ public class SharedWithMeHandler extends JaxrsHandler {
     *         "scopes": [ "view" ]
     *       }
     *     ],
-    *     "quantity":1
+    *     "quantity":1,
+    *     "cursor": "..." // paged, only if there are more results
     *   }
     * }
     *
@@ -345,9 +350,10 @@ public class SharedWithMeHandler extends JaxrsHandler {
     * @throws Exception
     */
    private OperationIF searchImpl(final OperationIF operInput) throws Exception {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "searchImpl";
       String subject = null; // Requesting Party
       String sso_token = null;
+      String cursor = null;
       String configType = ConstantsIF.RESOURCE;
       JSONObject jsonInput = null;
       JSONObject jsonQuery = null;
@@ -389,8 +395,9 @@ public class SharedWithMeHandler extends JaxrsHandler {
          
          jsonParams.put(PROP_QUERYFILTER,
             this.getConfigValue(configType, 
-               ConfigIF.AS_UMA_SHAREDWITHME_QUERYFILTER)
-                  .replaceAll(PROP_VAR_OWNER, subject));
+               ConfigIF.AS_UMA_SHAREDWITHME_QUERYFILTER, subject));
+
+         this.setPagedResultsParams(jsonParams, jsonInput, 0L);
 
          jsonSearch = new JSONObject();
          
@@ -401,8 +408,7 @@ public class SharedWithMeHandler extends JaxrsHandler {
          jsonSearch.put(ConstantsIF.QUERY_PARAMS, jsonParams);
          
          jsonSearch.put(ConstantsIF.PATH,
-            this.getConfigValue(configType, ConfigIF.AS_UMA_SHAREDWITHME_PATH)
-               .replaceAll(PROP_VAR_OWNER, subject));
+            this.getConfigValue(configType, ConfigIF.AS_UMA_SHAREDWITHME_PATH, subject));
 
          operASInput = new Operation(OperationIF.TYPE.SEARCH); // GET
          
@@ -415,6 +421,7 @@ public class SharedWithMeHandler extends JaxrsHandler {
 
          if (operASOutput.getState() == STATE.SUCCESS) {
             jsonData = operASOutput.getJSON();
+            cursor = this.getNextCursor(jsonData, jsonParams);
          } else {
             jsonData = new JSONObject();
             jsonData.put(ConstantsIF.RESULTS, new JSONArray());
@@ -427,6 +434,8 @@ public class SharedWithMeHandler extends JaxrsHandler {
 
          jsonData = this.updateResourceData(jsonData);
 
+         this.setCursor(jsonData, cursor);
+
          jsonOutput = new JSONObject();
          jsonOutput.put(ConstantsIF.DATA, jsonData);
          operOutput.setJSON(jsonOutput);
@@ -445,7 +454,9 @@ public class SharedWithMeHandler extends JaxrsHandler {
     * (from AM) to get the Resource record NOTE: input array is named "result"
     * (from AM AI) output array is named "results" to match other RS search
     * responses Get the policy for each registration and find the "assigned"
-    * scopes
+    * scopes. The Resource records are read with batched queries, the policies
+    * are read concurrently (see fanOut). If a policy is not read in time, the
+    * entry is returned without the "policy" scopes.
     *
     * <pre>
     * JSON input ...
@@ -499,13 +510,19 @@ public class SharedWithMeHandler extends JaxrsHandler {
     *   }
     * }
     *
-    * search the resources for a given registration id:
+    * search the resources for the registration ids:
     * JSON input ...
     * {
     *   "query": {
-    *     "operator": "equal",
-    *     "attribute": "data.register",
-    *     "value": "f25424b6-dd67-4403-91db-ecba96b3365b0"
+    *     "operator": "or",
+    *     "queries": [
+    *       {
+    *         "operator": "equal",
+    *         "attribute": "data.register",
+    *         "value": "f25424b6-dd67-4403-91db-ecba96b3365b0"
+    *       },
+    *       { ... }
+    *     ]
     *   }
     * }
     * JSON output ...
@@ -535,164 +552,156 @@ public class SharedWithMeHandler extends JaxrsHandler {
     */
    private JSONObject updateResourceData(final JSONObject jsonInput) throws Exception {
       boolean discoverable = false;
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "updateResourceData";
       String registerId = null;
       String rsId = null;
       String sso_token = null;
       String resourceServer = null;
       String configType = ConstantsIF.RESOURCE;
       JSONObject jsonOutput = null;
-      JSONObject jsonSearch = null;
-      JSONObject jsonQuery = null;
       JSONObject jsonRegister = null;
       JSONObject jsonResource = null;
       JSONObject jsonPolicy = null;
       JSONArray arrayInput = null;
       JSONArray arrayOutput = null;
       JSONArray arrayPolicyScopes = null;
-      OperationIF operInput = null;
-      OperationIF operOutput = null;
-      OperationIF operProxyInput = null;
-      OperationIF operProxyOutput = null;
-      JaxrsHandlerIF resourceHandler = null;
-      JaxrsHandlerIF proxyAdmHandler = null;
+      Set<String> registerIds = null;
+      Map<String, JSONObject> mapResources = null;
+      List<JSONObject> listRegisters = null;
+      List<JSONObject> listPolicies = null;
+      List<JSONArray> listPolicyScopes = null;
 
       _logger.entering(CLASS, METHOD);
 
-      resourceHandler = this.getHandler(JaxrsHandlerIF.HANDLER_RESOURCES);
-
-      proxyAdmHandler = this.getHandler(JaxrsHandlerIF.HANDLER_AMPROXYADM);
-
       rsId = this.getConfigValue(configType, ConfigIF.RS_ID);
 
-      operProxyInput = new Operation(OperationIF.TYPE.READ);
-      operProxyOutput = proxyAdmHandler.process(operProxyInput);
-
-      sso_token = JSON.getString(operProxyOutput.getJSON(), 
-         ConstantsIF.DATA + "." + ConstantsIF.TOKENID);
-
-      if (STR.isEmpty(sso_token)) {
-         this.abort(METHOD, "Proxy Admin sso token is empty");
-      }
+      sso_token = this.getAdminSSOToken(null);
 
       /*
        * process the input
        */
       jsonOutput = new JSONObject();
       arrayOutput = new JSONArray();
+      registerIds = new LinkedHashSet<>();
+      listRegisters = new ArrayList<>();
+      listPolicies = new ArrayList<>();
 
       if (jsonInput != null) {
          arrayInput = JSON.getArray(jsonInput, ConstantsIF.RESULT);
 
          if (arrayInput != null && !arrayInput.isEmpty()) {
-            operInput = new Operation(OperationIF.TYPE.SEARCH);
+            /*
+             * The "subject" could have "shared with me" resources that come 
+             * from different Resource Servers We only want the ones related 
+             * to "this" RS The "Resource Server" value MUST match the 
+             * Resource Server Id (rsId)
+             */
+            for (Object obj : arrayInput) {
+               if (obj != null && obj instanceof JSONObject) {
+                  jsonRegister = (JSONObject) obj;
+                  registerId = JSON.getString(jsonRegister, ConstantsIF._ID);
+                  resourceServer = JSON.getString(jsonRegister, 
+                     JaxrsHandler.AM_ATTR_RESOURCE_SERVER);
 
-            jsonQuery = new JSONObject();
-            
-            jsonQuery.put(ConstantsIF.OPERATOR, ConstantsIF.EQUAL);
-            
-            jsonQuery.put(ConstantsIF.ATTRIBUTE, ConstantsIF.DATA + "." 
-               + ConstantsIF.REGISTER);
-            // Need to set the value for each entry
+                  if (!STR.isEmpty(registerId) && !STR.isEmpty(resourceServer) 
+                     && resourceServer.equalsIgnoreCase(rsId)) {
+                     registerIds.add(registerId);
+                  }
+               }
+            }
 
-            jsonSearch = new JSONObject();
-            jsonSearch.put(ConstantsIF.QUERY, jsonQuery);
+            /*
+             * Get the Resource records for all the registrations
+             */
+            mapResources = this.getResourcesByRegisterIds(registerIds);
 
             for (Object obj : arrayInput) {
                if (obj != null && obj instanceof JSONObject) {
                   jsonRegister = (JSONObject) obj;
                   registerId = JSON.getString(jsonRegister, ConstantsIF._ID);
 
-                  if (!STR.isEmpty(registerId)) {
-                     resourceServer = JSON.getString(jsonRegister, 
-                        JaxrsHandler.AM_ATTR_RESOURCE_SERVER);
-
-                     /*
-                      * The "subject" could have "shared with me" resources 
-                      * that come from different Resource Servers We only want 
-                      * the ones related to "this" RS The "Resource Server" 
-                      * value MUST match the Resource Server Id (rsId)
-                      */
-                     if (!STR.isEmpty(resourceServer) && resourceServer.equalsIgnoreCase(rsId)) {
-
-                        jsonQuery.put(ConstantsIF.VALUE, registerId);
-
-                        operInput.setJSON(jsonSearch);
-
-                        operOutput = resourceHandler.process(operInput);
-
-                        if (operOutput != null 
-                           && operOutput.getState() == STATE.SUCCESS) {
-                           jsonResource = JSON.getObject(operOutput.getJSON(),
-                              ConstantsIF.DATA + "." + ConstantsIF.RESULTS + "[0]");
-
-                           if (jsonResource != null && !jsonResource.isEmpty()) {
-                              /*
-                               * Get the the subject's current scopes, from policy
-                               */
-                              jsonPolicy = new JSONObject();
-                              
-                              jsonPolicy.put(ConstantsIF.SSO_TOKEN, sso_token);
-                              
-                              jsonPolicy.put(ConstantsIF.SUBJECT, 
-                                 JSON.getString(jsonInput, ConstantsIF.SUBJECT));
-                              
-                              jsonPolicy.put(ConstantsIF.REGISTERED, registerId);
-                              
-                              jsonPolicy.put(ConstantsIF.OWNER,
-                                 JSON.getString(jsonRegister, 
-                                    JaxrsHandler.AM_ATTR_RESOURCE_OWNER_ID));
-
-                              arrayPolicyScopes = this.getScopes(jsonPolicy);
-                              
-                              if (arrayPolicyScopes != null) {
-                                 jsonRegister.put(ConstantsIF.POLICY, 
-                                    arrayPolicyScopes);
-                              }
-
-                              jsonRegister.put(ConstantsIF.ID, 
-                                 JSON.getString(jsonResource, ConstantsIF.UID));
-                              
-                              jsonRegister.put(ConstantsIF.LABEL, 
-                                 JSON.getString(jsonResource,
-                                    ConstantsIF.DATA + "." + ConstantsIF.META 
-                                       + "." + ConstantsIF.LABEL));
-                              
-                              jsonRegister.put(ConstantsIF.DESCRIPTION, 
-                                 JSON.getString(jsonResource,
-                                    ConstantsIF.DATA + "." + ConstantsIF.META 
-                                       + "." + ConstantsIF.DESCRIPTION));
-                              
-                              jsonRegister.put(ConstantsIF.OWNER,
-                                 jsonRegister.get(JaxrsHandler.AM_ATTR_RESOURCE_OWNER_ID));
-
-                              jsonRegister.remove(ConstantsIF._ID);
-                              
-                              jsonRegister.remove(ConstantsIF._REV);
-                              
-                              jsonRegister.remove(JaxrsHandler.AM_ATTR_RESOURCE_SERVER);
-                              
-                              jsonRegister.remove(ConstantsIF.LABELS);
-                              
-                              jsonRegister.remove(JaxrsHandler.AM_ATTR_RESOURCE_OWNER_ID);
-
-                              discoverable = JSON.getBoolean(jsonResource,
-                                 ConstantsIF.DATA + "." + ConstantsIF.META + "." + ConstantsIF.DISCOVERABLE);
-
-                              if (!discoverable) {
-                                 jsonRegister.remove(ConstantsIF.SCOPES);
-                              }
-
-                              arrayOutput.add(jsonRegister);
-                           }
-                        }
-                     }
+                  if (registerId != null && registerIds.contains(registerId)
+                     && mapResources.containsKey(registerId)) {
+                     jsonPolicy = new JSONObject();
+
+                     jsonPolicy.put(ConstantsIF.SSO_TOKEN, sso_token);
+
+                     jsonPolicy.put(ConstantsIF.SUBJECT, 
+                        JSON.getString(jsonInput, ConstantsIF.SUBJECT));
+
+                     jsonPolicy.put(ConstantsIF.REGISTERED, registerId);
+
+                     jsonPolicy.put(ConstantsIF.OWNER,
+                        JSON.getString(jsonRegister, 
+                           JaxrsHandler.AM_ATTR_RESOURCE_OWNER_ID));
+
+                     listRegisters.add(jsonRegister);
+                     listPolicies.add(jsonPolicy);
                   }
                }
             }
          }
       }
 
+      /*
+       * Get the the subject's current scopes, from each policy
+       */
+      listPolicyScopes = this.fanOut(listPolicies, json -> {
+         try {
+            return this.getScopes(json);
+         } catch (Exception ex) {
+            _logger.log(Level.WARNING, "{0}: {1}", 
+               new Object[]{CLASS, ex.getMessage()});
+            return null;
+         }
+      });
+
+      for (int i = 0; i < listRegisters.size(); i++) {
+         jsonRegister = listRegisters.get(i);
+         registerId = JSON.getString(jsonRegister, ConstantsIF._ID);
+         jsonResource = mapResources.get(registerId);
+         arrayPolicyScopes = listPolicyScopes.get(i);
+
+         if (arrayPolicyScopes != null) {
+            jsonRegister.put(ConstantsIF.POLICY, arrayPolicyScopes);
+         }
+
+         jsonRegister.put(ConstantsIF.ID, 
+            JSON.getString(jsonResource, ConstantsIF.UID));
+
+         jsonRegister.put(ConstantsIF.LABEL, 
+            JSON.getString(jsonResource,
+               ConstantsIF.DATA + "." + ConstantsIF.META 
+                  + "." + ConstantsIF.LABEL));
+
+         jsonRegister.put(ConstantsIF.DESCRIPTION, 
+            JSON.getString(jsonResource,
+               ConstantsIF.DATA + "." + ConstantsIF.META 
+                  + "." + ConstantsIF.DESCRIPTION));
+
+         jsonRegister.put(ConstantsIF.OWNER,
+            jsonRegister.get(JaxrsHandler.AM_ATTR_RESOURCE_OWNER_ID));
+
+         jsonRegister.remove(ConstantsIF._ID);
+
+         jsonRegister.remove(ConstantsIF._REV);
+
+         jsonRegister.remove(JaxrsHandler.AM_ATTR_RESOURCE_SERVER);
+
+         jsonRegister.remove(ConstantsIF.LABELS);
+
+         jsonRegister.remove(JaxrsHandler.AM_ATTR_RESOURCE_OWNER_ID);
+
+         discoverable = JSON.getBoolean(jsonResource,
+            ConstantsIF.DATA + "." + ConstantsIF.META + "." + ConstantsIF.DISCOVERABLE);
+
+         if (!discoverable) {
+            jsonRegister.remove(ConstantsIF.SCOPES);
+         }
+
+         arrayOutput.add(jsonRegister);
+      }
+
       jsonOutput.put(ConstantsIF.RESULTS, arrayOutput);
       jsonOutput.put(ConstantsIF.QUANTITY, arrayOutput.size());
 
@@ -701,6 +710,50 @@ public class SharedWithMeHandler extends JaxrsHandler {
       return jsonOutput;
    }
 
+   /**
+    * Get the SSO token for the proxy admin. If AM rejected the previous token
+    * (401), it is passed as the "stale" token, the proxy admin handler drops
+    * it and renews the session.
+    *
+    * @param staleToken String token rejected by AM, null if none
+    * @return String sso token
+    * @throws Exception could not get the token
+    */
+   private String getAdminSSOToken(final String staleToken) throws Exception {
+      String METHOD = "getAdminSSOToken";
+      String sso_token = null;
+      JSONObject jsonProxyInput = null;
+      OperationIF operProxyInput = null;
+      OperationIF operProxyOutput = null;
+      JaxrsHandlerIF proxyAdmHandler = null;
+
+      _logger.entering(CLASS, METHOD);
+
+      proxyAdmHandler = this.getHandler(JaxrsHandlerIF.HANDLER_AMPROXYADM);
+
+      jsonProxyInput = new JSONObject();
+
+      if (!STR.isEmpty(staleToken)) {
+         jsonProxyInput.put(AMProxyAdminHandler.INVALIDATE, staleToken);
+      }
+
+      operProxyInput = new Operation(OperationIF.TYPE.READ);
+      operProxyInput.setJSON(jsonProxyInput);
+
+      operProxyOutput = proxyAdmHandler.process(operProxyInput);
+
+      sso_token = JSON.getString(operProxyOutput.getJSON(), 
+         ConstantsIF.DATA + "." + ConstantsIF.TOKENID);
+
+      if (STR.isEmpty(sso_token)) {
+         this.abort(METHOD, "Proxy Admin sso token is empty");
+      }
+
+      _logger.exiting(CLASS, METHOD);
+
+      return sso_token;
+   }
+
    /**
     * If a filter is provided ... Remove the matching objects from the "result"
     * array
@@ -743,7 +796,7 @@ public class SharedWithMeHandler extends JaxrsHandler {
     */
    private JSONObject filter(final JSONObject jsonInput, 
       final JSONObject jsonFilter) {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "filter";
       String filterAttr = null;
       String filterVal = null;
       String attrVal = null;
@@ -789,7 +842,8 @@ public class SharedWithMeHandler extends JaxrsHandler {
 
    /**
     * Get the scopes, for a registered resource, to an owner, for a specific
-    * subject (Requesting Party)
+    * subject (Requesting Party). If AM rejects the admin token (401), it is
+    * renewed and the read is tried once more.
     *
     * <pre>
     * JSON input ...
@@ -826,7 +880,8 @@ public class SharedWithMeHandler extends JaxrsHandler {
     * @throws Exception
     */
    private JSONArray getScopes(final JSONObject jsonInput) throws Exception {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      boolean error = false;
+      String METHOD = "getScopes";
       String registerId = null;
       String owner = null; // Resource Owner
       String subject = null; // Requesting Party
@@ -856,42 +911,52 @@ public class SharedWithMeHandler extends JaxrsHandler {
 
       if (STR.isEmpty(sso_token)) {
          msg = "Attribute '" + ConstantsIF.SSO_TOKEN + "' is empty";
-         this.setError(true);
+         error = true;
       } else {
          if (STR.isEmpty(registerId)) {
             msg = "Attribute '" + ConstantsIF.REGISTERED + "' is empty";
-            this.setError(true);
+            error = true;
          } else {
             if (STR.isEmpty(owner)) {
                msg = "Attribute '" + ConstantsIF.OWNER + "' is empty";
-               this.setError(true);
+               error = true;
             } else {
                if (STR.isEmpty(subject)) {
                   msg = "Attribute '" + ConstantsIF.SUBJECT + "' is empty";
-                  this.setError(true);
+                  error = true;
                }
             }
          }
       }
 
-      if (this.isError()) {
+      if (error) {
          this.abort(METHOD, msg);
       }
 
-      jsonHeaders = new JSONObject();
-      jsonHeaders.put(this.getConfigValue(configType, ConfigIF.AS_COOKIE), sso_token);
+      for (int attempt = 0; attempt < 2; attempt++) {
+         jsonHeaders = new JSONObject();
+         jsonHeaders.put(this.getConfigValue(configType, ConfigIF.AS_COOKIE), sso_token);
+
+         jsonData = new JSONObject();
+         jsonData.put(ConstantsIF.HEADERS, jsonHeaders);
+         jsonData.put(ConstantsIF.UID, registerId);
+         jsonData.put(ConstantsIF.PATH,
+            this.getConfigValue(configType, ConfigIF.AS_UMA_POLICIES_PATH, owner));
+
+         operInput = new Operation(OperationIF.TYPE.READ); // GET
+         operInput.setJSON(jsonData);
 
-      jsonData = new JSONObject();
-      jsonData.put(ConstantsIF.HEADERS, jsonHeaders);
-      jsonData.put(ConstantsIF.UID, registerId);
-      jsonData.put(ConstantsIF.PATH,
-         this.getConfigValue(configType, ConfigIF.AS_UMA_POLICIES_PATH)
-            .replaceAll(PROP_VAR_OWNER, owner));
+         operOutput = _AuthzServerDAO.execute(operInput);
 
-      operInput = new Operation(OperationIF.TYPE.READ); // GET
-      operInput.setJSON(jsonData);
+         if (operOutput.getState() != STATE.NOTAUTHORIZED || attempt > 0) {
+            break;
+         }
 
-      operOutput = _AuthzServerDAO.execute(operInput);
+         /*
+          * 401: the admin token was rejected, renew it and try once more
+          */
+         sso_token = this.getAdminSSOToken(sso_token);
+      }
 
       if (operOutput.getState() == STATE.SUCCESS) {
          jsonPolicy = operOutput.getJSON();
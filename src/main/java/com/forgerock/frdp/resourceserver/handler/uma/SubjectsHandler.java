@@ -9,16 +9,16 @@ import com.forgerock.frdp.config.ConfigurationIF;
 import com.forgerock.frdp.config.ConfigurationManagerIF;
 import com.forgerock.frdp.dao.Operation;
 import com.forgerock.frdp.dao.OperationIF;
-import com.forgerock.frdp.dao.mongo.MongoFactory;
 import com.forgerock.frdp.handler.HandlerManagerIF;
 import com.forgerock.frdp.resourceserver.ConfigIF;
-import com.forgerock.frdp.resourceserver.dao.AMRestDataAccess;
+import com.forgerock.frdp.resourceserver.dao.DataAccessRegistry;
 import com.forgerock.frdp.resourceserver.handler.JaxrsHandler;
 import com.forgerock.frdp.utils.JSON;
 import com.forgerock.frdp.utils.STR;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
-import java.util.logging.Level;
+import java.util.Set;
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
 
@@ -38,18 +38,20 @@ import org.json.simple.JSONObject;
 public class SubjectsHandler extends JaxrsHandler {
 
    private final String CLASS = this.getClass().getName();
+   private static final long DEFAULT_PAGE_SIZE = 10L;
 
    /**
     * Constructor
     *
     * @param configMgr ConfigurationManagerIF management of configurations
     * @param handlerMgr HandlerManagerIF provides management of Handlers
+    * @param daoRegistry DataAccessRegistry shared Data Access Objects
     */
    public SubjectsHandler(final ConfigurationManagerIF configMgr, 
-      final HandlerManagerIF handlerMgr) {
-      super(configMgr, handlerMgr);
+      final HandlerManagerIF handlerMgr, final DataAccessRegistry daoRegistry) {
+      super(configMgr, handlerMgr, daoRegistry);
 
-      String METHOD = "SubjectsHandler(configMgr, handlerMgr)";
+      String METHOD = "SubjectsHandler(configMgr, handlerMgr, daoRegistry)";
 
       _logger.entering(CLASS, METHOD);
 
@@ -68,7 +70,7 @@ public class SubjectsHandler extends JaxrsHandler {
     */
    @Override
    protected void validate(final OperationIF oper) throws Exception {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "validate";
       JSONObject jsonInput = null;
 
       _logger.entering(CLASS, METHOD);
@@ -130,7 +132,7 @@ public class SubjectsHandler extends JaxrsHandler {
     */
    @Override
    protected OperationIF search(OperationIF operInput) {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "search";
       OperationIF operOutput = null;
 
       _logger.entering(CLASS, METHOD);
@@ -158,12 +160,11 @@ public class SubjectsHandler extends JaxrsHandler {
    }
 
    private void init() {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "init";
       String msg = null;
       String type = ConstantsIF.RESOURCE;
       ConfigurationIF config = null;
       JSONObject json = null;
-      Map<String, String> map = null;
 
       _logger.entering(CLASS, METHOD);
 
@@ -187,9 +188,8 @@ public class SubjectsHandler extends JaxrsHandler {
        * setup the REST Data Access Object for the Authorization Server (AS)
        */
       if (!this.isError() && _AuthzServerDAO == null) {
-         map = JSON.convertToParams(JSON.getObject(json, ConfigIF.AS_CONNECT));
          try {
-            _AuthzServerDAO = new AMRestDataAccess(map);
+            _AuthzServerDAO = _daoRegistry.getAuthzServerDAO();
          } catch (Exception ex) {
             msg = CLASS + ": " + METHOD + ": REST DAO: " + ex.getMessage();
             this.setError(true);
@@ -200,9 +200,8 @@ public class SubjectsHandler extends JaxrsHandler {
        * setup the Mongo Data Access Object
        */
       if (!this.isError() && _MongoDAO == null) {
-         map = JSON.convertToParams(JSON.getObject(json, ConfigIF.RS_NOSQL));
          try {
-            _MongoDAO = MongoFactory.getInstance(map);
+            _MongoDAO = _daoRegistry.getMongoDAO();
          } catch (Exception ex) {
             msg = CLASS + ": " + METHOD + ": Mongo DAO:" + ex.getMessage();
             this.setError(true);
@@ -230,7 +229,9 @@ public class SubjectsHandler extends JaxrsHandler {
     * JSON input ...
     * {
     *   "sso_token": "...", // header: iPlanetDirectoryPro
-    *   "owner": "..." // used to build the URL
+    *   "owner": "...", // used to build the URL
+    *   "pageSize": "10", // OPTIONAL, policies per page, default 10
+    *   "cursor": "..." // OPTIONAL, from the previous page
     * }
     * JSON output ...
     * {
@@ -272,7 +273,7 @@ public class SubjectsHandler extends JaxrsHandler {
     * @throws Exception
     */
    private OperationIF searchImpl(final OperationIF operInput) throws Exception {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "searchImpl";
       String sso_token = null;
       String owner = null;
       String configType = ConstantsIF.RESOURCE;
@@ -282,6 +283,7 @@ public class SubjectsHandler extends JaxrsHandler {
       JSONObject jsonParams = null;
       JSONObject jsonSearch = null;
       JSONObject jsonOutput = null;
+      JSONObject jsonSubjects = null;
       OperationIF operOutput = null;
       OperationIF operASInput = null;
       OperationIF operASOutput = null;
@@ -304,18 +306,18 @@ public class SubjectsHandler extends JaxrsHandler {
             ConfigIF.AS_COOKIE), sso_token);
 
          jsonParams = new JSONObject();
-         jsonParams.put("_pageSize", "10");
          jsonParams.put("_sortKeys", "policyId,name");
          jsonParams.put("_queryFilter", "true");
-         jsonParams.put("_pagedResultsOffset", "0");
+
+         this.setPagedResultsParams(jsonParams, operInput.getJSON(),
+            DEFAULT_PAGE_SIZE);
 
          jsonSearch = new JSONObject();
          jsonSearch.put(ConstantsIF.QUERY, jsonQuery);
          jsonSearch.put(ConstantsIF.HEADERS, jsonHeaders);
          jsonSearch.put(ConstantsIF.QUERY_PARAMS, jsonParams);
          jsonSearch.put(ConstantsIF.PATH,
-            this.getConfigValue(configType, ConfigIF.AS_UMA_POLICIES_PATH)
-               .replaceAll(PROP_VAR_OWNER, owner));
+            this.getConfigValue(configType, ConfigIF.AS_UMA_POLICIES_PATH, owner));
 
          operASInput = new Operation(OperationIF.TYPE.SEARCH); // GET
          operASInput.setJSON(jsonSearch);
@@ -333,9 +335,14 @@ public class SubjectsHandler extends JaxrsHandler {
          jsonOutput = new JSONObject();
          jsonOutput.put(ConstantsIF.DATA, jsonData);
 
+         jsonSubjects = this.getSubjects(jsonOutput);
+
+         this.setCursor(JSON.getObject(jsonSubjects, ConstantsIF.DATA),
+            this.getNextCursor(jsonData, jsonParams));
+
          operOutput.setState(operASOutput.getState());
          operOutput.setStatus(operASOutput.getStatus());
-         operOutput.setJSON(this.getSubjects(jsonOutput));
+         operOutput.setJSON(jsonSubjects);
       } else {
          throw new Exception(METHOD + ": sso_token or owner is empty");
       }
@@ -390,9 +397,10 @@ public class SubjectsHandler extends JaxrsHandler {
     *
     * @param jsonPolicies JSONObject policies with subjects
     * @return JSONObject subjects with resource policies
+    * @throws Exception could not read the resources
     */
-   private JSONObject getSubjects(final JSONObject jsonPolicies) {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+   private JSONObject getSubjects(final JSONObject jsonPolicies) throws Exception {
+      String METHOD = "getSubjects";
       String registerId = null;
       String resourceId = null;
       String name = null;
@@ -409,6 +417,8 @@ public class SubjectsHandler extends JaxrsHandler {
       JSONArray arrayScopes = null;
       JSONArray arrayResources = null;
       Map<String, JSONArray> mapResources = null;
+      Map<String, String> mapResourceIds = null;
+      Set<String> registerIds = null;
 
       _logger.entering(CLASS, METHOD);
 
@@ -421,6 +431,23 @@ public class SubjectsHandler extends JaxrsHandler {
             ConstantsIF.DATA + "." + ConstantsIF.RESULT);
 
          if (arrayPolicies != null && !arrayPolicies.isEmpty()) {
+            /*
+             * Resolve all the register ids (policyId) with one query
+             */
+            registerIds = new LinkedHashSet<>();
+
+            for (Object policy : arrayPolicies) {
+               if (policy != null && policy instanceof JSONObject) {
+                  registerId = JSON.getString((JSONObject) policy, 
+                     ConstantsIF.POLICYID);
+
+                  if (!STR.isEmpty(registerId)) {
+                     registerIds.add(registerId);
+                  }
+               }
+            }
+
+            mapResourceIds = this.getResourceIdsFromRegisterIds(registerIds);
 
             for (Object policy : arrayPolicies) {
                if (policy != null && policy instanceof JSONObject) {
@@ -430,9 +457,10 @@ public class SubjectsHandler extends JaxrsHandler {
                   arrayPermissons = JSON.getArray(jsonPolicy, 
                      ConstantsIF.PERMISSIONS);
 
-                  resourceId = this.getResourceIdFromRegisterId(registerId);
+                  resourceId = (registerId == null ? null 
+                     : mapResourceIds.get(registerId));
 
-                  if (!STR.isEmpty(resourceId)) {
+                  if (!STR.isEmpty(resourceId) && arrayPermissons != null) {
                      for (Object permission : arrayPermissons) {
                         if (permission != null 
                            && permission instanceof JSONObject) {
@@ -485,87 +513,48 @@ public class SubjectsHandler extends JaxrsHandler {
    }
 
    /**
-    * Search MongoDB "resources" collection. Use the register id to get the
-    * resource id (uid)
+    * Get the resource ids (uid) for the register ids, from the Resources
+    * Handler (see getResourcesByRegisterIds). It uses its RegisterIndex and
+    * resource cache, only the misses are read from the database, in batches.
     *
-    * <pre>
-    * JSON input ...
-    * {
-    *   "query": {
-    *     "operator": "eq",
-    *     "attribute": "data.owner",
-    *     "value": "..."
-    *   }
-    * }
-    * JSON output ... from MongoDB
-    * {
-    *   "quantity": X,
-    *   "results" : [
-    *     {
-    *       "uid": "...",
-    *       "data: {
-    *         ...
-    *       }
-    *     },
-    *     ...
-    *   ]
-    * }
-    * </pre>
-    *
-    * @param registerId String registration identifier
-    * @return String resource identifier
+    * @param registerIds Set of registration identifiers
+    * @return Map of registration identifier to resource identifier, a
+    * registration without a resource is not in the map
+    * @throws Exception the resources could not be read, the map would be
+    * incomplete
     */
-   private String getResourceIdFromRegisterId(final String registerId) {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+   private Map<String, String> getResourceIdsFromRegisterIds(
+      final Set<String> registerIds) throws Exception {
+      String METHOD = "getResourceIdsFromRegisterIds";
       String resourceId = null;
-      JSONObject jsonInput = null;
-      JSONObject jsonQuery = null;
-      OperationIF operInput = null;
-      OperationIF operOutput = null;
+      Map<String, String> mapResourceIds = null;
+      Map<String, JSONObject> mapResources = null;
 
       _logger.entering(CLASS, METHOD);
 
-      if (!STR.isEmpty(registerId)) {
-         operInput = new Operation(OperationIF.TYPE.SEARCH);
-
-         jsonQuery = new JSONObject();
-         jsonQuery.put(ConstantsIF.OPERATOR, ConstantsIF.EQUAL);
-         jsonQuery.put(ConstantsIF.ATTRIBUTE, "data.register");
-         jsonQuery.put(ConstantsIF.VALUE, registerId);
-
-         jsonInput = new JSONObject();
-         jsonInput.put(ConstantsIF.QUERY, jsonQuery);
-
-         operInput.setJSON(jsonInput);
+      mapResourceIds = new HashMap<>();
 
-         try {
-            this.setDatabaseAndCollection(operInput, ConfigIF.RS_NOSQL_DATABASE,
-               ConfigIF.RS_NOSQL_COLLECTIONS_RESOURCES_NAME);
-         } catch (Exception ex) {
-            this.setError(true);
-            operOutput = new Operation(OperationIF.TYPE.SEARCH);
-            operOutput.setError(true);
-            operOutput.setState(STATE.ERROR);
-            operOutput.setStatus(METHOD + ": " + ex.getMessage());
-
-            _logger.log(Level.SEVERE, "{0}: {1}", 
-               new Object[]{
-                  METHOD, ex.getMessage()
-               });
-         }
+      if (registerIds != null && !registerIds.isEmpty()) {
+         mapResources = this.getResourcesByRegisterIds(registerIds);
 
-         if (!this.isError()) {
-            operOutput = _MongoDAO.execute(operInput);
+         for (Map.Entry<String, JSONObject> entry : mapResources.entrySet()) {
+            resourceId = JSON.getString(entry.getValue(), ConstantsIF.UID);
 
-            if (operOutput.getState() == STATE.SUCCESS) {
-               resourceId = JSON.getString(operOutput.getJSON(), 
-                  ConstantsIF.RESULTS + "[0]." + ConstantsIF.UID);
+            if (!STR.isEmpty(resourceId)) {
+               mapResourceIds.put(entry.getKey(), resourceId);
             }
          }
       }
 
+      if (_logger.isLoggable(DEBUG_LEVEL)) {
+         _logger.log(DEBUG_LEVEL, "registerIds={0}, resolved={1}",
+            new Object[]{
+               registerIds != null ? registerIds.size() : 0, mapResourceIds.size()
+            });
+      }
+
       _logger.exiting(CLASS, METHOD);
 
-      return resourceId;
+      return mapResourceIds;
    }
 }
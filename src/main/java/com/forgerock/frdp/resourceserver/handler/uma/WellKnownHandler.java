@@ -11,10 +11,11 @@ import com.forgerock.frdp.dao.Operation;
 import com.forgerock.frdp.dao.OperationIF;
 import com.forgerock.frdp.handler.HandlerManagerIF;
 import com.forgerock.frdp.resourceserver.ConfigIF;
-import com.forgerock.frdp.resourceserver.dao.AMRestDataAccess;
+import com.forgerock.frdp.resourceserver.dao.DataAccessRegistry;
 import com.forgerock.frdp.resourceserver.handler.JaxrsHandler;
-import com.forgerock.frdp.utils.JSON;
-import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import org.json.simple.JSONObject;
 
@@ -24,6 +25,11 @@ import org.json.simple.JSONObject;
  * <pre>
  * This class implements the following operations:
  * - read: get the "well known" information
+ *
+ * The information is read from the Authorization Server when the handler is
+ * created and is refreshed in the background every
+ * "as.uma.well_known.refresh_interval" seconds. The "read" operation uses
+ * the saved information. If a refresh fails, the saved information is kept.
  * </pre>
  *
  * @author Scott Fehrman, ForgeRock, Inc.
@@ -32,21 +38,51 @@ public class WellKnownHandler extends JaxrsHandler {
 
    private final String CLASS = this.getClass().getName();
 
+   private static final long DEFAULT_REFRESH_INTERVAL = 3600L; // seconds
+
+   private volatile JSONObject _wellKnown = null;
+   private ScheduledExecutorService _scheduler = null;
+
    /**
     * Constructor
     *
     * @param configMgr ConfigurationManagerIF management of configurations
     * @param handlerMgr HandlerManagerIF provides management of Handlers
+    * @param daoRegistry DataAccessRegistry shared Data Access Objects
     */
-   public WellKnownHandler(final ConfigurationManagerIF configMgr, final HandlerManagerIF handlerMgr) {
-      super(configMgr, handlerMgr);
+   public WellKnownHandler(final ConfigurationManagerIF configMgr, 
+      final HandlerManagerIF handlerMgr, final DataAccessRegistry daoRegistry) {
+      super(configMgr, handlerMgr, daoRegistry);
 
-      String METHOD = "WellKnownHandler(configMgr, handlerMgr)";
+      String METHOD = "WellKnownHandler(configMgr, handlerMgr, daoRegistry)";
 
       _logger.entering(CLASS, METHOD);
 
       this.init();
 
+      if (this.getState() == STATE.READY) {
+         this.refresh();
+         this.startRefresh();
+      }
+
+      _logger.exiting(CLASS, METHOD);
+
+      return;
+   }
+
+   /**
+    * Stop the background refresh of the "well known" information
+    */
+   @Override
+   public void close() {
+      String METHOD = "close";
+
+      _logger.entering(CLASS, METHOD);
+
+      if (_scheduler != null) {
+         _scheduler.shutdownNow();
+      }
+
       _logger.exiting(CLASS, METHOD);
 
       return;
@@ -63,7 +99,7 @@ public class WellKnownHandler extends JaxrsHandler {
     */
    @Override
    protected void validate(final OperationIF oper) throws Exception {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "validate";
       JSONObject jsonInput = null;
 
       _logger.entering(CLASS, METHOD);
@@ -91,7 +127,8 @@ public class WellKnownHandler extends JaxrsHandler {
    @Override
    protected OperationIF read(final OperationIF operInput) // POST
    {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "read";
+      JSONObject jsonWellKnown = null;
       OperationIF operOutput = null;
 
       _logger.entering(CLASS, METHOD);
@@ -102,7 +139,21 @@ public class WellKnownHandler extends JaxrsHandler {
                operInput.getJSON() != null ? operInput.getJSON().toString() : NULL});
       }
 
-      operOutput = this.readImpl(operInput);
+      jsonWellKnown = _wellKnown;
+
+      if (jsonWellKnown == null) { // not read at startup, try now
+         jsonWellKnown = this.refresh();
+      }
+
+      if (jsonWellKnown != null) {
+         operOutput = new Operation(OperationIF.TYPE.READ);
+         operOutput.setJSON(new JSONObject(jsonWellKnown)); // copy
+         operOutput.setState(STATE.SUCCESS);
+      } else {
+         operOutput = new Operation(OperationIF.TYPE.READ);
+         operOutput.setState(STATE.ERROR);
+         operOutput.setStatus(METHOD + ": 'well known' information is not available");
+      }
 
       _logger.exiting(CLASS, METHOD);
 
@@ -112,6 +163,80 @@ public class WellKnownHandler extends JaxrsHandler {
    /*
     * =============== PRIVATE METHODS ===============
     */
+   /**
+    * Read the "well known" information from the Authorization Server and
+    * save it. If the read fails, the saved information is not changed
+    * (stale is better than nothing).
+    *
+    * @return JSONObject saved "well known" information, may be null
+    */
+   private synchronized JSONObject refresh() {
+      String METHOD = "refresh";
+      OperationIF operInput = null;
+      OperationIF operOutput = null;
+
+      _logger.entering(CLASS, METHOD);
+
+      operInput = new Operation(OperationIF.TYPE.READ);
+      operInput.setJSON(new JSONObject());
+
+      operOutput = this.readImpl(operInput);
+
+      if (operOutput != null && operOutput.getState() == STATE.SUCCESS
+         && operOutput.getJSON() != null && !operOutput.getJSON().isEmpty()) {
+         _wellKnown = operOutput.getJSON();
+
+         if (_logger.isLoggable(DEBUG_LEVEL)) {
+            _logger.log(DEBUG_LEVEL, "Refreshed: ''{0}''", _wellKnown.toString());
+         }
+      } else {
+         _logger.log(Level.WARNING, "{0}: Could not refresh, {1}: {2}",
+            new Object[]{METHOD, (_wellKnown == null ? "none saved" : "using saved"),
+               (operOutput == null ? NULL : operOutput.getStatus())});
+      }
+
+      _logger.exiting(CLASS, METHOD);
+
+      return _wellKnown;
+   }
+
+   /**
+    * Start the background refresh of the "well known" information. Runs every
+    * "as.uma.well_known.refresh_interval" seconds.
+    */
+   private void startRefresh() {
+      String METHOD = "startRefresh";
+      long interval = 0L;
+
+      _logger.entering(CLASS, METHOD);
+
+      interval = this.getConfigLong(ConstantsIF.RESOURCE,
+         ConfigIF.AS_UMA_WELL_KNOWN_REFRESH_INTERVAL, DEFAULT_REFRESH_INTERVAL) * 1000L;
+
+      if (interval <= 0L) {
+         interval = DEFAULT_REFRESH_INTERVAL * 1000L;
+      }
+
+      _scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+         Thread thread = new Thread(runnable, CLASS + "-refresh");
+         thread.setDaemon(true);
+         return thread;
+      });
+
+      _scheduler.scheduleWithFixedDelay(() -> {
+         try {
+            this.refresh();
+         } catch (Exception ex) {
+            _logger.log(Level.WARNING, "{0}: Background refresh failed: {1}",
+               new Object[]{CLASS, ex.getMessage()});
+         }
+      }, interval, interval, TimeUnit.MILLISECONDS);
+
+      _logger.exiting(CLASS, METHOD);
+
+      return;
+   }
+
    /**
     * Get the well known information:
     * https://.../openam/uma/.well-known/uma2-configuration
@@ -121,7 +246,7 @@ public class WellKnownHandler extends JaxrsHandler {
     */
    private OperationIF readImpl(final OperationIF operInput) {
       boolean error = false;
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "readImpl";
       String msg = null;
       String configType = ConstantsIF.RESOURCE;
       OperationIF operOutput = null;
@@ -141,9 +266,6 @@ public class WellKnownHandler extends JaxrsHandler {
          operOutput = new Operation(OperationIF.TYPE.READ);
          operOutput.setState(STATE.ERROR);
          operOutput.setStatus(msg);
-
-         this.setState(STATE.ERROR);
-         this.setStatus(msg);
       }
 
       _logger.exiting(CLASS, METHOD);
@@ -155,12 +277,11 @@ public class WellKnownHandler extends JaxrsHandler {
     * Initialize object instance
     */
    private void init() {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "init";
       String msg = null;
       String type = ConstantsIF.RESOURCE;
       ConfigurationIF config = null;
       JSONObject json = null;
-      Map<String, String> map = null;
 
       _logger.entering(CLASS, METHOD);
 
@@ -184,9 +305,8 @@ public class WellKnownHandler extends JaxrsHandler {
        * setup the REST Data Access Object, AM Authorization Server
        */
       if (!this.isError() && _AuthzServerDAO == null) {
-         map = JSON.convertToParams(JSON.getObject(json, ConfigIF.AS_CONNECT));
          try {
-            _AuthzServerDAO = new AMRestDataAccess(map);
+            _AuthzServerDAO = _daoRegistry.getAuthzServerDAO();
          } catch (Exception ex) {
             msg = CLASS + ": " + METHOD + ": REST DAO: " + ex.getMessage();
             this.setError(true);
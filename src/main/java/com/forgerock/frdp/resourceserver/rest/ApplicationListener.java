@@ -0,0 +1,433 @@
+/*
+ * Copyright (c) 2020, ForgeRock, Inc., All rights reserved
+ * Use subject to license terms.
+ */
+package com.forgerock.frdp.resourceserver.rest;
+
+import com.forgerock.frdp.common.ConstantsIF;
+import com.forgerock.frdp.config.BasicConfiguration;
+import com.forgerock.frdp.config.ConfigurationIF;
+import com.forgerock.frdp.config.ConfigurationManager;
+import com.forgerock.frdp.config.ConfigurationManagerIF;
+import com.forgerock.frdp.handler.HandlerManager;
+import com.forgerock.frdp.handler.HandlerManagerIF;
+import com.forgerock.frdp.resourceserver.ConfigIF;
+import com.forgerock.frdp.resourceserver.ConfigSnapshot;
+import com.forgerock.frdp.resourceserver.WorkerPool;
+import com.forgerock.frdp.resourceserver.cache.ExpiringCache;
+import com.forgerock.frdp.resourceserver.cache.TokenIntrospection;
+import com.forgerock.frdp.resourceserver.dao.DataAccessRegistry;
+import com.forgerock.frdp.resourceserver.handler.AMOAuth2Handler;
+import com.forgerock.frdp.resourceserver.handler.AMProxyAdminHandler;
+import com.forgerock.frdp.resourceserver.handler.AMSessionHandler;
+import com.forgerock.frdp.resourceserver.handler.ContentHandler;
+import com.forgerock.frdp.resourceserver.handler.JaxrsHandlerIF;
+import com.forgerock.frdp.resourceserver.handler.MetaHandler;
+import com.forgerock.frdp.resourceserver.handler.ResourcesHandler;
+import com.forgerock.frdp.resourceserver.handler.uma.DiscoverHandler;
+import com.forgerock.frdp.resourceserver.handler.uma.PermissionRequestHandler;
+import com.forgerock.frdp.resourceserver.handler.uma.PolicyHandler;
+import com.forgerock.frdp.resourceserver.handler.uma.ProtectionApiTokenHandler;
+import com.forgerock.frdp.resourceserver.handler.uma.RegisterHandler;
+import com.forgerock.frdp.resourceserver.handler.uma.RequestsHandler;
+import com.forgerock.frdp.resourceserver.handler.uma.SharedWithMeHandler;
+import com.forgerock.frdp.resourceserver.handler.uma.SubjectsHandler;
+import com.forgerock.frdp.resourceserver.handler.uma.WellKnownHandler;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+
+/**
+ * Application life-cycle. When the application is started, the configuration
+ * files are read and the handlers are created, concurrently, in the
+ * background. The configuration and handler managers are published to the
+ * Servlet Context when all the handlers are created. REST requests get a 503
+ * (Service Unavailable) until then (see RSResource). If a handler can not be
+ * created, or is not ready (Authorization Server or database not available),
+ * the bootstrap is retried in the background, with a growing delay, until it
+ * succeeds or the application is stopped. When the application is stopped
+ * (undeployed) the handlers are closed (background threads), the Data
+ * Access Object registry is closed (see DataAccessRegistry, it does not close
+ * the MongoDB / HTTP connections) and the WorkerPool is stopped. Registered
+ * in WEB-INF/web.xml
+ *
+ * @author Scott Fehrman, ForgeRock, Inc.
+ */
+public class ApplicationListener implements ServletContextListener {
+
+   private final String CLASS = this.getClass().getName();
+   private final Logger _logger = Logger.getLogger(this.getClass().getName());
+   private volatile boolean _destroyed = false;
+   private volatile ScheduledExecutorService _scheduler = null;
+
+   private static final long BOOTSTRAP_TIMEOUT = 120000L; // milliseconds
+   private static final long BOOTSTRAP_RETRY_DELAY = 5000L; // milliseconds, first retry
+   private static final long BOOTSTRAP_MAX_RETRY_DELAY = 300000L; // milliseconds
+   private static final long DEFAULT_RPT_CACHE_MAX_ENTRIES = 1000L;
+   private static final long DEFAULT_WORKER_MAX_THREADS = 64L;
+
+   static final String[] HANDLER_IDS = {
+      JaxrsHandlerIF.HANDLER_AMOAUTH2,
+      JaxrsHandlerIF.HANDLER_AMPROXYADM,
+      JaxrsHandlerIF.HANDLER_AMSESSION,
+      JaxrsHandlerIF.HANDLER_CONTENT,
+      JaxrsHandlerIF.HANDLER_UMA_PAT,
+      JaxrsHandlerIF.HANDLER_META,
+      JaxrsHandlerIF.HANDLER_RESOURCES,
+      JaxrsHandlerIF.HANDLER_UMA_DISCOVER,
+      JaxrsHandlerIF.HANDLER_UMA_POLICY,
+      JaxrsHandlerIF.HANDLER_UMA_PERMREQ,
+      JaxrsHandlerIF.HANDLER_UMA_REGISTER,
+      JaxrsHandlerIF.HANDLER_UMA_REQUESTS,
+      JaxrsHandlerIF.HANDLER_UMA_SHAREDWITHME,
+      JaxrsHandlerIF.HANDLER_UMA_SUBJECTS,
+      JaxrsHandlerIF.HANDLER_UMA_WELLKNOWN
+   };
+
+   /**
+    * Application is started, bootstrap in the background so the container
+    * is not blocked by the Authorization Server or database connections.
+    * The bootstrap runs on its own thread, not the WorkerPool, it uses the
+    * WorkerPool to create the handlers.
+    *
+    * @param event ServletContextEvent event
+    */
+   @Override
+   public void contextInitialized(final ServletContextEvent event) {
+      String METHOD = "contextInitialized";
+      final ServletContext servletCtx = event.getServletContext();
+
+      _logger.entering(CLASS, METHOD);
+
+      _scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+         Thread thread = new Thread(runnable, CLASS + "-bootstrap");
+         thread.setDaemon(true);
+         return thread;
+      });
+
+      _scheduler.execute(() -> this.bootstrap(servletCtx, 1));
+
+      _logger.exiting(CLASS, METHOD);
+
+      return;
+   }
+
+   /**
+    * Application is stopped, release threads and connections
+    *
+    * @param event ServletContextEvent event
+    */
+   @Override
+   public void contextDestroyed(final ServletContextEvent event) {
+      String METHOD = "contextDestroyed";
+      Object obj = null;
+      ServletContext servletCtx = null;
+      HandlerManagerIF handlerMgr = null;
+
+      _logger.entering(CLASS, METHOD);
+
+      synchronized (this) {
+         _destroyed = true; // a running bootstrap will not publish or retry
+      }
+
+      if (_scheduler != null) {
+         _scheduler.shutdownNow();
+      }
+
+      servletCtx = event.getServletContext();
+
+      obj = servletCtx.getAttribute(RSResource.CTX_ATTR_HANDLER_MGR);
+
+      if (obj != null && obj instanceof HandlerManagerIF) {
+         handlerMgr = (HandlerManagerIF) obj;
+      }
+
+      obj = servletCtx.getAttribute(RSResource.CTX_ATTR_DAO_REGISTRY);
+
+      this.close(handlerMgr, (obj != null && obj instanceof DataAccessRegistry
+         ? (DataAccessRegistry) obj : null));
+
+      WorkerPool.shutdown();
+
+      _logger.exiting(CLASS, METHOD);
+
+      return;
+   }
+
+   /*
+    * =============== PRIVATE METHODS ===============
+    */
+   /**
+    * Read the configuration files, create the handlers (concurrently) and
+    * publish the managers to the Servlet Context. The Configuration Manager
+    * is published last, it indicates the application is ready. The managers
+    * are not changed after they are published. If a handler was not created,
+    * is not ready, or the bootstrap fails, nothing is published (the REST
+    * requests get a 503), everything is closed and the bootstrap is scheduled
+    * again. The delay doubles after each attempt, up to
+    * BOOTSTRAP_MAX_RETRY_DELAY.
+    *
+    * @param servletCtx ServletContext servlet context
+    * @param attempt int attempt number, starts at 1
+    */
+   private void bootstrap(final ServletContext servletCtx, final int attempt) {
+      String METHOD = "bootstrap";
+      boolean published = false;
+      long start = 0L;
+      long delay = 0L;
+      long value = 0L;
+      StringBuilder missing = null;
+      List<JaxrsHandlerIF> handlers = null;
+      ConfigSnapshot config = null;
+      ExpiringCache<String, TokenIntrospection> rptCache = null;
+      final ConfigurationManagerIF configMgr = new ConfigurationManager();
+      final HandlerManagerIF handlerMgr = new HandlerManager();
+      final DataAccessRegistry daoRegistry = new DataAccessRegistry(configMgr);
+
+      _logger.entering(CLASS, METHOD);
+
+      start = System.currentTimeMillis();
+
+      try {
+         this.loadConfiguration(servletCtx, configMgr,
+            ConstantsIF.RESOURCE, RSResource.CONFIG_FILE_RS); // Resource Server
+         this.loadConfiguration(servletCtx, configMgr,
+            ConstantsIF.CONTENT, RSResource.CONFIG_FILE_CS); // Content Server
+
+         config = new ConfigSnapshot(configMgr.getConfiguration(ConstantsIF.RESOURCE).getJSON());
+
+         WorkerPool.configure((int) config.getLong(
+            ConfigIF.RS_FANOUT_MAX_THREADS, DEFAULT_WORKER_MAX_THREADS));
+
+         /*
+          * Handlers do not use each other when they are created
+          */
+         handlers = WorkerPool.invokeAll(Arrays.asList(HANDLER_IDS),
+            handlerId -> this.getHandler(handlerId, configMgr, handlerMgr, daoRegistry),
+            HANDLER_IDS.length, BOOTSTRAP_TIMEOUT);
+
+         missing = new StringBuilder();
+
+         for (int i = 0; i < HANDLER_IDS.length; i++) {
+            if (handlers.get(i) != null) {
+               handlerMgr.setHandler(HANDLER_IDS[i], handlers.get(i)); // closed on failure
+            }
+
+            if (!this.isReady(handlers.get(i))) {
+               missing.append(missing.length() > 0 ? ", " : "").append(HANDLER_IDS[i]);
+            }
+         }
+
+         if (missing.length() > 0) {
+            throw new Exception("handlers not created or not ready: " + missing.toString());
+         }
+
+         value = config.getLong(ConfigIF.AS_OAUTH2_INTROSPECT_CACHE_MAX_ENTRIES,
+            DEFAULT_RPT_CACHE_MAX_ENTRIES);
+
+         rptCache = new ExpiringCache<>((int) (value > 0L ? value : DEFAULT_RPT_CACHE_MAX_ENTRIES));
+
+         synchronized (this) {
+            if (!_destroyed) {
+               servletCtx.setAttribute(RSResource.CTX_ATTR_RPT_CACHE, rptCache);
+               servletCtx.setAttribute(RSResource.CTX_ATTR_DAO_REGISTRY, daoRegistry);
+               servletCtx.setAttribute(RSResource.CTX_ATTR_HANDLER_MGR, handlerMgr);
+               servletCtx.setAttribute(RSResource.CTX_ATTR_CONFIG_MGR, configMgr);
+               published = true;
+            }
+         }
+
+         if (published) {
+            _logger.log(Level.INFO, "{0}: application ready, attempt {1}, {2} ms",
+               new Object[]{METHOD, attempt, System.currentTimeMillis() - start});
+         } else {
+            this.close(handlerMgr, daoRegistry);
+         }
+      } catch (Exception ex) {
+         this.close(handlerMgr, daoRegistry);
+
+         synchronized (this) {
+            if (!_destroyed) {
+               delay = Math.min(BOOTSTRAP_RETRY_DELAY << Math.min(attempt - 1, 16),
+                  BOOTSTRAP_MAX_RETRY_DELAY);
+
+               _logger.log(Level.SEVERE, "{0}: application is not ready, attempt {1}, retry in {2} ms: {3}",
+                  new Object[]{METHOD, attempt, delay, ex.getMessage()});
+
+               _scheduler.schedule(() -> this.bootstrap(servletCtx, attempt + 1),
+                  delay, TimeUnit.MILLISECONDS);
+            }
+         }
+      }
+
+      _logger.exiting(CLASS, METHOD);
+
+      return;
+   }
+
+   /**
+    * Read the configuration file (JSON) and add it to the Configuration
+    * Manager
+    *
+    * @param servletCtx ServletContext servlet context
+    * @param configMgr ConfigurationManagerIF configuration manager
+    * @param configType String configuration type
+    * @param configFile String file, relative to WEB-INF
+    * @throws Exception could not read or parse the file
+    */
+   private void loadConfiguration(final ServletContext servletCtx,
+      final ConfigurationManagerIF configMgr, final String configType,
+      final String configFile) throws Exception {
+      String METHOD = "loadConfiguration";
+      byte[] bytes = null;
+      Object obj = null;
+      String realPath = null;
+      ConfigurationIF config = null;
+
+      _logger.entering(CLASS, METHOD);
+
+      realPath = servletCtx.getRealPath("/");
+
+      bytes = Files.readAllBytes(Paths.get(realPath + "WEB-INF"
+         + File.separator + configFile));
+
+      obj = new JSONParser().parse(new String(bytes));
+
+      if (obj != null && obj instanceof JSONObject) {
+         config = new BasicConfiguration();
+         config.setJSON((JSONObject) obj);
+         configMgr.setConfiguration(configType, config);
+      } else {
+         throw new Exception(METHOD + ": Config object is null or not a JSON object: "
+            + configFile);
+      }
+
+      if (_logger.isLoggable(Level.INFO)) {
+         _logger.log(Level.INFO, "Loaded configuration file : " + configFile);
+      }
+
+      _logger.exiting(CLASS, METHOD);
+
+      return;
+   }
+
+   /**
+    * Check if the handler was created and is ready
+    *
+    * @param handler JaxrsHandlerIF handler, may be null
+    * @return boolean true if ready
+    */
+   private boolean isReady(final JaxrsHandlerIF handler) {
+      return (handler != null && handler.getState() == JaxrsHandlerIF.STATE.READY);
+   }
+
+   /**
+    * Create the handler for the identifier
+    *
+    * @param handlerId String handler identifier
+    * @param configMgr ConfigurationManagerIF configuration manager
+    * @param handlerMgr HandlerManagerIF handler manager
+    * @param daoRegistry DataAccessRegistry shared Data Access Objects
+    * @return JaxrsHandlerIF handler, null if the identifier is not known
+    */
+   private JaxrsHandlerIF getHandler(final String handlerId,
+      final ConfigurationManagerIF configMgr, final HandlerManagerIF handlerMgr,
+      final DataAccessRegistry daoRegistry) {
+      JaxrsHandlerIF handler = null;
+
+      switch (handlerId) {
+         case JaxrsHandlerIF.HANDLER_AMOAUTH2:
+            handler = new AMOAuth2Handler(configMgr, handlerMgr, daoRegistry);
+            break;
+         case JaxrsHandlerIF.HANDLER_AMPROXYADM:
+            handler = new AMProxyAdminHandler(configMgr, handlerMgr, daoRegistry);
+            break;
+         case JaxrsHandlerIF.HANDLER_AMSESSION:
+            handler = new AMSessionHandler(configMgr, handlerMgr, daoRegistry);
+            break;
+         case JaxrsHandlerIF.HANDLER_CONTENT:
+            handler = new ContentHandler(configMgr, handlerMgr, daoRegistry);
+            break;
+         case JaxrsHandlerIF.HANDLER_UMA_PAT:
+            handler = new ProtectionApiTokenHandler(configMgr, handlerMgr, daoRegistry);
+            break;
+         case JaxrsHandlerIF.HANDLER_META:
+            handler = new MetaHandler(configMgr, handlerMgr, daoRegistry);
+            break;
+         case JaxrsHandlerIF.HANDLER_RESOURCES:
+            handler = new ResourcesHandler(configMgr, handlerMgr, daoRegistry);
+            break;
+         case JaxrsHandlerIF.HANDLER_UMA_DISCOVER:
+            handler = new DiscoverHandler(configMgr, handlerMgr, daoRegistry);
+            break;
+         case JaxrsHandlerIF.HANDLER_UMA_POLICY:
+            handler = new PolicyHandler(configMgr, handlerMgr, daoRegistry);
+            break;
+         case JaxrsHandlerIF.HANDLER_UMA_PERMREQ:
+            handler = new PermissionRequestHandler(configMgr, handlerMgr, daoRegistry);
+            break;
+         case JaxrsHandlerIF.HANDLER_UMA_REGISTER:
+            handler = new RegisterHandler(configMgr, handlerMgr, daoRegistry);
+            break;
+         case JaxrsHandlerIF.HANDLER_UMA_REQUESTS:
+            handler = new RequestsHandler(configMgr, handlerMgr, daoRegistry);
+            break;
+         case JaxrsHandlerIF.HANDLER_UMA_SHAREDWITHME:
+            handler = new SharedWithMeHandler(configMgr, handlerMgr, daoRegistry);
+            break;
+         case JaxrsHandlerIF.HANDLER_UMA_SUBJECTS:
+            handler = new SubjectsHandler(configMgr, handlerMgr, daoRegistry);
+            break;
+         case JaxrsHandlerIF.HANDLER_UMA_WELLKNOWN:
+            handler = new WellKnownHandler(configMgr, handlerMgr, daoRegistry);
+            break;
+         default:
+            break;
+      }
+
+      return handler;
+   }
+
+   /**
+    * Close the handlers and the Data Access Objects
+    *
+    * @param handlerMgr HandlerManagerIF handler manager, may be null
+    * @param daoRegistry DataAccessRegistry shared Data Access Objects, may be
+    * null
+    */
+   private void close(final HandlerManagerIF handlerMgr,
+      final DataAccessRegistry daoRegistry) {
+      String METHOD = "close";
+
+      if (handlerMgr != null) {
+         for (String handlerId : HANDLER_IDS) {
+            if (handlerMgr.contains(handlerId)) {
+               try {
+                  ((JaxrsHandlerIF) handlerMgr.getHandler(handlerId)).close();
+               } catch (Exception ex) {
+                  _logger.log(Level.WARNING, "{0}: handler ''{1}'': {2}",
+                     new Object[]{METHOD, handlerId, ex.getMessage()});
+               }
+            }
+         }
+      }
+
+      if (daoRegistry != null) {
+         daoRegistry.close();
+      }
+
+      return;
+   }
+}
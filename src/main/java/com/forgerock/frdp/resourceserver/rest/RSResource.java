@@ -5,55 +5,53 @@
 package com.forgerock.frdp.resourceserver.rest;
 
 import com.forgerock.frdp.common.ConstantsIF;
-import com.forgerock.frdp.config.BasicConfiguration;
 import com.forgerock.frdp.config.ConfigurationIF;
-import com.forgerock.frdp.config.ConfigurationManager;
 import com.forgerock.frdp.config.ConfigurationManagerIF;
 import com.forgerock.frdp.dao.Operation;
 import com.forgerock.frdp.dao.OperationIF;
-import com.forgerock.frdp.handler.HandlerManager;
 import com.forgerock.frdp.handler.HandlerManagerIF;
 import com.forgerock.frdp.resourceserver.ConfigIF;
-import com.forgerock.frdp.resourceserver.handler.AMOAuth2Handler;
+import com.forgerock.frdp.resourceserver.ConfigSnapshot;
+import com.forgerock.frdp.resourceserver.WorkerPool;
+import com.forgerock.frdp.resourceserver.cache.ExpiringCache;
+import com.forgerock.frdp.resourceserver.cache.ResourceCache;
+import com.forgerock.frdp.resourceserver.cache.TokenIntrospection;
 import com.forgerock.frdp.resourceserver.handler.AMProxyAdminHandler;
 import com.forgerock.frdp.resourceserver.handler.AMSessionHandler;
-import com.forgerock.frdp.resourceserver.handler.ContentHandler;
 import com.forgerock.frdp.resourceserver.handler.JaxrsHandlerIF;
 import com.forgerock.frdp.resourceserver.handler.MetaHandler;
 import com.forgerock.frdp.resourceserver.handler.ResourcesHandler;
-import com.forgerock.frdp.resourceserver.handler.uma.DiscoverHandler;
-import com.forgerock.frdp.resourceserver.handler.uma.PermissionRequestHandler;
-import com.forgerock.frdp.resourceserver.handler.uma.PolicyHandler;
-import com.forgerock.frdp.resourceserver.handler.uma.ProtectionApiTokenHandler;
-import com.forgerock.frdp.resourceserver.handler.uma.RegisterHandler;
-import com.forgerock.frdp.resourceserver.handler.uma.RequestsHandler;
-import com.forgerock.frdp.resourceserver.handler.uma.SharedWithMeHandler;
-import com.forgerock.frdp.resourceserver.handler.uma.SubjectsHandler;
-import com.forgerock.frdp.resourceserver.handler.uma.WellKnownHandler;
 import com.forgerock.frdp.rest.Resource;
 import com.forgerock.frdp.utils.JSON;
 import com.forgerock.frdp.utils.STR;
-import java.io.File;
-import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Paths;
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
 import java.util.logging.Level;
 import javax.servlet.ServletContext;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.Cookie;
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.ResponseBuilder;
 import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.core.UriBuilder;
 import javax.ws.rs.core.UriInfo;
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
-import org.json.simple.parser.JSONParser;
-import org.json.simple.parser.ParseException;
 
 /**
  * Abstract Resource class for REST Services. All REST Service end-point classes
@@ -66,6 +64,10 @@ public abstract class RSResource extends Resource {
    private final String CLASS = this.getClass().getName();
    private HandlerManagerIF _handlerMgr = null;
    private ConfigurationManagerIF _configMgr = null;
+   private final Map<String, JSONObject> _resources = new HashMap<>(); // request scope, resource uid -> document
+   private long _resourcesVersion = -1L;
+   private volatile boolean _ssoTokenUsed = false; // request scope, the SSO token was sent to AM
+   private volatile String _adminSSOToken = null; // request scope, the admin SSO token sent to AM
 
    protected static final String CONFIG_FILE_RS = "config/resource-server.json";
    protected static final String CONFIG_FILE_CS = "config/content-service.json";
@@ -75,7 +77,9 @@ public abstract class RSResource extends Resource {
    protected static final String CTX_ATTR_PARAMS = "com.forgerock.frdp.params";
    protected static final String CTX_ATTR_PUBLIC = "com.forgerock.frdp.public";
    protected static final String CTX_ATTR_HANDLER_MGR = "com.forgerock.frdp.handler.handlermanager";
+   protected static final String CTX_ATTR_DAO_REGISTRY = "com.forgerock.frdp.dao.registry";
    protected static final String CTX_ATTR_UMA_WELL_KNOWN = "com.forgerock.frdp.uma.well.known";
+   protected static final String CTX_ATTR_RPT_CACHE = "com.forgerock.frdp.uma.rpt.cache";
 
    protected static final String PATH_OWNERS = ConstantsIF.OWNERS;
    protected static final String PATH_RESOURCES = ConstantsIF.RESOURCES;
@@ -114,17 +118,20 @@ public abstract class RSResource extends Resource {
     * @return JaxrsHandlerIF handler
     */
    protected JaxrsHandlerIF getHandler(final String handlerId) {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "getHandler";
       JaxrsHandlerIF handler = null;
+      HandlerManagerIF handlerMgr = null;
 
       _logger.entering(CLASS, METHOD);
 
-      if (_handlerMgr == null) {
+      handlerMgr = this.getHandlerManager();
+
+      if (handlerMgr == null) {
          this.abort(METHOD,
             "Handler Manager is null", Status.INTERNAL_SERVER_ERROR);
       } else {
-         if (_handlerMgr.contains(handlerId)) {
-            handler = (JaxrsHandlerIF) _handlerMgr.getHandler(handlerId);
+         if (handlerMgr.contains(handlerId)) {
+            handler = (JaxrsHandlerIF) handlerMgr.getHandler(handlerId);
 
             if (handler != null) {
                if (handler.getState() != STATE.READY) {
@@ -158,7 +165,7 @@ public abstract class RSResource extends Resource {
     * @return String attribute value
     */
    protected String getAttributeFromHeader(final String attrName) {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "getAttributeFromHeader";
 
       _logger.entering(CLASS, METHOD);
       _logger.exiting(CLASS, METHOD);
@@ -178,7 +185,7 @@ public abstract class RSResource extends Resource {
    protected String getAttributeFromHeader(final String attrName,
       final boolean abort) {
       boolean error = false;
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "getAttributeFromHeader";
       String headerName = null;
       String value = null;
       String configType = ConstantsIF.RESOURCE;
@@ -238,7 +245,7 @@ public abstract class RSResource extends Resource {
     */
    protected String getAttributeFromCookie(final String attrName,
       final boolean abort) {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "getAttributeFromCookie";
       String cookieName = null;
       String value = null;
       String configType = ConstantsIF.RESOURCE;
@@ -300,7 +307,8 @@ public abstract class RSResource extends Resource {
 
    /**
     * Get Single Sign On Token for the admin user, it is used to perform
-    * privileged operations.
+    * privileged operations. A 401 response will renew the admin session (see
+    * getResponseFromJSON)
     *
     * <pre>
     * Get a sso session token with "admin" credentials
@@ -316,7 +324,7 @@ public abstract class RSResource extends Resource {
     * @return String sso token
     */
    protected String getSSOTokenForAdmin() {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "getSSOTokenForAdmin";
       String sso_token = null;
       JaxrsHandlerIF proxyAdmHandler = null;
       OperationIF operProxyInput = null;
@@ -336,27 +344,65 @@ public abstract class RSResource extends Resource {
          this.abort(METHOD, "ssotoken is empty", Status.INTERNAL_SERVER_ERROR);
       }
 
+      _adminSSOToken = sso_token;
+
       _logger.exiting(CLASS, METHOD);
 
       return sso_token;
    }
 
    /**
-    * Get the Single Sign On Token from the user's session
+    * Drop the admin SSO token that was used by this request, AM rejected it
+    * (401). The proxy admin handler renews the session, the next request gets
+    * the new token. Failures are logged, not thrown, this is used while an
+    * error response is built.
+    */
+   protected void invalidateSSOTokenForAdmin() {
+      String METHOD = "invalidateSSOTokenForAdmin";
+      JSONObject jsonInput = null;
+      OperationIF operInput = null;
+      JaxrsHandlerIF proxyAdmHandler = null;
+
+      _logger.entering(CLASS, METHOD);
+
+      if (!STR.isEmpty(_adminSSOToken)) {
+         jsonInput = new JSONObject();
+         jsonInput.put(AMProxyAdminHandler.INVALIDATE, _adminSSOToken);
+
+         operInput = new Operation(OperationIF.TYPE.READ);
+         operInput.setJSON(jsonInput);
+
+         try {
+            proxyAdmHandler = this.getHandler(JaxrsHandlerIF.HANDLER_AMPROXYADM);
+
+            proxyAdmHandler.process(operInput);
+         } catch (Exception ex) {
+            _logger.log(Level.WARNING, "{0}: Could not renew admin session: {1}",
+               new Object[]{METHOD, ex.getMessage()});
+         }
+      }
+
+      _logger.exiting(CLASS, METHOD);
+
+      return;
+   }
+
+   /**
+    * Get the Single Sign On Token from the user's session. The token is used
+    * for calls to AM, a 401 response will revalidate the session (see
+    * getResponseFromJSON)
     *
     * @return String sso token
     */
    protected String getSSOTokenFromSSOSession() {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "getSSOTokenFromSSOSession";
       String ssotoken = null;
 
       _logger.entering(CLASS, METHOD);
 
-      ssotoken = this.getAttributeFromCookie(ConfigIF.AS_COOKIE, false);
+      ssotoken = this.getSSOToken();
 
-      if (STR.isEmpty(ssotoken)) {
-         ssotoken = this.getAttributeFromHeader(ConfigIF.RS_HEADERS_SSOTOKEN);
-      }
+      _ssoTokenUsed = true;
 
       _logger.exiting(CLASS, METHOD);
 
@@ -392,7 +438,7 @@ public abstract class RSResource extends Resource {
     * @return String user id
     */
    protected String getUserIdFromSSOSession() {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "getUserIdFromSSOSession";
       String userId = null;
       String ssotoken = null;
       JSONObject jsonInput = null;
@@ -402,7 +448,7 @@ public abstract class RSResource extends Resource {
 
       _logger.entering(CLASS, METHOD);
 
-      ssotoken = this.getSSOTokenFromSSOSession();
+      ssotoken = this.getSSOToken();
 
       jsonInput = new JSONObject();
       jsonInput.put(ConstantsIF.UID, ssotoken);
@@ -440,6 +486,57 @@ public abstract class RSResource extends Resource {
       return userId;
    }
 
+   /**
+    * Force the validation of the user's SSO session, if there is one. The
+    * AMSessionHandler caches validated sessions. This is used when a request
+    * that sent the SSO token to AM gets a 401 so a stale cache entry is
+    * updated or removed. Failures are logged, not thrown, this is used while
+    * an error response is built.
+    */
+   protected void revalidateSSOSession() {
+      String METHOD = "revalidateSSOSession";
+      String ssotoken = null;
+      JSONObject jsonInput = null;
+      OperationIF operInput = null;
+      OperationIF operOutput = null;
+      JaxrsHandlerIF amsessionHandler = null;
+
+      _logger.entering(CLASS, METHOD);
+
+      ssotoken = this.getAttributeFromCookie(ConfigIF.AS_COOKIE, false);
+
+      if (STR.isEmpty(ssotoken)) {
+         ssotoken = this.getAttributeFromHeader(ConfigIF.RS_HEADERS_SSOTOKEN, false);
+      }
+
+      if (!STR.isEmpty(ssotoken)) {
+         jsonInput = new JSONObject();
+         jsonInput.put(ConstantsIF.UID, ssotoken);
+         jsonInput.put(AMSessionHandler.REVALIDATE, true);
+
+         operInput = new Operation(OperationIF.TYPE.READ);
+         operInput.setJSON(jsonInput);
+
+         try {
+            amsessionHandler = this.getHandler(JaxrsHandlerIF.HANDLER_AMSESSION);
+
+            operOutput = amsessionHandler.process(operInput);
+
+            if (_logger.isLoggable(DEBUG_LEVEL)) {
+               _logger.log(DEBUG_LEVEL, "state=''{0}''",
+                  new Object[]{operOutput.getState().toString()});
+            }
+         } catch (Exception ex) {
+            _logger.log(Level.WARNING, "{0}: Could not revalidate session: {1}",
+               new Object[]{METHOD, ex.getMessage()});
+         }
+      }
+
+      _logger.exiting(CLASS, METHOD);
+
+      return;
+   }
+
    /**
     * Get an OAuth 2.0 Access Token from the user's SSO Token
     *
@@ -465,7 +562,7 @@ public abstract class RSResource extends Resource {
     * @return String access token
     */
    protected String getAccessToken() {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "getAccessToken";
       String ssotoken = null;
       String access_token = null;
       OperationIF operInput = null;
@@ -534,7 +631,7 @@ public abstract class RSResource extends Resource {
     * @return String the access token
     */
    protected String getAccessToken(final String owner) {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "getAccessToken";
       String access_token = null;
       OperationIF operInput = null;
       OperationIF operOutput = null;
@@ -585,11 +682,10 @@ public abstract class RSResource extends Resource {
     * @return String registration GUID
     */
    protected String getRegisterGUID(final String resourceUid) {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      boolean unregistered = false;
+      String METHOD = "getRegisterGUID";
       String registerGUID = null;
-      OperationIF operResourceInput = null;
       OperationIF operResourceOutput = null;
-      JSONObject jsonResourceInput = null;
       JSONObject jsonResourceOutput = null;
       JaxrsHandlerIF resourcesHandler = null;
 
@@ -602,18 +698,26 @@ public abstract class RSResource extends Resource {
 
       resourcesHandler = this.getHandler(JaxrsHandlerIF.HANDLER_RESOURCES);
 
-      jsonResourceInput = new JSONObject();
-      jsonResourceInput.put(ConstantsIF.UID, resourceUid);
+      /*
+       * Use the index, else read the resource (which adds it to the index)
+       * unless the resource is known to not be registered
+       */
+      if (resourcesHandler instanceof ResourcesHandler) {
+         registerGUID = ((ResourcesHandler) resourcesHandler)
+            .getRegisterIndex().getRegisterId(resourceUid);
 
-      operResourceInput = new Operation(OperationIF.TYPE.READ);
-      operResourceInput.setJSON(jsonResourceInput);
+         unregistered = (registerGUID == null && ((ResourcesHandler) resourcesHandler)
+            .getResourceCache().isUnregistered(resourceUid));
+      }
 
-      operResourceOutput = resourcesHandler.process(operResourceInput);
+      if (registerGUID == null && !unregistered) {
+         operResourceOutput = this.getResource(resourceUid);
 
-      if (operResourceOutput.getState() == STATE.SUCCESS) {
-         jsonResourceOutput = operResourceOutput.getJSON();
-         registerGUID = JSON.getString(jsonResourceOutput,
-            ConstantsIF.DATA + "." + ConstantsIF.REGISTER);
+         if (operResourceOutput.getState() == STATE.SUCCESS) {
+            jsonResourceOutput = operResourceOutput.getJSON();
+            registerGUID = JSON.getString(jsonResourceOutput,
+               ConstantsIF.DATA + "." + ConstantsIF.REGISTER);
+         }
       }
 
       if (_logger.isLoggable(DEBUG_LEVEL)) {
@@ -628,7 +732,9 @@ public abstract class RSResource extends Resource {
    }
 
    /**
-    * Get the Resource related to the resource uid
+    * Get the Resource related to the resource uid. The resource is read once
+    * per request, the document is saved for the rest of the request. Saved
+    * documents are discarded when the version of the resource cache changes.
     *
     * <pre>
     * JSON output ...
@@ -643,10 +749,12 @@ public abstract class RSResource extends Resource {
     * @return OperationIF output
     */
    protected OperationIF getResource(final String resourceUid) {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      long version = -1L;
+      String METHOD = "getResource";
       OperationIF operInput = null;
       OperationIF operOutput = null;
       JSONObject jsonInput = null;
+      JSONObject jsonResource = null;
       JaxrsHandlerIF resourcesHandler = null;
 
       _logger.entering(CLASS, METHOD);
@@ -657,13 +765,30 @@ public abstract class RSResource extends Resource {
 
       resourcesHandler = this.getHandler(JaxrsHandlerIF.HANDLER_RESOURCES);
 
-      jsonInput = new JSONObject();
-      jsonInput.put(ConstantsIF.UID, resourceUid);
+      if (resourcesHandler instanceof ResourcesHandler) {
+         version = ((ResourcesHandler) resourcesHandler).getResourceCache().getVersion();
+      }
 
-      operInput = new Operation(OperationIF.TYPE.READ);
-      operInput.setJSON(jsonInput);
+      jsonResource = this.getSavedResource(resourceUid, version);
+
+      if (jsonResource != null) {
+         operOutput = new Operation(OperationIF.TYPE.READ);
+         operOutput.setState(STATE.SUCCESS);
+         operOutput.setStatus("Found (request)");
+         operOutput.setJSON(jsonResource);
+      } else {
+         jsonInput = new JSONObject();
+         jsonInput.put(ConstantsIF.UID, resourceUid);
+
+         operInput = new Operation(OperationIF.TYPE.READ);
+         operInput.setJSON(jsonInput);
 
-      operOutput = resourcesHandler.process(operInput);
+         operOutput = resourcesHandler.process(operInput);
+
+         if (operOutput.getState() == STATE.SUCCESS) {
+            this.saveResource(resourceUid, version, operOutput.getJSON());
+         }
+      }
 
       if (_logger.isLoggable(DEBUG_LEVEL)) {
          _logger.log(DEBUG_LEVEL, "resourceUid=''{0}'', operOutput=''{1}''",
@@ -678,17 +803,26 @@ public abstract class RSResource extends Resource {
    }
 
    /**
-    * Get the Meta Data related to the resource uid
+    * Get the Meta Data related to the resource uid. Does not call the Meta
+    * Handler: its "read" operation reads the resource with the Resources
+    * Handler, this uses the resource from getResource(), which may already
+    * be read by this request. The output is built by the Meta Handler
+    * (MetaHandler.getMetaOutput), it is the same as its "read" operation.
+    *
+    * <pre>
+    * JSON output ...
+    * {
+    *   "data": { "name": "...", "type": "...", ... }
+    * }
+    * </pre>
     *
     * @param resourceUid String resource uid
     * @return OperationIF output
     */
    protected OperationIF getMeta(final String resourceUid) {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
-      JSONObject jsonInput = null;
-      OperationIF operInput = null;
+      String METHOD = "getMeta";
+      OperationIF operResource = null;
       OperationIF operOutput = null;
-      JaxrsHandlerIF metaHandler = null;
 
       _logger.entering(CLASS, METHOD);
 
@@ -696,15 +830,16 @@ public abstract class RSResource extends Resource {
          this.abort(METHOD, "Resource is empty", Status.BAD_REQUEST);
       }
 
-      metaHandler = this.getHandler(JaxrsHandlerIF.HANDLER_META);
-
-      jsonInput = new JSONObject();
-      jsonInput.put(ConstantsIF.UID, resourceUid);
+      operResource = this.getResource(resourceUid);
 
-      operInput = new Operation(OperationIF.TYPE.READ);
-      operInput.setJSON(jsonInput);
+      operOutput = new Operation(OperationIF.TYPE.READ);
+      operOutput.setError(operResource.isError());
+      operOutput.setState(operResource.getState());
+      operOutput.setStatus(operResource.getStatus());
 
-      operOutput = metaHandler.process(operInput);
+      if (!operResource.isError()) {
+         operOutput.setJSON(MetaHandler.getMetaOutput(operResource.getJSON()));
+      }
 
       if (_logger.isLoggable(DEBUG_LEVEL)) {
          _logger.log(DEBUG_LEVEL, "resourceUid=''{0}'', operOutput=''{1}''",
@@ -728,7 +863,7 @@ public abstract class RSResource extends Resource {
     */
    protected OperationIF getRegistration(final JSONObject jsonResource,
       final String owner) {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "getRegistration";
       String registerId = null;
       OperationIF operOutput = null;
 
@@ -763,6 +898,39 @@ public abstract class RSResource extends Resource {
       return operOutput;
    }
 
+   /**
+    * Get UMA 2.0 registration data for the JSON resource object, using the
+    * provided access token (PAT). Does not use the HTTP request, it can be
+    * called from a WorkerPool thread (see submit).
+    *
+    * @param jsonResource JSONObject resource
+    * @param owner String owner
+    * @param access_token String access token (PAT) for the owner
+    * @return OperationIF registration data
+    */
+   protected OperationIF getRegistration(final JSONObject jsonResource,
+      final String owner, final String access_token) {
+      String METHOD = "getRegistration";
+      String registerId = null;
+      OperationIF operOutput = null;
+
+      _logger.entering(CLASS, METHOD);
+
+      if (jsonResource == null || jsonResource.isEmpty()) {
+         this.abort(METHOD,
+            "JSON Resource is null or empty", Status.BAD_REQUEST);
+      }
+
+      registerId = JSON.getString(jsonResource,
+         ConstantsIF.DATA + "." + ConstantsIF.REGISTER);
+
+      operOutput = this.getRegistratonImpl(registerId, owner, access_token);
+
+      _logger.exiting(CLASS, METHOD);
+
+      return operOutput;
+   }
+
    /**
     * Get UMA 2.0 registration data related to the resource Id. If the owner is
     * "empty" the SSO token is used for "self"
@@ -773,7 +941,7 @@ public abstract class RSResource extends Resource {
     */
    protected OperationIF getRegistration(final String resourceUid,
       final String owner) {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "getRegistration";
       String registerId = null;
       OperationIF operOutput = null;
 
@@ -812,7 +980,7 @@ public abstract class RSResource extends Resource {
     * @return OperationIF output
     */
    protected OperationIF getPolicy(final JSONObject jsonResource) {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "getPolicy";
       String registerId = null;
       OperationIF operOutput = null;
 
@@ -841,6 +1009,34 @@ public abstract class RSResource extends Resource {
       return operOutput;
    }
 
+   /**
+    * Get Policy for the specified JSON resource object, using the provided
+    * SSO token and owner. Does not use the HTTP request, it can be called
+    * from a WorkerPool thread (see submit).
+    *
+    * @param jsonResource JSONObject resource
+    * @param sso_token String sso token
+    * @param owner String owner
+    * @return OperationIF output
+    */
+   protected OperationIF getPolicy(final JSONObject jsonResource,
+      final String sso_token, final String owner) {
+      String METHOD = "getPolicy";
+      String registerId = null;
+      OperationIF operOutput = null;
+
+      _logger.entering(CLASS, METHOD);
+
+      registerId = JSON.getString(jsonResource,
+         ConstantsIF.DATA + "." + ConstantsIF.REGISTER);
+
+      operOutput = this.getPolicyImpl(registerId, sso_token, owner);
+
+      _logger.exiting(CLASS, METHOD);
+
+      return operOutput;
+   }
+
    /**
     * Get Policy for the specified resource uid
     *
@@ -857,7 +1053,7 @@ public abstract class RSResource extends Resource {
     * @return OperationIF output
     */
    protected OperationIF getPolicy(final String resourceUid) {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "getPolicy";
       OperationIF operOutput = null;
 
       _logger.entering(CLASS, METHOD);
@@ -880,7 +1076,7 @@ public abstract class RSResource extends Resource {
     */
    protected OperationIF getPolicy(final String resourceUid,
       final String sso_token, final String owner) {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "getPolicy";
       String registerId = null;
       OperationIF operOutput = null;
 
@@ -920,7 +1116,7 @@ public abstract class RSResource extends Resource {
     * @return JSONObject output
     */
    protected JSONObject getWellKnown() {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "getWellKnown";
       JSONObject jsonOutput = null;
       OperationIF operInput = null;
       OperationIF operOutput = null;
@@ -946,6 +1142,217 @@ public abstract class RSResource extends Resource {
       return jsonOutput;
    }
 
+   /**
+    * Get the cache of Requesting Party Token (RPT) introspection results. The
+    * key is a digest of the RPT. The cache is shared by all requests, it is
+    * created at startup and saved in the Servlet Context (see
+    * ApplicationListener).
+    *
+    * @return ExpiringCache RPT introspection cache
+    */
+   protected ExpiringCache<String, TokenIntrospection> getRPTCache() {
+      String METHOD = "getRPTCache";
+      Object obj = null;
+      ExpiringCache<String, TokenIntrospection> cache = null;
+
+      _logger.entering(CLASS, METHOD);
+
+      obj = _servletCtx.getAttribute(CTX_ATTR_RPT_CACHE);
+
+      if (obj != null && obj instanceof ExpiringCache) {
+         cache = (ExpiringCache<String, TokenIntrospection>) obj;
+      } else {
+         this.abort(METHOD, "Application is not ready",
+            Status.SERVICE_UNAVAILABLE);
+      }
+
+      _logger.exiting(CLASS, METHOD);
+
+      return cache;
+   }
+
+   /**
+    * Get a number from the configuration. The default value is returned if
+    * the attribute is missing or is not a valid number.
+    *
+    * @param configType String what type of configuration (RESOURCE, CONTENT)
+    * @param name String configuration attribute name
+    * @param defValue long default value
+    * @return long configuration attribute value
+    */
+   protected long getConfigValueAsLong(final String configType,
+      final String name, final long defValue) {
+      String METHOD = "getConfigValueAsLong";
+      long value = defValue;
+
+      _logger.entering(CLASS, METHOD);
+
+      value = ConfigSnapshot.toLong(name,
+         this.getConfigValueAsString(configType, name, true), defValue);
+
+      _logger.exiting(CLASS, METHOD);
+
+      return value;
+   }
+
+   /**
+    * Run the task on a WorkerPool thread. The task must not use the HTTP
+    * request (headers, cookies, URI), get those values before submitting.
+    *
+    * @param <T> result type
+    * @param task Callable task
+    * @return Future result
+    */
+   protected <T> Future<T> submit(final Callable<T> task) {
+      return WorkerPool.getExecutor().submit(task);
+   }
+
+   /**
+    * Apply the function to each of the inputs, concurrently, on the
+    * WorkerPool (see invokeAll). Bounded by "rs.fanout.parallelism" and
+    * "rs.fanout.timeout". The function must not use the HTTP request.
+    *
+    * @param <T> input type
+    * @param <R> output type
+    * @param inputs List of inputs
+    * @param function Function applied to each input
+    * @return List of outputs, same order as the inputs, null if not processed
+    */
+   protected <T, R> List<R> fanOut(final List<T> inputs,
+      final Function<T, R> function) {
+      long parallelism = 0L;
+
+      parallelism = this.getConfigValueAsLong(ConstantsIF.RESOURCE,
+         ConfigIF.RS_FANOUT_PARALLELISM, 8L);
+
+      return WorkerPool.invokeAll(inputs, function,
+         (int) Math.min(Math.max(parallelism, 1L), Integer.MAX_VALUE),
+         this.getDeadline() - System.currentTimeMillis());
+   }
+
+   /**
+    * Get the deadline for tasks started by this request, the current time
+    * plus "rs.fanout.timeout" seconds.
+    *
+    * @return long deadline, milliseconds
+    */
+   protected long getDeadline() {
+      long timeout = 0L;
+
+      timeout = this.getConfigValueAsLong(ConstantsIF.RESOURCE,
+         ConfigIF.RS_FANOUT_TIMEOUT, 10L);
+
+      if (timeout <= 0L) {
+         timeout = 10L;
+      }
+
+      return System.currentTimeMillis() + (timeout * 1000L);
+   }
+
+   /**
+    * Wait for the result of a task (see submit), until the deadline. If the
+    * task did not finish in time, null is returned and the task is
+    * cancelled. If the task failed, the failure is not hidden: a runtime
+    * exception from the task (such as abort) is re-thrown, other failures
+    * abort (500).
+    *
+    * @param <T> result type
+    * @param future Future result, may be null
+    * @param deadline long deadline, milliseconds
+    * @param name String task name, used for logging
+    * @return T result, null if not finished or no task
+    */
+   protected <T> T await(final Future<T> future, final long deadline,
+      final String name) {
+      String METHOD = "await";
+      T result = null;
+
+      _logger.entering(CLASS, METHOD);
+
+      if (future != null) {
+         try {
+            result = future.get(Math.max(deadline - System.currentTimeMillis(), 0L),
+               TimeUnit.MILLISECONDS);
+         } catch (TimeoutException ex) {
+            future.cancel(true);
+            _logger.log(Level.WARNING, "{0}: ''{1}'' did not finish in time",
+               new Object[]{METHOD, name});
+         } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+               throw (RuntimeException) ex.getCause();
+            }
+            this.abort(METHOD, "'" + name + "' failed: "
+               + (ex.getCause() != null ? ex.getCause().getMessage() : ex.getMessage()),
+               Status.INTERNAL_SERVER_ERROR);
+         } catch (InterruptedException ex) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+         }
+      }
+
+      _logger.exiting(CLASS, METHOD);
+
+      return result;
+   }
+
+   /**
+    * Set the paging parameters in the handler input, from the "pageSize" and
+    * "cursor" query parameters. The page size is limited to
+    * "rs.paging.max_size". Aborts (400) if the page size is not a positive
+    * number. The cursor is returned, in the search output, by the previous
+    * page. The page size only limits the response, the database search still
+    * returns all the matching documents (see JaxrsHandler.getPage).
+    *
+    * @param jsonInput JSONObject handler input
+    */
+   protected void setPageParams(final JSONObject jsonInput) {
+      String METHOD = "setPageParams";
+      long pageSize = 0L;
+      long maxSize = 0L;
+      String str = null;
+      MultivaluedMap<String, String> mmapQueryParams = null;
+
+      _logger.entering(CLASS, METHOD);
+
+      mmapQueryParams = _uriInfo.getQueryParameters();
+
+      if (jsonInput != null && mmapQueryParams != null && !mmapQueryParams.isEmpty()) {
+         str = mmapQueryParams.getFirst(JaxrsHandlerIF.PAGE_SIZE);
+
+         if (!STR.isEmpty(str)) {
+            try {
+               pageSize = Long.parseLong(str.trim());
+            } catch (NumberFormatException ex) {
+               pageSize = 0L;
+            }
+
+            if (pageSize < 1L) {
+               this.abort(METHOD, "Query parameter '" + JaxrsHandlerIF.PAGE_SIZE
+                  + "' must be a positive number", Status.BAD_REQUEST);
+            }
+
+            maxSize = this.getConfigValueAsLong(ConstantsIF.RESOURCE,
+               ConfigIF.RS_PAGING_MAX_SIZE, 500L);
+
+            if (maxSize > 0L && pageSize > maxSize) {
+               pageSize = maxSize;
+            }
+
+            jsonInput.put(JaxrsHandlerIF.PAGE_SIZE, Long.toString(pageSize));
+         }
+
+         str = mmapQueryParams.getFirst(JaxrsHandlerIF.PAGE_CURSOR);
+
+         if (!STR.isEmpty(str)) {
+            jsonInput.put(JaxrsHandlerIF.PAGE_CURSOR, str);
+         }
+      }
+
+      _logger.exiting(CLASS, METHOD);
+
+      return;
+   }
+
    /**
     * Get HTTP Response object for a JSON object.
     *
@@ -980,7 +1387,7 @@ public abstract class RSResource extends Resource {
    @Override
    protected Response getResponseFromJSON(final UriInfo uri,
       final OperationIF oper) {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "getResponseFromJSON";
       String str = null;
       String name = null;
       String value = null;
@@ -1020,6 +1427,14 @@ public abstract class RSResource extends Resource {
       }
 
       if (oper.isError()) {
+         if (oper.getState() == STATE.NOTAUTHORIZED && _ssoTokenUsed) {
+            this.revalidateSSOSession(); // 401 from AM, do not trust a cached session
+         }
+
+         if (oper.getState() == STATE.NOTAUTHORIZED && _adminSSOToken != null) {
+            this.invalidateSSOTokenForAdmin(); // 401 from AM, renew the admin session
+         }
+
          if (jsonOutput != null) {
             media = MediaType.APPLICATION_JSON_TYPE;
             entity = jsonData.toString();
@@ -1082,11 +1497,17 @@ public abstract class RSResource extends Resource {
             }
             case SEARCH: {
                jsonUids = this.getUidsFromSearch(jsonData);
-               str = jsonUids.toJSONString();
+
+               str = JSON.getString(jsonData, JaxrsHandlerIF.PAGE_CURSOR);
+
+               if (!STR.isEmpty(str)) { // paged, there are more results
+                  jsonUids.put(JaxrsHandlerIF.PAGE_CURSOR, str);
+               }
+
                responseBuilder = Response
                   .ok()
                   .type(MediaType.APPLICATION_JSON)
-                  .entity(str);
+                  .entity(this.getJSONEntity(jsonUids));
                break;
             }
             default: {
@@ -1131,6 +1552,65 @@ public abstract class RSResource extends Resource {
       return response;
    }
 
+   /**
+    * Get HTTP Response object for a search that was processed by the handler
+    * (the results are not a list of uids). The "data" object is written to
+    * the response by the JSON serializer (see getJSONEntity), it is not
+    * converted to a String first. Errors are processed by getResponseFromJSON.
+    *
+    * @param uri UriInfo URI info from the session
+    * @param oper OperationIF input
+    * @return Response HTTP response
+    */
+   protected Response getSearchResponse(final UriInfo uri,
+      final OperationIF oper) {
+      String METHOD = "getSearchResponse";
+      JSONObject jsonData = null;
+      Response response = null;
+
+      _logger.entering(CLASS, METHOD);
+
+      if (oper == null || oper.isError()) {
+         response = this.getResponseFromJSON(uri, oper);
+      } else {
+         jsonData = JSON.getObject(oper.getJSON(), ConstantsIF.DATA);
+
+         if (jsonData == null) {
+            jsonData = new JSONObject();
+         }
+
+         response = Response
+            .status(this.getStatusFromState(oper.getState()))
+            .type(MediaType.APPLICATION_JSON)
+            .entity(this.getJSONEntity(jsonData))
+            .build();
+      }
+
+      _logger.exiting(CLASS, METHOD);
+
+      return response;
+   }
+
+   /**
+    * Get a response entity that writes the JSON object to the HTTP response
+    * with the JSON serializer. This only avoids the String copy of the
+    * response (and its encoded bytes): the complete JSON object is built, and
+    * held in memory, before the response starts. Nothing is streamed from the
+    * Data Access Objects, they return the complete results.
+    *
+    * @param json JSONObject JSON data
+    * @return StreamingOutput writes the JSON data, UTF-8
+    */
+   protected StreamingOutput getJSONEntity(final JSONObject json) {
+      return output -> {
+         Writer writer = new BufferedWriter(
+            new OutputStreamWriter(output, StandardCharsets.UTF_8));
+
+         json.writeJSONString(writer);
+         writer.flush();
+      };
+   }
+
    /**
     * Check if the authenticated user is the owner of the specified resource.
     * This is the "heavy weight" method because it has to obtain data to compare
@@ -1142,7 +1622,7 @@ public abstract class RSResource extends Resource {
     */
    protected void checkAuthenUserIsOwner(final String resourceUid) {
       boolean isOwner = false;
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "checkAuthenUserIsOwner";
       String owner = null;
       String userId = null;
       String msg = null;
@@ -1218,7 +1698,7 @@ public abstract class RSResource extends Resource {
        * }
        */
       boolean isOwner = false;
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "checkAuthenUserIsOwner";
       String owner = null;
       String msg = null;
 
@@ -1257,173 +1737,24 @@ public abstract class RSResource extends Resource {
    }
 
    /**
-    * Load instance run-time context information
+    * Check if the authenticated user is the Authorization Server admin user
+    * ("as.admin.user"). Will abort if not the admin user.
     */
-   protected synchronized void load() {
-      byte[] bytes = null;
-      Object obj = null;
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
-      String realPath = null;
-      String configFile = null;
-      java.nio.file.Path pathConfigFile = null;
-      JSONParser parser = null;
-      ConfigurationIF config = null;
+   protected void checkAuthenUserIsAdmin() {
+      String METHOD = "checkAuthenUserIsAdmin";
+      String admin = null;
+      String userId = null;
 
-      /*
-       * Check the Servlet Context for ... 
-       * - Configuration Manager
-       * - Handler Manager
-       */
       _logger.entering(CLASS, METHOD);
 
-      /*
-       * Need a Configuration Manager.  Check Servlet Context, else create one
-       */
-      if (_configMgr == null) {
-         obj = _servletCtx.getAttribute(CTX_ATTR_CONFIG_MGR);
-
-         if (obj != null && obj instanceof ConfigurationManagerIF) {
-            _configMgr = (ConfigurationManagerIF) obj;
-         } else {
-            _configMgr = new ConfigurationManager();
-            _servletCtx.setAttribute(CTX_ATTR_CONFIG_MGR, _configMgr);
-         }
-
-      }
-
-      /*
-       * Load the Resource Server configuration.
-       * Check the Configuration Manger for existing RS Configuration object
-       * Else, read configuration file, create new RS Configuration object, add to Config Manager
-       */
-      if (!_configMgr.contains(ConstantsIF.RESOURCE)) {
-         config = new BasicConfiguration();
-
-         parser = this.getParserFromCtx(_servletCtx);
-         realPath = _servletCtx.getRealPath("/");
-         configFile = realPath + "WEB-INF" + File.separator + CONFIG_FILE_RS; // Resource Server
-         pathConfigFile = Paths.get(configFile);
-
-         try {
-            bytes = Files.readAllBytes(pathConfigFile);
-            obj = parser.parse(new String(bytes));
-         } catch (IOException | ParseException ex) {
-            this.abort(METHOD, "Exception: " + ex.getMessage(),
-               Response.Status.INTERNAL_SERVER_ERROR);
-         }
-
-         if (obj != null && obj instanceof JSONObject) {
-            config.setJSON((JSONObject) obj);
-            _configMgr.setConfiguration(ConstantsIF.RESOURCE, config);
-         } else {
-            this.abort(METHOD,
-               "Resource Server Config object is null or not a JSON object",
-               Response.Status.INTERNAL_SERVER_ERROR);
-         }
-
-         if (_logger.isLoggable(Level.INFO)) {
-            _logger.log(Level.INFO, "Loaded configuration file : " + CONFIG_FILE_RS);
-         }
-      }
-
-      /*
-       * Load the Content Server configuration.
-       * Check the Configuration Manger for existing CS Configuration object
-       * Else, read configuration file, create new CS Configuration object, add to Config Manager
-       */
-      if (!_configMgr.contains(ConstantsIF.CONTENT)) {
-         config = new BasicConfiguration();
-
-         parser = this.getParserFromCtx(_servletCtx);
-         realPath = _servletCtx.getRealPath("/");
-         configFile = realPath + "WEB-INF" + File.separator + CONFIG_FILE_CS; // Content Server
-         pathConfigFile = Paths.get(configFile);
-
-         try {
-            bytes = Files.readAllBytes(pathConfigFile);
-            obj = parser.parse(new String(bytes));
-         } catch (IOException | ParseException ex) {
-            this.abort(METHOD, "Exception: " + ex.getMessage(),
-               Response.Status.INTERNAL_SERVER_ERROR);
-         }
-
-         if (obj != null && obj instanceof JSONObject) {
-            config.setJSON((JSONObject) obj);
-            _configMgr.setConfiguration(ConstantsIF.CONTENT, config);
-         } else {
-            this.abort(METHOD,
-               "Content Server Config object is null or not a JSON object",
-               Response.Status.INTERNAL_SERVER_ERROR);
-         }
-
-         if (_logger.isLoggable(Level.INFO)) {
-            _logger.log(Level.INFO,
-               "Loaded configuration file : " + CONFIG_FILE_CS);
-         }
-      }
-
-      if (_handlerMgr == null) {
-         obj = _servletCtx.getAttribute(CTX_ATTR_HANDLER_MGR);
-
-         if (obj != null && obj instanceof HandlerManagerIF) {
-            _handlerMgr = (HandlerManagerIF) obj;
-         } else {
-            _handlerMgr = new HandlerManager();
-
-            /*
-             * Add all the handlers
-             */
-            _handlerMgr.setHandler(JaxrsHandlerIF.HANDLER_AMOAUTH2,
-               new AMOAuth2Handler(_configMgr, _handlerMgr));
-
-            _handlerMgr.setHandler(JaxrsHandlerIF.HANDLER_AMPROXYADM,
-               new AMProxyAdminHandler(_configMgr, _handlerMgr));
-
-            _handlerMgr.setHandler(JaxrsHandlerIF.HANDLER_AMSESSION,
-               new AMSessionHandler(_configMgr, _handlerMgr));
-
-            _handlerMgr.setHandler(JaxrsHandlerIF.HANDLER_CONTENT,
-               new ContentHandler(_configMgr, _handlerMgr));
-
-            _handlerMgr.setHandler(JaxrsHandlerIF.HANDLER_UMA_PAT,
-               new ProtectionApiTokenHandler(_configMgr, _handlerMgr));
-
-            _handlerMgr.setHandler(JaxrsHandlerIF.HANDLER_META,
-               new MetaHandler(_configMgr, _handlerMgr));
-
-            _handlerMgr.setHandler(JaxrsHandlerIF.HANDLER_RESOURCES,
-               new ResourcesHandler(_configMgr, _handlerMgr));
-
-            _handlerMgr.setHandler(JaxrsHandlerIF.HANDLER_UMA_DISCOVER,
-               new DiscoverHandler(_configMgr, _handlerMgr));
-
-            _handlerMgr.setHandler(JaxrsHandlerIF.HANDLER_UMA_POLICY,
-               new PolicyHandler(_configMgr, _handlerMgr));
-
-            _handlerMgr.setHandler(JaxrsHandlerIF.HANDLER_UMA_PERMREQ,
-               new PermissionRequestHandler(_configMgr, _handlerMgr));
-
-            _handlerMgr.setHandler(JaxrsHandlerIF.HANDLER_UMA_REGISTER,
-               new RegisterHandler(_configMgr, _handlerMgr));
+      userId = this.getUserIdFromSSOSession();
 
-            _handlerMgr.setHandler(JaxrsHandlerIF.HANDLER_UMA_REQUESTS,
-               new RequestsHandler(_configMgr, _handlerMgr));
+      admin = this.getConfigValueAsString(ConstantsIF.RESOURCE,
+         ConfigIF.AS_ADMIN_USER, false);
 
-            _handlerMgr.setHandler(JaxrsHandlerIF.HANDLER_UMA_SHAREDWITHME,
-               new SharedWithMeHandler(_configMgr, _handlerMgr));
-
-            _handlerMgr.setHandler(JaxrsHandlerIF.HANDLER_UMA_SUBJECTS,
-               new SubjectsHandler(_configMgr, _handlerMgr));
-
-            _handlerMgr.setHandler(JaxrsHandlerIF.HANDLER_UMA_WELLKNOWN,
-               new WellKnownHandler(_configMgr, _handlerMgr));
-
-            _servletCtx.setAttribute(CTX_ATTR_HANDLER_MGR, _handlerMgr);
-
-            if (_logger.isLoggable(DEBUG_LEVEL)) {
-               _logger.log(DEBUG_LEVEL, "Created Handler Manager");
-            }
-         }
+      if (STR.isEmpty(userId) || !admin.equalsIgnoreCase(userId)) {
+         this.abort(METHOD, "User is not the admin user: "
+            + (userId == null ? NULL : userId), Status.FORBIDDEN);
       }
 
       _logger.exiting(CLASS, METHOD);
@@ -1453,7 +1784,7 @@ public abstract class RSResource extends Resource {
     */
    protected OperationIF contentCreate(final String resourceUid,
       final JSONObject jsonContent) {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "contentCreate";
       OperationIF operInput = null;
       OperationIF operOutput = null;
       JaxrsHandlerIF contentHandler = null;
@@ -1511,7 +1842,7 @@ public abstract class RSResource extends Resource {
     */
    protected OperationIF contentRead(final JSONObject jsonResource,
       final JSONObject jsonOptions) {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "contentRead";
       OperationIF operOutput = null;
       JSONObject jsonContentInfo = null;
 
@@ -1580,7 +1911,7 @@ public abstract class RSResource extends Resource {
     */
    protected synchronized OperationIF contentRead(final String resourceUid,
       final JSONObject jsonOptions) {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "contentRead";
       OperationIF operOutput = null;
       JSONObject jsonContentInfo = null;
 
@@ -1642,7 +1973,7 @@ public abstract class RSResource extends Resource {
     */
    protected synchronized OperationIF contentReplace(final String resourceUid,
       final JSONObject jsonContent) {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "contentReplace";
       OperationIF operInput = null;
       OperationIF operOutput = null;
       JSONObject jsonContentInfo = null;
@@ -1700,7 +2031,7 @@ public abstract class RSResource extends Resource {
     * @return OperationIF operation response
     */
    protected synchronized OperationIF contentDelete(final String resourceUid) {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "contentDelete";
       OperationIF operInput = null;
       OperationIF operOutput = null;
       JSONObject jsonContentInfo = null;
@@ -1760,7 +2091,7 @@ public abstract class RSResource extends Resource {
    private OperationIF getPolicyImpl(
       final String registerId, String sso_token, String owner) {
       Object[] names = null;
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "getPolicyImpl";
       String name = null;
       OperationIF operOutput = null;
       OperationIF operPolicyInput = null;
@@ -1854,9 +2185,29 @@ public abstract class RSResource extends Resource {
 
    private OperationIF getRegistratonImpl(final String registerId,
       final String owner) {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "getRegistratonImpl";
       String access_token = null;
       OperationIF operOutput = null;
+
+      _logger.entering(CLASS, METHOD);
+
+      if (STR.isEmpty(owner)) {
+         access_token = this.getAccessToken(); // PAT for "self" use SSO token
+      } else {
+         access_token = this.getAccessToken(owner); // PAT for "owner"
+      }
+
+      operOutput = this.getRegistratonImpl(registerId, owner, access_token);
+
+      _logger.exiting(CLASS, METHOD);
+
+      return operOutput;
+   }
+
+   private OperationIF getRegistratonImpl(final String registerId,
+      final String owner, final String access_token) {
+      String METHOD = "getRegistratonImpl";
+      OperationIF operOutput = null;
       OperationIF operRegisterInput = null;
       OperationIF operRegisterOutput = null;
       JSONObject jsonOutput = null;
@@ -1879,12 +2230,6 @@ public abstract class RSResource extends Resource {
        */
       _logger.entering(CLASS, METHOD);
 
-      if (STR.isEmpty(owner)) {
-         access_token = this.getAccessToken(); // PAT for "self" use SSO token
-      } else {
-         access_token = this.getAccessToken(owner); // PAT for "owner"
-      }
-
       if (STR.isEmpty(access_token)) {
          this.abort(CLASS + "::" + METHOD,
             "Access Token is empty, owner: " + owner == null ? NULL : owner,
@@ -1958,7 +2303,7 @@ public abstract class RSResource extends Resource {
     */
    private OperationIF getContentImpl(final JSONObject jsonContentInfo,
       final JSONObject jsonOptions) {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "getContentImpl";
       String mode = null; // default = "data", or "reference"
       OperationIF operInput = null;
       OperationIF operOutput = null;
@@ -2055,13 +2400,10 @@ public abstract class RSResource extends Resource {
     * @return JSONObject content information
     */
    private JSONObject getContentInformation(final String resourceUid) {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
-      OperationIF operResourceInput = null;
+      String METHOD = "getContentInformation";
       OperationIF operResourceOutput = null;
-      JSONObject jsonResourceInput = null;
       JSONObject jsonResourceOutput = null;
       JSONObject jsonContentInfo = null;
-      JaxrsHandlerIF resourcesHandler = null;
 
       /*
        * content information:
@@ -2077,15 +2419,7 @@ public abstract class RSResource extends Resource {
             Status.INTERNAL_SERVER_ERROR);
       }
 
-      resourcesHandler = this.getHandler(JaxrsHandlerIF.HANDLER_RESOURCES);
-
-      jsonResourceInput = new JSONObject();
-      jsonResourceInput.put(ConstantsIF.UID, resourceUid);
-
-      operResourceInput = new Operation(OperationIF.TYPE.READ);
-      operResourceInput.setJSON(jsonResourceInput);
-
-      operResourceOutput = resourcesHandler.process(operResourceInput);
+      operResourceOutput = this.getResource(resourceUid);
 
       if (operResourceOutput.getState() == STATE.SUCCESS) {
          jsonResourceOutput = operResourceOutput.getJSON();
@@ -2122,7 +2456,7 @@ public abstract class RSResource extends Resource {
     */
    private void setContentInformation(final String resourceUid,
       final OperationIF operInput) {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "setContentInformation";
       OperationIF operResourceInput = null;
       OperationIF operResourceOutput = null;
       JSONObject jsonInput = null;
@@ -2228,6 +2562,68 @@ public abstract class RSResource extends Resource {
       return;
    }
 
+   /**
+    * Get the Single Sign On Token, from the AM cookie or the header
+    *
+    * @return String sso token
+    */
+   private String getSSOToken() {
+      String ssotoken = null;
+
+      ssotoken = this.getAttributeFromCookie(ConfigIF.AS_COOKIE, false);
+
+      if (STR.isEmpty(ssotoken)) {
+         ssotoken = this.getAttributeFromHeader(ConfigIF.RS_HEADERS_SSOTOKEN);
+      }
+
+      return ssotoken;
+   }
+
+   /**
+    * Get a copy of the Resource saved by this request. Saved resources are
+    * discarded when the version changes.
+    *
+    * @param resourceUid String resource uid
+    * @param version long version of the resource cache, -1 if not available
+    * @return JSONObject resource, null if not saved
+    */
+   private JSONObject getSavedResource(final String resourceUid, final long version) {
+      JSONObject jsonResource = null;
+
+      if (version >= 0L) {
+         synchronized (_resources) {
+            if (version != _resourcesVersion) {
+               _resources.clear();
+               _resourcesVersion = version;
+            }
+
+            jsonResource = ResourceCache.copy(_resources.get(resourceUid));
+         }
+      }
+
+      return jsonResource;
+   }
+
+   /**
+    * Save a copy of the Resource for the rest of this request
+    *
+    * @param resourceUid String resource uid
+    * @param version long version of the resource cache, before the read
+    * @param jsonResource JSONObject resource
+    */
+   private void saveResource(final String resourceUid, final long version,
+      final JSONObject jsonResource) {
+      if (version >= 0L && jsonResource != null) {
+         synchronized (_resources) {
+            if (version == _resourcesVersion) {
+               _resources.put(resourceUid, ResourceCache.copy(jsonResource));
+            }
+         }
+      }
+
+      return;
+   }
+
    /**
     * Attempt to get a String value from the configuration JSON object "name" is
     * a "dot" delimited JSON object name: "rs.headers.ssotoken" If the flag
@@ -2240,7 +2636,7 @@ public abstract class RSResource extends Resource {
     */
    private String getConfigValueAsString(final String configType,
       final String name, final boolean allowEmpty) {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "getConfigValueAsString";
       String value = null;
       JSONObject configData = null;
 
@@ -2277,7 +2673,7 @@ public abstract class RSResource extends Resource {
     * @return JSONobject JSON data
     */
    private JSONObject getConfiguration(final String configType) {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "getConfiguration";
       String msg = null;
       JSONObject json = null;
       ConfigurationIF config = null;
@@ -2285,7 +2681,7 @@ public abstract class RSResource extends Resource {
       _logger.entering(CLASS, METHOD);
 
       if (!STR.isEmpty(configType)) {
-         config = _configMgr.getConfiguration(configType);
+         config = this.getConfigurationManager().getConfiguration(configType);
          if (config != null) {
             json = config.getJSON();
             if (json == null) {
@@ -2307,4 +2703,54 @@ public abstract class RSResource extends Resource {
       return json;
    }
 
+   /**
+    * Get the Handler Manager. It is created and published to the Servlet
+    * Context by the ApplicationListener, when the application is started.
+    * Will abort with 503 (Service Unavailable) until the application is ready.
+    *
+    * @return HandlerManagerIF handler manager
+    */
+   private HandlerManagerIF getHandlerManager() {
+      String METHOD = "getHandlerManager";
+      Object obj = null;
+
+      if (_handlerMgr == null) {
+         obj = _servletCtx.getAttribute(CTX_ATTR_HANDLER_MGR);
+
+         if (obj != null && obj instanceof HandlerManagerIF) {
+            _handlerMgr = (HandlerManagerIF) obj;
+         } else {
+            this.abort(METHOD, "Application is not ready",
+               Status.SERVICE_UNAVAILABLE);
+         }
+      }
+
+      return _handlerMgr;
+   }
+
+   /**
+    * Get the Configuration Manager. It is published to the Servlet Context by
+    * the ApplicationListener, after the handlers are created. Will abort with
+    * 503 (Service Unavailable) until the application is ready.
+    *
+    * @return ConfigurationManagerIF configuration manager
+    */
+   private ConfigurationManagerIF getConfigurationManager() {
+      String METHOD = "getConfigurationManager";
+      Object obj = null;
+
+      if (_configMgr == null) {
+         obj = _servletCtx.getAttribute(CTX_ATTR_CONFIG_MGR);
+
+         if (obj != null && obj instanceof ConfigurationManagerIF) {
+            _configMgr = (ConfigurationManagerIF) obj;
+         } else {
+            this.abort(METHOD, "Application is not ready",
+               Status.SERVICE_UNAVAILABLE);
+         }
+      }
+
+      return _configMgr;
+   }
+
 }
@@ -8,6 +8,8 @@ package com.forgerock.frdp.resourceserver.rest.config;
 import com.forgerock.frdp.common.ConstantsIF;
 import com.forgerock.frdp.dao.Operation;
 import com.forgerock.frdp.dao.OperationIF;
+import com.forgerock.frdp.resourceserver.dao.AMRequestLimiter;
+import com.forgerock.frdp.resourceserver.handler.JaxrsHandlerIF;
 import com.forgerock.frdp.resourceserver.rest.RSResource;
 import java.io.File;
 import java.io.IOException;
@@ -31,6 +33,11 @@ import org.json.simple.parser.ParseException;
 public class ConfigResource extends RSResource {
 
    private final String CLASS = this.getClass().getName();
+   private static final String PATH_STATS = "stats";
+   private static final String STATS_AS = "as";
+   private static final String STATS_POLICY = "policy";
+   private static final String STATS_REGISTER = "register";
+   private static final String STATS_RESOURCES = "resources";
 
    /**
     * Constructor
@@ -58,7 +65,7 @@ public class ConfigResource extends RSResource {
    public Response get() {
       byte[] bytes = null;
       Object obj = null;
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "get";
       String realPath = null;
       String publicFile = null;
       java.nio.file.Path pathPublicFile = null;
@@ -107,4 +114,57 @@ public class ConfigResource extends RSResource {
 
       return response;
    }
+
+   /**
+    * Get runtime statistics. HTTP Method is GET, endpoint is
+    * ".../config/stats", produces JSON. Requires the admin user
+    * ("as.admin.user").
+    *
+    * <pre>
+    * JSON output ...
+    * {
+    *   "as": { ... }, // Authorization Server requests
+    *   "register": { ... }, // UMA registration cache
+    *   "policy": { ... }, // UMA policy cache
+    *   "resources": { ... } // resource documents and uid / register id index
+    * }
+    * </pre>
+    *
+    * @return Response HTTP response object
+    */
+   @GET
+   @Path(PATH_STATS)
+   @Produces(MediaType.APPLICATION_JSON)
+   public Response stats() {
+      String METHOD = "stats";
+      JSONObject jsonOutput = null;
+      JSONObject jsonData = null;
+      Response response = null;
+      OperationIF operOutput = null;
+
+      _logger.entering(CLASS, METHOD);
+
+      this.checkAuthenUserIsAdmin();
+
+      jsonData = new JSONObject();
+      jsonData.put(STATS_AS, AMRequestLimiter.getStats());
+      jsonData.put(STATS_REGISTER,
+         this.getHandler(JaxrsHandlerIF.HANDLER_UMA_REGISTER).getStats());
+      jsonData.put(STATS_POLICY,
+         this.getHandler(JaxrsHandlerIF.HANDLER_UMA_POLICY).getStats());
+      jsonData.put(STATS_RESOURCES,
+         this.getHandler(JaxrsHandlerIF.HANDLER_RESOURCES).getStats());
+
+      jsonOutput = new JSONObject();
+      jsonOutput.put(ConstantsIF.DATA, jsonData);
+
+      operOutput = new Operation(OperationIF.TYPE.READ);
+      operOutput.setJSON(jsonOutput);
+
+      response = this.getResponseFromJSON(_uriInfo, operOutput);
+
+      _logger.exiting(CLASS, METHOD);
+
+      return response;
+   }
 }
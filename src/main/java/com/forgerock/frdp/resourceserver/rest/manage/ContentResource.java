@@ -75,7 +75,7 @@ public class ContentResource extends RSResource {
    @POST
    @Consumes(MediaType.APPLICATION_JSON)
    public Response create(String data) {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "create";
       Response response = null;
       JSONObject jsonContent = null;
       JSONObject jsonOptions = null;
@@ -94,8 +94,6 @@ public class ContentResource extends RSResource {
             Response.Status.BAD_REQUEST);
       }
 
-      this.load();
-
       this.checkAuthenUserIsOwner(_resourceUid);
 
       /*
@@ -141,7 +139,7 @@ public class ContentResource extends RSResource {
    @GET
    @Produces(MediaType.APPLICATION_JSON)
    public Response read(@QueryParam(ConstantsIF.CONTENT) String content) {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "read";
       JSONObject jsonOutput = null;
       JSONObject jsonData = null;
       JSONObject jsonOptions = null;
@@ -156,8 +154,6 @@ public class ContentResource extends RSResource {
                content == null ? NULL : content});
       }
 
-      this.load();
-
       this.checkAuthenUserIsOwner(_resourceUid);
 
       if (!STR.isEmpty(content)) {
@@ -214,7 +210,7 @@ public class ContentResource extends RSResource {
    @PUT
    @Consumes(MediaType.APPLICATION_JSON)
    public Response replace(String data) {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "replace";
       Response response = null;
       JSONObject jsonContent = null;
       OperationIF operOutput = null;
@@ -237,8 +233,6 @@ public class ContentResource extends RSResource {
             Response.Status.BAD_REQUEST);
       }
 
-      this.load();
-
       this.checkAuthenUserIsOwner(_resourceUid);
 
       parser = this.getParserFromCtx(_servletCtx);
@@ -268,7 +262,7 @@ public class ContentResource extends RSResource {
    @DELETE
    @Consumes(MediaType.APPLICATION_JSON)
    public Response delete() {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "delete";
       Response response = null;
       OperationIF operOutput = null;
 
@@ -283,8 +277,6 @@ public class ContentResource extends RSResource {
          this.abort(CLASS + ": " + METHOD, "Path resource is empty", Response.Status.BAD_REQUEST);
       }
 
-      this.load();
-
       this.checkAuthenUserIsOwner(_resourceUid);
 
       operOutput = this.contentDelete(_resourceUid);
@@ -47,7 +47,7 @@ public class ManageResource extends RSResource {
     */
    @Path(ConstantsIF.RESOURCES)
    public ResourcesResource useResources() {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "useResources";
       ResourcesResource resourcesResource = null;
 
       _logger.entering(CLASS, METHOD);
@@ -66,7 +66,7 @@ public class ManageResource extends RSResource {
     */
    @Path(ConstantsIF.REQUESTS)
    public RequestsResource useRequests() {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "useRequests";
       RequestsResource requestsResource = null;
 
       _logger.entering(CLASS, METHOD);
@@ -85,7 +85,7 @@ public class ManageResource extends RSResource {
     */
    @Path(ConstantsIF.SUBJECTS)
    public SubjectsResource useSubjects() {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "useSubjects";
       SubjectsResource subjectsResource = null;
 
       _logger.entering(CLASS, METHOD);
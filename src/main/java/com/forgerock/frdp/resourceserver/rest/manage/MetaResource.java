@@ -70,7 +70,7 @@ public class MetaResource extends RSResource {
    @GET
    @Produces(MediaType.APPLICATION_JSON)
    public Response read() {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "read";
       Response response = null;
       OperationIF operOutput = null;
 
@@ -80,8 +80,6 @@ public class MetaResource extends RSResource {
          _logger.log(DEBUG_LEVEL, "Get meta for resource: ''{0}''", (_resourceUid == null ? NULL : _resourceUid));
       }
 
-      this.load();
-
       this.checkAuthenUserIsOwner(_resourceUid);
 
       operOutput = this.getMeta(_resourceUid);
@@ -102,7 +100,7 @@ public class MetaResource extends RSResource {
    @PUT
    @Consumes(MediaType.APPLICATION_JSON)
    public Response replace(String data) {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "replace";
       Response response = null;
       JSONObject jsonData = null;
       JSONObject jsonInput = null;
@@ -125,8 +123,6 @@ public class MetaResource extends RSResource {
          this.abort(METHOD, "Path resource is empty", Status.BAD_REQUEST);
       }
 
-      this.load();
-
       this.checkAuthenUserIsOwner(_resourceUid);
 
       parser = this.getParserFromCtx(_servletCtx);
@@ -172,7 +168,7 @@ public class MetaResource extends RSResource {
    @DELETE
    @Consumes(MediaType.APPLICATION_JSON)
    public Response delete() {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "delete";
       Response response = null;
       JSONObject jsonInput = null;
       OperationIF operInput = null;
@@ -189,8 +185,6 @@ public class MetaResource extends RSResource {
          this.abort(METHOD, "Path resource is empty", Status.BAD_REQUEST);
       }
 
-      this.load();
-
       this.checkAuthenUserIsOwner(_resourceUid);
 
       metaHandler = this.getHandler(JaxrsHandlerIF.HANDLER_META);
@@ -219,7 +213,7 @@ public class MetaResource extends RSResource {
     * @param jsonNewData JSONObject data
     */
    private void updateRegistration(final JSONObject jsonNewData) {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "updateRegistration";
       String curName = null;
       String newName = null;
       String curType = null;
@@ -81,7 +81,7 @@ public class PolicyResource extends RSResource {
    @GET
    @Produces(MediaType.APPLICATION_JSON)
    public Response read() {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "read";
       Response response = null;
       OperationIF operOutput = null;
       JSONObject jsonOutput = null;
@@ -96,8 +96,6 @@ public class PolicyResource extends RSResource {
          this.abort(METHOD, "Path resource is empty", Response.Status.BAD_REQUEST);
       }
 
-      this.load();
-
       this.checkAuthenUserIsOwner(_resourceUid);
 
       operOutput = this.getPolicy(_resourceUid);
@@ -135,7 +133,7 @@ public class PolicyResource extends RSResource {
    @PUT
    @Consumes(MediaType.APPLICATION_JSON)
    public Response replace(String data) {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "replace";
       Response response = null;
       JSONObject jsonData = null;
       OperationIF operOutput = null;
@@ -155,8 +153,6 @@ public class PolicyResource extends RSResource {
          this.abort(METHOD, "Path resource is empty", Response.Status.BAD_REQUEST);
       }
 
-      this.load();
-
       this.checkAuthenUserIsOwner(_resourceUid);
 
       parser = this.getParserFromCtx(_servletCtx);
@@ -184,7 +180,7 @@ public class PolicyResource extends RSResource {
     */
    @DELETE 
    public Response delete() {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "delete";
       Response response = null;
       OperationIF operOutput = null;
 
@@ -198,8 +194,6 @@ public class PolicyResource extends RSResource {
          this.abort(METHOD, "Path resource is empty", Response.Status.BAD_REQUEST);
       }
 
-      this.load();
-
       this.checkAuthenUserIsOwner(_resourceUid);
 
       operOutput = this.deletePermissions(_resourceUid);
@@ -234,7 +228,7 @@ public class PolicyResource extends RSResource {
     * @return OperationIF output
     */
    private OperationIF setPermissions(final JSONObject jsonData) {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "setPermissions";
       String sso_token = null;
       String owner = null;
       String registerId = null;
@@ -301,7 +295,7 @@ public class PolicyResource extends RSResource {
     * @return OperationIF output
     */
    private OperationIF deletePermissions(final String resourceUid) {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "deletePermissions";
       String registerId = null;
       String sso_token = null;
       String owner = null;
@@ -79,7 +79,7 @@ public class RegisterResource extends RSResource {
    @GET
    @Produces(MediaType.APPLICATION_JSON)
    public Response read() {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "read";
       Response response = null;
       JSONObject jsonData = null;
       JSONObject jsonOutput = null;
@@ -96,8 +96,6 @@ public class RegisterResource extends RSResource {
          this.abort(METHOD, "Path resource is empty", Response.Status.BAD_REQUEST);
       }
 
-      this.load();
-
       this.checkAuthenUserIsOwner(_resourceUid);
 
       operRegisterOutput = this.getRegistration(_resourceUid, null);
@@ -136,7 +134,7 @@ public class RegisterResource extends RSResource {
    @PUT
    @Consumes(MediaType.APPLICATION_JSON)
    public Response replace(String data) {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "replace";
       Response response = null;
       JSONObject jsonData = null;
       OperationIF operOutput = null;
@@ -157,8 +155,6 @@ public class RegisterResource extends RSResource {
          this.abort(METHOD, "Path resource is empty", Response.Status.BAD_REQUEST);
       }
 
-      this.load();
-
       this.checkAuthenUserIsOwner(_resourceUid);
 
       parser = this.getParserFromCtx(_servletCtx);
@@ -186,7 +182,7 @@ public class RegisterResource extends RSResource {
     */
    @DELETE
    public Response delete() {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "delete";
       Response response = null;
       JSONObject jsonInput = null;
       OperationIF operInput = null;
@@ -203,8 +199,6 @@ public class RegisterResource extends RSResource {
          this.abort(METHOD, "Path resource is empty", Response.Status.BAD_REQUEST);
       }
 
-      this.load();
-
       this.checkAuthenUserIsOwner(_resourceUid);
 
       jsonInput = new JSONObject();
@@ -250,7 +244,7 @@ public class RegisterResource extends RSResource {
     * @return OperationIF output
     */
    private OperationIF setRegistration(final JSONObject jsonData) {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "setRegistration";
       String registerId = null;
       String access_token = null;
       OperationIF operOutput = null;
@@ -388,7 +382,7 @@ public class RegisterResource extends RSResource {
     * @return OperationIF output
     */
    private OperationIF deleteRegistration() {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "deleteRegistration";
       String access_token = null;
       String registerId = null;
       String access = null;
@@ -61,12 +61,15 @@ public class RequestsResource extends RSResource {
    /**
     * Get a list of requests for access.
     * 
+    * The optional "pageSize" and "cursor" query parameters return a page of
+    * results, the "cursor" for the next page is in the response.
+    * 
     * @return Response HTTP response object
     */
    @GET
    @Produces(MediaType.APPLICATION_JSON)
    public Response search() {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "search";
       String userId = null;
       String sso_token = null;
       Response response = null;
@@ -79,8 +82,6 @@ public class RequestsResource extends RSResource {
 
       operOutput = new Operation(OperationIF.TYPE.SEARCH);
 
-      this.load();
-
       requestsHandler = this.getHandler(JaxrsHandlerIF.HANDLER_UMA_REQUESTS);
 
       userId = this.getUserIdFromSSOSession(); // make sure authenticated user
@@ -95,6 +96,8 @@ public class RequestsResource extends RSResource {
       jsonData.put(ConstantsIF.SSO_TOKEN, sso_token);
       jsonData.put(ConstantsIF.OWNER, userId);
 
+      this.setPageParams(jsonData);
+
       operInput = new Operation(OperationIF.TYPE.SEARCH);
       operInput.setJSON(jsonData);
 
@@ -118,7 +121,7 @@ public class RequestsResource extends RSResource {
    @Path("{" + ConstantsIF.REQUEST + "}")
    @Produces(MediaType.APPLICATION_JSON)
    public Response read(@PathParam(ConstantsIF.REQUEST) String requestUid) {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "read";
       String userId = null;
       String sso_token = null;
       Response response = null;
@@ -135,8 +138,6 @@ public class RequestsResource extends RSResource {
 
       operOutput = new Operation(OperationIF.TYPE.SEARCH);
 
-      this.load();
-
       requestsHandler = this.getHandler(JaxrsHandlerIF.HANDLER_UMA_REQUESTS);
 
       userId = this.getUserIdFromSSOSession(); // make sure authenticated user
@@ -190,7 +191,7 @@ public class RequestsResource extends RSResource {
    @Path("{" + ConstantsIF.REQUEST + "}")
    @Consumes(MediaType.APPLICATION_JSON)
    public Response replace(@PathParam(ConstantsIF.REQUEST) String requestUid, String data) {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "replace";
       String userId = null;
       String sso_token = null;
       Response response = null;
@@ -211,8 +212,6 @@ public class RequestsResource extends RSResource {
          this.abort(METHOD, "Payload string is empty", Status.BAD_REQUEST);
       }
 
-      this.load();
-
       parser = this.getParserFromCtx(_servletCtx);
 
       try {
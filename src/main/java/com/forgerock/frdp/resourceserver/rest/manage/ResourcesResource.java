@@ -11,6 +11,10 @@ import com.forgerock.frdp.resourceserver.handler.JaxrsHandlerIF;
 import com.forgerock.frdp.resourceserver.rest.RSResource;
 import com.forgerock.frdp.utils.JSON;
 import com.forgerock.frdp.utils.STR;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.function.Function;
 import javax.servlet.ServletContext;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
@@ -48,6 +52,7 @@ import org.json.simple.parser.JSONParser;
 public class ResourcesResource extends RSResource {
 
    private final String CLASS = this.getClass().getName();
+   private static final String PARAM_EXPAND = "expand";
 
    /**
     * Constructor
@@ -92,7 +97,7 @@ public class ResourcesResource extends RSResource {
    @POST
    @Consumes(MediaType.APPLICATION_JSON)
    public Response create(String data) {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "create";
       String userId = null;
       String resourceUid = null;
       Response response = null;
@@ -118,8 +123,6 @@ public class ResourcesResource extends RSResource {
          this.abort(METHOD, "Payload string is empty", Status.BAD_REQUEST);
       }
 
-      this.load();
-
       userId = this.getUserIdFromSSOSession();
 
       resourcesHandler = this.getHandler(JaxrsHandlerIF.HANDLER_RESOURCES);
@@ -193,12 +196,42 @@ public class ResourcesResource extends RSResource {
    /**
     * Get all resources that are owned by the authenticated user
     *
+    * <pre>
+    * By default, only the resource identifiers are returned. The optional
+    * "expand" query parameter is a comma separated list of sections to
+    * include, for each resource: "meta", "register", "policy" ("policy"
+    * implies "register"). The registrations and policies are read
+    * concurrently (see fanOut), one Authorization Server call per resource
+    * and section on a cache miss (see expandResults). The optional
+    * "pageSize" and "cursor" query parameters return a page of resources,
+    * the "cursor" for the next page is in the response.
+    *
+    * JSON output ... expand=meta,policy
+    * {
+    *   "quantity": 1,
+    *   "cursor": "...", // paged, only if there are more resources
+    *   "results": [
+    *     {
+    *       "uid": "...",
+    *       "owner": "bjensen",
+    *       "access": "shared",
+    *       "meta": { ... },
+    *       "register": {
+    *         ... ,
+    *         "policy": { ... }
+    *       }
+    *     }
+    *   ]
+    * }
+    * </pre>
+    *
+    * @param expand String optional sections to include, comma separated
     * @return Response HTTP response object
     */
    @GET
    @Produces(MediaType.APPLICATION_JSON)
-   public Response search() {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+   public Response search(@QueryParam(PARAM_EXPAND) String expand) {
+      String METHOD = "search";
       String userId = null;
       Response response = null;
       JSONObject jsonQuery = null;
@@ -209,8 +242,6 @@ public class ResourcesResource extends RSResource {
 
       _logger.entering(CLASS, METHOD);
 
-      this.load();
-
       userId = this.getUserIdFromSSOSession(); // make sure authenticated user
 
       resourcesHandler = this.getHandler(JaxrsHandlerIF.HANDLER_RESOURCES);
@@ -224,12 +255,20 @@ public class ResourcesResource extends RSResource {
       jsonInput = new JSONObject();
       jsonInput.put(ConstantsIF.QUERY, jsonQuery);
 
+      this.setPageParams(jsonInput);
+
       operInput = new Operation(OperationIF.TYPE.SEARCH);
       operInput.setJSON(jsonInput);
 
       operOutput = resourcesHandler.process(operInput);
 
-      response = this.getResponseFromJSON(_uriInfo, operOutput);
+      if (!STR.isEmpty(expand) && !operOutput.isError()) {
+         operOutput = this.expandResults(operOutput, userId, expand);
+
+         response = this.getSearchResponse(_uriInfo, operOutput);
+      } else {
+         response = this.getResponseFromJSON(_uriInfo, operOutput);
+      }
 
       _logger.exiting(CLASS, METHOD);
 
@@ -238,7 +277,11 @@ public class ResourcesResource extends RSResource {
 
    /**
     * Read a specific resource, include meta data, content, registration and
-    * policy
+    * policy. The content, registration and policy are read concurrently, a
+    * section that can not be read within "rs.fanout.timeout" is omitted. A
+    * section that fails returns an error, as when they were read one by one.
+    * The policy is only read for a registered resource, it is only used if
+    * the registration exists.
     *
     * <pre>
     * JSON output ...
@@ -263,7 +306,7 @@ public class ResourcesResource extends RSResource {
    @Produces(MediaType.APPLICATION_JSON)
    public Response read(@PathParam(ConstantsIF.RESOURCE) String resourceUid,
       @QueryParam(ConstantsIF.CONTENT) String content) {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "read";
       String access = null;
       String userId = null;
       String csId = null; // Content Service identifier
@@ -276,11 +319,16 @@ public class ResourcesResource extends RSResource {
       JSONObject jsonRegister = null;
       JSONObject jsonPolicy = null;
       JSONObject jsonOptions = null;
+      JSONObject jsonTask = null;
       OperationIF operResourceOutput = null;
       OperationIF operMetaOutput = null;
       OperationIF operContentOutput = null;
       OperationIF operRegisterOutput = null;
       OperationIF operPolicyOutput = null;
+      Future<OperationIF> futureContent = null;
+      Future<OperationIF> futureRegister = null;
+      Future<OperationIF> futurePolicy = null;
+      long deadline = 0L;
 
       _logger.entering(CLASS, METHOD);
 
@@ -289,8 +337,6 @@ public class ResourcesResource extends RSResource {
             Status.BAD_REQUEST);
       }
 
-      this.load();
-
       userId = this.getUserIdFromSSOSession();
 
       if (_logger.isLoggable(DEBUG_LEVEL)) {
@@ -339,29 +385,50 @@ public class ResourcesResource extends RSResource {
             if (jsonData != null && !jsonData.isEmpty()) {
 
                /*
-                * Get "content"
+                * Get "content", "registration" and "policy" concurrently.
+                * Values from the HTTP request (SSO token, PAT) are read on
+                * this thread. The tasks get a copy of the resource "data",
+                * it is updated below. A section that is not read in time is
+                * omitted, a section that fails aborts the request (see await).
+                * The policy needs a register id, it is started with the
+                * registration and ignored if the registration is not found.
                 */
+               deadline = this.getDeadline();
+
+               jsonTask = new JSONObject();
+               jsonTask.put(ConstantsIF.DATA, new JSONObject(jsonData));
+
                csId = JSON.getString(jsonData, ConstantsIF.CONTENT + "."
                   + ConstantsIF.ID);
                csUri = JSON.getString(jsonData, ConstantsIF.CONTENT + "."
                   + ConstantsIF.URI);
 
                if (!STR.isEmpty(csId) && !STR.isEmpty(csUri)) {
-                  operContentOutput = this.contentRead(jsonResource, jsonOptions);
-
-                  /*
-                   * JSON content output options:
-                   * {                       | {
-                   *     "id": "default",    |     "id": "default",
-                   *     "data": { ... }     |     "uri": "http://..."
-                   * }                       | }
-                   */
-                  if (operContentOutput != null) {
-                     jsonContent = operContentOutput.getJSON();
-
-                     if (jsonContent != null) {
-                        jsonData.put(ConstantsIF.CONTENT, jsonContent);
-                     }
+                  futureContent = this.getContentTask(jsonTask, jsonOptions);
+               }
+
+               if (!STR.isEmpty(JSON.getString(jsonData, ConstantsIF.REGISTER))) {
+                  futureRegister = this.getRegistrationTask(jsonTask,
+                     userId, this.getAccessToken());
+                  futurePolicy = this.getPolicyTask(jsonTask,
+                     this.getSSOTokenFromSSOSession(), userId);
+               }
+
+               /*
+                * JSON content output options:
+                * {                       | {
+                *     "id": "default",    |     "id": "default",
+                *     "data": { ... }     |     "uri": "http://..."
+                * }                       | }
+                */
+               operContentOutput = this.await(futureContent, deadline,
+                  ConstantsIF.CONTENT);
+
+               if (operContentOutput != null) {
+                  jsonContent = operContentOutput.getJSON();
+
+                  if (jsonContent != null) {
+                     jsonData.put(ConstantsIF.CONTENT, jsonContent);
                   }
                }
 
@@ -372,14 +439,20 @@ public class ResourcesResource extends RSResource {
                 *   "icon_uri": "..."
                 * }
                 */
-               operRegisterOutput = this.getRegistration(jsonResource, null);
-               jsonRegister = operRegisterOutput.getJSON();
+               operRegisterOutput = this.await(futureRegister, deadline,
+                  ConstantsIF.REGISTER);
+
+               jsonRegister = (operRegisterOutput == null ? null
+                  : operRegisterOutput.getJSON());
 
                if (jsonRegister != null && !jsonRegister.isEmpty()) {
                   access = ConstantsIF.REGISTERED; // Found registration
 
-                  operPolicyOutput = this.getPolicy(jsonResource);
-                  jsonPolicy = operPolicyOutput.getJSON();
+                  operPolicyOutput = this.await(futurePolicy, deadline,
+                     ConstantsIF.POLICY);
+
+                  jsonPolicy = (operPolicyOutput == null ? null
+                     : operPolicyOutput.getJSON());
 
                   if (jsonPolicy != null && !jsonPolicy.isEmpty()) {
                      access = ConstantsIF.SHARED; // Found policy
@@ -388,6 +461,8 @@ public class ResourcesResource extends RSResource {
                   }
 
                   jsonData.put(ConstantsIF.REGISTER, jsonRegister);
+               } else if (futurePolicy != null) {
+                  futurePolicy.cancel(true);
                }
             } else {
                this.abort(METHOD,
@@ -425,7 +500,7 @@ public class ResourcesResource extends RSResource {
    @DELETE
    @Path("{" + ConstantsIF.RESOURCE + "}")
    public Response delete(@PathParam(ConstantsIF.RESOURCE) String resourceUid) {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "delete";
       String registerUid = null;
       String access_token = null;
       String userId = null;
@@ -447,8 +522,6 @@ public class ResourcesResource extends RSResource {
          this.abort(METHOD, "Path resource is empty", Status.BAD_REQUEST);
       }
 
-      this.load();
-
       userId = this.getUserIdFromSSOSession();
 
       if (_logger.isLoggable(DEBUG_LEVEL)) {
@@ -574,7 +647,7 @@ public class ResourcesResource extends RSResource {
     */
    @Path("{" + ConstantsIF.ID + "}/" + ConstantsIF.META)
    public MetaResource useMeta(@PathParam(ConstantsIF.ID) String resourceUid) {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "useMeta";
       MetaResource metaResource = null;
 
       _logger.entering(CLASS, METHOD);
@@ -595,7 +668,7 @@ public class ResourcesResource extends RSResource {
     */
    @Path("{" + ConstantsIF.ID + "}/" + ConstantsIF.CONTENT)
    public ContentResource useContent(@PathParam(ConstantsIF.ID) String resourceUid) {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "useContent";
       ContentResource contentResource = null;
 
       _logger.entering(CLASS, METHOD);
@@ -616,7 +689,7 @@ public class ResourcesResource extends RSResource {
     */
    @Path("{" + ConstantsIF.ID + "}/" + ConstantsIF.REGISTER)
    public RegisterResource useRegister(@PathParam(ConstantsIF.ID) String resourceUid) {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "useRegister";
       RegisterResource registerResource = null;
 
       _logger.entering(CLASS, METHOD);
@@ -638,7 +711,7 @@ public class ResourcesResource extends RSResource {
     */
    @Path("{" + ConstantsIF.ID + "}/" + ConstantsIF.REGISTER + "/" + ConstantsIF.POLICY)
    public PolicyResource useRegsiterPolicy(@PathParam(ConstantsIF.ID) String resourceUid) {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "useRegsiterPolicy";
       PolicyResource policyResource = null;
 
       _logger.entering(CLASS, METHOD);
@@ -654,6 +727,231 @@ public class ResourcesResource extends RSResource {
    /*
     * =============== PRIVATE METHODS ===============
     */
+   /**
+    * Expand the search results, see search. Each resource document is
+    * replaced with the requested sections. The meta data and the register id
+    * are already in the documents returned by the search, there is no
+    * database read per resource. The registration and policy are read from
+    * the Authorization Server, concurrently, a resource that can not be read
+    * in time is returned without the "register" section.
+    *
+    * <pre>
+    * Cost per resource (registered resources only):
+    * - registration: RegisterHandler read, cached by register id for the same
+    *   PAT ("as.uma.resource_set.cache"), one AM call on a cache miss
+    * - policy: PolicyHandler read, cached by owner and register id
+    *   ("as.uma.policies.cache"), one AM call on a cache miss
+    * The AM UMA resource_set and policy endpoints do not have a batch read
+    * for a list of ids, so an uncached page of N resources costs N (or 2N
+    * with "policy") AM calls, at most "rs.fanout.parallelism" at a time.
+    * Use "pageSize" to bound the cost.
+    * </pre>
+    *
+    * @param operSearch OperationIF search output
+    * @param userId String authenticated user (owner)
+    * @param expand String sections to include, comma separated
+    * @return OperationIF output, see getSearchResponse
+    */
+   private OperationIF expandResults(final OperationIF operSearch,
+      final String userId, final String expand) {
+      boolean expandMeta = false;
+      boolean expandRegister = false;
+      boolean expandPolicy = false;
+      String METHOD = "expandResults";
+      String access_token = null;
+      String sso_token = null;
+      String access = null;
+      String cursor = null;
+      OperationIF operOutput = null;
+      JSONObject jsonResource = null;
+      JSONObject jsonResult = null;
+      JSONObject jsonRegister = null;
+      JSONObject jsonData = null;
+      JSONObject jsonOutput = null;
+      JSONArray arrayResults = null;
+      List<JSONObject> listResources = null;
+      List<JSONObject> listRegisters = null;
+
+      _logger.entering(CLASS, METHOD);
+
+      for (String section : expand.split(",")) {
+         switch (section.trim().toLowerCase()) {
+            case ConstantsIF.META:
+               expandMeta = true;
+               break;
+            case ConstantsIF.POLICY:
+               expandPolicy = true;
+               expandRegister = true;
+               break;
+            case ConstantsIF.REGISTER:
+               expandRegister = true;
+               break;
+            default:
+               this.abort(METHOD, "Query parameter '" + PARAM_EXPAND
+                  + "' has an unsupported value: '" + section + "'",
+                  Status.BAD_REQUEST);
+         }
+      }
+
+      listResources = new ArrayList<>();
+
+      arrayResults = JSON.getArray(operSearch.getJSON(),
+         ConstantsIF.DATA + "." + ConstantsIF.RESULTS);
+
+      if (arrayResults != null) {
+         for (Object obj : arrayResults) {
+            if (obj != null && obj instanceof JSONObject) {
+               listResources.add((JSONObject) obj);
+            }
+         }
+      }
+
+      /*
+       * Values from the HTTP request are read on this thread, once
+       */
+      if (expandRegister && !listResources.isEmpty()) {
+         access_token = this.getAccessToken();
+
+         if (expandPolicy) {
+            sso_token = this.getSSOTokenFromSSOSession();
+         }
+
+         listRegisters = this.fanOut(listResources,
+            this.getExpandFunction(userId, access_token, sso_token));
+      }
+
+      arrayResults = new JSONArray();
+
+      for (int i = 0; i < listResources.size(); i++) {
+         jsonResource = listResources.get(i);
+
+         jsonResult = new JSONObject();
+         jsonResult.put(ConstantsIF.UID,
+            JSON.getString(jsonResource, ConstantsIF.UID));
+         jsonResult.put(ConstantsIF.OWNER,
+            JSON.getString(jsonResource, ConstantsIF.DATA + "." + ConstantsIF.OWNER));
+
+         if (expandMeta) {
+            jsonResult.put(ConstantsIF.META,
+               JSON.getObject(jsonResource, ConstantsIF.DATA + "." + ConstantsIF.META));
+         }
+
+         if (expandRegister) {
+            access = ConstantsIF.PRIVATE;
+            jsonRegister = listRegisters.get(i);
+
+            if (jsonRegister != null && !jsonRegister.isEmpty()) {
+               access = (jsonRegister.containsKey(ConstantsIF.POLICY)
+                  ? ConstantsIF.SHARED : ConstantsIF.REGISTERED);
+
+               jsonResult.put(ConstantsIF.REGISTER, jsonRegister);
+            }
+
+            jsonResult.put(ConstantsIF.ACCESS, access);
+         }
+
+         arrayResults.add(jsonResult);
+      }
+
+      jsonData = new JSONObject();
+      jsonData.put(ConstantsIF.QUANTITY, arrayResults.size());
+      jsonData.put(ConstantsIF.RESULTS, arrayResults);
+
+      cursor = JSON.getString(operSearch.getJSON(),
+         ConstantsIF.DATA + "." + JaxrsHandlerIF.PAGE_CURSOR);
+
+      if (!STR.isEmpty(cursor)) {
+         jsonData.put(JaxrsHandlerIF.PAGE_CURSOR, cursor);
+      }
+
+      jsonOutput = new JSONObject();
+      jsonOutput.put(ConstantsIF.DATA, jsonData);
+
+      operOutput = new Operation(OperationIF.TYPE.SEARCH);
+      operOutput.setJSON(jsonOutput);
+      operOutput.setState(STATE.SUCCESS);
+      operOutput.setStatus(operSearch.getStatus());
+
+      _logger.exiting(CLASS, METHOD);
+
+      return operOutput;
+   }
+
+   /**
+    * Get the function that reads the registration (and policy) of a
+    * resource, see expandResults. Does not use the HTTP request.
+    *
+    * @param owner String owner
+    * @param access_token String access token (PAT) for the owner
+    * @param sso_token String sso token for the owner, null: no policy
+    * @return Function resource document to "register" section, null or
+    * empty if the resource is not registered
+    */
+   private Function<JSONObject, JSONObject> getExpandFunction(
+      final String owner, final String access_token, final String sso_token) {
+      return jsonResource -> {
+         JSONObject jsonRegister = null;
+         JSONObject jsonPolicy = null;
+
+         if (STR.isEmpty(JSON.getString(jsonResource,
+            ConstantsIF.DATA + "." + ConstantsIF.REGISTER))) {
+            return null;
+         }
+
+         jsonRegister = this.getRegistration(jsonResource, owner,
+            access_token).getJSON();
+
+         if (jsonRegister != null && !jsonRegister.isEmpty()
+            && !STR.isEmpty(sso_token)) {
+            jsonPolicy = this.getPolicy(jsonResource, sso_token, owner).getJSON();
+
+            if (jsonPolicy != null && !jsonPolicy.isEmpty()) {
+               jsonRegister.put(ConstantsIF.POLICY, jsonPolicy);
+            }
+         }
+
+         return jsonRegister;
+      };
+   }
+
+   /**
+    * Start reading the content, see read
+    *
+    * @param jsonResource JSONObject resource record
+    * @param jsonOptions JSONObject display options
+    * @return Future content output
+    */
+   private Future<OperationIF> getContentTask(final JSONObject jsonResource,
+      final JSONObject jsonOptions) {
+      return this.submit(() -> this.contentRead(jsonResource, jsonOptions));
+   }
+
+   /**
+    * Start reading the registration, see read
+    *
+    * @param jsonResource JSONObject resource record
+    * @param owner String owner
+    * @param access_token String access token (PAT) for the owner
+    * @return Future registration output
+    */
+   private Future<OperationIF> getRegistrationTask(final JSONObject jsonResource,
+      final String owner, final String access_token) {
+      return this.submit(() -> this.getRegistration(jsonResource, owner, access_token));
+   }
+
+   /**
+    * Start reading the policy, see read
+    *
+    * @param jsonResource JSONObject resource record
+    * @param sso_token String sso token for the owner
+    * @param owner String owner
+    * @return Future policy output
+    */
+   private Future<OperationIF> getPolicyTask(final JSONObject jsonResource,
+      final String sso_token, final String owner) {
+      return this.submit(() -> this.getPolicy(jsonResource, sso_token, owner));
+   }
+
    /**
     * Set meta data
     *
@@ -661,7 +959,7 @@ public class ResourcesResource extends RSResource {
     * @param jsonMeta JSONObject input
     */
    private void setMeta(final String resourceUid, final JSONObject jsonMeta) {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "setMeta";
       OperationIF operMetaInput = null;
       OperationIF operMetaOutput = null;
       JSONObject jsonInput = null;
@@ -713,7 +1011,7 @@ public class ResourcesResource extends RSResource {
     */
    private void setRegistration(final String resourceUid, 
       final JSONObject jsonInputData) {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "setRegistration";
       String access_token = null;
       String registerUid = null;
       OperationIF operResourceInput = null;
@@ -916,7 +1214,7 @@ public class ResourcesResource extends RSResource {
     */
    private void setPermissions(final String resourceUid, 
       final JSONObject jsonPolicyData) {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "setPermissions";
       String registerId = null;
       String sso_token = null;
       String owner = null;
@@ -61,12 +61,15 @@ public class SubjectsResource extends RSResource {
     * the UMA 2.0 specification, it is provided as a "value add" service using
     * Access Manager APIs
     * 
+    * The optional "pageSize" and "cursor" query parameters return a page of
+    * results, the "cursor" for the next page is in the response.
+    * 
     * @return Response HTTP response object
     */
    @GET
    @Produces(MediaType.APPLICATION_JSON)
    public Response search() {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "search";
       String userId = null;
       String sso_token = null;
       Response response = null;
@@ -79,8 +82,6 @@ public class SubjectsResource extends RSResource {
 
       operOutput = new Operation(OperationIF.TYPE.SEARCH);
 
-      this.load();
-
       subjectsHandler = this.getHandler(JaxrsHandlerIF.HANDLER_UMA_SUBJECTS);
 
       userId = this.getUserIdFromSSOSession(); // make sure authenticated user
@@ -95,13 +96,14 @@ public class SubjectsResource extends RSResource {
       jsonData.put(ConstantsIF.SSO_TOKEN, sso_token);
       jsonData.put(ConstantsIF.OWNER, userId);
 
+      this.setPageParams(jsonData);
+
       operInput = new Operation(OperationIF.TYPE.SEARCH);
       operInput.setJSON(jsonData);
 
       operOutput = subjectsHandler.process(operInput);
-      operOutput.setType(OperationIF.TYPE.READ); // treat as a "read"
 
-      response = this.getResponseFromJSON(_uriInfo, operOutput);
+      response = this.getSearchResponse(_uriInfo, operOutput);
 
       _logger.exiting(CLASS, METHOD);
 
@@ -59,13 +59,16 @@ public class DiscoverResource extends RSResource {
    /**
     * Search for "discoverable" resources associated a specific owner
     * 
+    * The optional "pageSize" and "cursor" query parameters return a page of
+    * results, the "cursor" for the next page is in the response.
+    * 
     * @return Response HTTP response object
     */
    @GET
    @Produces(MediaType.APPLICATION_JSON)
    public Response search() {
       Object obj = null;
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "search";
       String attribute = null;
       String value = null;
       String subject = null;
@@ -86,8 +89,6 @@ public class DiscoverResource extends RSResource {
 
       operOutput = new Operation(OperationIF.TYPE.SEARCH);
 
-      this.load();
-
       subject = this.getUserIdFromSSOSession(); // require a SSO session
 
       discoverHandler = this.getHandler(JaxrsHandlerIF.HANDLER_UMA_DISCOVER);
@@ -127,13 +128,14 @@ public class DiscoverResource extends RSResource {
          jsonData.put(ConstantsIF.QUERY, jsonQuery);
       }
 
+      this.setPageParams(jsonData);
+
       operInput = new Operation(OperationIF.TYPE.SEARCH);
       operInput.setJSON(jsonData);
 
       operOutput = discoverHandler.process(operInput);
-      operOutput.setType(OperationIF.TYPE.READ); // treat as a "read"
 
-      response = this.getResponseFromJSON(_uriInfo, operOutput);
+      response = this.getSearchResponse(_uriInfo, operOutput);
 
       _logger.exiting(CLASS, METHOD);
 
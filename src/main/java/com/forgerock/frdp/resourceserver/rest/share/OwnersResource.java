@@ -53,7 +53,7 @@ public class OwnersResource extends RSResource {
     */
    @Path("{" + ConstantsIF.ID + "}/" + ConstantsIF.DISCOVER)
    public DiscoverResource useDiscover(@PathParam(ConstantsIF.ID) String owner) {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "useDiscover";
       DiscoverResource discoverResource = null;
 
       _logger.entering(CLASS, METHOD);
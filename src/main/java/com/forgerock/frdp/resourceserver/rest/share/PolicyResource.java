@@ -66,7 +66,7 @@ public class PolicyResource extends RSResource {
     */
    @DELETE
    public Response delete() {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "delete";
       String subject = null;
       Response response = null;
       OperationIF operOutput = null;
@@ -77,8 +77,6 @@ public class PolicyResource extends RSResource {
          this.abort(METHOD, "Path resource is empty", Status.BAD_REQUEST);
       }
 
-      this.load();
-
       subject = this.getUserIdFromSSOSession(); // require a SSO session
 
       operOutput = this.updatePolicy(subject); // no scopes, remove permission
@@ -135,7 +133,7 @@ public class PolicyResource extends RSResource {
     */
    private OperationIF updatePolicy(final String subject) {
       boolean changed = false;
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "updatePolicy";
       String registerId = null;
       String owner = null;
       String sso_token = null;
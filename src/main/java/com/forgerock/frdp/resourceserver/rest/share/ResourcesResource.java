@@ -10,6 +10,8 @@ import com.forgerock.frdp.common.DataIF;
 import com.forgerock.frdp.dao.Operation;
 import com.forgerock.frdp.dao.OperationIF;
 import com.forgerock.frdp.resourceserver.ConfigIF;
+import com.forgerock.frdp.resourceserver.cache.ExpiringCache;
+import com.forgerock.frdp.resourceserver.cache.TokenIntrospection;
 import com.forgerock.frdp.resourceserver.handler.JaxrsHandlerIF;
 import com.forgerock.frdp.resourceserver.rest.RSResource;
 import com.forgerock.frdp.utils.JSON;
@@ -92,14 +94,12 @@ public class ResourcesResource extends RSResource {
    @Produces(MediaType.APPLICATION_JSON)
    public Response getResources(@PathParam(ConstantsIF.ID) String resourceUid,
       @QueryParam(ConstantsIF.SCOPES) String scopes) {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "getResources";
       Response response = null;
       OperationIF operOutput = null;
 
       _logger.entering(CLASS, METHOD);
 
-      this.load();
-
       if (_logger.isLoggable(DEBUG_LEVEL)) {
          _logger.log(DEBUG_LEVEL, "resourceUid=''{0}'', scopes=''{1}''",
             new Object[]{
@@ -125,7 +125,7 @@ public class ResourcesResource extends RSResource {
     */
    @Path("/{" + ConstantsIF.ID + "}/" + ConstantsIF.POLICY)
    public PolicyResource usePolicy(@PathParam(ConstantsIF.ID) String resourceUid) {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "usePolicy";
       PolicyResource policyResource = null;
 
       _logger.entering(CLASS, METHOD);
@@ -159,7 +159,7 @@ public class ResourcesResource extends RSResource {
       boolean bMeta = false;
       boolean bContent = false;
       boolean bDiscoverable = false;
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "readImpl";
       String msg = null;
       String registerId = null;
       String owner = null;
@@ -393,7 +393,7 @@ public class ResourcesResource extends RSResource {
    private boolean validateScopes(final JSONArray request, final JSONArray resource) {
       boolean valid = true;
       boolean found = false;
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "validateScopes";
 
       /*
        * All of the "request" scopes MUST be in "resource" scopes
@@ -435,6 +435,8 @@ public class ResourcesResource extends RSResource {
     * Note: the RPT is just an "access token". Call the Authorization Server
     * (AS) to validate the token. Check validate scope(s) and the Request Uid
     * (mathes related Resource uid).
+    * The introspection result is cached, by a digest of the RPT, so a cache
+    * hit does not need the PAT or a call to the AS.
     *
     * <pre>
     * JSON Data ...
@@ -478,14 +480,13 @@ public class ResourcesResource extends RSResource {
     * @return DataIF output
     */
    private DataIF validateRPT(final String scopes, final OperationIF operResource) {
-      boolean[] inputVerifiedArray = null;
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      long ttl = 0L;
+      String METHOD = "validateRPT";
       String rpt = null; // UMA Requesting Party Token (OAuth2 access token)
+      String rptKey = null; // digest of the RPT, cache key
       String owner = null;
+      String registerId = null;
       String pat = null; // UMA Protection API Token (OAuth2 access token)
-      String resourceScope = null;
-      String inputScope = null;
-      String[] inputScopesArray = null;
       DataIF data = null;
       OperationIF operOauthInput = null;
       OperationIF operOauthOutput = null;
@@ -495,23 +496,15 @@ public class ResourcesResource extends RSResource {
       JSONObject jsonQueryParams = null;
       JSONObject jsonInput = null;
       JSONObject jsonOutput = null;
-      JSONObject permission = null;
-      JSONArray jsonPermissions = null;
       JSONArray jsonResourceScopes = null;
+      TokenIntrospection introspection = null;
+      ExpiringCache<String, TokenIntrospection> rptCache = null;
       JaxrsHandlerIF oauth2Handler = null;
 
       _logger.entering(CLASS, METHOD);
 
       data = new BasicData();
 
-      oauth2Handler = this.getHandler(JaxrsHandlerIF.HANDLER_AMOAUTH2);
-
-      if (oauth2Handler.getState() != STATE.READY) {
-         this.abort(METHOD,
-            "OAuth2 Handler not ready: " + oauth2Handler.getState().toString() + ", " + oauth2Handler.getStatus(),
-            Response.Status.INTERNAL_SERVER_ERROR);
-      }
-
       rpt = this.getAttributeFromHeader(ConfigIF.RS_HEADERS_RPT, false);
 
       if (_logger.isLoggable(DEBUG_LEVEL)) {
@@ -529,105 +522,79 @@ public class ResourcesResource extends RSResource {
          jsonResource = JSON.getObject(operResource.getJSON(), ConstantsIF.DATA);
 
          owner = JSON.getString(jsonResource, ConstantsIF.OWNER);
+         registerId = JSON.getString(jsonResource, ConstantsIF.REGISTER);
+
+         /*
+          * Check the cache before getting the PAT and introspecting the RPT
+          */
+         rptCache = this.getRPTCache();
+         rptKey = ExpiringCache.digest(rpt);
+         introspection = rptCache.get(rptKey);
+
+         if (introspection == null) {
+            oauth2Handler = this.getHandler(JaxrsHandlerIF.HANDLER_AMOAUTH2);
+
+            if (oauth2Handler.getState() != STATE.READY) {
+               this.abort(METHOD,
+                  "OAuth2 Handler not ready: " + oauth2Handler.getState().toString() + ", " + oauth2Handler.getStatus(),
+                  Response.Status.INTERNAL_SERVER_ERROR);
+            }
 
-         pat = this.getAccessToken(owner);
-
-         jsonHeaders = new JSONObject();
-         jsonHeaders.put(ConstantsIF.HDR_AUTHORIZATION, "Bearer " + pat);
-         jsonHeaders.put(ConstantsIF.HDR_ACCEPT, ConstantsIF.TYPE_JSON);
+            pat = this.getAccessToken(owner);
 
-         jsonQueryParams = new JSONObject();
-         jsonQueryParams.put(ConstantsIF.TOKEN, rpt);
+            jsonHeaders = new JSONObject();
+            jsonHeaders.put(ConstantsIF.HDR_AUTHORIZATION, "Bearer " + pat);
+            jsonHeaders.put(ConstantsIF.HDR_ACCEPT, ConstantsIF.TYPE_JSON);
 
-         jsonInput = new JSONObject();
-         jsonInput.put(ConstantsIF.PATH, ConstantsIF.INTROSPECT);
-         jsonInput.put(ConstantsIF.HEADERS, jsonHeaders);
-         jsonInput.put(ConstantsIF.QUERY_PARAMS, jsonQueryParams);
+            jsonQueryParams = new JSONObject();
+            jsonQueryParams.put(ConstantsIF.TOKEN, rpt);
 
-         operOauthInput = new Operation(OperationIF.TYPE.READ);
-         operOauthInput.setJSON(jsonInput);
+            jsonInput = new JSONObject();
+            jsonInput.put(ConstantsIF.PATH, ConstantsIF.INTROSPECT);
+            jsonInput.put(ConstantsIF.HEADERS, jsonHeaders);
+            jsonInput.put(ConstantsIF.QUERY_PARAMS, jsonQueryParams);
 
-         operOauthOutput = oauth2Handler.process(operOauthInput); // validate the RPT
+            operOauthInput = new Operation(OperationIF.TYPE.READ);
+            operOauthInput.setJSON(jsonInput);
 
-         if (operOauthOutput.getState() == STATE.SUCCESS) {
+            operOauthOutput = oauth2Handler.process(operOauthInput); // validate the RPT
 
-            jsonOutput = JSON.getObject(operOauthOutput.getJSON(), ConstantsIF.DATA);
+            if (operOauthOutput.getState() == STATE.SUCCESS) {
+               jsonOutput = JSON.getObject(operOauthOutput.getJSON(), ConstantsIF.DATA);
 
-            if (JSON.getBoolean(jsonOutput, ConstantsIF.ACTIVE)) {
-               /*
-                * Need to check: The response "resource_id" equals the resource.register The
-                * response "resource_scopes" contain provides scopes Loop through the
-                * "permissions" array ...
-                */
-               jsonPermissions = JSON.getArray(jsonOutput, ConstantsIF.PERMISSIONS);
-               inputScopesArray = scopes.split(" ");
-               inputVerifiedArray = new boolean[inputScopesArray.length];
-
-               if (jsonPermissions != null && !jsonPermissions.isEmpty()) {
-                  if (_logger.isLoggable(DEBUG_LEVEL)) {
-                     _logger.log(DEBUG_LEVEL, "scopes=''{0}'', permissions=''{1}''",
-                        new Object[]{scopes, jsonPermissions.toString()});
-                  }
+               introspection = new TokenIntrospection(jsonOutput);
 
-                  for (boolean b : inputVerifiedArray) // initialize to false
-                  {
-                     b = false;
-                  }
+               rptCache.put(rptKey, introspection, this.getRPTCacheTimeToLive(introspection));
+            } else { // introspect error, not cached
+               data.setError(operOauthOutput.isError());
+               data.setState(STATE.ERROR);
+               data.setStatus(operOauthOutput.getStatus());
+            }
+         }
 
-                  for (int i = 0; i < jsonPermissions.size(); i++) // each permission
-                  {
-                     permission = JSON.getObject(jsonOutput, ConstantsIF.PERMISSIONS + "[" + i + "]");
-
-                     if (permission != null && !permission.isEmpty()) {
-                        if (JSON.getString(jsonResource, ConstantsIF.REGISTER)
-                           .equals(JSON.getString(permission, ConstantsIF.RESOURCE_ID))) {
-                           jsonResourceScopes = JSON.getArray(permission, ConstantsIF.RESOURCE_SCOPES);
-
-                           if (jsonResourceScopes != null && !jsonResourceScopes.isEmpty()) {
-                              for (int j = 0; j < jsonResourceScopes.size(); j++) // each resource scope
-                              {
-                                 resourceScope = JSON.getString(permission, ConstantsIF.RESOURCE_SCOPES + "[" + j + "]");
-
-                                 if (!STR.isEmpty(resourceScope)) {
-                                    for (int k = 0; k < inputScopesArray.length; k++) // each input scope
-                                    {
-                                       inputScope = inputScopesArray[k];
-
-                                       if (!STR.isEmpty(inputScope)) {
-                                          if (resourceScope.equalsIgnoreCase(inputScope)) {
-                                             inputVerifiedArray[k] = true;
-                                             break;
-                                          }
-                                       }
-                                    }
-                                 }
-                              }
-                           }
-                           break; // done processing the array of permissions
-                        }
-                     }
-                  }
-               }
+         if (introspection != null) {
+            if (introspection.isActive()) {
                /*
-                * check the verified array, all MUST be True ... to return True
+                * Need to check: The permission "resource_id" equals the resource.register 
+                * The permission "resource_scopes" contain all of the requested scopes
                 */
+               if (_logger.isLoggable(DEBUG_LEVEL)) {
+                  _logger.log(DEBUG_LEVEL, "scopes=''{0}'', register=''{1}''",
+                     new Object[]{scopes, registerId});
+               }
 
-               for (boolean b : inputVerifiedArray) {
-                  if (b == false) {
-                     data.setError(true);
-                     data.setState(STATE.FAILED);
-                     data.setStatus("Requested scope(s) not found in Token scopes");
-                  }
+               jsonResourceScopes = introspection.getResourceScopes(registerId);
+
+               if (!introspection.hasScopes(registerId, (scopes == null ? "" : scopes).split(" "))) {
+                  data.setError(true);
+                  data.setState(STATE.FAILED);
+                  data.setStatus("Requested scope(s) not found in Token scopes");
                }
             } else { // active == false
                data.setError(true);
                data.setState(STATE.FAILED);
                data.setStatus("Requesting Party Token is NOT valid");
             }
-         } else { // introspect error
-            data.setError(operOauthOutput.isError());
-            data.setState(STATE.ERROR);
-            data.setStatus(operOauthOutput.getStatus());
          }
       } else { // RPT is empty
          rpt = null;
@@ -656,6 +623,40 @@ public class ResourcesResource extends RSResource {
       return data;
    }
 
+   /**
+    * Get the cache time-to-live (milliseconds) for an RPT introspection. An
+    * active token is cached until the earliest "exp" (token or permission),
+    * not longer than the "max_ttl".
+    * An inactive token is cached for the "inactive_ttl".
+    *
+    * @param introspection TokenIntrospection result
+    * @return long time-to-live, milliseconds
+    */
+   private long getRPTCacheTimeToLive(final TokenIntrospection introspection) {
+      String METHOD = "getRPTCacheTimeToLive";
+      long ttl = 0L;
+      long remaining = 0L;
+
+      _logger.entering(CLASS, METHOD);
+
+      if (introspection.isActive()) {
+         ttl = this.getConfigValueAsLong(ConstantsIF.RESOURCE,
+            ConfigIF.AS_OAUTH2_INTROSPECT_CACHE_MAX_TTL, 300L) * 1000L;
+
+         if (introspection.getEarliestExpires() > 0L) {
+            remaining = introspection.getEarliestExpires() - System.currentTimeMillis();
+            ttl = Math.min(ttl, remaining);
+         }
+      } else {
+         ttl = this.getConfigValueAsLong(ConstantsIF.RESOURCE,
+            ConfigIF.AS_OAUTH2_INTROSPECT_CACHE_INACTIVE_TTL, 5L) * 1000L;
+      }
+
+      _logger.exiting(CLASS, METHOD);
+
+      return ttl;
+   }
+
    /**
     * Get the Permission Ticket
     *
@@ -699,7 +700,7 @@ public class ResourcesResource extends RSResource {
     * @return OperationIF output
     */
    private OperationIF getPermssionTicket(final String scopes, final OperationIF operResource) {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "getPermssionTicket";
       String owner = null;
       String registerId = null;
       String pat = null; // UMA Protection API Token (is a OAuth2 access token)
@@ -812,7 +813,7 @@ public class ResourcesResource extends RSResource {
     * @return JSONArray output
     */
    private JSONArray getPolicyScopes(final String resourceUid, final String owner, final String rqp) {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "getPolicyScopes";
       String sso_token = null; // Proxy Admin Token
       String subject = null;
       JSONArray arrayScopes = null;
@@ -863,7 +864,7 @@ public class ResourcesResource extends RSResource {
       boolean found = false;
       int policyIn = 0;
       int policyOut = 0;
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "isRequestMixed";
 
       /*
        */
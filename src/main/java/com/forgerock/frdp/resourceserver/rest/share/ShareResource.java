@@ -46,7 +46,7 @@ public class ShareResource extends RSResource {
     */
    @Path(PATH_RESOURCES)
    public ResourcesResource useResources() {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "useResources";
       ResourcesResource resourcesResource = null;
 
       _logger.entering(CLASS, METHOD);
@@ -65,7 +65,7 @@ public class ShareResource extends RSResource {
     */
    @Path(PATH_OWNERS)
    public OwnersResource useOwners() {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "useOwners";
       OwnersResource ownersResource = null;
 
       _logger.entering(CLASS, METHOD);
@@ -84,7 +84,7 @@ public class ShareResource extends RSResource {
     */
    @Path(PATH_WITHME)
    public WithMeResource useSharedWithMe() {
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "useSharedWithMe";
       WithMeResource sharedResource = null;
 
       _logger.entering(CLASS, METHOD);
@@ -60,13 +60,16 @@ public class WithMeResource extends RSResource {
     * parameter is "name", search for resources that have matching "name"
     * (priority) If "type", search for resources that have matching "type"
     * 
+    * The optional "pageSize" and "cursor" query parameters return a page of
+    * results, the "cursor" for the next page is in the response.
+    * 
     * @return Response HTTP response object
     */
    @GET
    @Produces(MediaType.APPLICATION_JSON)
    public Response search() {
       Object obj = null;
-      String METHOD = Thread.currentThread().getStackTrace()[1].getMethodName();
+      String METHOD = "search";
       String attribute = null;
       String value = null;
       String sso_token = null;
@@ -81,8 +84,6 @@ public class WithMeResource extends RSResource {
 
       _logger.entering(CLASS, METHOD);
 
-      this.load();
-
       operOutput = new Operation(OperationIF.TYPE.SEARCH);
 
       sharedHandler = this.getHandler(JaxrsHandlerIF.HANDLER_UMA_SHAREDWITHME);
@@ -125,13 +126,14 @@ public class WithMeResource extends RSResource {
          jsonData.put(ConstantsIF.QUERY, jsonQuery);
       }
 
+      this.setPageParams(jsonData);
+
       operInput = new Operation(OperationIF.TYPE.SEARCH);
       operInput.setJSON(jsonData);
 
       operOutput = sharedHandler.process(operInput);
-      operOutput.setType(OperationIF.TYPE.READ); // treat as a "read"
 
-      response = this.getResponseFromJSON(_uriInfo, operOutput);
+      response = this.getSearchResponse(_uriInfo, operOutput);
 
       _logger.exiting(CLASS, METHOD);
 
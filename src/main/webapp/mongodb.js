@@ -18,6 +18,8 @@ db.createCollection("resources");
 db.resources.createIndex({"uid": 1});
 db.resources.createIndex({"data.owner": 1});
 db.resources.createIndex({"data.register": 1});
+// "discover" search: owner + discoverable, the name / type filter is applied to these results
+db.resources.createIndex({"data.owner": 1, "data.meta.discoverable": 1});
 db.resources.insert({"comment": "This is a test document"});
 
 //
@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2020, ForgeRock, Inc., All rights reserved
+ * Use subject to license terms.
+ */
+package com.forgerock.frdp.resourceserver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.junit.Test;
+
+/**
+ * Tests for the ConfigSnapshot: "dot" names, owner substitution, numbers and copies
+ *
+ * @author Scott Fehrman, ForgeRock, Inc.
+ */
+public class ConfigSnapshotTest {
+
+   @Test
+   public void valuesAreIndexedByDotName() {
+      ConfigSnapshot config = new ConfigSnapshot(getConfig());
+
+      assertEquals("https", config.getString("as.connect.protocol"));
+      assertEquals("8443", config.getString("as.connect.port"));
+      assertEquals("true", config.getString("as.connect.secure"));
+      assertNull(config.getString("as.connect")); // object, not a value
+      assertNull(config.getString("as.missing"));
+   }
+
+   @Test
+   public void ownerIsReplaced() {
+      ConfigSnapshot config = new ConfigSnapshot(getConfig());
+
+      assertEquals("json/realms/root/users/bjensen/uma/policies",
+         config.getString("as.uma.policies.path", "bjensen"));
+   }
+
+   @Test
+   public void everyOwnerIsReplaced() {
+      ConfigSnapshot config = new ConfigSnapshot(getConfig());
+
+      assertEquals("bjensen/a/bjensen/b/bjensen",
+         config.getString("as.uma.multiple", "bjensen"));
+   }
+
+   @Test
+   public void ownerIsLiteral() {
+      ConfigSnapshot config = new ConfigSnapshot(getConfig());
+
+      assertEquals("json/realms/root/users/a$1\\b/uma/policies",
+         config.getString("as.uma.policies.path", "a$1\\b"));
+   }
+
+   @Test
+   public void valueWithoutOwnerIsUnchanged() {
+      ConfigSnapshot config = new ConfigSnapshot(getConfig());
+
+      assertEquals("https", config.getString("as.connect.protocol", "bjensen"));
+      assertEquals("json/realms/root/users/" + ConfigSnapshot.VAR_OWNER + "/uma/policies",
+         config.getString("as.uma.policies.path"));
+   }
+
+   @Test
+   public void objectsAndArraysAreCopied() {
+      JSONObject json = null;
+      JSONArray array = null;
+      ConfigSnapshot config = null;
+
+      json = getConfig();
+      config = new ConfigSnapshot(json);
+
+      ((JSONObject) ((JSONObject) json.get("as")).get("connect")).put("port", 1);
+      config.getObject("as.connect").put("port", 2);
+      array = config.getArray("as.uma.scopes");
+      array.clear();
+
+      assertEquals("8443", config.getObject("as.connect").get("port").toString());
+      assertEquals(2, config.getArray("as.uma.scopes").size());
+      assertNull(config.getObject("as.uma.scopes"));
+      assertNull(config.getArray("as.connect"));
+   }
+
+   @Test
+   public void numbersUseTheDefaultIfNotValid() {
+      ConfigSnapshot config = new ConfigSnapshot(getConfig());
+
+      assertEquals(8443L, config.getLong("as.connect.port", 0L));
+      assertEquals(42L, config.getLong("as.connect.protocol", 42L));
+      assertEquals(42L, config.getLong("as.missing", 42L));
+      assertEquals(7L, ConfigSnapshot.toLong("name", " 7 ", 42L));
+      assertEquals(42L, ConfigSnapshot.toLong("name", " ", 42L));
+      assertEquals(42L, ConfigSnapshot.toLong("name", null, 42L));
+   }
+
+   @Test
+   public void nullConfigIsEmpty() {
+      ConfigSnapshot config = new ConfigSnapshot(null);
+
+      assertNull(config.getString("as.connect.protocol"));
+      assertNull(config.getString("as.uma.policies.path", "bjensen"));
+   }
+
+   /*
+    * =============== PRIVATE METHODS ===============
+    */
+   private static JSONObject getConfig() {
+      JSONObject json = null;
+      JSONObject jsonAS = null;
+      JSONObject jsonConnect = null;
+      JSONObject jsonUma = null;
+      JSONObject jsonPolicies = null;
+      JSONArray arrayScopes = null;
+
+      jsonConnect = new JSONObject();
+      jsonConnect.put("protocol", "https");
+      jsonConnect.put("port", 8443L);
+      jsonConnect.put("secure", true);
+
+      jsonPolicies = new JSONObject();
+      jsonPolicies.put("path", "json/realms/root/users/" + ConfigSnapshot.VAR_OWNER + "/uma/policies");
+
+      arrayScopes = new JSONArray();
+      arrayScopes.add("meta");
+      arrayScopes.add("content");
+
+      jsonUma = new JSONObject();
+      jsonUma.put("policies", jsonPolicies);
+      jsonUma.put("scopes", arrayScopes);
+      jsonUma.put("multiple", ConfigSnapshot.VAR_OWNER + "/a/"
+         + ConfigSnapshot.VAR_OWNER + "/b/" + ConfigSnapshot.VAR_OWNER);
+
+      jsonAS = new JSONObject();
+      jsonAS.put("connect", jsonConnect);
+      jsonAS.put("uma", jsonUma);
+
+      json = new JSONObject();
+      json.put("as", jsonAS);
+
+      return json;
+   }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2020, ForgeRock, Inc., All rights reserved
+ * Use subject to license terms.
+ */
+package com.forgerock.frdp.resourceserver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+/**
+ * Tests for the WorkerPool: invokeAll() ordering, failures, the timeout and
+ * nested calls
+ *
+ * @author Scott Fehrman, ForgeRock, Inc.
+ */
+public class WorkerPoolTest {
+
+   @Test
+   public void outputsAreInInputOrder() {
+      List<Integer> inputs = new ArrayList<>();
+      List<String> outputs = null;
+
+      for (int i = 0; i < 50; i++) {
+         inputs.add(i);
+      }
+
+      outputs = WorkerPool.invokeAll(inputs, i -> {
+         sleep((50 - i) % 5); // finish out of order
+         return "out-" + i;
+      }, 8, 10000L);
+
+      assertEquals(inputs.size(), outputs.size());
+
+      for (int i = 0; i < inputs.size(); i++) {
+         assertEquals("out-" + i, outputs.get(i));
+      }
+   }
+
+   @Test
+   public void singleWorkerRunsInline() {
+      Thread caller = Thread.currentThread();
+      List<Boolean> outputs = null;
+
+      outputs = WorkerPool.invokeAll(Arrays.asList(1, 2, 3),
+         i -> Thread.currentThread() == caller, 1, 10000L);
+
+      assertEquals(Arrays.asList(true, true, true), outputs);
+   }
+
+   @Test
+   public void failedAndNullOutputsAreNull() {
+      List<String> outputs = null;
+
+      outputs = WorkerPool.invokeAll(Arrays.asList(1, 2, 3, 4), i -> {
+         if (i == 2) {
+            throw new IllegalStateException("failed");
+         }
+         return (i == 3 ? null : "out-" + i);
+      }, 4, 10000L);
+
+      assertEquals(Arrays.asList("out-1", null, null, "out-4"), outputs);
+   }
+
+   @Test
+   public void timeoutLeavesUnprocessedOutputsNull() {
+      long start = 0L;
+      List<Integer> inputs = new ArrayList<>();
+      List<String> outputs = null;
+
+      for (int i = 0; i < 20; i++) {
+         inputs.add(i);
+      }
+
+      start = System.currentTimeMillis();
+
+      outputs = WorkerPool.invokeAll(inputs, i -> {
+         sleep(i == 0 ? 0L : 200L);
+         return "out-" + i;
+      }, 2, 100L);
+
+      assertTrue(System.currentTimeMillis() - start < 5000L);
+      assertEquals(inputs.size(), outputs.size());
+      assertEquals("out-0", outputs.get(0));
+      assertNull(outputs.get(inputs.size() - 1));
+   }
+
+   @Test
+   public void nestedInvokeAllRunsInline() throws Exception {
+      List<Boolean> outputs = null;
+
+      outputs = WorkerPool.getExecutor().submit(() -> {
+         Thread poolThread = Thread.currentThread();
+
+         return WorkerPool.invokeAll(Arrays.asList(1, 2, 3, 4), i -> {
+            sleep(10L);
+            return Thread.currentThread() == poolThread;
+         }, 4, 10000L);
+      }).get(10L, TimeUnit.SECONDS);
+
+      assertEquals(Arrays.asList(true, true, true, true), outputs);
+   }
+
+   @Test
+   public void nestedInvokeAllFromEveryThreadCompletes() throws Exception {
+      int threads = 96; // more than the pool threads (64)
+      List<Future<List<String>>> futures = new ArrayList<>();
+
+      /*
+       * Every task fans out from a pool thread, none of them may wait for
+       * queued tasks
+       */
+      for (int t = 0; t < threads; t++) {
+         futures.add(WorkerPool.getExecutor().submit(() ->
+            WorkerPool.invokeAll(Arrays.asList(1, 2), i -> {
+               sleep(20L);
+               return "out-" + i;
+            }, 2, 10000L)));
+      }
+
+      for (Future<List<String>> future : futures) {
+         assertEquals(Arrays.asList("out-1", "out-2"), future.get(10L, TimeUnit.SECONDS));
+      }
+   }
+
+   @Test
+   public void noInputsNoOutputs() {
+      assertTrue(WorkerPool.invokeAll(null, i -> i, 4, 1000L).isEmpty());
+      assertTrue(WorkerPool.invokeAll(new ArrayList<Integer>(), i -> i, 4, 1000L).isEmpty());
+   }
+
+   /*
+    * =============== PRIVATE METHODS ===============
+    */
+   private static void sleep(final long millis) {
+      try {
+         Thread.sleep(millis);
+      } catch (InterruptedException ex) {
+         Thread.currentThread().interrupt();
+      }
+
+      return;
+   }
+}
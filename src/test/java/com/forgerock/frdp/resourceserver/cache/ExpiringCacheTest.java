@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2020, ForgeRock, Inc., All rights reserved
+ * Use subject to license terms.
+ */
+package com.forgerock.frdp.resourceserver.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+/**
+ * Tests for the ExpiringCache: expiry, removal and the size bound
+ *
+ * @author Scott Fehrman, ForgeRock, Inc.
+ */
+public class ExpiringCacheTest {
+
+   @Test
+   public void getReturnsValueBeforeExpiry() {
+      ExpiringCache<String, String> cache = new ExpiringCache<>(10);
+
+      cache.put("key", "value", 60000L);
+
+      assertEquals("value", cache.get("key"));
+      assertEquals(1, cache.size());
+   }
+
+   @Test
+   public void getRemovesExpiredEntry() throws InterruptedException {
+      ExpiringCache<String, String> cache = new ExpiringCache<>(10);
+
+      cache.put("key", "value", 20L);
+
+      Thread.sleep(50L);
+
+      assertNull(cache.get("key"));
+      assertEquals(0, cache.size());
+   }
+
+   @Test
+   public void putWithoutTimeToLiveRemovesKey() {
+      ExpiringCache<String, String> cache = new ExpiringCache<>(10);
+
+      cache.put("key", "value", 60000L);
+      cache.put("key", "value", 0L);
+
+      assertNull(cache.get("key"));
+   }
+
+   @Test
+   public void putNullValueRemovesKey() {
+      ExpiringCache<String, String> cache = new ExpiringCache<>(10);
+
+      cache.put("key", "value", 60000L);
+      cache.put("key", null, 60000L);
+
+      assertNull(cache.get("key"));
+   }
+
+   @Test
+   public void removeAndClear() {
+      ExpiringCache<String, String> cache = new ExpiringCache<>(10);
+
+      cache.put("a", "1", 60000L);
+      cache.put("b", "2", 60000L);
+      cache.remove("a");
+
+      assertNull(cache.get("a"));
+      assertEquals("2", cache.get("b"));
+
+      cache.clear();
+
+      assertEquals(0, cache.size());
+   }
+
+   @Test
+   public void leastRecentlyUsedEntryIsRemovedWhenFull() {
+      ExpiringCache<String, String> cache = new ExpiringCache<>(2);
+
+      cache.put("a", "1", 60000L);
+      cache.put("b", "2", 60000L);
+      cache.get("a"); // "b" is now the least recently used
+      cache.put("c", "3", 60000L);
+
+      assertEquals(2, cache.size());
+      assertEquals("1", cache.get("a"));
+      assertNull(cache.get("b"));
+      assertEquals("3", cache.get("c"));
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void maxEntriesMustBePositive() {
+      new ExpiringCache<String, String>(0);
+   }
+
+   @Test
+   public void digestIsStableAndHidesTheValue() {
+      String digest = ExpiringCache.digest("secret");
+
+      assertEquals(64, digest.length());
+      assertEquals(digest, ExpiringCache.digest("secret"));
+      assertNotEquals(digest, ExpiringCache.digest("Secret"));
+      assertNull(ExpiringCache.digest(null));
+   }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2020, ForgeRock, Inc., All rights reserved
+ * Use subject to license terms.
+ */
+package com.forgerock.frdp.resourceserver.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.junit.Test;
+
+/**
+ * Tests for the ResourceCache: versioned puts, invalidation, copies and the
+ * negative results
+ *
+ * @author Scott Fehrman, ForgeRock, Inc.
+ */
+public class ResourceCacheTest {
+
+   private static final String UID = "ff1667c5-ce54-4095-a385-734ab9bcfe3d";
+
+   @Test
+   public void putAndGet() {
+      ResourceCache cache = new ResourceCache(10, 60000L, 60000L);
+
+      cache.put(UID, cache.getVersion(), getResource("Savings"));
+
+      assertEquals("Savings", getName(cache.get(UID)));
+   }
+
+   @Test
+   public void putIsIgnoredIfTheVersionChanged() {
+      long version = 0L;
+      ResourceCache cache = new ResourceCache(10, 60000L, 60000L);
+
+      version = cache.getVersion(); // read started
+      cache.invalidate(UID); // concurrent change
+      cache.put(UID, version, getResource("Savings"));
+
+      assertNull(cache.get(UID));
+   }
+
+   @Test
+   public void invalidateRemovesTheDocument() {
+      long version = 0L;
+      ResourceCache cache = new ResourceCache(10, 60000L, 60000L);
+
+      cache.put(UID, cache.getVersion(), getResource("Savings"));
+
+      version = cache.getVersion();
+      cache.invalidate(UID);
+
+      assertNull(cache.get(UID));
+      assertEquals(version + 1L, cache.getVersion());
+   }
+
+   @Test
+   public void documentExpires() throws InterruptedException {
+      ResourceCache cache = new ResourceCache(10, 20L, 60000L);
+
+      cache.put(UID, cache.getVersion(), getResource("Savings"));
+
+      Thread.sleep(50L);
+
+      assertNull(cache.get(UID));
+   }
+
+   @Test
+   public void documentsAreCopiedInAndOut() {
+      JSONObject json = null;
+      ResourceCache cache = new ResourceCache(10, 60000L, 60000L);
+
+      json = getResource("Savings");
+      cache.put(UID, cache.getVersion(), json);
+
+      getMeta(json).put("name", "changed after put");
+      getMeta(cache.get(UID)).put("name", "changed after get");
+      ((JSONArray) getMeta(cache.get(UID)).get("labels")).clear();
+
+      assertEquals("Savings", getName(cache.get(UID)));
+      assertEquals(1, ((JSONArray) getMeta(cache.get(UID)).get("labels")).size());
+   }
+
+   @Test
+   public void disabledCacheKeepsTheVersion() {
+      ResourceCache cache = new ResourceCache(0, 60000L, 60000L);
+
+      cache.put(UID, cache.getVersion(), getResource("Savings"));
+      cache.putNotExist(UID, cache.getVersion());
+      cache.invalidate(UID);
+
+      assertNull(cache.get(UID));
+      assertFalse(cache.isNotExist(UID));
+      assertEquals(1L, cache.getVersion());
+      assertFalse((Boolean) cache.getStats().get("enabled"));
+   }
+
+   @Test
+   public void negativeResultsAreInvalidated() {
+      ResourceCache cache = new ResourceCache(10, 60000L, 60000L);
+
+      cache.putNotExist(UID, cache.getVersion());
+      cache.putUnregistered("other", cache.getVersion());
+
+      assertTrue(cache.isNotExist(UID));
+      assertFalse(cache.isUnregistered(UID));
+      assertTrue(cache.isUnregistered("other"));
+
+      cache.invalidate(UID);
+
+      assertFalse(cache.isNotExist(UID));
+      assertTrue(cache.isUnregistered("other"));
+   }
+
+   @Test
+   public void negativeResultExpires() throws InterruptedException {
+      ResourceCache cache = new ResourceCache(10, 60000L, 20L);
+
+      cache.putNotExist(UID, cache.getVersion());
+
+      Thread.sleep(50L);
+
+      assertFalse(cache.isNotExist(UID));
+   }
+
+   @Test
+   public void copyOfNullIsNull() {
+      assertNull(ResourceCache.copy(null));
+      assertNotNull(ResourceCache.copy(new JSONObject()));
+   }
+
+   /*
+    * =============== PRIVATE METHODS ===============
+    */
+   private static JSONObject getResource(final String name) {
+      JSONObject json = null;
+      JSONObject jsonData = null;
+      JSONObject jsonMeta = null;
+      JSONArray arrayLabels = null;
+
+      arrayLabels = new JSONArray();
+      arrayLabels.add("finance");
+
+      jsonMeta = new JSONObject();
+      jsonMeta.put("name", name);
+      jsonMeta.put("labels", arrayLabels);
+
+      jsonData = new JSONObject();
+      jsonData.put("meta", jsonMeta);
+
+      json = new JSONObject();
+      json.put("uid", UID);
+      json.put("data", jsonData);
+
+      return json;
+   }
+
+   private static JSONObject getMeta(final JSONObject json) {
+      return (JSONObject) ((JSONObject) json.get("data")).get("meta");
+   }
+
+   private static String getName(final JSONObject json) {
+      return (String) getMeta(json).get("name");
+   }
+}
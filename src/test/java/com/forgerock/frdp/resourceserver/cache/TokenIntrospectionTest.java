@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2020, ForgeRock, Inc., All rights reserved
+ * Use subject to license terms.
+ */
+package com.forgerock.frdp.resourceserver.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.forgerock.frdp.common.ConstantsIF;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.junit.Test;
+
+/**
+ * Tests for the TokenIntrospection: scope matching and expiration
+ *
+ * @author Scott Fehrman, ForgeRock, Inc.
+ */
+public class TokenIntrospectionTest {
+
+   private static final String RESOURCE_ID = "6fc7ad8f-8b5f-4f0e-9d2a-0d4d6a1f5b7e";
+   private static final long NOW = 1600000000000L; // milliseconds
+   private static final long EXP = 1600000600L; // seconds, NOW + 10 minutes
+
+   @Test
+   public void grantedScopesMatchIgnoringCase() {
+      TokenIntrospection token = null;
+
+      token = new TokenIntrospection(getResponse(true, EXP, null, "meta", "Content"));
+
+      assertTrue(token.isActive());
+      assertTrue(token.hasScopes(RESOURCE_ID, new String[]{"meta"}, NOW));
+      assertTrue(token.hasScopes(RESOURCE_ID, new String[]{"META", "content"}, NOW));
+   }
+
+   @Test
+   public void allScopesMustBeGranted() {
+      TokenIntrospection token = null;
+
+      token = new TokenIntrospection(getResponse(true, EXP, null, "meta"));
+
+      assertFalse(token.hasScopes(RESOURCE_ID, new String[]{"meta", "content"}, NOW));
+      assertFalse(token.hasScopes(RESOURCE_ID, new String[]{"meta", ""}, NOW));
+      assertFalse(token.hasScopes(RESOURCE_ID, new String[]{}, NOW));
+      assertFalse(token.hasScopes(RESOURCE_ID, null, NOW));
+   }
+
+   @Test
+   public void otherResourceIsNotGranted() {
+      TokenIntrospection token = null;
+
+      token = new TokenIntrospection(getResponse(true, EXP, null, "meta"));
+
+      assertFalse(token.hasScopes("other", new String[]{"meta"}, NOW));
+      assertFalse(token.hasScopes(null, new String[]{"meta"}, NOW));
+      assertNull(token.getResourceScopes("other"));
+   }
+
+   @Test
+   public void inactiveTokenGrantsNothing() {
+      TokenIntrospection token = null;
+
+      token = new TokenIntrospection(getResponse(false, EXP, null, "meta"));
+
+      assertFalse(token.isActive());
+      assertFalse(token.hasScopes(RESOURCE_ID, new String[]{"meta"}, NOW));
+   }
+
+   @Test
+   public void expiredTokenGrantsNothing() {
+      TokenIntrospection token = null;
+
+      token = new TokenIntrospection(getResponse(true, EXP, null, "meta"));
+
+      assertEquals(EXP * 1000L, token.getExpires());
+      assertFalse(token.hasScopes(RESOURCE_ID, new String[]{"meta"}, EXP * 1000L));
+   }
+
+   @Test
+   public void expiredPermissionGrantsNothing() {
+      long permExp = EXP - 300L;
+      TokenIntrospection token = null;
+
+      token = new TokenIntrospection(getResponse(true, EXP, permExp, "meta"));
+
+      assertEquals(permExp * 1000L, token.getEarliestExpires());
+      assertTrue(token.hasScopes(RESOURCE_ID, new String[]{"meta"}, NOW));
+      assertFalse(token.hasScopes(RESOURCE_ID, new String[]{"meta"}, permExp * 1000L));
+   }
+
+   @Test
+   public void tokenWithoutExpiration() {
+      TokenIntrospection token = null;
+
+      token = new TokenIntrospection(getResponse(true, null, null, "meta"));
+
+      assertEquals(0L, token.getExpires());
+      assertEquals(0L, token.getEarliestExpires());
+      assertTrue(token.hasScopes(RESOURCE_ID, new String[]{"meta"}, NOW));
+   }
+
+   @Test
+   public void nullResponseIsInactive() {
+      TokenIntrospection token = new TokenIntrospection(null);
+
+      assertFalse(token.isActive());
+      assertFalse(token.hasScopes(RESOURCE_ID, new String[]{"meta"}, NOW));
+   }
+
+   /*
+    * =============== PRIVATE METHODS ===============
+    */
+   private static JSONObject getResponse(final boolean active, final Long exp,
+      final Long permExp, final String... scopes) {
+      JSONObject json = null;
+      JSONObject jsonPermission = null;
+      JSONArray arrayPermissions = null;
+      JSONArray arrayScopes = null;
+
+      arrayScopes = new JSONArray();
+
+      for (String scope : scopes) {
+         arrayScopes.add(scope);
+      }
+
+      jsonPermission = new JSONObject();
+      jsonPermission.put(ConstantsIF.RESOURCE_ID, RESOURCE_ID);
+      jsonPermission.put(ConstantsIF.RESOURCE_SCOPES, arrayScopes);
+
+      if (permExp != null) {
+         jsonPermission.put("exp", permExp);
+      }
+
+      arrayPermissions = new JSONArray();
+      arrayPermissions.add(jsonPermission);
+
+      json = new JSONObject();
+      json.put(ConstantsIF.ACTIVE, active);
+      json.put(ConstantsIF.PERMISSIONS, arrayPermissions);
+
+      if (exp != null) {
+         json.put("exp", exp);
+      }
+
+      return json;
+   }
+}
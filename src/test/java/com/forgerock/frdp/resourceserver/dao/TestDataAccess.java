@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2020, ForgeRock, Inc., All rights reserved
+ * Use subject to license terms.
+ */
+package com.forgerock.frdp.resourceserver.dao;
+
+import com.forgerock.frdp.dao.OperationIF;
+import com.forgerock.frdp.dao.rest.RestDataAccess;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+
+/**
+ * Data Access Object for tests: each operation is recorded and answered by
+ * a function, nothing is sent to a server.
+ *
+ * @author Scott Fehrman, ForgeRock, Inc.
+ */
+public class TestDataAccess extends RestDataAccess {
+
+   private final Function<OperationIF, OperationIF> _function;
+   private final List<OperationIF> _operations = new CopyOnWriteArrayList<>();
+
+   /**
+    * Constructor
+    *
+    * @param function Function that returns the output for an input
+    * @throws Exception could not create the Data Access Object
+    */
+   public TestDataAccess(final Function<OperationIF, OperationIF> function)
+      throws Exception {
+      super();
+
+      _function = function;
+
+      return;
+   }
+
+   @Override
+   public OperationIF execute(final OperationIF operInput) {
+      _operations.add(operInput);
+
+      return _function.apply(operInput);
+   }
+
+   /**
+    * Get the operations executed so far
+    *
+    * @return List of input operations, in order
+    */
+   public List<OperationIF> getOperations() {
+      return _operations;
+   }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2020, ForgeRock, Inc., All rights reserved
+ * Use subject to license terms.
+ */
+package com.forgerock.frdp.resourceserver.dao;
+
+import com.forgerock.frdp.config.ConfigurationManagerIF;
+import com.forgerock.frdp.dao.DataAccessIF;
+
+/**
+ * Data Access Registry for tests: returns the given Data Access Objects
+ * instead of connecting to MongoDB or the Authorization Server.
+ *
+ * @author Scott Fehrman, ForgeRock, Inc.
+ */
+public class TestDataAccessRegistry extends DataAccessRegistry {
+
+   private final DataAccessIF _mongoDAO;
+   private final DataAccessIF _authzServerDAO;
+
+   /**
+    * Constructor
+    *
+    * @param configMgr ConfigurationManagerIF management of configurations
+    * @param mongoDAO DataAccessIF used as the MongoDB DAO, may be null
+    * @param authzServerDAO DataAccessIF used as the AM DAO, may be null
+    */
+   public TestDataAccessRegistry(final ConfigurationManagerIF configMgr,
+      final DataAccessIF mongoDAO, final DataAccessIF authzServerDAO) {
+      super(configMgr);
+
+      _mongoDAO = mongoDAO;
+      _authzServerDAO = authzServerDAO;
+
+      return;
+   }
+
+   @Override
+   public synchronized DataAccessIF getMongoDAO() throws Exception {
+      return _mongoDAO;
+   }
+
+   @Override
+   public synchronized DataAccessIF getAuthzServerDAO() throws Exception {
+      return _authzServerDAO;
+   }
+}
@@ -0,0 +1,341 @@
+/*
+ * Copyright (c) 2020, ForgeRock, Inc., All rights reserved
+ * Use subject to license terms.
+ */
+package com.forgerock.frdp.resourceserver.handler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.forgerock.frdp.common.ConstantsIF;
+import com.forgerock.frdp.dao.Operation;
+import com.forgerock.frdp.dao.OperationIF;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.junit.Test;
+
+/**
+ * Tests for the JaxrsHandler
+ *
+ * @author Scott Fehrman, ForgeRock, Inc.
+ */
+public class JaxrsHandlerTest {
+
+   private static final String FAIL = "fail";
+
+   private final TestHandler _handler = new TestHandler();
+
+   /**
+    * One handler, many threads: each output must have the status and error
+    * of its own input, and the handler must stay "ready".
+    */
+   @Test
+   public void concurrentRequestsDoNotShareStatus() throws Exception {
+      int threads = 16;
+      int requests = 500;
+      CountDownLatch start = new CountDownLatch(1);
+      ExecutorService executor = null;
+      Queue<String> mismatches = new ConcurrentLinkedQueue<>();
+      List<Future<Integer>> futures = new ArrayList<>();
+
+      executor = Executors.newFixedThreadPool(threads);
+
+      try {
+         for (int t = 0; t < threads; t++) {
+            final int thread = t;
+
+            futures.add(executor.submit((Callable<Integer>) () -> {
+               start.await();
+
+               for (int i = 0; i < requests; i++) {
+                  String uid = "t" + thread + "-" + i;
+                  boolean fail = (i % 3 == 0);
+                  OperationIF operOutput = _handler.process(getReadInput(uid, fail));
+
+                  checkOutput(uid, fail, operOutput, mismatches);
+               }
+
+               return requests;
+            }));
+         }
+
+         start.countDown();
+
+         for (Future<Integer> future : futures) {
+            assertEquals(requests, future.get(60L, TimeUnit.SECONDS).intValue());
+         }
+      } finally {
+         executor.shutdownNow();
+      }
+
+      assertTrue(mismatches.size() + " mismatches, first: " + mismatches.peek(),
+         mismatches.isEmpty());
+      assertEquals(TestHandler.STATE.READY, _handler.getState());
+      assertFalse(_handler.isError());
+   }
+
+   @Test
+   public void failedRequestDoesNotFailTheNext() {
+      OperationIF operOutput = null;
+
+      operOutput = _handler.process(getReadInput("a", true));
+
+      assertTrue(operOutput.isError());
+      assertEquals(TestHandler.STATE.FAILED, operOutput.getState());
+
+      operOutput = _handler.process(getReadInput("b", false));
+
+      assertFalse(operOutput.isError());
+      assertEquals(TestHandler.STATE.SUCCESS, operOutput.getState());
+      assertEquals("read: b", operOutput.getStatus());
+   }
+
+   /**
+    * Fan-out latency: 16 calls of 100 ms, default parallelism (8), must take
+    * about 2 rounds, not 16
+    */
+   @Test
+   public void fanOutRunsCallsConcurrently() {
+      long start = 0L;
+      long elapsed = 0L;
+      List<Integer> inputs = new ArrayList<>();
+      List<String> outputs = null;
+
+      for (int i = 0; i < 16; i++) {
+         inputs.add(i);
+      }
+
+      start = System.currentTimeMillis();
+
+      outputs = _handler.fanOut(inputs, i -> {
+         sleep(100L);
+         return "out-" + i;
+      });
+
+      elapsed = System.currentTimeMillis() - start;
+
+      for (int i = 0; i < inputs.size(); i++) {
+         assertEquals("out-" + i, outputs.get(i));
+      }
+
+      assertTrue("elapsed " + elapsed + "ms", elapsed < 800L);
+   }
+
+   @Test
+   public void firstPageHasCursor() {
+      JSONObject jsonPage = null;
+
+      jsonPage = _handler.getPage(getData("c", "a", "e", "b", "d"), 2L, null);
+
+      assertEquals(list("a", "b"), getUids(jsonPage));
+      assertEquals(2, jsonPage.get(ConstantsIF.QUANTITY));
+      assertEquals("b", jsonPage.get(JaxrsHandlerIF.PAGE_CURSOR));
+   }
+
+   @Test
+   public void middlePageStartsAfterCursor() {
+      JSONObject jsonPage = null;
+
+      jsonPage = _handler.getPage(getData("c", "a", "e", "b", "d"), 2L, "b");
+
+      assertEquals(list("c", "d"), getUids(jsonPage));
+      assertEquals("d", jsonPage.get(JaxrsHandlerIF.PAGE_CURSOR));
+   }
+
+   @Test
+   public void lastPageHasNoCursor() {
+      JSONObject jsonPage = null;
+
+      jsonPage = _handler.getPage(getData("c", "a", "e", "b", "d"), 2L, "d");
+
+      assertEquals(list("e"), getUids(jsonPage));
+      assertFalse(jsonPage.containsKey(JaxrsHandlerIF.PAGE_CURSOR));
+   }
+
+   @Test
+   public void exactPageHasNoCursor() {
+      JSONObject jsonPage = null;
+
+      jsonPage = _handler.getPage(getData("b", "a", "c", "d"), 2L, "b");
+
+      assertEquals(list("c", "d"), getUids(jsonPage));
+      assertFalse(jsonPage.containsKey(JaxrsHandlerIF.PAGE_CURSOR));
+   }
+
+   @Test
+   public void cursorPastTheEndIsEmpty() {
+      JSONObject jsonPage = null;
+
+      jsonPage = _handler.getPage(getData("a", "b", "c"), 2L, "z");
+
+      assertEquals(new ArrayList<String>(), getUids(jsonPage));
+      assertEquals(0, jsonPage.get(ConstantsIF.QUANTITY));
+      assertFalse(jsonPage.containsKey(JaxrsHandlerIF.PAGE_CURSOR));
+   }
+
+   @Test
+   public void resultsWithoutUidAreSkipped() {
+      JSONObject jsonPage = null;
+
+      jsonPage = _handler.getPage(getData("b", null, "a", ""), 5L, null);
+
+      assertEquals(list("a", "b"), getUids(jsonPage));
+      assertFalse(jsonPage.containsKey(JaxrsHandlerIF.PAGE_CURSOR));
+   }
+
+   @Test
+   public void noPageSizeReturnsInput() {
+      JSONObject jsonData = getData("b", "a");
+
+      assertSame(jsonData, _handler.getPage(jsonData, 0L, null));
+      assertSame(null, _handler.getPage(null, 2L, null));
+   }
+
+   /*
+    * =============== PRIVATE METHODS ===============
+    */
+   private static JSONObject getData(final String... uids) {
+      JSONObject json = null;
+      JSONObject jsonResult = null;
+      JSONArray arrayResults = null;
+
+      arrayResults = new JSONArray();
+
+      for (String uid : uids) {
+         jsonResult = new JSONObject();
+
+         if (uid != null) {
+            jsonResult.put(ConstantsIF.UID, uid);
+         }
+
+         jsonResult.put(ConstantsIF.DATA, new JSONObject());
+         arrayResults.add(jsonResult);
+      }
+
+      json = new JSONObject();
+      json.put(ConstantsIF.QUANTITY, arrayResults.size());
+      json.put(ConstantsIF.RESULTS, arrayResults);
+
+      return json;
+   }
+
+   private static List<String> getUids(final JSONObject json) {
+      List<String> uids = new ArrayList<>();
+
+      for (Object obj : (JSONArray) json.get(ConstantsIF.RESULTS)) {
+         uids.add((String) ((JSONObject) obj).get(ConstantsIF.UID));
+      }
+
+      return uids;
+   }
+
+   private static List<String> list(final String... values) {
+      List<String> list = new ArrayList<>();
+
+      for (String value : values) {
+         list.add(value);
+      }
+
+      return list;
+   }
+
+   private static OperationIF getReadInput(final String uid, final boolean fail) {
+      JSONObject jsonInput = null;
+      OperationIF operInput = null;
+
+      jsonInput = new JSONObject();
+      jsonInput.put(ConstantsIF.UID, uid);
+      jsonInput.put(FAIL, fail);
+
+      operInput = new Operation(OperationIF.TYPE.READ);
+      operInput.setJSON(jsonInput);
+
+      return operInput;
+   }
+
+   private static void sleep(final long millis) {
+      try {
+         Thread.sleep(millis);
+      } catch (InterruptedException ex) {
+         Thread.currentThread().interrupt();
+      }
+
+      return;
+   }
+
+   private static void checkOutput(final String uid, final boolean fail,
+      final OperationIF operOutput, final Queue<String> mismatches) {
+      String status = operOutput.getStatus();
+
+      if (fail) {
+         if (!operOutput.isError() || operOutput.getState() != TestHandler.STATE.FAILED
+            || status == null || !status.endsWith("invalid: " + uid)) {
+            mismatches.add(uid + ": expected failure, got " + operOutput.getState()
+               + " '" + status + "'");
+         }
+      } else {
+         if (operOutput.isError() || operOutput.getState() != TestHandler.STATE.SUCCESS
+            || !("read: " + uid).equals(status)
+            || !uid.equals(operOutput.getJSON().get(ConstantsIF.UID))) {
+            mismatches.add(uid + ": expected success, got " + operOutput.getState()
+               + " '" + status + "'");
+         }
+      }
+
+      return;
+   }
+
+   /**
+    * Minimal handler: "validate" fails if the input has "fail", "read"
+    * returns the input "uid"
+    */
+   private static class TestHandler extends JaxrsHandler {
+
+      TestHandler() {
+         super(null, null, null);
+
+         this.setState(STATE.READY);
+
+         return;
+      }
+
+      @Override
+      protected void validate(final OperationIF oper) throws Exception {
+         if (Boolean.TRUE.equals(oper.getJSON().get(FAIL))) {
+            throw new Exception("invalid: " + oper.getJSON().get(ConstantsIF.UID));
+         }
+
+         return;
+      }
+
+      @Override
+      protected OperationIF read(final OperationIF operInput) {
+         OperationIF operOutput = null;
+         JSONObject jsonOutput = null;
+
+         Thread.yield(); // let other requests interleave
+
+         jsonOutput = new JSONObject();
+         jsonOutput.put(ConstantsIF.UID, operInput.getJSON().get(ConstantsIF.UID));
+
+         operOutput = new Operation(OperationIF.TYPE.READ);
+         operOutput.setJSON(jsonOutput);
+         operOutput.setState(STATE.SUCCESS);
+         operOutput.setStatus("read: " + jsonOutput.get(ConstantsIF.UID));
+
+         return operOutput;
+      }
+   }
+}
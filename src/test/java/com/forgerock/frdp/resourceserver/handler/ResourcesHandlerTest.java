@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2020, ForgeRock, Inc., All rights reserved
+ * Use subject to license terms.
+ */
+package com.forgerock.frdp.resourceserver.handler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import com.forgerock.frdp.common.ConstantsIF;
+import com.forgerock.frdp.config.BasicConfiguration;
+import com.forgerock.frdp.config.ConfigurationIF;
+import com.forgerock.frdp.config.ConfigurationManager;
+import com.forgerock.frdp.config.ConfigurationManagerIF;
+import com.forgerock.frdp.dao.Operation;
+import com.forgerock.frdp.dao.OperationIF;
+import com.forgerock.frdp.resourceserver.dao.TestDataAccess;
+import com.forgerock.frdp.resourceserver.dao.TestDataAccessRegistry;
+import com.forgerock.frdp.utils.JSON;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for the ResourcesHandler register id lookups (getResourcesByRegisterIds)
+ *
+ * @author Scott Fehrman, ForgeRock, Inc.
+ */
+public class ResourcesHandlerTest {
+
+   private static final int REGISTERED = 250; // "reg-0" ... "reg-249"
+
+   private TestDataAccess _mongoDAO = null;
+   private ResourcesHandler _handler = null;
+
+   @Before
+   public void setUp() throws Exception {
+      ConfigurationManagerIF configMgr = null;
+
+      configMgr = getConfigMgr();
+
+      _mongoDAO = new TestDataAccess(ResourcesHandlerTest::search);
+      _handler = new ResourcesHandler(configMgr, null,
+         new TestDataAccessRegistry(configMgr, _mongoDAO, null));
+
+      return;
+   }
+
+   @Test
+   public void registerIdsAreReadInBatches() throws Exception {
+      Map<String, JSONObject> mapResources = null;
+
+      mapResources = _handler.getResourcesByRegisterIds(getRegisterIds(260));
+
+      assertEquals(REGISTERED, mapResources.size());
+      assertEquals("res-7", JSON.getString(mapResources.get("reg-7"), ConstantsIF.UID));
+      assertFalse(mapResources.containsKey("reg-255")); // not registered
+      assertEquals(list(100, 100, 60), getBatchSizes());
+   }
+
+   @Test
+   public void cachedRegisterIdsAreNotReadAgain() throws Exception {
+      Map<String, JSONObject> mapResources = null;
+
+      _handler.getResourcesByRegisterIds(getRegisterIds(260));
+      _mongoDAO.getOperations().clear();
+
+      mapResources = _handler.getResourcesByRegisterIds(getRegisterIds(260));
+
+      assertEquals(REGISTERED, mapResources.size());
+      assertEquals(list(10), getBatchSizes()); // only the missing ones
+   }
+
+   @Test
+   public void noRegisterIdsNoQuery() throws Exception {
+      assertEquals(0, _handler.getResourcesByRegisterIds(new LinkedHashSet<>()).size());
+      assertEquals(0, _handler.getResourcesByRegisterIds(null).size());
+      assertEquals(0, _mongoDAO.getOperations().size());
+   }
+
+   /*
+    * =============== PRIVATE METHODS ===============
+    */
+   private List<Integer> getBatchSizes() {
+      List<Integer> sizes = new ArrayList<>();
+
+      for (OperationIF oper : _mongoDAO.getOperations()) {
+         sizes.add(JSON.getArray(oper.getJSON(), ConstantsIF.QUERY + "."
+            + ConstantsIF.QUERIES).size());
+      }
+
+      return sizes;
+   }
+
+   /**
+    * MongoDB search: "or" of "data.register" equality queries
+    */
+   private static OperationIF search(final OperationIF operInput) {
+      int num = 0;
+      String registerId = null;
+      OperationIF operOutput = null;
+      JSONObject jsonData = null;
+      JSONObject jsonResource = null;
+      JSONObject jsonOutput = null;
+      JSONArray arrayResults = new JSONArray();
+
+      for (Object obj : JSON.getArray(operInput.getJSON(),
+         ConstantsIF.QUERY + "." + ConstantsIF.QUERIES)) {
+         registerId = JSON.getString((JSONObject) obj, ConstantsIF.VALUE);
+         num = Integer.parseInt(registerId.substring("reg-".length()));
+
+         if (num < REGISTERED) {
+            jsonData = new JSONObject();
+            jsonData.put(ConstantsIF.OWNER, "bjensen");
+            jsonData.put(ConstantsIF.REGISTER, registerId);
+
+            jsonResource = new JSONObject();
+            jsonResource.put(ConstantsIF.UID, "res-" + num);
+            jsonResource.put(ConstantsIF.DATA, jsonData);
+
+            arrayResults.add(jsonResource);
+         }
+      }
+
+      jsonOutput = new JSONObject();
+      jsonOutput.put(ConstantsIF.QUANTITY, arrayResults.size());
+      jsonOutput.put(ConstantsIF.RESULTS, arrayResults);
+
+      operOutput = new Operation(OperationIF.TYPE.SEARCH);
+      operOutput.setState(ResourcesHandler.STATE.SUCCESS);
+      operOutput.setJSON(jsonOutput);
+
+      return operOutput;
+   }
+
+   private static Set<String> getRegisterIds(final int count) {
+      Set<String> registerIds = new LinkedHashSet<>();
+
+      for (int i = 0; i < count; i++) {
+         registerIds.add("reg-" + i);
+      }
+
+      return registerIds;
+   }
+
+   private static List<Integer> list(final Integer... values) {
+      List<Integer> list = new ArrayList<>();
+
+      for (Integer value : values) {
+         list.add(value);
+      }
+
+      return list;
+   }
+
+   private static ConfigurationManagerIF getConfigMgr() {
+      JSONObject jsonResources = null;
+      JSONObject jsonCollections = null;
+      JSONObject jsonNoSQL = null;
+      JSONObject jsonRS = null;
+      JSONObject json = null;
+      ConfigurationIF config = null;
+      ConfigurationManagerIF configMgr = null;
+
+      jsonResources = new JSONObject();
+      jsonResources.put("name", "resources");
+
+      jsonCollections = new JSONObject();
+      jsonCollections.put("resources", jsonResources);
+
+      jsonNoSQL = new JSONObject();
+      jsonNoSQL.put("database", "resourceserver");
+      jsonNoSQL.put("collections", jsonCollections);
+
+      jsonRS = new JSONObject();
+      jsonRS.put("nosql", jsonNoSQL);
+
+      json = new JSONObject();
+      json.put("rs", jsonRS);
+
+      config = new BasicConfiguration();
+      config.setJSON(json);
+
+      configMgr = new ConfigurationManager();
+      configMgr.setConfiguration(ConstantsIF.RESOURCE, config);
+
+      return configMgr;
+   }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2020, ForgeRock, Inc., All rights reserved
+ * Use subject to license terms.
+ */
+package com.forgerock.frdp.resourceserver.rest;
+
+import static org.junit.Assert.assertEquals;
+
+import com.forgerock.frdp.common.ConstantsIF;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.junit.Test;
+
+/**
+ * Tests for the RSResource JSON response entity (getJSONEntity)
+ *
+ * @author Scott Fehrman, ForgeRock, Inc.
+ */
+public class RSResourceTest {
+
+   private final TestResource _resource = new TestResource();
+
+   @Test
+   public void entityIsTheJSONString() throws Exception {
+      JSONObject json = null;
+
+      json = getResults(3);
+      json.put(ConstantsIF.NAME, "café “quoted” \\ \"/\" \n");
+
+      assertEquals(json.toString(), write(json));
+   }
+
+   @Test
+   public void largeEntityIsTheJSONString() throws Exception {
+      JSONObject json = getResults(10000);
+
+      assertEquals(json.toString(), write(json));
+   }
+
+   /*
+    * =============== PRIVATE METHODS ===============
+    */
+   private String write(final JSONObject json) throws Exception {
+      ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+      _resource.getJSONEntity(json).write(output);
+
+      return new String(output.toByteArray(), StandardCharsets.UTF_8);
+   }
+
+   private static JSONObject getResults(final int count) {
+      JSONObject json = null;
+      JSONObject jsonResult = null;
+      JSONArray arrayResults = new JSONArray();
+
+      for (int i = 0; i < count; i++) {
+         jsonResult = new JSONObject();
+         jsonResult.put(ConstantsIF.UID, "uid-" + i);
+         jsonResult.put(ConstantsIF.QUANTITY, i);
+
+         arrayResults.add(jsonResult);
+      }
+
+      json = new JSONObject();
+      json.put(ConstantsIF.QUANTITY, count);
+      json.put(ConstantsIF.RESULTS, arrayResults);
+
+      return json;
+   }
+
+   /**
+    * Minimal resource, only used to call getJSONEntity()
+    */
+   private static class TestResource extends RSResource {
+   }
+}